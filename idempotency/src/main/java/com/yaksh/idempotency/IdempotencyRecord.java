@@ -0,0 +1,60 @@
+package com.yaksh.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Represents a request made with an idempotency key and its stored response.
+ * This class is mapped to the "idempotency_keys" collection in MongoDB; records are removed by a
+ * TTL index once they expire.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    /**
+     * The endpoint scope and the idempotency key, in the format "{scope}:{key}".
+     */
+    @Id
+    private String id;
+
+    /**
+     * The state of the request.
+     */
+    private IdempotencyStatus status;
+
+    /**
+     * A hash of the request body, to reject a key reused for a different request.
+     */
+    private String requestHash;
+
+    /**
+     * A token of the request that owns the key while it is running, so only that request renews,
+     * completes or releases it.
+     */
+    private String owner;
+
+    /**
+     * The JSON response of the completed request.
+     */
+    private String response;
+
+    /**
+     * Until when the request that owns the key is considered running.
+     */
+    private Instant lockedUntil;
+
+    /**
+     * When the record expires and the key can be used again.
+     */
+    private Instant expiresAt;
+}
@@ -0,0 +1,9 @@
+package com.yaksh.idempotency;
+
+/**
+ * Enum representing the states of a request made with an idempotency key.
+ */
+public enum IdempotencyStatus {
+    IN_PROGRESS, // The first request with the key is running
+    COMPLETED // The response of the first request is stored and replayed
+}
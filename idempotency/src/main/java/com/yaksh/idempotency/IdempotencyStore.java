@@ -0,0 +1,306 @@
+package com.yaksh.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Makes requests idempotent. The first request with an {@code Idempotency-Key} runs and its response
+ * is stored; a replay of the key, for example a retry after a timeout, gets the stored response
+ * without running the request again. A replay that arrives while the first request is still running
+ * waits for it. The running request renews its lock on the key every third of
+ * {@code idempotency.lock-timeout-seconds}, so the lock only times out, and a replay only takes the key
+ * over, once the instance running the request stopped.
+ * <p>
+ * Failures are not stored, so the request can be retried with the same key. Each service registers one
+ * store as a bean, telling which of its responses are replayed and how its errors are reported.
+ *
+ * @param <R> The response type of the service.
+ */
+@Slf4j
+public class IdempotencyStore<R> {
+    public static final String HEADER = "Idempotency-Key";
+    private static final String STATUS = "status";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+    private static final String OWNER = "owner";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Class<R> responseType;
+    private final Predicate<R> replayable;
+    private final Function<String, RuntimeException> invalidRequest;
+    private final Function<String, RuntimeException> keyInProgress;
+
+    private final AtomicBoolean ttlIndexEnsured = new AtomicBoolean();
+    private final ScheduledExecutorService lockRenewer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("idempotency-lock-"));
+
+    // How long a stored response is replayed
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    // How long a request owns its key after the last renewal of its lock, before another request may take it over
+    @Value("${idempotency.lock-timeout-seconds:60}")
+    private long lockTimeoutSeconds;
+
+    // How long a replay waits for the running request before giving up
+    @Value("${idempotency.wait-ms:5000}")
+    private long waitMs;
+
+    /**
+     * Creates a store for the responses of a service.
+     *
+     * @param mongoTemplate  The MongoDB template the records are stored with.
+     * @param objectMapper   The mapper the requests are hashed and the responses stored with.
+     * @param responseType   The response type of the service.
+     * @param replayable     Tells whether a response is stored and replayed, false to let the request be retried.
+     * @param invalidRequest Creates the error for a request that cannot be run, such as a key reused for a different request.
+     * @param keyInProgress  Creates the error for a replay that gave up waiting for the request running with its key.
+     */
+    public IdempotencyStore(MongoTemplate mongoTemplate, ObjectMapper objectMapper, Class<R> responseType,
+                            Predicate<R> replayable,
+                            Function<String, RuntimeException> invalidRequest,
+                            Function<String, RuntimeException> keyInProgress) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.responseType = responseType;
+        this.replayable = replayable;
+        this.invalidRequest = invalidRequest;
+        this.keyInProgress = keyInProgress;
+    }
+
+    /**
+     * Runs a request once per idempotency key.
+     *
+     * @param scope   The endpoint, so the same key can be used on different endpoints.
+     * @param key     The idempotency key sent by the client, or null to run the request without one.
+     * @param request The request body, to detect a key reused for a different request.
+     * @param action  The request to run.
+     * @return The response of the request, or the stored response of an earlier request with the key.
+     */
+    public R execute(String scope, String key, Object request, Supplier<R> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        ensureTtlIndex();
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + waitMs;
+
+        while (!claim(id, requestHash, owner)) {
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                // Released in the meantime, try to claim it again
+                continue;
+            }
+            if (!requestHash.equals(existing.getRequestHash())) {
+                throw invalidRequest.apply("Idempotency-Key was already used for a different request");
+            }
+            if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                log.info("Replaying stored response for idempotency key {}", id);
+                return readResponse(existing.getResponse());
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw keyInProgress.apply("A request with this Idempotency-Key is still running");
+            }
+            pause();
+        }
+
+        long renewalMs = Math.max(1, TimeUnit.SECONDS.toMillis(lockTimeoutSeconds) / 3);
+        ScheduledFuture<?> renewal = lockRenewer.scheduleAtFixedRate(() -> renew(id, owner), renewalMs, renewalMs, TimeUnit.MILLISECONDS);
+        R response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(id, owner);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
+        if (response != null && replayable.test(response)) {
+            complete(id, owner, response);
+        } else {
+            release(id, owner);
+        }
+        return response;
+    }
+
+    /**
+     * Takes ownership of a key: inserts a new record, or takes over an expired one or one whose
+     * owner stopped without finishing.
+     *
+     * @param id          The record ID.
+     * @param requestHash The hash of the request body.
+     * @param owner       The token of the caller, written to the record.
+     * @return true if the caller owns the key and must run the request.
+     */
+    private boolean claim(String id, String requestHash, String owner) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(id)
+                    .status(IdempotencyStatus.IN_PROGRESS)
+                    .requestHash(requestHash)
+                    .owner(owner)
+                    .lockedUntil(now.plusSeconds(lockTimeoutSeconds))
+                    .expiresAt(now.plusSeconds(ttlSeconds))
+                    .build());
+            return true;
+        } catch (DuplicateKeyException e) {
+            Query abandoned = Query.query(Criteria.where("_id").is(id).orOperator(
+                    Criteria.where(EXPIRES_AT).lt(now),
+                    Criteria.where(STATUS).is(IdempotencyStatus.IN_PROGRESS).and(LOCKED_UNTIL).lt(now).and("requestHash").is(requestHash)));
+            Update takeOver = new Update()
+                    .set(STATUS, IdempotencyStatus.IN_PROGRESS)
+                    .set("requestHash", requestHash)
+                    .set(OWNER, owner)
+                    .set(LOCKED_UNTIL, now.plusSeconds(lockTimeoutSeconds))
+                    .set(EXPIRES_AT, now.plusSeconds(ttlSeconds))
+                    .unset("response");
+            return mongoTemplate.updateFirst(abandoned, takeOver, IdempotencyRecord.class).getModifiedCount() > 0;
+        }
+    }
+
+    /**
+     * Extends the lock of a running request, unless another request took the key over.
+     *
+     * @param id    The record ID.
+     * @param owner The token of the running request.
+     */
+    private void renew(String id, String owner) {
+        try {
+            long renewed = mongoTemplate.updateFirst(owned(id, owner),
+                    new Update().set(LOCKED_UNTIL, Instant.now().plusSeconds(lockTimeoutSeconds)),
+                    IdempotencyRecord.class).getModifiedCount();
+            if (renewed == 0) {
+                log.warn("Lost the lock on idempotency key {} while its request was running", id);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to renew the lock on idempotency key {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the response of a finished request.
+     *
+     * @param id       The record ID.
+     * @param owner    The token of the request.
+     * @param response The response.
+     */
+    private void complete(String id, String owner, R response) {
+        try {
+            long stored = mongoTemplate.updateFirst(owned(id, owner),
+                    new Update().set(STATUS, IdempotencyStatus.COMPLETED).set("response", objectMapper.writeValueAsString(response)),
+                    IdempotencyRecord.class).getModifiedCount();
+            if (stored == 0) {
+                log.warn("Idempotency key {} was taken over before its response was stored", id);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The request succeeded, so report it even if a replay will not find its response
+            log.error("Failed to store the response for idempotency key {}: {}", id, e.getMessage());
+            release(id, owner);
+        }
+    }
+
+    /**
+     * Frees a key whose request failed, so it can be retried.
+     *
+     * @param id    The record ID.
+     * @param owner The token of the request.
+     */
+    private void release(String id, String owner) {
+        try {
+            mongoTemplate.remove(owned(id, owner), IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            log.error("Failed to release idempotency key {}, it is freed when its lock times out: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Selects the record of a key while the request of an owner is running with it.
+     *
+     * @param id    The record ID.
+     * @param owner The token of the request.
+     * @return The query.
+     */
+    private static Query owned(String id, String owner) {
+        return Query.query(Criteria.where("_id").is(id).and(STATUS).is(IdempotencyStatus.IN_PROGRESS).and(OWNER).is(owner));
+    }
+
+    /**
+     * Stops renewing locks when the service shuts down; the keys of unfinished requests time out.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lockRenewer.shutdownNow();
+    }
+
+    private R readResponse(String json) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException e) {
+            throw invalidRequest.apply("Stored response could not be read: " + e.getMessage());
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw invalidRequest.apply("Request could not be hashed: " + e.getMessage());
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw keyInProgress.apply("Interrupted while waiting for the running request");
+        }
+    }
+
+    /**
+     * Creates the TTL index that removes expired records, once per process.
+     */
+    private void ensureTtlIndex() {
+        if (ttlIndexEnsured.compareAndSet(false, true)) {
+            try {
+                mongoTemplate.indexOps(IdempotencyRecord.class)
+                        .ensureIndex(new Index().on(EXPIRES_AT, Sort.Direction.ASC).expire(Duration.ZERO));
+            } catch (RuntimeException e) {
+                ttlIndexEnsured.set(false);
+                log.warn("Failed to create the idempotency TTL index: {}", e.getMessage());
+            }
+        }
+    }
+}
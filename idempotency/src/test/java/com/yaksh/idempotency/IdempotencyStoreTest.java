@@ -0,0 +1,216 @@
+package com.yaksh.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+    private static final String ID = "book:key-1";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyStore<Booking> store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore<>(mongoTemplate, objectMapper, Booking.class,
+                Booking::booked, IllegalArgumentException::new, IllegalStateException::new);
+        ReflectionTestUtils.setField(store, "ttlSeconds", 86400L);
+        ReflectionTestUtils.setField(store, "lockTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(store, "waitMs", 200L);
+        when(mongoTemplate.indexOps(IdempotencyRecord.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void replaysTheStoredResponseOfTheSameRequest() {
+        Booking booked = store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR1"));
+        IdempotencyRecord stored = storedRecord();
+
+        claimedBySomeoneElse(stored);
+        Booking replayed = store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR2"));
+
+        assertThat(replayed).isEqualTo(booked);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void rejectsTheKeyForADifferentRequest() {
+        store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR1"));
+        IdempotencyRecord stored = storedRecord();
+
+        claimedBySomeoneElse(stored);
+
+        assertThatThrownBy(() -> store.execute("book", "key-1", Map.of("seats", 3), () -> book("PNR2")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("different request");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void waitsForARunningRequestAndGivesUp() {
+        store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR1"));
+        IdempotencyRecord running = storedRecord();
+        running.setStatus(IdempotencyStatus.IN_PROGRESS);
+        running.setResponse(null);
+
+        claimedBySomeoneElse(running);
+
+        assertThatThrownBy(() -> store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR2")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void takesOverAKeyWhoseLockExpired() {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("exists"));
+
+        Booking booked = store.execute("book", "key-1", Map.of("seats", 2), () -> book("PNR1"));
+
+        assertThat(booked.pnr()).isEqualTo("PNR1");
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(claim.capture(), any(Update.class), eq(IdempotencyRecord.class));
+        Document takeOver = claim.getAllValues().get(0).getQueryObject();
+        assertThat(takeOver.getList("$or", Document.class))
+                .anySatisfy(expired -> assertThat(expired).containsKeys("lockedUntil", "requestHash"));
+        verify(mongoTemplate, never()).findById(any(), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void releasesTheKeyWhenTheRequestFails() {
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+
+        assertThatThrownBy(() -> store.execute("book", "key-1", Map.of("seats", 2), () -> {
+            throw new IllegalStateException("No seats left");
+        })).hasMessage("No seats left");
+
+        verify(mongoTemplate).insert(inserted.capture());
+        verify(mongoTemplate).remove(argThat((Query query) -> ownedBy(query, inserted.getValue().getOwner())), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), argThat(IdempotencyStoreTest::completes), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void releasesTheKeyOfAResponseThatIsNotReplayed() {
+        store.execute("book", "key-1", Map.of("seats", 2), () -> new Booking(null, false));
+
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), argThat(IdempotencyStoreTest::completes), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void renewsTheLockWhileTheRequestRuns() {
+        ReflectionTestUtils.setField(store, "lockTimeoutSeconds", 1L);
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+
+        store.execute("book", "key-1", Map.of("seats", 2), () -> {
+            verify(mongoTemplate, timeout(2000)).updateFirst(
+                    argThat((Query query) -> ownedBy(query, ownerOfInsert())),
+                    argThat((Update update) -> set(update).containsKey("lockedUntil")),
+                    eq(IdempotencyRecord.class));
+            return book("PNR1");
+        });
+
+        verify(mongoTemplate).insert(inserted.capture());
+        assertThat(inserted.getValue().getLockedUntil()).isNotNull();
+    }
+
+    @Test
+    void runsRequestsWithoutAKey() {
+        store.execute("book", null, Map.of("seats", 2), () -> book("PNR1"));
+
+        assertThat(runs).hasValue(1);
+        verify(mongoTemplate, never()).insert(any(IdempotencyRecord.class));
+    }
+
+    private Booking book(String pnr) {
+        runs.incrementAndGet();
+        return new Booking(pnr, true);
+    }
+
+    /**
+     * Rebuilds the record as the first request left it: inserted, then completed with its response.
+     */
+    private IdempotencyRecord storedRecord() {
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        ArgumentCaptor<Update> completed = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), argThat(IdempotencyStoreTest::completes), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), completed.capture(), eq(IdempotencyRecord.class));
+        IdempotencyRecord record = inserted.getValue();
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponse(completed.getAllValues().stream()
+                .filter(IdempotencyStoreTest::completes)
+                .map(update -> set(update).getString("response"))
+                .findFirst()
+                .orElseThrow());
+        return record;
+    }
+
+    /**
+     * Makes the key taken and not abandoned, so a request only finds the given record.
+     */
+    private void claimedBySomeoneElse(IdempotencyRecord record) {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException(ID));
+        when(mongoTemplate.updateFirst(argThat((Query query) -> query.getQueryObject().containsKey("$or")), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.findById(ID, IdempotencyRecord.class)).thenReturn(record);
+    }
+
+    private String ownerOfInsert() {
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        return inserted.getValue().getOwner();
+    }
+
+    private static boolean ownedBy(Query query, String owner) {
+        return owner != null && owner.equals(query.getQueryObject().get("owner"));
+    }
+
+    private static boolean completes(Update update) {
+        return update != null && IdempotencyStatus.COMPLETED.equals(set(update).get("status"));
+    }
+
+    private static Document set(Update update) {
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        return set == null ? new Document() : set;
+    }
+
+    /**
+     * A response of the service under test; only booked responses are replayed.
+     */
+    record Booking(String pnr, boolean booked) {
+    }
+
+}
@@ -51,4 +51,10 @@ public class TicketRequestDTO {
      * This helps in determining the end time of the journey.
      */
     private LocalDateTime reachingTimeAtDestination;
+
+    /**
+     * The ID to create the ticket with, chosen by the caller when it tells the user the ticket ID
+     * before the ticket exists. A new ID is generated if it is not set.
+     */
+    private String ticketId;
 }
\ No newline at end of file
@@ -47,12 +47,18 @@ public interface TrainClient {
      * @param trainPrn                  The unique identifier (PRN) of the train.
      * @param travelDate                The date of travel.
      * @param numberOfSeatsToBeBooked   The number of seats to be booked.
+     * @param source                    The station where the journey starts.
+     * @param destination               The station where the journey ends.
+     * @param idempotencyKey            The key that makes a retried booking return the seats of the first one.
      * @return ResponseDataDTO containing the result of the booking operation.
      */
     @PostMapping("/v1/seats/bookSeats")
     ResponseDataDTO bookSeats(
+            @RequestHeader("Idempotency-Key") String idempotencyKey,
             @RequestParam("trainPrn") String trainPrn,
             @RequestParam("travelDate") LocalDate travelDate,
-            @RequestParam("numberOfSeatsToBeBooked") int numberOfSeatsToBeBooked
+            @RequestParam("numberOfSeatsToBeBooked") int numberOfSeatsToBeBooked,
+            @RequestParam("source") String source,
+            @RequestParam("destination") String destination
     );
 }
\ No newline at end of file
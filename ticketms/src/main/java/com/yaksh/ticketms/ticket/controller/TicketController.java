@@ -1,5 +1,6 @@
 package com.yaksh.ticketms.ticket.controller;
 
+import com.yaksh.idempotency.IdempotencyStore;
 import com.yaksh.ticketms.ticket.DTO.ResponseDataDTO;
 import com.yaksh.ticketms.ticket.DTO.TicketRequestDTO;
 import com.yaksh.ticketms.ticket.service.TicketService;
@@ -23,6 +24,7 @@ public class TicketController {
 
     // Service layer dependency to handle ticket-related operations
     private final TicketService ticketService;
+    private final IdempotencyStore<ResponseDataDTO> idempotencyStore;
 
     /**
      * Finds a ticket by its ID.
@@ -57,17 +59,31 @@ public class TicketController {
         return ResponseEntity.ok(ticketService.cancelTicket(ticketId));
     }
 
+    /**
+     * Withdraws a ticket whose seats were lost before it was created, without freeing any seats.
+     * @param ticketId The ID of the ticket to withdraw.
+     * @return ResponseDataDTO containing a success message, also if the ticket does not exist.
+     */
+    @PostMapping("/withdrawTicket/{ticketId}")
+    public ResponseEntity<ResponseDataDTO> withdrawTicket(@PathVariable String ticketId) {
+        // Delete the ticket and leave its seats to the train service
+        return ResponseEntity.ok(ticketService.withdrawTicket(ticketId));
+    }
+
     /**
      * Creates a new ticket.
      * @param ticketRequest The ticket request object containing the details of the new ticket.
+     * @param idempotencyKey Optional key; a replayed request with the same key gets the stored ticket.
      * @return ResponseDataDTO containing the details of the newly created ticket.
      */
     @PostMapping("/createTicket")
-    public ResponseEntity<ResponseDataDTO> createNewTicket(@RequestBody TicketRequestDTO ticketRequest) {
+    public ResponseEntity<ResponseDataDTO> createNewTicket(@RequestBody TicketRequestDTO ticketRequest,
+                                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         // Log the creation of a new ticket for the specified user
         log.info("Creating new ticket for user: {}", ticketRequest.getUserId());
         // Create and return the details of the new ticket
-        return ResponseEntity.ok(ticketService.createNewTicket(ticketRequest));
+        return ResponseEntity.ok(idempotencyStore.execute("create-ticket", idempotencyKey, ticketRequest,
+                () -> ticketService.createNewTicket(ticketRequest)));
     }
 
     /**
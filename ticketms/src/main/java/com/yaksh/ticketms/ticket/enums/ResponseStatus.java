@@ -26,6 +26,7 @@ public enum ResponseStatus {
     TICKET_NOT_CANCELLED(HttpStatus.INTERNAL_SERVER_ERROR, "Ticket cancellation failed"), // Indicates a failure in canceling the ticket
     TICKET_NOT_SAVED_IN_COLLECTION(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to save ticket in collection"), // Indicates a failure in saving ticket data
     INVALID_DATA(HttpStatus.BAD_REQUEST, "Invalid input data"), // Indicates that the input data provided is invalid
+    IDEMPOTENCY_KEY_IN_PROGRESS(HttpStatus.CONFLICT, "A request with this idempotency key is still running"), // Indicates that a replayed request arrived before the first one finished
     EMAIL_NOT_VALID(HttpStatus.BAD_REQUEST, "Invalid user email"); // Indicates that the provided email is not valid
 
     private final HttpStatus httpStatus; // HTTP status code associated with the response
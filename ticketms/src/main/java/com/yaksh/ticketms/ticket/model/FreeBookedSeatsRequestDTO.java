@@ -36,4 +36,16 @@ public class FreeBookedSeatsRequestDTO {
      * This ensures the operation is performed for the correct travel schedule.
      */
     private LocalDate travelDate;
+
+    /**
+     * The station where the booking starts.
+     * Seats are freed only on the legs between source and destination.
+     */
+    private String source;
+
+    /**
+     * The station where the booking ends.
+     * Seats are freed only on the legs between source and destination.
+     */
+    private String destination;
 }
\ No newline at end of file
@@ -49,6 +49,14 @@ public interface TicketService {
      */
     ResponseDataDTO cancelTicket(String ticketIdToCancel);
 
+    /**
+     * Withdraws a ticket whose seats the train service could not keep, without freeing any seats.
+     *
+     * @param ticketIdToWithdraw the unique ID of the ticket to withdraw.
+     * @return a ResponseDataDTO containing the result of the withdrawal, successful if the ticket does not exist.
+     */
+    ResponseDataDTO withdrawTicket(String ticketIdToWithdraw);
+
     /**
      * Reschedules a ticket to a new travel date.
      * 
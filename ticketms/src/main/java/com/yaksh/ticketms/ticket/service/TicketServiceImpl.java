@@ -147,8 +147,9 @@ public class TicketServiceImpl implements TicketService {
                 .reachingTimeAtDestination(ticketRequest.getReachingTimeAtDestination())
                 .build();
 
-        // Generate a new unique ticket ID.
-        ticket.setTicketId(UUID.randomUUID().toString());
+        // Use the ID chosen by the caller, or generate a new unique ticket ID.
+        boolean hasTicketId = ticketRequest.getTicketId() != null && !ticketRequest.getTicketId().isBlank();
+        ticket.setTicketId(hasTicketId ? ticketRequest.getTicketId() : UUID.randomUUID().toString());
         log.info("Creating new ticket: {}", ticket);
 
         // Save the newly created ticket to the database and return it.
@@ -189,7 +190,9 @@ public class TicketServiceImpl implements TicketService {
         FreeBookedSeatsRequestDTO requestDTO = new FreeBookedSeatsRequestDTO(
                 ticketFound.getTrainId(),
                 ticketFound.getBookedSeatsIndex(),
-                ticketFound.getDateOfTravel()
+                ticketFound.getDateOfTravel(),
+                ticketFound.getSource(),
+                ticketFound.getDestination()
         );
 
         trainClient.freeBookedSeats(requestDTO);
@@ -213,6 +216,23 @@ public class TicketServiceImpl implements TicketService {
         return new ResponseDataDTO(false, "Failed to cancel ticket. Please try again later.");
     }
 
+    /**
+     * Withdraws a ticket by deleting it without freeing its seats. The train service withdraws a ticket
+     * when the seats held for it were booked by someone else before it was created, so the seats belong
+     * to the other booking. A ticket that does not exist counts as withdrawn, so the call can be repeated.
+     *
+     * @param ticketIdToWithdraw The unique ID of the ticket to withdraw.
+     * @return The response indicating the withdrawal status.
+     */
+    @Override
+    public ResponseDataDTO withdrawTicket(String ticketIdToWithdraw) {
+        // Delete the ticket if it exists; the seats are left to the train service.
+        boolean existed = ticketRepositoryV2.existsById(ticketIdToWithdraw);
+        ticketRepositoryV2.deleteById(ticketIdToWithdraw);
+        log.warn("Ticket {} withdrawn by the train service (existed: {})", ticketIdToWithdraw, existed);
+        return new ResponseDataDTO(true, String.format("Ticket ID: %s has been withdrawn.", ticketIdToWithdraw));
+    }
+
     /**
      * Reschedules a ticket to a new travel date by updating the database and external services.
      *
@@ -244,16 +264,24 @@ public class TicketServiceImpl implements TicketService {
         FreeBookedSeatsRequestDTO requestDTO = new FreeBookedSeatsRequestDTO(
                 ticketFound.getTrainId(),
                 ticketFound.getBookedSeatsIndex(),
-                ticketFound.getDateOfTravel()
+                ticketFound.getDateOfTravel(),
+                ticketFound.getSource(),
+                ticketFound.getDestination()
         );
 
         trainClient.freeBookedSeats(requestDTO);
 
         // Book seats for the new date using the Feign client.
+        // Keyed by the ticket's current booking and the new date, so a retried reschedule gets the seats of the first booking
+        String idempotencyKey = String.join(":", ticketFound.getTicketId(), String.valueOf(ticketFound.getDateOfTravel()),
+                Integer.toHexString(ticketFound.getBookedSeatsIndex().hashCode()), String.valueOf(updatedTravelDate));
         ResponseDataDTO bookingResponse = trainClient.bookSeats(
+                idempotencyKey,
                 ticketFound.getTrainId(),
                 updatedTravelDate,
-                ticketFound.getBookedSeatsIndex().size()
+                ticketFound.getBookedSeatsIndex().size(),
+                ticketFound.getSource(),
+                ticketFound.getDestination()
         );
 
         List<List<Integer>> newBookedSeatsList = (List<List<Integer>>) bookingResponse.getData();
@@ -0,0 +1,44 @@
+package com.yaksh.trainms.seatManagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the outcome of one request in a batch booking.
+ * Results are returned in the order of the requests, so a failed request does not affect the others.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchBookingResultDTO {
+
+    /**
+     * The position of the request in the batch.
+     */
+    private int index;
+
+    /**
+     * Whether the request was booked.
+     */
+    private boolean status;
+
+    /**
+     * A message describing the outcome.
+     */
+    private String message;
+
+    /**
+     * The booked seat positions as [coach, seat] pairs, if the request was booked.
+     */
+    private List<List<Integer>> bookedSeats;
+
+    /**
+     * The ticket created for the request, if the request was booked.
+     */
+    private Object ticket;
+}
@@ -48,4 +48,9 @@ public class BookTrainRequestDTO {
      * The number of seats the user wants to book.
      */
     private int numberOfSeatsToBeBooked;
+
+    /**
+     * Whether the request joins the waitlist of the train-day when there are not enough seats.
+     */
+    private boolean joinWaitlist;
 }
\ No newline at end of file
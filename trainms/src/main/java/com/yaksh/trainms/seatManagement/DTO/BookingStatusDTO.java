@@ -0,0 +1,73 @@
+package com.yaksh.trainms.seatManagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.yaksh.trainms.train.enums.BookingSagaStatus;
+import com.yaksh.trainms.train.model.BookingOutboxEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the state of a booking whose ticket is created in the background.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingStatusDTO {
+
+    /**
+     * The ID of the booking, which is also the ID of its ticket.
+     */
+    private String bookingId;
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The state of the booking.
+     */
+    private BookingSagaStatus status;
+
+    /**
+     * The booked seat positions as [coach, seat] pairs.
+     */
+    private List<List<Integer>> bookedSeats;
+
+    /**
+     * The number of failed ticket creations.
+     */
+    private int attempts;
+
+    /**
+     * The error of the last failed ticket creation, if any.
+     */
+    private String lastError;
+
+    /**
+     * Builds the status of a booking.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @param entry      The outbox entry of the booking.
+     * @return The booking status.
+     */
+    public static BookingStatusDTO of(String trainPrn, LocalDate travelDate, BookingOutboxEntry entry) {
+        return new BookingStatusDTO(entry.getBookingId(), trainPrn, travelDate, entry.getStatus(), entry.getSeats(),
+                entry.getAttempts(), entry.getLastError());
+    }
+}
@@ -34,4 +34,16 @@ public class FreeBookedSeatsRequestDTO {
      * The date of travel for which the seat booking details are requested.
      */
     private LocalDate travelDate;
+
+    /**
+     * The station where the booking starts.
+     * Optional: when source and destination are omitted the seats are freed for the whole journey.
+     */
+    private String source;
+
+    /**
+     * The station where the booking ends.
+     * Optional: when source and destination are omitted the seats are freed for the whole journey.
+     */
+    private String destination;
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.yaksh.trainms.seatManagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.yaksh.trainms.train.model.SeatInventory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the seat availability of a train on a travel date.
+ * Carries only counters, so availability checks do not need the seat layout.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeatAvailabilityDTO {
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The total number of seats.
+     */
+    private int totalSeats;
+
+    /**
+     * The number of free seats.
+     */
+    private int freeSeats;
+
+    /**
+     * The number of free seats in each coach.
+     */
+    private List<Integer> freeSeatsPerCoach;
+
+    /**
+     * Builds the availability of a whole journey from a seat inventory.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @param seats      The seat inventory.
+     * @return The availability.
+     */
+    public static SeatAvailabilityDTO of(String trainPrn, LocalDate travelDate, SeatInventory seats) {
+        return new SeatAvailabilityDTO(trainPrn, travelDate, seats.capacity(), seats.freeCount(),
+                Arrays.stream(seats.freeCountPerCoach()).boxed().toList());
+    }
+}
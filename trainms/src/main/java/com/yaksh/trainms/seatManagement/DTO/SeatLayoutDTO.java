@@ -0,0 +1,85 @@
+package com.yaksh.trainms.seatManagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the seat layout of a train on a travel date in a selectable encoding.
+ * Only the field of the chosen encoding is filled in:
+ * <ul>
+ *     <li>{@code matrix}: {@code seats} holds one list of 0 (free) / 1 (booked) values per coach.</li>
+ *     <li>{@code rle}: {@code runs} holds alternating run lengths in seat order, starting with free seats.</li>
+ *     <li>{@code bitset}: {@code bits} holds one bit per seat (1 = booked), little-endian and base64 encoded.</li>
+ *     <li>{@code delta}: {@code changes} holds [coach, seat, booked] for every seat changed after the requested revision.</li>
+ * </ul>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatLayoutDTO {
+
+    public static final String MATRIX = "matrix";
+    public static final String RLE = "rle";
+    public static final String BITSET = "bitset";
+    public static final String DELTA = "delta";
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The layout revision described, to be sent back as {@code since} on the next poll.
+     */
+    private long revision;
+
+    /**
+     * The number of coaches.
+     */
+    private int coaches;
+
+    /**
+     * The number of seats in each coach.
+     */
+    private int seatsPerCoach;
+
+    /**
+     * The encoding of the layout.
+     */
+    private String encoding;
+
+    /**
+     * The seat matrix, for the matrix encoding.
+     */
+    private List<List<Integer>> seats;
+
+    /**
+     * The run lengths, for the rle encoding.
+     */
+    private List<Integer> runs;
+
+    /**
+     * The base64 encoded bitset, for the bitset encoding.
+     */
+    private String bits;
+
+    /**
+     * The changed seats as [coach, seat, booked], for the delta encoding.
+     */
+    private List<List<Integer>> changes;
+}
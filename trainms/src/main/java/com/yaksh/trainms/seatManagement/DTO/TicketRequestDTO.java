@@ -81,4 +81,10 @@ public class TicketRequestDTO {
      * This field is optional and can be null if no seats are booked yet.
      */
     private List<List<Integer>> bookedSeatsIndex;
+
+    /**
+     * The ID the ticket is created with.
+     * This field is optional; ticketms generates an ID if it is null.
+     */
+    private String ticketId;
 }
\ No newline at end of file
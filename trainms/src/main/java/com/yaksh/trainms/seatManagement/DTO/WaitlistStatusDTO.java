@@ -0,0 +1,77 @@
+package com.yaksh.trainms.seatManagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.yaksh.trainms.train.enums.WaitlistStatus;
+import com.yaksh.trainms.train.model.WaitlistEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the state of a waitlisted booking request.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitlistStatusDTO {
+
+    /**
+     * The ID of the waitlist entry.
+     */
+    private String waitlistId;
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The number of seats requested.
+     */
+    private int numberOfSeats;
+
+    /**
+     * The state of the request.
+     */
+    private WaitlistStatus status;
+
+    /**
+     * The 1-based position in the queue while the request is waiting, 0 otherwise.
+     */
+    private int position;
+
+    /**
+     * The booked seat positions as [coach, seat] pairs, once booked.
+     */
+    private List<List<Integer>> bookedSeats;
+
+    /**
+     * The ID of the created ticket, once booked.
+     */
+    private String ticketId;
+
+    /**
+     * Builds the state of a waitlist entry.
+     *
+     * @param entry    The waitlist entry.
+     * @param position The position of the entry in its queue.
+     * @return The state of the request.
+     */
+    public static WaitlistStatusDTO of(WaitlistEntry entry, int position) {
+        return new WaitlistStatusDTO(entry.getId(), entry.getTrainPrn(), entry.getTravelDate(), entry.getNumberOfSeats(),
+                entry.getStatus(), position, entry.getBookedSeats(), entry.getTicketId());
+    }
+}
@@ -3,11 +3,16 @@ package com.yaksh.trainms.seatManagement.client;
 import com.yaksh.trainms.seatManagement.DTO.TicketRequestDTO;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @FeignClient(name = "TICKETMS")
 public interface TicketClient {
     @PostMapping("/v1/tickets/createTicket")
-    ResponseDataDTO createTicket(@RequestBody TicketRequestDTO ticketRequestDTO);
+    ResponseDataDTO createTicket(@RequestHeader("Idempotency-Key") String idempotencyKey, @RequestBody TicketRequestDTO ticketRequestDTO);
+
+    @PostMapping("/v1/tickets/withdrawTicket/{ticketId}")
+    ResponseDataDTO withdrawTicket(@PathVariable("ticketId") String ticketId);
 }
@@ -1,7 +1,9 @@
 package com.yaksh.trainms.seatManagement.controller;
 
+import com.yaksh.idempotency.IdempotencyStore;
 import com.yaksh.trainms.seatManagement.DTO.BookTrainRequestDTO;
 import com.yaksh.trainms.seatManagement.DTO.FreeBookedSeatsRequestDTO;
+import com.yaksh.trainms.seatManagement.DTO.SeatLayoutDTO;
 import com.yaksh.trainms.seatManagement.service.SeatManagementService;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
 import com.yaksh.trainms.train.model.Train;
@@ -9,10 +11,13 @@ import com.yaksh.trainms.train.service.TrainService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -25,27 +30,55 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SeatManagementController {
 
+    // Accept headers that select a compact seat layout encoding
+    public static final String SEAT_LAYOUT_RLE = "application/vnd.trainms.seats.rle+json";
+    public static final String SEAT_LAYOUT_BITSET = "application/vnd.trainms.seats.bitset+json";
+
     private final SeatManagementService seatManagementService;
+    private final IdempotencyStore<ResponseDataDTO> idempotencyStore;
 
     /**
      * Endpoint to book seats on a train.
      *
      * @param requestDTO contains details of the booking request such as user ID, train PRN,
      *                   source, destination, travel date, and number of seats to be booked.
+     * @param idempotencyKey optional key; a replayed request with the same key gets the stored response.
      * @return a ResponseEntity containing a ResponseDataDTO with booking details.
      */
     @PostMapping("/book")
-    public ResponseEntity<ResponseDataDTO> bookTrain(@RequestBody BookTrainRequestDTO requestDTO) {
-        // Delegates the booking request to the service layer with the provided details.
-        return ResponseEntity.ok(seatManagementService.bookTrain(
-                requestDTO.getUserId(),
-                requestDTO.getTrainPrn(),
-                requestDTO.getSource(),
-                requestDTO.getDestination(),
-                requestDTO.getTravelDate(),
-                requestDTO.getNumberOfSeatsToBeBooked(),
-                requestDTO.getUserEmail()
-        ));
+    public ResponseEntity<ResponseDataDTO> bookTrain(@RequestBody BookTrainRequestDTO requestDTO,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyStore.execute("book", idempotencyKey, requestDTO, () -> {
+            if (requestDTO.isJoinWaitlist()) {
+                // Sold-out requests are queued instead of failing
+                return seatManagementService.bookTrainOrWaitlist(requestDTO);
+            }
+            // Delegates the booking request to the service layer with the provided details.
+            return seatManagementService.bookTrain(
+                    requestDTO.getUserId(),
+                    requestDTO.getTrainPrn(),
+                    requestDTO.getSource(),
+                    requestDTO.getDestination(),
+                    requestDTO.getTravelDate(),
+                    requestDTO.getNumberOfSeatsToBeBooked(),
+                    requestDTO.getUserEmail()
+            );
+        }));
+    }
+
+    /**
+     * Endpoint to book many requests at once, for example a group or agent burst.
+     * Requests for the same train and date are allocated together, and each request gets its own result.
+     *
+     * @param requests the booking requests.
+     * @param idempotencyKey optional key; a replayed batch with the same key gets the stored results.
+     * @return a ResponseEntity containing a ResponseDataDTO with one result per request.
+     */
+    @PostMapping("/book/batch")
+    public ResponseEntity<ResponseDataDTO> bookTrains(@RequestBody List<BookTrainRequestDTO> requests,
+                                                      @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyStore.execute("book-batch", idempotencyKey, requests,
+                () -> seatManagementService.bookTrains(requests)));
     }
 
     /**
@@ -58,7 +91,12 @@ public class SeatManagementController {
     @PutMapping("/freeBookedSeats")
     public ResponseEntity<ResponseDataDTO> freeBookedSeats(@RequestBody FreeBookedSeatsRequestDTO freeBookedSeatsRequestDTO) {
         // Calls the service layer to free the booked seats with the provided details.
-        seatManagementService.freeTheBookedSeats(freeBookedSeatsRequestDTO.getBookedSeatsList(), freeBookedSeatsRequestDTO.getTrainPrn(), freeBookedSeatsRequestDTO.getTravelDate());
+        seatManagementService.freeTheBookedSeats(
+                freeBookedSeatsRequestDTO.getBookedSeatsList(),
+                freeBookedSeatsRequestDTO.getTrainPrn(),
+                freeBookedSeatsRequestDTO.getTravelDate(),
+                freeBookedSeatsRequestDTO.getSource(),
+                freeBookedSeatsRequestDTO.getDestination());
         // Returns a success response after freeing the seats.
         return ResponseEntity.ok(new ResponseDataDTO(true, "Seats freed successfully", null));
     }
@@ -69,11 +107,154 @@ public class SeatManagementController {
      * @param trainPrn the unique identifier of the train.
      * @param travelDate the date of travel for which the seats are to be booked.
      * @param numberOfSeatsToBeBooked the number of seats to book.
+     * @param source optional station where the journey starts; the whole journey is booked if omitted.
+     * @param destination optional station where the journey ends; the whole journey is booked if omitted.
+     * @param idempotencyKey optional key; a replayed request with the same key gets the stored seats.
      * @return a ResponseEntity containing a ResponseDataDTO with booking details.
      */
     @PostMapping("/bookSeats")
-    public ResponseEntity<ResponseDataDTO> bookSeats(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam int numberOfSeatsToBeBooked) {
+    public ResponseEntity<ResponseDataDTO> bookSeats(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam int numberOfSeatsToBeBooked,
+                                                     @RequestParam(required = false) String source, @RequestParam(required = false) String destination,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         // Delegates the seat booking request to the service layer with the provided details.
-        return ResponseEntity.ok(seatManagementService.bookSeats(trainPrn, travelDate, numberOfSeatsToBeBooked));
+        return ResponseEntity.ok(idempotencyStore.execute("book-seats", idempotencyKey,
+                Arrays.asList(trainPrn, travelDate, numberOfSeatsToBeBooked, source, destination),
+                () -> seatManagementService.bookSeats(trainPrn, travelDate, numberOfSeatsToBeBooked, source, destination)));
+    }
+
+    /**
+     * Endpoint to get the seat layout of a train on a travel date.
+     * The encoding is chosen with the {@code format} parameter or, if it is missing, the Accept header.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param format optional encoding: matrix (default), rle or bitset.
+     * @param since optional layout revision the caller already has; only the seats changed after it are returned.
+     * @param accept the Accept header of the request.
+     * @return a ResponseEntity containing a ResponseDataDTO with the seat layout.
+     */
+    @GetMapping(value = "/layout", produces = {MediaType.APPLICATION_JSON_VALUE, SEAT_LAYOUT_RLE, SEAT_LAYOUT_BITSET})
+    public ResponseEntity<ResponseDataDTO> getSeatLayout(@RequestParam String trainPrn, @RequestParam LocalDate travelDate,
+                                                         @RequestParam(required = false) String format, @RequestParam(required = false) Long since,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (format == null && accept != null) {
+            if (accept.contains(SEAT_LAYOUT_RLE)) {
+                format = SeatLayoutDTO.RLE;
+            } else if (accept.contains(SEAT_LAYOUT_BITSET)) {
+                format = SeatLayoutDTO.BITSET;
+            }
+        }
+        return ResponseEntity.ok(seatManagementService.getSeatLayout(trainPrn, travelDate, format, since));
+    }
+
+    /**
+     * Endpoint to get the number of free seats of a train on a travel date without the seat layout.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param source optional station where the journey starts; the whole journey is counted if omitted.
+     * @param destination optional station where the journey ends; the whole journey is counted if omitted.
+     * @return a ResponseEntity containing a ResponseDataDTO with the free seat counters.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ResponseDataDTO> getAvailability(@RequestParam String trainPrn, @RequestParam LocalDate travelDate,
+                                                           @RequestParam(required = false) String source, @RequestParam(required = false) String destination) {
+        return ResponseEntity.ok(seatManagementService.getAvailability(trainPrn, travelDate, source, destination));
+    }
+
+    /**
+     * Endpoint to hold seats on a train until the booking is confirmed.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param numberOfSeatsToBeBooked the number of seats to hold.
+     * @param source optional station where the journey starts; the whole journey is held if omitted.
+     * @param destination optional station where the journey ends; the whole journey is held if omitted.
+     * @param idempotencyKey optional key; a replayed request with the same key gets the stored hold.
+     * @return a ResponseEntity containing a ResponseDataDTO with the hold.
+     */
+    @PostMapping("/hold")
+    public ResponseEntity<ResponseDataDTO> holdSeats(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam int numberOfSeatsToBeBooked,
+                                                     @RequestParam(required = false) String source, @RequestParam(required = false) String destination,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyStore.execute("hold", idempotencyKey,
+                Arrays.asList(trainPrn, travelDate, numberOfSeatsToBeBooked, source, destination),
+                () -> seatManagementService.holdSeats(trainPrn, travelDate, numberOfSeatsToBeBooked, source, destination)));
+    }
+
+    /**
+     * Endpoint to confirm a seat hold.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param holdId the ID of the hold.
+     * @return a ResponseEntity containing a ResponseDataDTO with the confirmed seats.
+     */
+    @PostMapping("/hold/confirm")
+    public ResponseEntity<ResponseDataDTO> confirmHold(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam String holdId) {
+        return ResponseEntity.ok(seatManagementService.confirmHold(trainPrn, travelDate, holdId));
+    }
+
+    /**
+     * Endpoint to release a seat hold before it expires.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param holdId the ID of the hold.
+     * @return a ResponseEntity containing a ResponseDataDTO indicating the result.
+     */
+    @DeleteMapping("/hold")
+    public ResponseEntity<ResponseDataDTO> releaseHold(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam String holdId) {
+        return ResponseEntity.ok(seatManagementService.releaseHold(trainPrn, travelDate, holdId));
+    }
+
+    /**
+     * Endpoint to check a booking whose ticket is created in the background.
+     *
+     * @param trainPrn the unique identifier of the train.
+     * @param travelDate the date of travel.
+     * @param bookingId the ID of the booking, which is also the ID of its ticket.
+     * @return a ResponseEntity containing a ResponseDataDTO with the booking status.
+     */
+    @GetMapping("/booking")
+    public ResponseEntity<ResponseDataDTO> getBooking(@RequestParam String trainPrn, @RequestParam LocalDate travelDate, @RequestParam String bookingId) {
+        return ResponseEntity.ok(seatManagementService.getBooking(trainPrn, travelDate, bookingId));
+    }
+
+    /**
+     * Endpoint to join the waitlist of a sold-out train-day.
+     * The request is booked and its ticket created as soon as enough seats are freed.
+     *
+     * @param requestDTO the booking request.
+     * @param idempotencyKey optional key; a replayed request with the same key gets the stored waitlist entry.
+     * @return a ResponseEntity containing a ResponseDataDTO with the waitlist entry and its position.
+     */
+    @PostMapping("/waitlist")
+    public ResponseEntity<ResponseDataDTO> joinWaitlist(@RequestBody BookTrainRequestDTO requestDTO,
+                                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyStore.execute("waitlist", idempotencyKey, requestDTO,
+                () -> seatManagementService.joinWaitlist(requestDTO)));
+    }
+
+    /**
+     * Endpoint to get the state of a waitlisted request.
+     *
+     * @param waitlistId the ID of the waitlist entry.
+     * @return a ResponseEntity containing a ResponseDataDTO with the waitlist entry.
+     */
+    @GetMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<ResponseDataDTO> getWaitlistEntry(@PathVariable String waitlistId) {
+        return ResponseEntity.ok(seatManagementService.getWaitlistEntry(waitlistId));
+    }
+
+    /**
+     * Endpoint to leave the waitlist.
+     *
+     * @param waitlistId the ID of the waitlist entry.
+     * @return a ResponseEntity containing a ResponseDataDTO indicating the result.
+     */
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<ResponseDataDTO> leaveWaitlist(@PathVariable String waitlistId) {
+        return ResponseEntity.ok(seatManagementService.leaveWaitlist(waitlistId));
     }
-}
\ No newline at end of file
+}
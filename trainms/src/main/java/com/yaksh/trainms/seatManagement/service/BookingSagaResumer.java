@@ -0,0 +1,77 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.train.enums.BookingSagaStatus;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job that resumes background bookings whose ticket creation is due for a retry or was
+ * interrupted by a restart. It is switched by {@code seats.booking.saga.resume.enabled}, apart from the
+ * hold sweeper, so turning the sweeper off does not leave pending bookings unfinished.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seats.booking.saga.resume.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingSagaResumer {
+    private final MongoTemplate mongoTemplate;
+    private final SeatManagementService seatManagementService;
+    private final AtomicBoolean outboxIndexEnsured = new AtomicBoolean();
+
+    // Maximum number of train-days with pending background bookings resumed per run
+    @Value("${seats.booking.saga.resume-batch-size:200}")
+    private int resumeBatchSize;
+
+    /**
+     * Finds train-days with background bookings whose ticket creation is due and schedules them.
+     */
+    @Scheduled(initialDelayString = "${seats.booking.saga.resume-interval-ms:10000}", fixedDelayString = "${seats.booking.saga.resume-interval-ms:10000}")
+    public void resumePendingBookings() {
+        ensureOutboxIndex();
+        Query query = Query.query(Criteria.where("outbox").elemMatch(
+                Criteria.where("status").is(BookingSagaStatus.PENDING).and("nextAttemptAt").lte(Instant.now())))
+                .limit(resumeBatchSize);
+        query.fields().include("trainPrn").include("travelDate");
+
+        List<TrainSeatInventory> pending;
+        try {
+            pending = mongoTemplate.find(query, TrainSeatInventory.class);
+        } catch (RuntimeException e) {
+            log.error("Failed to look up pending bookings: {}", e.getMessage());
+            return;
+        }
+        pending.forEach(inventory -> seatManagementService.resumeBookings(inventory.getTrainPrn(), inventory.getTravelDate()));
+        if (!pending.isEmpty()) {
+            log.info("Resumed pending bookings on {} train-days", pending.size());
+        }
+    }
+
+    /**
+     * Creates the index that finds pending bookings without scanning every train-day, once per process.
+     */
+    private void ensureOutboxIndex() {
+        if (outboxIndexEnsured.compareAndSet(false, true)) {
+            try {
+                mongoTemplate.indexOps(TrainSeatInventory.class)
+                        .ensureIndex(new Index().on("outbox.status", Sort.Direction.ASC).on("outbox.nextAttemptAt", Sort.Direction.ASC).sparse());
+            } catch (RuntimeException e) {
+                outboxIndexEnsured.set(false);
+                log.warn("Failed to create the booking outbox index: {}", e.getMessage());
+            }
+        }
+    }
+}
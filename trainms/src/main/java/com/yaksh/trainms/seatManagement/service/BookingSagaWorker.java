@@ -0,0 +1,52 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.train.util.KeyedSerialExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the tickets of background bookings, so a booking response does not wait for ticketms
+ * and the email it sends. Runs of one train-day never overlap, and bookings that arrive while one
+ * is running are picked up by a single follow-up run.
+ */
+@Component
+@Slf4j
+public class BookingSagaWorker {
+    private KeyedSerialExecutor workers;
+
+    // Number of train-days whose tickets are created in parallel
+    @Value("${seats.booking.saga.workers:4}")
+    private int threads;
+
+    /**
+     * Starts the worker pool.
+     */
+    @PostConstruct
+    public void start() {
+        workers = new KeyedSerialExecutor("booking-saga", threads);
+    }
+
+    /**
+     * Stops the worker pool, letting running steps finish. Bookings left pending are resumed later
+     * from the outbox by the {@link BookingSagaResumer}.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown(30);
+    }
+
+    /**
+     * Schedules a run over the pending bookings of a train-day.
+     *
+     * @param trainDayId The ID of the train-day.
+     * @param step       The run to schedule.
+     */
+    public void submit(String trainDayId, Runnable step) {
+        if (!workers.submit(trainDayId, step)) {
+            log.warn("Bookings of {} were not scheduled, they stay in the outbox", trainDayId);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.seatManagement.store.SeatInventoryStore;
+import com.yaksh.trainms.seatManagement.store.WaitlistStore;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job that frees the seats of holds that were never confirmed, for example because
+ * ticket creation failed or trainms stopped between holding and confirming.
+ * Releases go through the {@link SeatInventoryStore}, so they never race with bookings, and the freed
+ * seats are offered to the waitlist. Background bookings are resumed separately by the
+ * {@link BookingSagaResumer}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seats.hold.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class SeatHoldSweeper {
+    private final MongoTemplate mongoTemplate;
+    private final SeatInventoryStore seatInventoryStore;
+    private final SeatManagementService seatManagementService;
+    private final WaitlistStore waitlistStore;
+    private final AtomicBoolean holdIndexEnsured = new AtomicBoolean();
+
+    // Maximum number of train-days released per run
+    @Value("${seats.hold.sweep-batch-size:500}")
+    private int batchSize;
+
+    // How long a waitlist promotion may run before it is considered abandoned
+    @Value("${seats.waitlist.promotion-timeout-seconds:600}")
+    private long promotionTimeoutSeconds;
+
+    /**
+     * Finds train-days with expired holds and releases them.
+     */
+    @Scheduled(initialDelayString = "${seats.hold.sweep-interval-ms:30000}", fixedDelayString = "${seats.hold.sweep-interval-ms:30000}")
+    public void releaseExpiredHolds() {
+        Instant now = Instant.now();
+        try {
+            long requeued = waitlistStore.requeueAbandonedPromotions(now.minusSeconds(promotionTimeoutSeconds));
+            if (requeued > 0) {
+                log.warn("Put {} abandoned waitlist promotions back in the queue", requeued);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to requeue abandoned waitlist promotions: {}", e.getMessage());
+        }
+
+        ensureHoldIndex();
+        Query query = Query.query(Criteria.where("holds.expiresAt").lt(now)).limit(batchSize);
+        query.fields().include("trainPrn").include("travelDate");
+
+        List<TrainSeatInventory> expired;
+        try {
+            expired = mongoTemplate.find(query, TrainSeatInventory.class);
+        } catch (RuntimeException e) {
+            log.error("Failed to look up expired seat holds: {}", e.getMessage());
+            return;
+        }
+
+        int released = 0;
+        for (TrainSeatInventory inventory : expired) {
+            try {
+                int freed = seatInventoryStore.update(inventory.getTrainPrn(), inventory.getTravelDate(),
+                        current -> current.releaseExpiredHolds(now));
+                if (freed > 0) {
+                    seatManagementService.promoteWaitlist(inventory.getTrainPrn(), inventory.getTravelDate());
+                }
+                released += freed;
+            } catch (RuntimeException e) {
+                log.warn("Failed to release expired holds of {}: {}", inventory.getId(), e.getMessage());
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired seat holds on {} train-days", released, expired.size());
+        }
+    }
+
+    /**
+     * Creates the index that finds train-days with expired holds without scanning every train-day, once per process.
+     */
+    private void ensureHoldIndex() {
+        if (holdIndexEnsured.compareAndSet(false, true)) {
+            try {
+                mongoTemplate.indexOps(TrainSeatInventory.class)
+                        .ensureIndex(new Index().on("holds.expiresAt", Sort.Direction.ASC).sparse());
+            } catch (RuntimeException e) {
+                holdIndexEnsured.set(false);
+                log.warn("Failed to create the seat hold index: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.yaksh.trainms.seatManagement.service;
 
+import com.yaksh.trainms.seatManagement.DTO.BookTrainRequestDTO;
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
 import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for managing seat-related operations in the train management system.
@@ -15,12 +20,13 @@ public interface SeatManagementService {
     /**
      * Checks if the required number of seats are available for booking on a specific train and travel date.
      *
-     * @param train The train object for which seat availability is being checked.
+     * @param seatInventory The seat inventory of the train on the travel date.
      * @param numberOfSeatsToBeBooked The number of seats requested for booking.
-     * @param travelDate The date of travel for which seat availability is being checked.
+     * @param fromLeg The first leg of the journey (inclusive), where leg i runs from station i to station i + 1.
+     * @param toLeg The last leg of the journey (exclusive).
      * @return A list of lists of integers representing the available seats, if any.
      */
-    List<List<Integer>> areSeatsAvailable(Train train, int numberOfSeatsToBeBooked, LocalDate travelDate);
+    List<List<Integer>> areSeatsAvailable(TrainSeatInventory seatInventory, int numberOfSeatsToBeBooked, int fromLeg, int toLeg);
 
     /**
      * Books seats on a train for a specific user and travel date.
@@ -32,7 +38,9 @@ public interface SeatManagementService {
      * @param dateOfTravel The date of travel for the booking.
      * @param numberOfSeatsToBeBooked The number of seats to be booked.
      * @param email The email address of the user for notification purposes.
-     * @return A ResponseDataDTO object containing booking details and status.
+     * @return A ResponseDataDTO object containing booking details and status. With background booking
+     *         enabled, the response is returned once the seats are booked and contains the ID of the
+     *         ticket that is created afterwards.
      */
     ResponseDataDTO bookTrain(String userId, String trainPrn, String source, String destination, LocalDate dateOfTravel, int numberOfSeatsToBeBooked, String email);
 
@@ -42,8 +50,10 @@ public interface SeatManagementService {
      * @param bookedSeats A list of lists of integers representing the seats to be freed.
      * @param trainPrn The unique identifier (PRN) of the train.
      * @param travelDate The date of travel for which the seats are to be freed.
+     * @param source The station where the booking starts, or null to free the whole journey.
+     * @param destination The station where the booking ends, or null to free the whole journey.
      */
-    void freeTheBookedSeats(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate);
+    void freeTheBookedSeats(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate, String source, String destination);
 
     /**
      * Retrieves seat availability details for a specific train and travel date.
@@ -54,6 +64,18 @@ public interface SeatManagementService {
      */
     ResponseDataDTO getSeatsAtParticularDate(String trainPrn, LocalDate travelDate);
 
+    /**
+     * Retrieves the seat layout of a train on a travel date in a compact encoding, or only the
+     * seats changed after a given layout revision.
+     *
+     * @param trainPrn The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param encoding The encoding of a full layout: matrix, rle or bitset. Defaults to matrix.
+     * @param since The layout revision the caller already has, or null for the full layout.
+     * @return A ResponseDataDTO object containing the seat layout.
+     */
+    ResponseDataDTO getSeatLayout(String trainPrn, LocalDate travelDate, String encoding, Long since);
+
     /**
      * Books seats on a train for a specific travel date without specifying user details.
      * This method is likely used for internal or automated booking processes.
@@ -61,8 +83,135 @@ public interface SeatManagementService {
      * @param trainId The unique identifier of the train.
      * @param travelDate The date of travel for which the booking is being made.
      * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param source The station where the booking starts, or null to book the whole journey.
+     * @param destination The station where the booking ends, or null to book the whole journey.
      * @return A ResponseDataDTO object containing booking details and status.
      */
-    ResponseDataDTO bookSeats(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked);
+    ResponseDataDTO bookSeats(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination);
+
 
-}
\ No newline at end of file
+    /**
+     * Holds seats on a train for a booking that is confirmed later.
+     * Held seats cannot be booked by anyone else and are freed if the hold is not confirmed in time.
+     *
+     * @param trainPrn The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param numberOfSeatsToBeBooked The number of seats to hold.
+     * @param source The station where the booking starts, or null to hold the whole journey.
+     * @param destination The station where the booking ends, or null to hold the whole journey.
+     * @return A ResponseDataDTO object containing the hold.
+     */
+    ResponseDataDTO holdSeats(String trainPrn, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination);
+
+    /**
+     * Confirms a seat hold, keeping its seats booked.
+     *
+     * @param trainPrn The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param holdId The ID of the hold.
+     * @return A ResponseDataDTO object containing the confirmed seats.
+     */
+    ResponseDataDTO confirmHold(String trainPrn, LocalDate travelDate, String holdId);
+
+    /**
+     * Releases a seat hold and frees its seats.
+     *
+     * @param trainPrn The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param holdId The ID of the hold.
+     * @return A ResponseDataDTO object indicating the result.
+     */
+    ResponseDataDTO releaseHold(String trainPrn, LocalDate travelDate, String holdId);
+
+    /**
+     * Retrieves the number of free seats of a train on a travel date, in total and per coach.
+     *
+     * @param trainPrn The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param source The station where the journey starts, or null for the whole journey.
+     * @param destination The station where the journey ends, or null for the whole journey.
+     * @return A ResponseDataDTO object containing the seat availability.
+     */
+    ResponseDataDTO getAvailability(String trainPrn, LocalDate travelDate, String source, String destination);
+
+    /**
+     * Counts the seats free between two stations of several trains that are already loaded, reading their seats together.
+     *
+     * @param trains The trains, with the schedules of the travel date.
+     * @param travelDate The date of travel.
+     * @param source The station where the journey starts.
+     * @param destination The station where the journey ends.
+     * @return The seat availability by PRN, without the trains whose seats could not be counted.
+     */
+    Map<String, SeatAvailabilityDTO> getAvailability(Collection<Train> trains, LocalDate travelDate, String source, String destination);
+
+    /**
+     * Books a batch of requests, allocating the requests of each train-day in a single pass.
+     * Each request succeeds or fails on its own.
+     *
+     * @param requests The booking requests.
+     * @return A ResponseDataDTO object containing one result per request, in request order.
+     */
+    ResponseDataDTO bookTrains(List<BookTrainRequestDTO> requests);
+
+    /**
+     * Books a train and, if there are not enough seats, adds the request to the waitlist of the train-day.
+     *
+     * @param request The booking request.
+     * @return A ResponseDataDTO object containing the ticket, or the waitlist entry if the train-day is sold out.
+     */
+    ResponseDataDTO bookTrainOrWaitlist(BookTrainRequestDTO request);
+
+    /**
+     * Adds a booking request to the waitlist of its train-day. The request is booked and its ticket
+     * created as soon as enough seats are free.
+     *
+     * @param request The booking request.
+     * @return A ResponseDataDTO object containing the waitlist entry.
+     */
+    ResponseDataDTO joinWaitlist(BookTrainRequestDTO request);
+
+    /**
+     * Retrieves the state of a waitlisted request, including its position while it is waiting.
+     *
+     * @param waitlistId The ID of the waitlist entry.
+     * @return A ResponseDataDTO object containing the waitlist entry.
+     */
+    ResponseDataDTO getWaitlistEntry(String waitlistId);
+
+    /**
+     * Removes a waiting request from the waitlist.
+     *
+     * @param waitlistId The ID of the waitlist entry.
+     * @return A ResponseDataDTO object indicating the result.
+     */
+    ResponseDataDTO leaveWaitlist(String waitlistId);
+
+    /**
+     * Schedules the promotion of waitlisted requests of a train-day after seats were freed.
+     * Requests are promoted in queue order and their tickets are created in the background.
+     *
+     * @param trainPrn   The unique identifier of the train.
+     * @param travelDate The date of travel.
+     */
+    void promoteWaitlist(String trainPrn, LocalDate travelDate);
+
+    /**
+     * Retrieves the state of a booking whose ticket is created in the background.
+     *
+     * @param trainPrn   The unique identifier of the train.
+     * @param travelDate The date of travel.
+     * @param bookingId  The ID of the booking.
+     * @return A ResponseDataDTO object containing the booking status.
+     */
+    ResponseDataDTO getBooking(String trainPrn, LocalDate travelDate, String bookingId);
+
+    /**
+     * Schedules ticket creation for the pending background bookings of a train-day. Bookings whose
+     * ticket can not be created after the configured number of attempts are compensated by freeing their seats.
+     *
+     * @param trainPrn   The unique identifier of the train.
+     * @param travelDate The date of travel.
+     */
+    void resumeBookings(String trainPrn, LocalDate travelDate);
+}
@@ -1,23 +1,42 @@
 package com.yaksh.trainms.seatManagement.service;
 
+import com.yaksh.trainms.seatManagement.DTO.BatchBookingResultDTO;
+import com.yaksh.trainms.seatManagement.DTO.BookTrainRequestDTO;
+import com.yaksh.trainms.seatManagement.DTO.BookingStatusDTO;
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.seatManagement.DTO.SeatLayoutDTO;
 import com.yaksh.trainms.seatManagement.DTO.TicketRequestDTO;
+import com.yaksh.trainms.seatManagement.DTO.WaitlistStatusDTO;
 import com.yaksh.trainms.seatManagement.client.TicketClient;
+import com.yaksh.trainms.seatManagement.store.SeatInventoryStore;
+import com.yaksh.trainms.seatManagement.store.WaitlistStore;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.enums.BookingSagaStatus;
 import com.yaksh.trainms.train.enums.ResponseStatus;
 import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.BookingOutboxEntry;
+import com.yaksh.trainms.train.model.SeatHold;
+import com.yaksh.trainms.train.model.SeatInventory;
+import com.yaksh.trainms.train.model.StationSchedule;
 import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.model.WaitlistEntry;
 import com.yaksh.trainms.train.service.TrainService;
+import com.yaksh.trainms.train.util.SeatInventoryCodec;
 import com.yaksh.trainms.train.util.TrainServiceUtil;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -30,6 +49,61 @@ public class SeatManagementServiceImpl implements SeatManagementService {
     private final TrainServiceUtil trainServiceUtil;
     private final TrainService trainService;
     private final TicketClient ticketClient;
+    private final SeatInventoryStore seatInventoryStore;
+    private final WaitlistStore waitlistStore;
+    private final WaitlistWorker waitlistWorker;
+    private final BookingSagaWorker bookingSagaWorker;
+
+    // How long held seats stay reserved for a booking that is not confirmed
+    @Value("${seats.hold.ttl-seconds:120}")
+    private long holdTtlSeconds;
+
+    // Number of failed ticket creations after which a waitlisted request is given up
+    @Value("${seats.waitlist.max-attempts:3}")
+    private int waitlistMaxAttempts;
+
+    // Return bookings once their seats are booked and create the tickets in the background
+    @Value("${seats.booking.async.enabled:false}")
+    private boolean backgroundBooking;
+
+    // Number of failed ticket creations after which a background booking frees its seats again
+    @Value("${seats.booking.saga.max-attempts:5}")
+    private int bookingMaxAttempts;
+
+    // Delay before the first retry of a failed ticket creation, doubled for every further attempt
+    @Value("${seats.booking.saga.retry-delay-seconds:5}")
+    private long bookingRetryDelaySeconds;
+
+    // How long finished background bookings stay in the outbox for status lookups
+    @Value("${seats.booking.saga.retention-seconds:3600}")
+    private long bookingRetentionSeconds;
+
+    // Number of calls made to create a ticket before the booking fails, all with the same idempotency key
+    @Value("${seats.ticket.max-attempts:3}")
+    private int ticketMaxAttempts;
+
+    // Pause between two calls to create the same ticket
+    @Value("${seats.ticket.retry-delay-ms:500}")
+    private long ticketRetryDelayMs;
+
+    // Longest a ticket service call can take, from the Feign timeouts of the ticket client
+    @Value("${spring.cloud.openfeign.client.config.TICKETMS.connect-timeout:${spring.cloud.openfeign.client.config.default.connect-timeout:10000}}")
+    private long ticketConnectTimeoutMs;
+    @Value("${spring.cloud.openfeign.client.config.TICKETMS.read-timeout:${spring.cloud.openfeign.client.config.default.read-timeout:60000}}")
+    private long ticketReadTimeoutMs;
+
+    /**
+     * Checks that a seat hold outlives a ticket service call, so a ticket created within the call's
+     * timeout always finds its hold.
+     */
+    @PostConstruct
+    public void checkHoldTtl() {
+        long ticketCallMs = ticketConnectTimeoutMs + ticketReadTimeoutMs;
+        if (holdTtlSeconds * 1000 <= ticketCallMs) {
+            throw new IllegalStateException(String.format(
+                    "seats.hold.ttl-seconds (%d s) must be longer than the ticket client timeouts (%d ms)", holdTtlSeconds, ticketCallMs));
+        }
+    }
 
     /**
      * Frees previously booked seats for a train on a specific travel date.
@@ -37,41 +111,47 @@ public class SeatManagementServiceImpl implements SeatManagementService {
      * @param bookedSeats List of seat positions to be freed.
      * @param trainPrn    The train PRN.
      * @param travelDate  The travel date for which seats are being freed.
+     * @param source      The station where the booking starts, or null to free the whole journey.
+     * @param destination The station where the booking ends, or null to free the whole journey.
      */
     @Override
     @CircuitBreaker(name = "freeSeatsBreaker", fallbackMethod = "freeSeatsFallback")
     @Retry(name = "freeSeatsRetry", fallbackMethod = "freeSeatsFallback")
-    public void freeTheBookedSeats(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate) {
-        // Retrieve the current seat layout for the specified train and date
-        ResponseDataDTO seatsLayout = this.getSeatsAtParticularDate(trainPrn, travelDate);
-        Train train = trainService.findTrainByPrn(trainPrn);
+    public void freeTheBookedSeats(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate, String source, String destination) {
+        List<StationSchedule> schedule = scheduleForLegs(trainPrn, travelDate, source, destination);
+        seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            int[] legs = legRange(inventory, schedule, source, destination);
+            SeatInventory seats = inventory.getSeats();
 
-        // Train not found
-        if (train == null) {
-            log.warn("Train not found: {}", trainPrn);
-            throw new CustomException("Train does not exist with PRN: " + trainPrn, ResponseStatus.TRAIN_NOT_FOUND);
-        }
+            // Validate every seat before freeing any, so a bad request leaves the inventory untouched
+            int[] indexes;
+            try {
+                indexes = bookedSeats.stream().mapToInt(seats::indexOf).toArray();
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(e.getMessage(), ResponseStatus.INVALID_DATA);
+            }
 
-        log.info("Seats layout before freeing {}", seatsLayout.getData());
-        if (seatsLayout.isStatus()) {
-            // Retrieve the current seat layout and mark the specified seats as free (0)
-            List<List<Integer>> seatsList = (List<List<Integer>>) seatsLayout.getData();
-            bookedSeats.forEach(seat -> seatsList.get(seat.get(0)).set(seat.get(1), 0));
-            train.getSeats().put(travelDate.toString(), seatsList);
+            // Mark the specified seats as free on the booked legs directly in the packed inventory
+            for (int index : indexes) {
+                seats.free(index, legs[0], legs[1]);
+            }
+            return indexes.length;
+        });
+        log.info("Freed {} seats of train {} on {}", bookedSeats.size(), trainPrn, travelDate);
 
-            log.info("Seats layout after freeing {}", train.getSeats().get(travelDate.toString()));
-            // Update the train with the modified seat layout
-            trainService.updateTrain(train);
-        }
+        // Offer the freed seats to the waitlist
+        this.promoteWaitlist(trainPrn, travelDate);
     }
 
-    public void freeSeatsFallback(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate, Exception e) {
+    public void freeSeatsFallback(List<List<Integer>> bookedSeats, String trainPrn, LocalDate travelDate, String source, String destination, Exception e) {
         log.error("Free seats fallback triggered due to: {}", e.getMessage());
         throw new CustomException("Failed to free seats. Please try again later.", ResponseStatus.FREE_THE_SEAT_OPERATION_FAILED);
     }
 
     /**
-     * Books seats on a train for a specific user and travel date.
+     * Books seats on a train for a specific user and travel date. The seats are held once and the ticket
+     * call is retried within {@link #createTicket}, so every attempt uses the same hold and idempotency key
+     * and a call that timed out after creating the ticket can not lead to a second ticket.
      *
      * @param userId                  The ID of the user booking the seats.
      * @param trainPrn                The PRN of the train.
@@ -83,16 +163,21 @@ public class SeatManagementServiceImpl implements SeatManagementService {
      */
     @Override
     @CircuitBreaker(name = "bookTrainBreaker", fallbackMethod = "bookTrainFallback")
-    @Retry(name = "bookTrainRetry", fallbackMethod = "bookTrainFallback")
     public ResponseDataDTO bookTrain(String userId, String trainPrn, String source, String destination, LocalDate dateOfTravel, int numberOfSeatsToBeBooked,String email) {
         // Check if the train can be booked and retrieve the train object
         Train train = trainService.canBeBooked(trainPrn, source, destination, dateOfTravel);
+        if (backgroundBooking) {
+            return this.bookInBackground(userId, train, source, destination, dateOfTravel, numberOfSeatsToBeBooked, email);
+        }
 
-        // Marks seats as booked (1)
-        ResponseDataDTO responseDataDTO = this.bookSeats(trainPrn, dateOfTravel, numberOfSeatsToBeBooked);
-        log.info("Booking seats for train {}", trainPrn);
-        List<List<Integer>> availableSeatsList = (List<List<Integer>>) responseDataDTO.getData();
+        // Hold seats on the legs between source and destination until the ticket exists
+        log.info("Holding seats for train {}", trainPrn);
+        SeatHold hold = this.placeHold(trainPrn, dateOfTravel, numberOfSeatsToBeBooked,
+                train.scheduleOn(dateOfTravel.toString()), source, destination);
+        List<List<Integer>> availableSeatsList = hold.getSeats();
         log.info("Available seats: {}", availableSeatsList);
+
+        ResponseDataDTO ticketBookingResponse;
         try {
             // Create the ticket request DTO
             TicketRequestDTO ticketRequestDTO = TicketRequestDTO.builder()
@@ -109,20 +194,80 @@ public class SeatManagementServiceImpl implements SeatManagementService {
             log.info("Ticket request DTO: {}", ticketRequestDTO.getUserId());
 
             // Send the ticket booking request to the external service
-            ResponseDataDTO ticketBookingResponse = ticketClient.createTicket(ticketRequestDTO);
+            ticketBookingResponse = this.createTicket(hold, ticketRequestDTO);
             log.info("Ticket booking response: {}", ticketBookingResponse);
-            return ticketBookingResponse;
         } catch (Exception e) {
-            // Ticket creation failed, so roll back the seat booking
-            log.error("Ticket creation failed, rolling back seat bookings: {}", e.getMessage());
-
-            // Free the seats that were just booked
-            freeTheBookedSeats(availableSeatsList, trainPrn, dateOfTravel);
+            log.error("Ticket creation failed for hold {}: {}", hold.getHoldId(), e.getMessage());
+            if (this.abandon(trainPrn, dateOfTravel, List.of(hold)) > 0) {
+                this.promoteWaitlist(trainPrn, dateOfTravel);
+            }
 
             // Propagate the exception with appropriate status
-            throw new CustomException("Failed to create ticket. Seat booking has been rolled back: " + e.getMessage(),
-                    ResponseStatus.TICKET_NOT_CREATED);
+            throw new CustomException("Failed to create ticket: " + e.getMessage(), ResponseStatus.TICKET_NOT_CREATED);
+        }
+
+        // The ticket exists, so the held seats become a booking unless they were lost meanwhile
+        if (!this.confirm(trainPrn, dateOfTravel, List.of(hold)).isEmpty()) {
+            this.withdrawLostTickets(trainPrn, dateOfTravel, List.of(hold));
+            throw new CustomException("The held seats expired and were booked by someone else before the ticket was created, please try again",
+                    ResponseStatus.SEAT_HOLD_NOT_FOUND);
         }
+        return ticketBookingResponse;
+    }
+
+    /**
+     * Books seats and records the ticket to create in the same update of the train-day inventory,
+     * then creates the ticket in the background. The booking ID becomes the ticket ID, so the caller
+     * gets it right away.
+     *
+     * @param userId                  The ID of the user booking the seats.
+     * @param train                   The train, already checked to be bookable.
+     * @param source                  The source station.
+     * @param destination             The destination station.
+     * @param travelDate              The travel date.
+     * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param email                   The email address the ticket is sent to.
+     * @return ResponseDataDTO containing the ID of the ticket being created.
+     */
+    private ResponseDataDTO bookInBackground(String userId, Train train, String source, String destination,
+                                             LocalDate travelDate, int numberOfSeatsToBeBooked, String email) {
+        String trainPrn = train.getPrn();
+        List<StationSchedule> schedule = train.scheduleOn(travelDate.toString());
+        LocalDateTime arrivalTimeAtSource = trainService.getArrivalAtSourceTime(train, source, travelDate);
+        LocalDateTime reachingTimeAtDestination = trainService.getArrivalAtSourceTime(train, destination, travelDate);
+
+        BookingOutboxEntry booking = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            Instant now = Instant.now();
+            inventory.releaseExpiredHolds(now);
+            int[] legs = legRange(inventory, schedule, source, destination);
+            SeatInventory allSeats = inventory.getSeats();
+
+            List<List<Integer>> availableSeatsList = this.areSeatsAvailable(inventory, numberOfSeatsToBeBooked, legs[0], legs[1]);
+            availableSeatsList.forEach(seat -> allSeats.book(allSeats.indexOf(seat), legs[0], legs[1]));
+
+            BookingOutboxEntry entry = BookingOutboxEntry.builder()
+                    .bookingId(UUID.randomUUID().toString())
+                    .status(BookingSagaStatus.PENDING)
+                    .userId(userId)
+                    .userEmail(email)
+                    .source(source)
+                    .destination(destination)
+                    .seats(availableSeatsList)
+                    .fromLeg(legs[0])
+                    .toLeg(legs[1])
+                    .arrivalTimeAtSource(arrivalTimeAtSource)
+                    .reachingTimeAtDestination(reachingTimeAtDestination)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .build();
+            inventory.addOutboxEntry(entry);
+            return entry.toBuilder().build();
+        });
+        log.info("Booked seats {} of train {} on {}, creating ticket {} in the background",
+                booking.getSeats(), trainPrn, travelDate, booking.getBookingId());
+
+        this.resumeBookings(trainPrn, travelDate);
+        return new ResponseDataDTO(true, "Seats booked, ticket is being created: " + booking.getBookingId(), booking.getBookingId());
     }
 
     public ResponseDataDTO bookTrainFallback(String userId, String trainPrn, String source, String destination, LocalDate dateOfTravel, int numberOfSeatsToBeBooked, Exception e) {
@@ -130,6 +275,613 @@ public class SeatManagementServiceImpl implements SeatManagementService {
         return new ResponseDataDTO(false, "Train booking service is currently unavailable. Please try again later.");
     }
 
+    /**
+     * Books a batch of requests. Requests for the same train-day are allocated in one update of its
+     * seat inventory and confirmed in a second one, whatever the number of requests.
+     * Each request succeeds or fails on its own.
+     *
+     * @param requests The booking requests.
+     * @return ResponseDataDTO containing one result per request, in request order.
+     */
+    @Override
+    public ResponseDataDTO bookTrains(List<BookTrainRequestDTO> requests) {
+        BatchBookingResultDTO[] results = new BatchBookingResultDTO[requests.size()];
+
+        // Group the requests by train-day, keeping their order
+        Map<String, List<Integer>> trainDays = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookTrainRequestDTO request = requests.get(i);
+            trainDays.computeIfAbsent(TrainSeatInventory.idOf(request.getTrainPrn(), request.getTravelDate()), id -> new ArrayList<>()).add(i);
+        }
+
+        trainDays.values().forEach(indexes -> {
+            try {
+                bookTrainDay(requests, indexes, results);
+            } catch (RuntimeException e) {
+                log.error("Batch booking failed for train-day of request {}: {}", indexes.get(0), e.getMessage());
+                indexes.stream().filter(i -> results[i] == null).forEach(i -> results[i] = failed(i, e.getMessage()));
+            }
+        });
+
+        long booked = Arrays.stream(results).filter(BatchBookingResultDTO::isStatus).count();
+        log.info("Batch booking finished: {} of {} requests booked", booked, requests.size());
+        return new ResponseDataDTO(true, String.format("%d of %d requests booked", booked, requests.size()), Arrays.asList(results));
+    }
+
+    /**
+     * Books the requests of one train-day: holds seats for all of them in one update, creates their
+     * tickets and confirms the holds of the created tickets in one update.
+     *
+     * @param requests The requests of the batch.
+     * @param indexes  The positions of the requests for this train-day.
+     * @param results  The results of the batch, filled in for these requests.
+     */
+    private void bookTrainDay(List<BookTrainRequestDTO> requests, List<Integer> indexes, BatchBookingResultDTO[] results) {
+        BookTrainRequestDTO first = requests.get(indexes.get(0));
+        String trainPrn = first.getTrainPrn();
+        LocalDate travelDate = first.getTravelDate();
+        Train train = trainService.findTrainDay(trainPrn, travelDate);
+        List<StationSchedule> schedule = train.scheduleOn(travelDate.toString());
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i : indexes) {
+            BookTrainRequestDTO request = requests.get(i);
+            if (trainServiceUtil.validTrain(request.getSource(), request.getDestination(), travelDate, train)) {
+                valid.add(i);
+            } else {
+                results[i] = failed(i, "Can not be Booked: Source and destination do not align with train data");
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Allocate every request in a single pass over the train-day inventory
+        Map<Integer, Allocation> allocations = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            Instant now = Instant.now();
+            inventory.releaseExpiredHolds(now);
+            SeatInventory allSeats = inventory.getSeats();
+            Map<Integer, Allocation> allocated = new LinkedHashMap<>();
+            for (int i : valid) {
+                BookTrainRequestDTO request = requests.get(i);
+                try {
+                    int[] legs = legRange(inventory, schedule, request.getSource(), request.getDestination());
+                    List<List<Integer>> seats = this.areSeatsAvailable(inventory, request.getNumberOfSeatsToBeBooked(), legs[0], legs[1]);
+                    seats.forEach(seat -> allSeats.book(allSeats.indexOf(seat), legs[0], legs[1]));
+                    SeatHold hold = SeatHold.builder()
+                            .holdId(UUID.randomUUID().toString())
+                            .seats(seats)
+                            .fromLeg(legs[0])
+                            .toLeg(legs[1])
+                            .expiresAt(now.plusSeconds(holdTtlSeconds))
+                            .build();
+                    inventory.addHold(hold);
+                    allocated.put(i, new Allocation(hold, null));
+                } catch (CustomException e) {
+                    allocated.put(i, new Allocation(null, e.getMessage()));
+                }
+            }
+            return allocated;
+        });
+
+        List<SeatHold> ticketed = new ArrayList<>();
+        List<SeatHold> abandoned = new ArrayList<>();
+        Map<String, Integer> requestOfHold = new HashMap<>();
+        allocations.forEach((i, allocation) -> {
+            SeatHold hold = allocation.hold();
+            if (hold == null) {
+                results[i] = failed(i, allocation.error());
+                return;
+            }
+            BookTrainRequestDTO request = requests.get(i);
+            try {
+                TicketRequestDTO ticketRequestDTO = TicketRequestDTO.builder()
+                        .userId(request.getUserId())
+                        .trainId(trainPrn)
+                        .dateOfTravel(travelDate)
+                        .source(request.getSource())
+                        .destination(request.getDestination())
+                        .email(request.getUserEmail())
+                        .bookedSeatsIndex(hold.getSeats())
+                        .arrivalTimeAtSource(arrivalTime(schedule, request.getSource()))
+                        .reachingTimeAtDestination(arrivalTime(schedule, request.getDestination()))
+                        .build();
+                ResponseDataDTO ticket = this.createTicket(hold, ticketRequestDTO);
+                ticketed.add(hold);
+                requestOfHold.put(hold.getHoldId(), i);
+                results[i] = new BatchBookingResultDTO(i, true, "seats booked", hold.getSeats(), ticket.getData());
+            } catch (Exception e) {
+                log.error("Ticket creation failed for batch request {}, hold {}: {}", i, hold.getHoldId(), e.getMessage());
+                abandoned.add(hold);
+                results[i] = failed(i, "Failed to create ticket: " + e.getMessage());
+            }
+        });
+        if (!abandoned.isEmpty() && this.abandon(trainPrn, travelDate, abandoned) > 0) {
+            this.promoteWaitlist(trainPrn, travelDate);
+        }
+
+        if (!ticketed.isEmpty()) {
+            List<SeatHold> lost = this.confirm(trainPrn, travelDate, ticketed);
+            this.withdrawLostTickets(trainPrn, travelDate, lost);
+            lost.forEach(hold -> results[requestOfHold.get(hold.getHoldId())] = failed(requestOfHold.get(hold.getHoldId()),
+                    "The held seats expired and were booked by someone else before the ticket was created"));
+        }
+    }
+
+    /**
+     * The seats allocated to one request of a batch: the hold placed for it, or why no seats could be held.
+     */
+    private record Allocation(SeatHold hold, String error) {
+    }
+
+    /**
+     * Builds the result of a failed batch request.
+     *
+     * @param index   The position of the request in the batch.
+     * @param message The reason of the failure.
+     * @return The failed result.
+     */
+    private static BatchBookingResultDTO failed(int index, String message) {
+        return new BatchBookingResultDTO(index, false, message, null, null);
+    }
+
+    /**
+     * Finds the arrival time of the train at a station from its schedule.
+     *
+     * @param schedule The stations of the train on the travel date.
+     * @param station  The station name.
+     * @return The arrival time, or null if the train does not stop there.
+     */
+    private LocalDateTime arrivalTime(List<StationSchedule> schedule, String station) {
+        int index = trainServiceUtil.stationIndex(schedule, station);
+        return index < 0 ? null : schedule.get(index).getArrivalTime();
+    }
+
+    /**
+     * Returns how many seats are free on a train-day, in total and per coach, without the seat layout.
+     * Whole-journey availability comes straight from the maintained counters; a station pair counts the
+     * seats free on every leg between them.
+     *
+     * @param trainPrn    The PRN of the train.
+     * @param travelDate  The travel date.
+     * @param source      The station where the journey starts, or null for the whole journey.
+     * @param destination The station where the journey ends, or null for the whole journey.
+     * @return ResponseDataDTO containing the seat availability.
+     */
+    @Override
+    @CircuitBreaker(name = "getSeatsBreaker", fallbackMethod = "getAvailabilityFallback")
+    @Retry(name = "getSeatsRetry", fallbackMethod = "getAvailabilityFallback")
+    public ResponseDataDTO getAvailability(String trainPrn, LocalDate travelDate, String source, String destination) {
+        SeatAvailabilityDTO availability;
+        if (source == null || destination == null) {
+            availability = seatInventoryStore.availability(trainPrn, travelDate);
+        } else {
+            availability = availabilityBetween(trainPrn, travelDate, scheduleForLegs(trainPrn, travelDate, source, destination), source, destination);
+        }
+        return new ResponseDataDTO(true, String.format("Availability of train %s fetched successfully", trainPrn), availability);
+    }
+
+    /**
+     * Counts the seats free between two stations of several trains that are already loaded, reading
+     * their inventories together instead of one train at a time.
+     *
+     * @param trains      The trains, with the schedules of the travel date.
+     * @param travelDate  The travel date.
+     * @param source      The station where the journey starts.
+     * @param destination The station where the journey ends.
+     * @return The seat availability by PRN, without the trains whose seats could not be counted.
+     */
+    @Override
+    public Map<String, SeatAvailabilityDTO> getAvailability(Collection<Train> trains, LocalDate travelDate, String source, String destination) {
+        Map<String, List<StationSchedule>> schedules = new LinkedHashMap<>();
+        trains.forEach(train -> schedules.put(train.getPrn(), train.scheduleOn(travelDate.toString())));
+        return seatInventoryStore.readAll(schedules.keySet(), travelDate,
+                inventory -> availabilityOf(inventory, schedules.get(inventory.getTrainPrn()), source, destination));
+    }
+
+    public ResponseDataDTO getAvailabilityFallback(String trainPrn, LocalDate travelDate, String source, String destination, Exception e) {
+        log.error("Get availability fallback triggered due to: {}", e.getMessage());
+        return new ResponseDataDTO(false, "Failed to fetch seat availability. Please try again later.");
+    }
+
+    /**
+     * Holds seats for a booking that is confirmed later. Unconfirmed holds expire and their seats are freed.
+     *
+     * @param trainPrn                The PRN of the train.
+     * @param travelDate              The travel date.
+     * @param numberOfSeatsToBeBooked The number of seats to hold.
+     * @param source                  The station where the booking starts, or null to hold the whole journey.
+     * @param destination             The station where the booking ends, or null to hold the whole journey.
+     * @return ResponseDataDTO containing the hold.
+     */
+    @Override
+    @CircuitBreaker(name = "holdSeatsBreaker", fallbackMethod = "holdSeatsFallback")
+    @Retry(name = "holdSeatsRetry", fallbackMethod = "holdSeatsFallback")
+    public ResponseDataDTO holdSeats(String trainPrn, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination) {
+        List<StationSchedule> schedule = scheduleForLegs(trainPrn, travelDate, source, destination);
+        SeatHold hold = this.placeHold(trainPrn, travelDate, numberOfSeatsToBeBooked, schedule, source, destination);
+        return new ResponseDataDTO(true, "seats held", hold);
+    }
+
+    public ResponseDataDTO holdSeatsFallback(String trainPrn, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination, Exception e) {
+        log.error("Hold seats fallback triggered due to: {}", e.getMessage());
+        return new ResponseDataDTO(false, "Failed to hold seats. Please try again later.");
+    }
+
+    /**
+     * Confirms a hold, keeping its seats booked.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param holdId     The ID of the hold.
+     * @return ResponseDataDTO containing the confirmed seats.
+     */
+    @Override
+    public ResponseDataDTO confirmHold(String trainPrn, LocalDate travelDate, String holdId) {
+        SeatHold hold = seatInventoryStore.update(trainPrn, travelDate, inventory -> inventory.removeHold(holdId));
+        if (hold == null) {
+            throw new CustomException(String.format("Seat hold %s does not exist or has expired", holdId), ResponseStatus.SEAT_HOLD_NOT_FOUND);
+        }
+        log.info("Confirmed hold {} of train {} on {}", holdId, trainPrn, travelDate);
+        return new ResponseDataDTO(true, "hold confirmed", hold.getSeats());
+    }
+
+    /**
+     * Releases a hold and frees its seats.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param holdId     The ID of the hold.
+     * @return ResponseDataDTO indicating the result.
+     */
+    @Override
+    public ResponseDataDTO releaseHold(String trainPrn, LocalDate travelDate, String holdId) {
+        SeatHold hold = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            SeatHold removed = inventory.removeHold(holdId);
+            if (removed != null) {
+                inventory.freeHold(removed);
+            }
+            return removed;
+        });
+        if (hold == null) {
+            throw new CustomException(String.format("Seat hold %s does not exist or has expired", holdId), ResponseStatus.SEAT_HOLD_NOT_FOUND);
+        }
+        log.info("Released hold {} of train {} on {}", holdId, trainPrn, travelDate);
+        this.promoteWaitlist(trainPrn, travelDate);
+        return new ResponseDataDTO(true, "hold released", null);
+    }
+
+    /**
+     * Books a train and adds the request to the waitlist if the train-day is sold out.
+     *
+     * @param request The booking request.
+     * @return ResponseDataDTO containing the ticket, or the waitlist entry if the request was waitlisted.
+     */
+    @Override
+    public ResponseDataDTO bookTrainOrWaitlist(BookTrainRequestDTO request) {
+        try {
+            return this.bookTrain(request.getUserId(), request.getTrainPrn(), request.getSource(), request.getDestination(),
+                    request.getTravelDate(), request.getNumberOfSeatsToBeBooked(), request.getUserEmail());
+        } catch (CustomException e) {
+            if (e.getErrorCode() != ResponseStatus.NOT_ENOUGH_SEATS) {
+                throw e;
+            }
+            log.info("Train {} on {} is sold out, adding the request to the waitlist", request.getTrainPrn(), request.getTravelDate());
+            ResponseDataDTO waitlisted = this.joinWaitlist(request);
+
+            // Not booked yet, the waitlist entry tells the client where it stands
+            waitlisted.setStatus(false);
+            waitlisted.setResponseStatus(ResponseStatus.NOT_ENOUGH_SEATS);
+            return waitlisted;
+        }
+    }
+
+    /**
+     * Adds a booking request to the end of the waitlist of its train-day.
+     *
+     * @param request The booking request.
+     * @return ResponseDataDTO containing the waitlist entry and its position.
+     */
+    @Override
+    public ResponseDataDTO joinWaitlist(BookTrainRequestDTO request) {
+        if (request.getNumberOfSeatsToBeBooked() <= 0) {
+            throw new CustomException("Number of seats must be positive", ResponseStatus.INVALID_DATA);
+        }
+        // Only requests that could be booked on this train-day are queued
+        trainService.canBeBooked(request.getTrainPrn(), request.getSource(), request.getDestination(), request.getTravelDate());
+
+        WaitlistEntry entry = waitlistStore.join(WaitlistEntry.builder()
+                .trainPrn(request.getTrainPrn())
+                .travelDate(request.getTravelDate())
+                .userId(request.getUserId())
+                .userEmail(request.getUserEmail())
+                .source(request.getSource())
+                .destination(request.getDestination())
+                .numberOfSeats(request.getNumberOfSeatsToBeBooked())
+                .build());
+        int position = waitlistStore.position(entry);
+        log.info("Request {} joined the waitlist of train {} on {} at position {}", entry.getId(), entry.getTrainPrn(), entry.getTravelDate(), position);
+
+        // Seats may have been freed since the booking attempt
+        this.promoteWaitlist(entry.getTrainPrn(), entry.getTravelDate());
+        return new ResponseDataDTO(true, String.format("Added to the waitlist at position %d", position),
+                WaitlistStatusDTO.of(entry, position));
+    }
+
+    /**
+     * Retrieves the state and position of a waitlisted request.
+     *
+     * @param waitlistId The ID of the waitlist entry.
+     * @return ResponseDataDTO containing the waitlist entry.
+     */
+    @Override
+    public ResponseDataDTO getWaitlistEntry(String waitlistId) {
+        WaitlistEntry entry = waitlistStore.find(waitlistId);
+        return new ResponseDataDTO(true, "waitlist entry fetched", WaitlistStatusDTO.of(entry, waitlistStore.position(entry)));
+    }
+
+    /**
+     * Removes a waiting request from the waitlist.
+     *
+     * @param waitlistId The ID of the waitlist entry.
+     * @return ResponseDataDTO indicating the result.
+     */
+    @Override
+    public ResponseDataDTO leaveWaitlist(String waitlistId) {
+        WaitlistEntry entry = waitlistStore.find(waitlistId);
+        if (!waitlistStore.cancel(entry)) {
+            throw new CustomException(String.format("Waitlist entry %s is %s and can not be cancelled", waitlistId, entry.getStatus()),
+                    ResponseStatus.WAITLIST_ENTRY_NOT_FOUND);
+        }
+        log.info("Request {} left the waitlist of train {} on {}", waitlistId, entry.getTrainPrn(), entry.getTravelDate());
+        return new ResponseDataDTO(true, "left the waitlist", null);
+    }
+
+    /**
+     * Schedules the promotion of waitlisted requests of a train-day on the waitlist worker.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     */
+    @Override
+    public void promoteWaitlist(String trainPrn, LocalDate travelDate) {
+        waitlistWorker.submit(TrainSeatInventory.idOf(trainPrn, travelDate), () -> this.promote(trainPrn, travelDate));
+    }
+
+    /**
+     * Promotes waitlisted requests of a train-day: holds seats for every request that fits, in queue
+     * order, in one update, then claims the requests, creates their tickets and confirms their holds.
+     * A request that does not fit yet keeps its place, so a smaller request behind it can be served first.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     */
+    private void promote(String trainPrn, LocalDate travelDate) {
+        List<WaitlistEntry> waiting = waitlistStore.waiting(trainPrn, travelDate);
+        if (waiting.isEmpty()) {
+            return;
+        }
+        List<StationSchedule> schedule = trainService.findTrainDay(trainPrn, travelDate).scheduleOn(travelDate.toString());
+
+        // Hold seats for every request that fits in a single pass over the train-day inventory
+        List<Promotion> promotions = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            Instant now = Instant.now();
+            inventory.releaseExpiredHolds(now);
+            SeatInventory allSeats = inventory.getSeats();
+            List<Promotion> allocated = new ArrayList<>();
+            for (WaitlistEntry entry : waiting) {
+                int[] legs;
+                try {
+                    legs = legRange(inventory, schedule, entry.getSource(), entry.getDestination());
+                } catch (CustomException e) {
+                    continue;
+                }
+                if (allSeats.freeCount(legs[0], legs[1]) < entry.getNumberOfSeats()) {
+                    continue;
+                }
+                List<List<Integer>> seats = this.areSeatsAvailable(inventory, entry.getNumberOfSeats(), legs[0], legs[1]);
+                seats.forEach(seat -> allSeats.book(allSeats.indexOf(seat), legs[0], legs[1]));
+                SeatHold hold = SeatHold.builder()
+                        .holdId(UUID.randomUUID().toString())
+                        .seats(seats)
+                        .fromLeg(legs[0])
+                        .toLeg(legs[1])
+                        .expiresAt(now.plusSeconds(holdTtlSeconds))
+                        .build();
+                inventory.addHold(hold);
+                allocated.add(new Promotion(entry, hold, null));
+            }
+            return allocated;
+        });
+        if (promotions.isEmpty()) {
+            return;
+        }
+
+        Map<SeatHold, Promotion> ticketed = new LinkedHashMap<>();
+        List<SeatHold> released = new ArrayList<>();
+        List<SeatHold> abandoned = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            WaitlistEntry entry = promotion.entry();
+            SeatHold hold = promotion.hold();
+            if (!waitlistStore.claim(entry)) {
+                // Cancelled meanwhile or promoted by another instance
+                released.add(hold);
+                continue;
+            }
+            try {
+                TicketRequestDTO ticketRequestDTO = TicketRequestDTO.builder()
+                        .userId(entry.getUserId())
+                        .trainId(trainPrn)
+                        .dateOfTravel(travelDate)
+                        .source(entry.getSource())
+                        .destination(entry.getDestination())
+                        .email(entry.getUserEmail())
+                        .bookedSeatsIndex(hold.getSeats())
+                        .arrivalTimeAtSource(arrivalTime(schedule, entry.getSource()))
+                        .reachingTimeAtDestination(arrivalTime(schedule, entry.getDestination()))
+                        .build();
+                ResponseDataDTO ticket = this.createTicket(hold, ticketRequestDTO);
+                ticketed.put(hold, new Promotion(entry, hold, String.valueOf(ticket.getData())));
+            } catch (Exception e) {
+                log.error("Ticket creation failed for waitlisted request {}: {}", entry.getId(), e.getMessage());
+                waitlistStore.promotionFailed(entry, waitlistMaxAttempts);
+                abandoned.add(hold);
+            }
+        }
+
+        if (!ticketed.isEmpty()) {
+            // Only requests whose held seats were kept are booked, the others go back to the waitlist
+            List<SeatHold> lost = this.confirm(trainPrn, travelDate, new ArrayList<>(ticketed.keySet()));
+            this.withdrawLostTickets(trainPrn, travelDate, lost);
+            lost.forEach(hold -> waitlistStore.promotionFailed(ticketed.remove(hold).entry(), waitlistMaxAttempts));
+            ticketed.values().forEach(promotion -> {
+                waitlistStore.booked(promotion.entry(), promotion.hold().getSeats(), promotion.ticketId());
+                log.info("Promoted waitlisted request {} of train {} on {} to ticket {}",
+                        promotion.entry().getId(), trainPrn, travelDate, promotion.ticketId());
+            });
+        }
+        if (!abandoned.isEmpty()) {
+            // Not promoted again right away, the failed requests would be retried against a failing ticket service
+            this.abandon(trainPrn, travelDate, abandoned);
+        }
+        if (!released.isEmpty()) {
+            // Give the seats of unused holds back right away instead of waiting for them to expire
+            seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+                for (SeatHold hold : released) {
+                    SeatHold removed = inventory.removeHold(hold.getHoldId());
+                    if (removed != null) {
+                        inventory.freeHold(removed);
+                    }
+                }
+                return released.size();
+            });
+        }
+    }
+
+    /**
+     * Retrieves the state of a background booking.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param bookingId  The ID of the booking.
+     * @return ResponseDataDTO containing the booking status.
+     */
+    @Override
+    public ResponseDataDTO getBooking(String trainPrn, LocalDate travelDate, String bookingId) {
+        BookingStatusDTO booking = seatInventoryStore.read(trainPrn, travelDate, inventory -> {
+            BookingOutboxEntry entry = inventory.findOutboxEntry(bookingId);
+            return entry == null ? null : BookingStatusDTO.of(trainPrn, travelDate, entry);
+        });
+        if (booking == null) {
+            throw new CustomException(String.format("Booking %s does not exist or finished too long ago", bookingId), ResponseStatus.BOOKING_NOT_FOUND);
+        }
+        return new ResponseDataDTO(true, "booking found", booking);
+    }
+
+    /**
+     * Schedules ticket creation for the pending background bookings of a train-day.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     */
+    @Override
+    public void resumeBookings(String trainPrn, LocalDate travelDate) {
+        bookingSagaWorker.submit(TrainSeatInventory.idOf(trainPrn, travelDate), () -> this.advanceBookings(trainPrn, travelDate));
+    }
+
+    /**
+     * Creates the tickets of the pending background bookings of a train-day that are due, then records
+     * the outcomes in one update. A failed booking is retried with a growing delay and, after the last
+     * attempt, compensated by freeing its seats. Every attempt sends the booking ID as idempotency key,
+     * so a ticket whose response was lost is not created twice.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     */
+    private void advanceBookings(String trainPrn, LocalDate travelDate) {
+        Instant now = Instant.now();
+        List<BookingOutboxEntry> due = seatInventoryStore.read(trainPrn, travelDate, inventory ->
+                inventory.getOutbox() == null ? List.<BookingOutboxEntry>of() : inventory.getOutbox().stream()
+                        .filter(entry -> entry.getStatus() == BookingSagaStatus.PENDING && !entry.getNextAttemptAt().isAfter(now))
+                        .map(entry -> entry.toBuilder().build())
+                        .toList());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Create the tickets outside of the inventory update, so slow calls do not block bookings
+        Map<String, String> failures = new HashMap<>();
+        for (BookingOutboxEntry booking : due) {
+            try {
+                TicketRequestDTO ticketRequestDTO = TicketRequestDTO.builder()
+                        .ticketId(booking.getBookingId())
+                        .userId(booking.getUserId())
+                        .trainId(trainPrn)
+                        .dateOfTravel(travelDate)
+                        .source(booking.getSource())
+                        .destination(booking.getDestination())
+                        .email(booking.getUserEmail())
+                        .bookedSeatsIndex(booking.getSeats())
+                        .arrivalTimeAtSource(booking.getArrivalTimeAtSource())
+                        .reachingTimeAtDestination(booking.getReachingTimeAtDestination())
+                        .build();
+                ResponseDataDTO ticket = ticketClient.createTicket(booking.getBookingId(), ticketRequestDTO);
+                if (!ticket.isStatus()) {
+                    throw new CustomException(ticket.getMessage(), ResponseStatus.TICKET_NOT_CREATED);
+                }
+                log.info("Created ticket {} of train {} on {}", booking.getBookingId(), trainPrn, travelDate);
+            } catch (Exception e) {
+                log.error("Ticket creation failed for booking {} (attempt {}): {}", booking.getBookingId(), booking.getAttempts() + 1, e.getMessage());
+                failures.put(booking.getBookingId(), String.valueOf(e.getMessage()));
+            }
+        }
+
+        int compensated = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            Instant finishedAt = Instant.now();
+            SeatInventory seats = inventory.getSeats();
+            int freed = 0;
+            for (BookingOutboxEntry booking : due) {
+                BookingOutboxEntry entry = inventory.findOutboxEntry(booking.getBookingId());
+                if (entry == null || entry.getStatus() != BookingSagaStatus.PENDING) {
+                    // Finished by another instance meanwhile
+                    continue;
+                }
+                if (!failures.containsKey(entry.getBookingId())) {
+                    entry.setStatus(BookingSagaStatus.COMPLETED);
+                    entry.setFinishedAt(finishedAt);
+                    continue;
+                }
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setLastError(failures.get(entry.getBookingId()));
+                if (entry.getAttempts() < bookingMaxAttempts) {
+                    long delay = bookingRetryDelaySeconds << Math.min(entry.getAttempts() - 1, 10);
+                    entry.setNextAttemptAt(finishedAt.plusSeconds(delay));
+                    continue;
+                }
+                // Give up and give the seats back
+                for (List<Integer> seat : entry.getSeats()) {
+                    seats.free(seats.indexOf(seat), entry.getFromLeg(), entry.getToLeg());
+                }
+                entry.setStatus(BookingSagaStatus.COMPENSATED);
+                entry.setFinishedAt(finishedAt);
+                freed++;
+            }
+            inventory.pruneOutbox(finishedAt.minusSeconds(bookingRetentionSeconds));
+            return freed;
+        });
+
+        if (compensated > 0) {
+            log.warn("Freed the seats of {} bookings of train {} on {} whose tickets could not be created", compensated, trainPrn, travelDate);
+            this.promoteWaitlist(trainPrn, travelDate);
+        }
+    }
+
+    /**
+     * A waitlisted request, the seats held for it and, once created, its ticket.
+     */
+    private record Promotion(WaitlistEntry entry, SeatHold hold, String ticketId) {
+    }
+
     /**
      * Retrieves the seat layout of a train for a specific travel date.
      *
@@ -141,16 +893,11 @@ public class SeatManagementServiceImpl implements SeatManagementService {
     @CircuitBreaker(name = "getSeatsBreaker", fallbackMethod = "getSeatsFallback")
     @Retry(name = "getSeatsRetry", fallbackMethod = "getSeatsFallback")
     public ResponseDataDTO getSeatsAtParticularDate(String trainPrn, LocalDate travelDate) {
-        // Retrieve the train by its PRN
-        Train train = trainService.findTrainByPrn(trainPrn);
-
-        // Train not found
-        if (train == null) {
-            throw new CustomException("Train does not exist with PRN: " + trainPrn, ResponseStatus.TRAIN_NOT_FOUND);
-        }
+        // Read only this train-day's seat inventory
+        List<List<Integer>> seatLayout = seatInventoryStore.read(trainPrn, travelDate, inventory -> inventory.getSeats().toMatrix());
 
         // Return the seat layout for the specified travel date
-        return new ResponseDataDTO(true, String.format("Seats of train %s fetched successfully", trainPrn), train.getSeats().get(travelDate.toString()));
+        return new ResponseDataDTO(true, String.format("Seats of train %s fetched successfully", trainPrn), seatLayout);
     }
 
     public ResponseDataDTO getSeatsFallback(String trainPrn, LocalDate travelDate, Exception e) {
@@ -158,110 +905,421 @@ public class SeatManagementServiceImpl implements SeatManagementService {
         return new ResponseDataDTO(false, "Failed to fetch seats. Please try again later.");
     }
 
+    /**
+     * Retrieves the seat layout of a train for a specific travel date in a compact encoding.
+     * With a revision, only the seats changed after it are returned, unless the change log no longer
+     * reaches back that far, in which case the full layout is returned.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param encoding   The encoding of a full layout: matrix, rle or bitset.
+     * @param since      The layout revision the caller already has, or null for the full layout.
+     * @return ResponseDataDTO containing the seat layout.
+     */
+    @Override
+    @CircuitBreaker(name = "getSeatsBreaker", fallbackMethod = "getSeatLayoutFallback")
+    @Retry(name = "getSeatsRetry", fallbackMethod = "getSeatLayoutFallback")
+    public ResponseDataDTO getSeatLayout(String trainPrn, LocalDate travelDate, String encoding, Long since) {
+        String layoutEncoding = encoding == null ? SeatLayoutDTO.MATRIX : encoding.toLowerCase();
+        if (!List.of(SeatLayoutDTO.MATRIX, SeatLayoutDTO.RLE, SeatLayoutDTO.BITSET).contains(layoutEncoding)) {
+            throw new CustomException("Unknown seat layout encoding: " + encoding, ResponseStatus.INVALID_DATA);
+        }
+
+        SeatLayoutDTO layout = seatInventoryStore.read(trainPrn, travelDate, inventory -> {
+            SeatInventory seats = inventory.getSeats();
+            SeatLayoutDTO.SeatLayoutDTOBuilder builder = SeatLayoutDTO.builder()
+                    .trainPrn(trainPrn)
+                    .travelDate(travelDate)
+                    .revision(inventory.getRevision())
+                    .coaches(seats.getCoaches())
+                    .seatsPerCoach(seats.getSeatsPerCoach());
+
+            // Send only what changed when the change log still covers the caller's revision
+            Set<Integer> changed = since == null ? null : inventory.changedSince(since);
+            if (changed != null) {
+                int seatsPerCoach = seats.getSeatsPerCoach();
+                return builder.encoding(SeatLayoutDTO.DELTA)
+                        .changes(changed.stream()
+                                .map(index -> List.of(index / seatsPerCoach, index % seatsPerCoach, seats.isBooked(index) ? 1 : 0))
+                                .toList())
+                        .build();
+            }
+
+            builder.encoding(layoutEncoding);
+            switch (layoutEncoding) {
+                case SeatLayoutDTO.RLE -> builder.runs(seats.runLengths());
+                case SeatLayoutDTO.BITSET -> builder.bits(Base64.getEncoder().encodeToString(
+                        SeatInventoryCodec.toBytes(seats.occupancyWords(), seats.capacity(), 1)));
+                default -> builder.seats(seats.toMatrix());
+            }
+            return builder.build();
+        });
+        return new ResponseDataDTO(true, String.format("Seats of train %s fetched successfully", trainPrn), layout);
+    }
+
+    public ResponseDataDTO getSeatLayoutFallback(String trainPrn, LocalDate travelDate, String encoding, Long since, Exception e) {
+        log.error("Get seat layout fallback triggered due to: {}", e.getMessage());
+        return new ResponseDataDTO(false, "Failed to fetch seats. Please try again later.");
+    }
+
     /**
      * Books the specified number of seats for a train on a given travel date.
      *
      * @param trainId                The PRN of the train.
      * @param travelDate             The travel date.
      * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param source                 The station where the booking starts, or null to book the whole journey.
+     * @param destination            The station where the booking ends, or null to book the whole journey.
      * @return ResponseDataDTO containing the list of booked seat positions.
      */
     @Override
     @CircuitBreaker(name = "bookSeatsBreaker", fallbackMethod = "bookSeatsFallback")
     @Retry(name = "bookSeatsRetry", fallbackMethod = "bookSeatsFallback")
-    public ResponseDataDTO bookSeats(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked) {
-        // Retrieve the train by its PRN
-        Train train = trainService.findTrainByPrn(trainId);
+    public ResponseDataDTO bookSeats(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination) {
+        List<StationSchedule> schedule = scheduleForLegs(trainId, travelDate, source, destination);
+        List<List<Integer>> bookedSeats = this.claimSeats(trainId, travelDate, numberOfSeatsToBeBooked, schedule, source, destination);
+        return new ResponseDataDTO(true, "seats booked", bookedSeats);
+    }
 
-        // Retrieve seat availability data
-        List<List<Integer>> availableSeatsList = this.areSeatsAvailable(train, numberOfSeatsToBeBooked, travelDate);
+    /**
+     * Marks seats as booked on the legs between two stations and records them as a hold that expires.
+     * Holds that already expired on this train-day are released in the same update.
+     *
+     * @param trainPrn                The PRN of the train.
+     * @param travelDate              The travel date.
+     * @param numberOfSeatsToBeBooked The number of seats to hold.
+     * @param schedule                The stations of the train on the travel date, or null to hold the whole journey.
+     * @param source                  The station where the booking starts.
+     * @param destination             The station where the booking ends.
+     * @return The new hold.
+     */
+    private SeatHold placeHold(String trainPrn, LocalDate travelDate, int numberOfSeatsToBeBooked,
+                               List<StationSchedule> schedule, String source, String destination) {
+        SeatHold hold = seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            Instant now = Instant.now();
+            inventory.releaseExpiredHolds(now);
+            int[] legs = legRange(inventory, schedule, source, destination);
+            SeatInventory allSeats = inventory.getSeats();
 
-        // All seats for the specified travel date
-        List<List<Integer>> allSeats = train.getSeats().get(travelDate.toString());
+            List<List<Integer>> availableSeatsList = this.areSeatsAvailable(inventory, numberOfSeatsToBeBooked, legs[0], legs[1]);
+            availableSeatsList.forEach(seat -> allSeats.book(allSeats.indexOf(seat), legs[0], legs[1]));
 
-        // Mark each specified seat as booked (1)
-        availableSeatsList.forEach(seat -> allSeats.get(seat.get(0)).set(seat.get(1), 1));
+            SeatHold newHold = SeatHold.builder()
+                    .holdId(UUID.randomUUID().toString())
+                    .seats(availableSeatsList)
+                    .fromLeg(legs[0])
+                    .toLeg(legs[1])
+                    .expiresAt(now.plusSeconds(holdTtlSeconds))
+                    .build();
+            inventory.addHold(newHold);
+            return newHold;
+        });
+        log.info("Held seats {} of train {} on {} until {}", hold.getSeats(), trainPrn, travelDate, hold.getExpiresAt());
+        return hold;
+    }
 
-        // Update the train with the modified seat layout
-        trainService.updateTrain(train);
-        log.info("Updating train in the DB");
-        return new ResponseDataDTO(true, "seats booked", availableSeatsList);
+    /**
+     * Confirms the holds of tickets that were created, in one update. If a hold expired first,
+     * its seats are booked again when they are still free.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param holds      The holds placed for the tickets.
+     * @return The holds that expired and whose seats were booked by someone else; their tickets must be withdrawn.
+     */
+    private List<SeatHold> confirm(String trainPrn, LocalDate travelDate, List<SeatHold> holds) {
+        return seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+            List<SeatHold> taken = new ArrayList<>();
+            for (SeatHold hold : holds) {
+                if (inventory.removeHold(hold.getHoldId()) == null && !reclaim(inventory.getSeats(), hold)) {
+                    taken.add(hold);
+                }
+            }
+            return taken;
+        });
     }
 
-    public ResponseDataDTO bookSeatsFallback(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked, Exception e) {
+    /**
+     * Creates the ticket of a hold, retrying failed calls up to {@code seats.ticket.max-attempts} times.
+     * The hold ID is the ticket ID and the idempotency key of every attempt, so a retry can not create a
+     * second ticket and a ticket whose seats were lost can be withdrawn. An attempt is only started while
+     * the hold outlives the ticket client timeouts.
+     *
+     * @param hold             The hold placed for the ticket.
+     * @param ticketRequestDTO The ticket to create.
+     * @return The response of the ticket service.
+     */
+    private ResponseDataDTO createTicket(SeatHold hold, TicketRequestDTO ticketRequestDTO) {
+        ticketRequestDTO.setTicketId(hold.getHoldId());
+        for (int attempt = 1; ; attempt++) {
+            if (Instant.now().plusMillis(ticketConnectTimeoutMs + ticketReadTimeoutMs).isAfter(hold.getExpiresAt())) {
+                throw new CustomException("The held seats expire before the ticket can be created", ResponseStatus.TICKET_NOT_CREATED);
+            }
+            try {
+                ResponseDataDTO ticket = ticketClient.createTicket(hold.getHoldId(), ticketRequestDTO);
+                if (!ticket.isStatus()) {
+                    throw new CustomException(ticket.getMessage(), ResponseStatus.TICKET_NOT_CREATED);
+                }
+                return ticket;
+            } catch (RuntimeException e) {
+                if (attempt >= ticketMaxAttempts) {
+                    throw e;
+                }
+                log.warn("Ticket creation for hold {} failed (attempt {}), retrying: {}", hold.getHoldId(), attempt, e.getMessage());
+            }
+            try {
+                Thread.sleep(ticketRetryDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CustomException("Ticket creation was interrupted", ResponseStatus.TICKET_NOT_CREATED);
+            }
+        }
+    }
+
+    /**
+     * Gives up the holds of tickets that could not be created. A call that failed may still have created
+     * its ticket, so the tickets are withdrawn first; the seats of a hold are only freed once its ticket
+     * is known to be gone, otherwise the hold expires and the sweeper frees them.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param holds      The holds whose tickets failed.
+     * @return The number of holds released.
+     */
+    private int abandon(String trainPrn, LocalDate travelDate, List<SeatHold> holds) {
+        List<SeatHold> withdrawn = this.withdrawTickets(trainPrn, travelDate, holds);
+        if (withdrawn.isEmpty()) {
+            return 0;
+        }
+        try {
+            seatInventoryStore.update(trainPrn, travelDate, inventory -> {
+                for (SeatHold hold : withdrawn) {
+                    SeatHold removed = inventory.removeHold(hold.getHoldId());
+                    if (removed != null) {
+                        inventory.freeHold(removed);
+                    }
+                }
+                return withdrawn.size();
+            });
+            log.info("Released {} holds of train {} on {} whose tickets could not be created", withdrawn.size(), trainPrn, travelDate);
+            return withdrawn.size();
+        } catch (RuntimeException e) {
+            log.warn("Failed to release holds of train {} on {}, they expire instead: {}", trainPrn, travelDate, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Withdraws the tickets of holds whose seats can not be kept, for example because they were booked by
+     * someone else before the tickets were created.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param holds      The holds whose tickets are withdrawn.
+     * @return The holds whose tickets are gone.
+     */
+    private List<SeatHold> withdrawTickets(String trainPrn, LocalDate travelDate, List<SeatHold> holds) {
+        List<SeatHold> withdrawn = new ArrayList<>();
+        for (SeatHold hold : holds) {
+            try {
+                ResponseDataDTO response = ticketClient.withdrawTicket(hold.getHoldId());
+                if (!response.isStatus()) {
+                    throw new CustomException(response.getMessage(), ResponseStatus.TICKET_NOT_CREATED);
+                }
+                withdrawn.add(hold);
+            } catch (Exception e) {
+                log.error("Withdrawing ticket {} for seats {} of train {} on {} failed: {}",
+                        hold.getHoldId(), hold.getSeats(), trainPrn, travelDate, e.getMessage());
+            }
+        }
+        return withdrawn;
+    }
+
+    /**
+     * Withdraws the tickets of holds that expired and whose seats were booked by someone else before
+     * the tickets were created.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param lost       The holds whose seats were lost.
+     */
+    private void withdrawLostTickets(String trainPrn, LocalDate travelDate, List<SeatHold> lost) {
+        lost.forEach(hold -> log.error("Hold {} of train {} on {} expired before its ticket was created and its seats {} were taken, withdrawing the ticket",
+                hold.getHoldId(), trainPrn, travelDate, hold.getSeats()));
+        this.withdrawTickets(trainPrn, travelDate, lost);
+    }
+
+    /**
+     * Books the seats of an expired hold again if all of them are still free.
+     *
+     * @param seats The seat inventory.
+     * @param hold  The expired hold.
+     * @return true if the seats were booked again.
+     */
+    private static boolean reclaim(SeatInventory seats, SeatHold hold) {
+        int[] indexes = hold.getSeats().stream().mapToInt(seats::indexOf).toArray();
+        for (int index : indexes) {
+            if (seats.isBooked(index, hold.getFromLeg(), hold.getToLeg())) {
+                return false;
+            }
+        }
+        for (int index : indexes) {
+            seats.book(index, hold.getFromLeg(), hold.getToLeg());
+        }
+        return true;
+    }
+
+    /**
+     * Claims seats on the legs between two stations in a single atomic update of the train-day inventory.
+     *
+     * @param trainId                The PRN of the train.
+     * @param travelDate             The travel date.
+     * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param schedule               The stations of the train on the travel date, or null to book the whole journey.
+     * @param source                 The station where the booking starts.
+     * @param destination            The station where the booking ends.
+     * @return The list of booked seat positions.
+     */
+    private List<List<Integer>> claimSeats(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked,
+                                           List<StationSchedule> schedule, String source, String destination) {
+        List<List<Integer>> bookedSeats = seatInventoryStore.update(trainId, travelDate, inventory -> {
+            inventory.releaseExpiredHolds(Instant.now());
+            int[] legs = legRange(inventory, schedule, source, destination);
+            SeatInventory allSeats = inventory.getSeats();
+
+            // Retrieve seat availability data
+            List<List<Integer>> availableSeatsList = this.areSeatsAvailable(inventory, numberOfSeatsToBeBooked, legs[0], legs[1]);
+
+            // Mark each specified seat as booked on the requested legs
+            availableSeatsList.forEach(seat -> allSeats.book(allSeats.indexOf(seat), legs[0], legs[1]));
+            return availableSeatsList;
+        });
+        log.info("Booked seats {} of train {} on {}", bookedSeats, trainId, travelDate);
+        return bookedSeats;
+    }
+
+    public ResponseDataDTO bookSeatsFallback(String trainId, LocalDate travelDate, int numberOfSeatsToBeBooked, String source, String destination, Exception e) {
         log.error("Book seats fallback triggered due to: {}", e.getMessage());
         return new ResponseDataDTO(false, "Failed to book seats. Please try again later.");
     }
 
     /**
-     * Checks if the requested number of seats are available for a train on a specific travel date.
+     * Checks if the requested number of seats are free on every leg of a range in a train-day's seat inventory.
      *
-     * @param train                  The train object.
+     * @param seatInventory          The seat inventory of the train on the travel date.
      * @param numberOfSeatsToBeBooked The number of seats requested.
-     * @param travelDate             The travel date.
+     * @param fromLeg                The first leg of the journey (inclusive).
+     * @param toLeg                  The last leg of the journey (exclusive).
      * @return List of available seat positions.
      */
     @Override
-    public List<List<Integer>> areSeatsAvailable(Train train, int numberOfSeatsToBeBooked, LocalDate travelDate) {
-        log.info("Checking seat availability for train {}: {} seats requested", train.getPrn(), numberOfSeatsToBeBooked);
+    public List<List<Integer>> areSeatsAvailable(TrainSeatInventory seatInventory, int numberOfSeatsToBeBooked, int fromLeg, int toLeg) {
+        log.info("Checking seat availability for train {}: {} seats requested", seatInventory.getTrainPrn(), numberOfSeatsToBeBooked);
 
         // Retrieve all seats for the specified travel date
-        List<List<Integer>> allSeats = train.getSeats().get(travelDate.toString());
-        List<List<Integer>> availableSeats = new ArrayList<>();
-
-        int totalSeats = allSeats.size() * allSeats.get(0).size(); // Total number of seats
-        int foundSeats = 0;
+        SeatInventory allSeats = seatInventory.getSeats();
+        int totalSeats = allSeats.capacity(); // Total number of seats
 
         // If the requested number of seats exceeds the total number of seats
         if (numberOfSeatsToBeBooked > totalSeats) {
-            log.warn("Not enough seats available in train {}: requested {} seats, total seats {}", train.getPrn(), numberOfSeatsToBeBooked, totalSeats);
+            log.warn("Not enough seats available in train {}: requested {} seats, total seats {}", seatInventory.getTrainPrn(), numberOfSeatsToBeBooked, totalSeats);
             throw new CustomException("Not enough seats available", ResponseStatus.NOT_ENOUGH_SEATS);
         }
 
-        int foundContinuousSeats = 0;
-        // Try to find continuous seats first
-        for (int index = 0; index < totalSeats; index++) {
-            int row = index / allSeats.get(0).size(); // Row number
-            int col = index % allSeats.get(0).size(); // Column number
-
-            // Reset counter and available seats if a booked seat is found
-            if (allSeats.get(row).get(col) == 1) {
-                foundContinuousSeats = 0;
-                availableSeats = new ArrayList<>();
-            } else {
-                foundContinuousSeats++;
-                availableSeats.add(Arrays.asList(row, col));
-            }
-
-            // If enough continuous seats are found
-            if (foundContinuousSeats == numberOfSeatsToBeBooked) {
-                log.info("Found {} available continuous seats in train {}", numberOfSeatsToBeBooked, train.getPrn());
-                return availableSeats;
-            }
+        // Continuous seats are preferred, separate seats are used otherwise
+        int[] foundSeats = allSeats.findSeats(numberOfSeatsToBeBooked, fromLeg, toLeg);
+        if (foundSeats == null) {
+            log.warn("Not enough seats available in train {}: requested {} seats, found {} seats", seatInventory.getTrainPrn(), numberOfSeatsToBeBooked, allSeats.freeCount(fromLeg, toLeg));
+            throw new CustomException("Not enough seats available", ResponseStatus.NOT_ENOUGH_SEATS);
         }
 
-        // Continuous seats not found; try to find separate seats
-        log.info("Continuous seats not found for train {}", train.getPrn());
-        availableSeats = new ArrayList<>();
+        List<List<Integer>> availableSeats = new ArrayList<>(foundSeats.length);
+        for (int index : foundSeats) {
+            availableSeats.add(allSeats.positionOf(index));
+        }
+        log.info("Found {} available seats in train {}", numberOfSeatsToBeBooked, seatInventory.getTrainPrn());
+        return availableSeats;
+    }
 
-        for (int index = 0; index < totalSeats; index++) {
-            int row = index / allSeats.get(0).size(); // Row number
-            int col = index % allSeats.get(0).size(); // Column number
+    /**
+     * Counts the seats free on every leg between two stations.
+     *
+     * @param trainPrn    The PRN of the train.
+     * @param travelDate  The travel date.
+     * @param schedule    The stations of the train on the travel date.
+     * @param source      The station where the journey starts.
+     * @param destination The station where the journey ends.
+     * @return The seat availability between the two stations.
+     */
+    private SeatAvailabilityDTO availabilityBetween(String trainPrn, LocalDate travelDate, List<StationSchedule> schedule,
+                                                    String source, String destination) {
+        return seatInventoryStore.read(trainPrn, travelDate, inventory -> availabilityOf(inventory, schedule, source, destination));
+    }
 
-            if (allSeats.get(row).get(col) == 0) { // If seat is available
-                availableSeats.add(Arrays.asList(row, col));
-                foundSeats++;
+    /**
+     * Counts the seats of a train-day inventory free on every leg between two stations.
+     *
+     * @param inventory   The train-day seat inventory.
+     * @param schedule    The stations of the train on the travel date.
+     * @param source      The station where the journey starts.
+     * @param destination The station where the journey ends.
+     * @return The seat availability between the two stations.
+     */
+    private SeatAvailabilityDTO availabilityOf(TrainSeatInventory inventory, List<StationSchedule> schedule,
+                                               String source, String destination) {
+        SeatInventory seats = inventory.getSeats();
+        // A single-leg inventory has every booking on its one leg, so it is read without spreading it
+        int[] legs = seats.getLegs() == 1 ? new int[]{0, 1} : legRange(inventory, schedule, source, destination);
+        return new SeatAvailabilityDTO(inventory.getTrainPrn(), inventory.getTravelDate(), seats.capacity(),
+                seats.freeCount(legs[0], legs[1]), Arrays.stream(seats.freeCountPerCoach(legs[0], legs[1])).boxed().toList());
+    }
 
-                // If enough separate seats are found
-                if (foundSeats == numberOfSeatsToBeBooked) {
-                    log.info("Found {} available seats in train {}", numberOfSeatsToBeBooked, train.getPrn());
-                    return availableSeats;
-                }
-            }
+    /**
+     * Loads the schedule needed to map stations to legs, if the request is for part of the journey.
+     *
+     * @param trainPrn    The PRN of the train.
+     * @param travelDate  The travel date.
+     * @param source      The station where the booking starts, or null.
+     * @param destination The station where the booking ends, or null.
+     * @return The stations of the train on the travel date, or null for whole-journey requests.
+     */
+    private List<StationSchedule> scheduleForLegs(String trainPrn, LocalDate travelDate, String source, String destination) {
+        if (source == null || destination == null) {
+            return null;
         }
+        return trainService.findTrainDay(trainPrn, travelDate).scheduleOn(travelDate.toString());
+    }
 
-        // Not enough seats found
-        log.warn("Not enough seats available in train {}: requested {} seats, found {} seats", train.getPrn(), numberOfSeatsToBeBooked, foundSeats);
-        throw new CustomException("Not enough seats available", ResponseStatus.NOT_ENOUGH_SEATS);
+    /**
+     * Resolves the legs travelled between two stations. Legacy single-leg inventories are first spread
+     * over every leg of the route, so seats they show as booked stay booked on all legs.
+     *
+     * @param inventory   The train-day seat inventory.
+     * @param schedule    The stations of the train on the travel date, or null for the whole journey.
+     * @param source      The station where the booking starts.
+     * @param destination The station where the booking ends.
+     * @return The leg range as {fromLeg (inclusive), toLeg (exclusive)}.
+     */
+    private int[] legRange(TrainSeatInventory inventory, List<StationSchedule> schedule, String source, String destination) {
+        if (schedule == null || schedule.size() < 2) {
+            return new int[]{0, inventory.getSeats().getLegs()};
+        }
+        int routeLegs = schedule.size() - 1;
+        if (inventory.getSeats().getLegs() == 1 && routeLegs > 1) {
+            inventory.setSeats(inventory.getSeats().withLegs(routeLegs));
+        }
+        if (inventory.getSeats().getLegs() != routeLegs) {
+            // The schedule changed after the inventory was created, so only whole-journey bookings are safe
+            log.warn("Seat inventory of train {} on {} has {} legs but the schedule has {}, using the whole journey",
+                    inventory.getTrainPrn(), inventory.getTravelDate(), inventory.getSeats().getLegs(), routeLegs);
+            return new int[]{0, inventory.getSeats().getLegs()};
+        }
+        int fromLeg = trainServiceUtil.stationIndex(schedule, source);
+        int toLeg = trainServiceUtil.stationIndex(schedule, destination);
+        if (fromLeg < 0 || toLeg < 0 || fromLeg >= toLeg) {
+            throw new CustomException(
+                    "Source and destination do not align with train data", ResponseStatus.INVALID_DATA);
+        }
+        return new int[]{fromLeg, toLeg};
     }
-}
\ No newline at end of file
+}
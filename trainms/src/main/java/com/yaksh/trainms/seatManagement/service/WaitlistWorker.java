@@ -0,0 +1,51 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.train.util.KeyedSerialExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs waitlist promotions in the background, so freeing seats does not wait for ticket creation.
+ * Promotions of one train-day never run in parallel, and requests that arrive while one is running
+ * are folded into a single follow-up run.
+ */
+@Component
+@Slf4j
+public class WaitlistWorker {
+    private KeyedSerialExecutor workers;
+
+    // Number of train-days promoted in parallel
+    @Value("${seats.waitlist.workers:2}")
+    private int threads;
+
+    /**
+     * Starts the worker pool.
+     */
+    @PostConstruct
+    public void start() {
+        workers = new KeyedSerialExecutor("waitlist", threads);
+    }
+
+    /**
+     * Stops the worker pool, letting running promotions finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown(30);
+    }
+
+    /**
+     * Schedules a promotion of a train-day.
+     *
+     * @param trainDayId The ID of the train-day.
+     * @param promotion  The promotion to run.
+     */
+    public void submit(String trainDayId, Runnable promotion) {
+        if (!workers.submit(trainDayId, promotion)) {
+            log.warn("Waitlist promotion of {} was not scheduled, the worker pool is stopped", trainDayId);
+        }
+    }
+}
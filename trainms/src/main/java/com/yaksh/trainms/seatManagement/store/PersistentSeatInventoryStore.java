@@ -0,0 +1,281 @@
+package com.yaksh.trainms.seatManagement.store;
+
+import com.mongodb.ErrorCategory;
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.repository.SeatInventoryRepository;
+import com.yaksh.trainms.train.service.TrainReadContext;
+import com.yaksh.trainms.train.util.SeatInventoryCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Seat inventory store that reads every train-day from MongoDB and writes it back with a
+ * version check, retrying the command when another booking changed the inventory in between.
+ * A train-day that was never booked is built from the train's seat layout template and inserted
+ * by its first change.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PersistentSeatInventoryStore implements SeatInventoryStore {
+    private static final String SEATS = "seats";
+
+    private final SeatInventoryRepository seatInventoryRepository;
+    private final TrainReadContext trainReadContext;
+    private final MongoTemplate mongoTemplate;
+
+    // Maximum number of read-modify-write attempts when seats are changed concurrently
+    @Value("${seats.update.max-attempts:5}")
+    private int maxSeatUpdateAttempts;
+
+    // Number of seat layout revisions kept for delta responses
+    @Value("${seats.layout.change-log-size:64}")
+    private int changeLogSize;
+
+    /**
+     * Applies a command to a freshly loaded inventory and saves it if nobody changed it meanwhile.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param command    The change to apply.
+     * @param <T>        The result type.
+     * @return The result of the command that was saved.
+     */
+    @Override
+    public <T> T update(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> command) {
+        for (int attempt = 1; attempt <= maxSeatUpdateAttempts; attempt++) {
+            TrainSeatInventory inventory = load(trainPrn, travelDate);
+            T result = command.apply(inventory);
+            inventory.commitChanges(changeLogSize);
+
+            // Write the inventory back only if nobody changed it in the meantime
+            if (saveIfUnchanged(inventory)) {
+                return result;
+            }
+            log.info("Seats of train {} on {} changed concurrently, retrying (attempt {})", trainPrn, travelDate, attempt);
+        }
+        throw new CustomException(String.format("Seats of train %s on %s kept changing, please try again", trainPrn, travelDate),
+                ResponseStatus.SEAT_UPDATE_CONFLICT);
+    }
+
+    /**
+     * Runs a query against the stored inventory.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param query      The query to run.
+     * @param <T>        The result type.
+     * @return The result of the query.
+     */
+    @Override
+    public <T> T read(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        return query.apply(load(trainPrn, travelDate));
+    }
+
+    /**
+     * Runs a query against the stored inventories of several trains, read with one query. Train-days
+     * that were never booked are built from their seat layout templates.
+     *
+     * @param trainPrns  The PRNs of the trains.
+     * @param travelDate The travel date.
+     * @param query      The query to run on each train-day.
+     * @param <T>        The result type.
+     * @return The result of the query by PRN, without the train-days that could not be read.
+     */
+    @Override
+    public <T> Map<String, T> readAll(Collection<String> trainPrns, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        Set<String> ids = new HashSet<>();
+        trainPrns.forEach(trainPrn -> ids.add(TrainSeatInventory.idOf(trainPrn, travelDate)));
+        trainReadContext.recordInventoryRead();
+        Map<String, TrainSeatInventory> stored = new HashMap<>();
+        seatInventoryRepository.findAllById(ids).forEach(inventory -> stored.put(inventory.getTrainPrn(), inventory));
+
+        Map<String, T> results = new LinkedHashMap<>();
+        for (String trainPrn : trainPrns) {
+            try {
+                TrainSeatInventory inventory = stored.get(trainPrn);
+                results.put(trainPrn, query.apply(inventory != null ? inventory : fromTemplate(trainPrn, travelDate)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to read the seats of train {} on {}: {}", trainPrn, travelDate, e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads the stored free-seat counters without the seat bits. Inventories saved before the
+     * counters existed are loaded in full instead.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The seat availability.
+     */
+    @Override
+    public SeatAvailabilityDTO availability(String trainPrn, LocalDate travelDate) {
+        Query query = Query.query(Criteria.where("_id").is(TrainSeatInventory.idOf(trainPrn, travelDate)));
+        query.fields()
+                .include(SEATS + "." + SeatInventoryCodec.COACHES)
+                .include(SEATS + "." + SeatInventoryCodec.SEATS_PER_COACH)
+                .include(SEATS + "." + SeatInventoryCodec.FREE_SEATS)
+                .include(SEATS + "." + SeatInventoryCodec.FREE_SEATS_PER_COACH);
+        trainReadContext.recordInventoryRead();
+        Document stored = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(TrainSeatInventory.class));
+        Document seats = stored == null ? null : stored.get(SEATS, Document.class);
+        if (seats == null || !seats.containsKey(SeatInventoryCodec.FREE_SEATS)) {
+            return read(trainPrn, travelDate, inventory -> SeatAvailabilityDTO.of(trainPrn, travelDate, inventory.getSeats()));
+        }
+        return new SeatAvailabilityDTO(
+                trainPrn,
+                travelDate,
+                seats.getInteger(SeatInventoryCodec.COACHES) * seats.getInteger(SeatInventoryCodec.SEATS_PER_COACH),
+                seats.getInteger(SeatInventoryCodec.FREE_SEATS),
+                seats.getList(SeatInventoryCodec.FREE_SEATS_PER_COACH, Integer.class));
+    }
+
+    /**
+     * Inserts the inventories of the train-days that have none yet, in one unordered bulk write.
+     *
+     * @param inventories The new train-day inventories, with a null version.
+     * @return The number of inventories stored.
+     */
+    @Override
+    public int create(Collection<TrainSeatInventory> inventories) {
+        Map<String, TrainSeatInventory> missing = new LinkedHashMap<>();
+        inventories.forEach(inventory -> missing.put(inventory.getId(), inventory));
+        seatInventoryRepository.findAllById(missing.keySet()).forEach(stored -> missing.remove(stored.getId()));
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrainSeatInventory.class);
+        missing.values().forEach(inventory -> {
+            // Bulk inserts do not initialize the version, and the optimistic locking needs one
+            inventory.setVersion(0L);
+            bulk.insert(inventory);
+        });
+        try {
+            return bulk.execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            // Train-days booked from the template since they were checked keep their inventory
+            if (e.getErrors().stream().anyMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY)) {
+                throw e;
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+
+    /**
+     * Removes the inventories whose version still matches, in one unordered bulk write.
+     *
+     * @param versions The version each inventory was read with, by train-day ID.
+     * @return The IDs of the removed inventories.
+     */
+    @Override
+    public Set<String> remove(Map<String, Long> versions) {
+        if (versions.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrainSeatInventory.class);
+        versions.forEach((id, version) -> bulk.remove(Query.query(Criteria.where("_id").is(id).and("version").is(version))));
+        Set<String> removed = new HashSet<>(versions.keySet());
+        if (bulk.execute().getDeletedCount() < versions.size()) {
+            // Some changed since they were read, find the ones that are still stored
+            Query stored = Query.query(Criteria.where("_id").in(versions.keySet()));
+            stored.fields().include("_id");
+            mongoTemplate.find(stored, Document.class, mongoTemplate.getCollectionName(TrainSeatInventory.class))
+                    .forEach(inventory -> removed.remove(inventory.getString("_id")));
+        }
+        return removed;
+    }
+
+    /**
+     * Loads the seat inventory of a train on the given travel date. A date that was never booked gets
+     * an empty inventory from the train's seat layout template, which is not stored until it changes.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train-day seat inventory, with a null version if it is not stored yet.
+     */
+    public TrainSeatInventory load(String trainPrn, LocalDate travelDate) {
+        trainReadContext.recordInventoryRead();
+        TrainSeatInventory inventory = seatInventoryRepository.findById(TrainSeatInventory.idOf(trainPrn, travelDate)).orElse(null);
+        return inventory != null ? inventory : fromTemplate(trainPrn, travelDate);
+    }
+
+    /**
+     * Builds the empty inventory of a train-day that was never booked from the train's seat layout template.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train-day seat inventory, with a null version.
+     */
+    private TrainSeatInventory fromTemplate(String trainPrn, LocalDate travelDate) {
+        Train train = trainReadContext.findTrainDay(trainPrn, travelDate).orElseThrow(() -> {
+            log.warn("Train not found: {}", trainPrn);
+            return new CustomException("Train does not exist with PRN: " + trainPrn, ResponseStatus.TRAIN_NOT_FOUND);
+        });
+        List<StationSchedule> schedule = train.scheduleOn(travelDate.toString());
+        if (train.getSeatLayout() == null || !train.getSeatLayout().isValid() || schedule == null) {
+            throw new CustomException(String.format("No seats available for train %s on %s", trainPrn, travelDate),
+                    ResponseStatus.INVALID_DATA);
+        }
+        // Track occupancy per leg of the day's route, like inventories saved with the train
+        int legs = schedule.size() > 2 ? schedule.size() - 1 : 1;
+        return TrainSeatInventory.of(trainPrn, travelDate, train.getSeatLayout().emptyInventory(legs));
+    }
+
+    /**
+     * Stores an inventory built from the seat layout template before its first change.
+     * If another booking stored the train-day first, that inventory is returned instead.
+     *
+     * @param inventory The unchanged inventory, with a null version.
+     * @return The stored inventory.
+     */
+    public TrainSeatInventory materialize(TrainSeatInventory inventory) {
+        try {
+            return mongoTemplate.insert(inventory);
+        } catch (DuplicateKeyException e) {
+            return load(inventory.getTrainPrn(), inventory.getTravelDate());
+        }
+    }
+
+    /**
+     * Saves a train-day seat inventory if its version still matches the stored one.
+     *
+     * @param inventory The modified seat inventory.
+     * @return true if the inventory was saved, false if it was changed concurrently.
+     */
+    private boolean saveIfUnchanged(TrainSeatInventory inventory) {
+        try {
+            seatInventoryRepository.save(inventory);
+            return true;
+        } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+            // Changed concurrently, or a template inventory was stored by another booking first
+            return false;
+        }
+    }
+}
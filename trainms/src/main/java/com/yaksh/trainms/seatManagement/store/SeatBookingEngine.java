@@ -0,0 +1,726 @@
+package com.yaksh.trainms.seatManagement.store;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.SeatInventory;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory booking engine that owns hot train-days.
+ * Every train-day gets one actor with its own mailbox; commands are applied one after another on a
+ * shared worker pool, so the seat inventory is changed without locks or version retries and reads are
+ * served from memory. Changed inventories are written back to MongoDB in one bulk write per flush.
+ * <p>
+ * Commands run against a copy of the inventory that replaces it only once the command returns, so a
+ * command that throws leaves nothing behind. Train-days are created and removed through the engine too.
+ * <p>
+ * The engine assumes it is the only writer of the train-days it holds, so enable it on a single
+ * trainms instance with {@code seats.engine.enabled=true}. A train-day that was changed outside the
+ * engine anyway is detected at the next flush, and the changes not stored yet are replayed onto the
+ * stored inventory instead of being dropped.
+ */
+@Component
+@Primary
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seats.engine.enabled", havingValue = "true")
+public class SeatBookingEngine implements SeatInventoryStore {
+
+    // Marks an actor whose last write outcome is unknown, so its stored version must be read again
+    private static final long UNKNOWN_VERSION = -1;
+
+    // Maximum number of messages an actor handles before yielding its worker thread
+    private static final int DRAIN_BATCH = 64;
+
+    private final PersistentSeatInventoryStore persistentStore;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TrainDateActor> actors = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    private Counter doubleBookedSeats;
+
+    // Number of worker threads shared by all actors, 0 means one per CPU
+    @Value("${seats.engine.threads:0}")
+    private int threads;
+
+    // Maximum number of queued commands per train-day before new ones are rejected
+    @Value("${seats.engine.mailbox-capacity:10000}")
+    private int mailboxCapacity;
+
+    // How long a caller waits for its command to be picked up
+    @Value("${seats.engine.command-timeout-ms:5000}")
+    private long commandTimeoutMs;
+
+    // How long an unchanged train-day stays in memory without being used
+    @Value("${seats.engine.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    // Number of seat layout revisions kept for delta responses
+    @Value("${seats.layout.change-log-size:64}")
+    private int changeLogSize;
+
+    /**
+     * Starts the worker pool shared by all actors.
+     */
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("seat-engine-"));
+        doubleBookedSeats = Counter.builder("seats.engine.rebase.double.booked")
+                .description("Seats booked both by the engine and outside it, found when replaying changes onto a changed train-day")
+                .register(meterRegistry);
+        log.info("Seat booking engine started with {} workers", poolSize);
+    }
+
+    /**
+     * Writes every pending change and stops the workers.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flush();
+        workers.shutdown();
+        workers.awaitTermination(commandTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies a command in the actor that owns the train-day.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param command    The change to apply.
+     * @param <T>        The result type.
+     * @return The result of the command.
+     */
+    @Override
+    public <T> T update(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> command) {
+        return await(dispatch(new Envelope<>(trainPrn, travelDate, actor -> actor.apply(command))));
+    }
+
+    /**
+     * Runs a query in the actor that owns the train-day, against its in-memory inventory.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param query      The query to run.
+     * @param <T>        The result type.
+     * @return The result of the query.
+     */
+    @Override
+    public <T> T read(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        return await(dispatch(new Envelope<>(trainPrn, travelDate, actor -> query.apply(actor.state()))));
+    }
+
+    /**
+     * Runs a query against the inventories of several trains. Train-days held by the engine are read
+     * by their actors, from memory; the others are read from MongoDB together, without loading them.
+     *
+     * @param trainPrns  The PRNs of the trains.
+     * @param travelDate The travel date.
+     * @param query      The query to run on each train-day.
+     * @param <T>        The result type.
+     * @return The result of the query by PRN, without the train-days that could not be read.
+     */
+    @Override
+    public <T> Map<String, T> readAll(Collection<String> trainPrns, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        List<String> unloaded = new ArrayList<>();
+        Map<String, Envelope<T>> held = new LinkedHashMap<>();
+        for (String trainPrn : trainPrns) {
+            if (actors.containsKey(TrainSeatInventory.idOf(trainPrn, travelDate))) {
+                held.put(trainPrn, dispatch(new Envelope<>(trainPrn, travelDate, actor -> query.apply(actor.state()))));
+            } else {
+                unloaded.add(trainPrn);
+            }
+        }
+        Map<String, T> results = unloaded.isEmpty() ? new LinkedHashMap<>() : persistentStore.readAll(unloaded, travelDate, query);
+        held.forEach((trainPrn, envelope) -> {
+            try {
+                results.put(trainPrn, await(envelope));
+            } catch (RuntimeException e) {
+                log.warn("Failed to read the seats of train {} on {}: {}", trainPrn, travelDate, e.getMessage());
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Returns the free-seat counters of the in-memory inventory.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The seat availability.
+     */
+    @Override
+    public SeatAvailabilityDTO availability(String trainPrn, LocalDate travelDate) {
+        return read(trainPrn, travelDate, inventory -> SeatAvailabilityDTO.of(trainPrn, travelDate, inventory.getSeats()));
+    }
+
+    /**
+     * Stores the inventories of train-days that have none yet. Train-days held by the engine are
+     * created by their actors, so one that was loaded from the seat layout template picks up the new
+     * inventory; the others are inserted together.
+     *
+     * @param inventories The new train-day inventories, with a null version.
+     * @return The number of inventories stored.
+     */
+    @Override
+    public int create(Collection<TrainSeatInventory> inventories) {
+        List<TrainSeatInventory> unloaded = new ArrayList<>();
+        List<Envelope<Boolean>> created = new ArrayList<>();
+        for (TrainSeatInventory inventory : inventories) {
+            TrainDateActor actor = actors.get(inventory.getId());
+            if (actor == null) {
+                unloaded.add(inventory);
+            } else {
+                created.add(dispatch(new Envelope<>(inventory.getTrainPrn(), inventory.getTravelDate(), held -> held.create(inventory))));
+            }
+        }
+        int stored = unloaded.isEmpty() ? 0 : persistentStore.create(unloaded);
+        for (Envelope<Boolean> envelope : created) {
+            stored += await(envelope) ? 1 : 0;
+        }
+        return stored;
+    }
+
+    /**
+     * Removes train-day inventories that did not change since they were read. A train-day held by the
+     * engine is only removed by its actor once all its changes are stored, and is then unloaded.
+     *
+     * @param versions The version each inventory was read with, by train-day ID.
+     * @return The IDs of the removed inventories.
+     */
+    @Override
+    public Set<String> remove(Map<String, Long> versions) {
+        Map<String, Long> unloaded = new HashMap<>();
+        Map<String, Envelope<Boolean>> removals = new HashMap<>();
+        versions.forEach((id, version) -> {
+            TrainDateActor actor = actors.get(id);
+            if (actor == null) {
+                unloaded.put(id, version);
+            } else {
+                removals.put(id, dispatch(new Envelope<>(actor.trainPrn, actor.travelDate, held -> held.remove(version))));
+            }
+        });
+        Set<String> removed = new HashSet<>(persistentStore.remove(unloaded));
+        removals.forEach((id, envelope) -> {
+            if (await(envelope)) {
+                removed.add(id);
+            }
+        });
+        return removed;
+    }
+
+    /**
+     * Writes the changed train-days to MongoDB in one bulk write and unloads idle ones.
+     */
+    @Scheduled(fixedDelayString = "${seats.engine.flush-interval-ms:100}")
+    public void flush() {
+        List<TrainDateActor> changed = actors.values().stream().filter(actor -> actor.dirty).toList();
+        if (!changed.isEmpty()) {
+            writeBehind(changed);
+        }
+
+        long idleSince = System.currentTimeMillis() - idleTimeoutMs;
+        actors.values().stream()
+                .filter(actor -> !actor.dirty && actor.written == null && actor.persistedVersion != UNKNOWN_VERSION && actor.lastUsed < idleSince)
+                .forEach(actor -> actor.offer(new Envelope<>(actor.trainPrn, actor.travelDate, idle -> idle.retire(false))));
+    }
+
+    /**
+     * Snapshots the changed inventories inside their actors and writes them with a version check.
+     *
+     * @param changed The actors with changes that are not stored yet.
+     */
+    private void writeBehind(List<TrainDateActor> changed) {
+        // Take the snapshots inside the actors so each one is a consistent state
+        Map<TrainDateActor, Envelope<TrainSeatInventory>> snapshots = new LinkedHashMap<>();
+        for (TrainDateActor actor : resolveUnknownVersions(changed)) {
+            Envelope<TrainSeatInventory> snapshot = new Envelope<>(actor.trainPrn, actor.travelDate, TrainDateActor::snapshot);
+            if (actor.offer(snapshot)) {
+                snapshots.put(actor, snapshot);
+            }
+        }
+
+        List<PendingWrite> writes = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrainSeatInventory.class);
+        snapshots.forEach((actor, snapshot) -> {
+            TrainSeatInventory copy = awaitSnapshot(snapshot);
+            if (copy != null) {
+                long expected = actor.persistedVersion;
+                PendingWrite write = new PendingWrite(actor, expected, copy);
+                actor.written = write;
+                writes.add(write);
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(actor.id).and("version").is(expected)),
+                        new Update()
+                                .set("seats", copy.getSeats())
+                                .set("holds", copy.getHolds())
+                                .set("revision", copy.getRevision())
+                                .set("changeLog", copy.getChangeLog())
+                                .set("outbox", copy.getOutbox())
+                                .set("version", expected + 1));
+            }
+        });
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkWriteResult result = bulk.execute();
+            if (result.getMatchedCount() == writes.size()) {
+                writes.forEach(PendingWrite::stored);
+            } else {
+                reconcile(writes);
+            }
+            log.debug("Flushed {} train-day seat inventories", writes.size());
+        } catch (RuntimeException e) {
+            // Some writes may have been applied, so read the versions again before the next attempt;
+            // each actor keeps its write to tell whether it was the one applied
+            log.error("Failed to flush {} train-day seat inventories: {}", writes.size(), e.getMessage());
+            writes.forEach(write -> {
+                write.actor.persistedVersion = UNKNOWN_VERSION;
+                write.actor.dirty = true;
+            });
+        }
+    }
+
+    /**
+     * Reads the stored version of train-days whose last write outcome is unknown. A version one past the
+     * one the write expected means the write was applied, the expected version means it was not; any
+     * other version means the train-day was changed outside the engine, and it is rebased instead of written.
+     *
+     * @param changed The actors about to be written.
+     * @return The actors to write now, or an empty list if the versions could not be read.
+     */
+    private List<TrainDateActor> resolveUnknownVersions(List<TrainDateActor> changed) {
+        List<TrainDateActor> unknown = changed.stream().filter(actor -> actor.persistedVersion == UNKNOWN_VERSION).toList();
+        if (unknown.isEmpty()) {
+            return changed;
+        }
+        Map<String, Long> stored;
+        try {
+            stored = storedVersions(unknown.stream().map(actor -> actor.id).toList());
+        } catch (RuntimeException e) {
+            log.error("Failed to read seat inventory versions: {}", e.getMessage());
+            return List.of();
+        }
+        List<TrainDateActor> resolved = new ArrayList<>(changed.size());
+        for (TrainDateActor actor : changed) {
+            PendingWrite write = actor.written;
+            Long version = stored.get(actor.id);
+            if (actor.persistedVersion != UNKNOWN_VERSION) {
+                resolved.add(actor);
+            } else if (write != null && version != null && version == write.expected + 1) {
+                write.stored();
+                resolved.add(actor);
+            } else if (write != null && version != null && version == write.expected) {
+                actor.written = null;
+                actor.persistedVersion = version;
+                resolved.add(actor);
+            } else {
+                rebase(actor, version);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Checks which writes of a partly matched bulk write were applied. Train-days whose stored version
+     * moved on without the engine were changed elsewhere, and their changes are replayed onto the stored inventory.
+     *
+     * @param writes The writes of the last bulk write.
+     */
+    private void reconcile(List<PendingWrite> writes) {
+        Map<String, Long> stored = storedVersions(writes.stream().map(write -> write.actor.id).toList());
+        for (PendingWrite write : writes) {
+            Long version = stored.get(write.actor.id);
+            if (version != null && version == write.expected + 1) {
+                write.stored();
+            } else {
+                write.actor.written = null;
+                rebase(write.actor, version);
+            }
+        }
+    }
+
+    /**
+     * Asks an actor to replay its unstored changes onto the stored inventory.
+     *
+     * @param actor   The actor of the train-day changed outside the engine.
+     * @param version The stored version, or null if the inventory is no longer stored.
+     */
+    private void rebase(TrainDateActor actor, Long version) {
+        log.error("Seat inventory {} was changed outside the booking engine (stored version {}), replaying its changes onto it",
+                actor.id, version);
+        actor.offer(new Envelope<>(actor.trainPrn, actor.travelDate, TrainDateActor::rebase));
+    }
+
+    /**
+     * Reads the stored versions of train-day inventories.
+     *
+     * @param ids The train-day IDs.
+     * @return The stored version by train-day ID.
+     */
+    private Map<String, Long> storedVersions(List<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("version");
+        return mongoTemplate.find(query, TrainSeatInventory.class).stream()
+                .collect(Collectors.toMap(TrainSeatInventory::getId, TrainSeatInventory::getVersion));
+    }
+
+    /**
+     * Waits for a flush snapshot. A busy actor is skipped and keeps its changes for the next flush.
+     *
+     * @param snapshot The snapshot message.
+     * @return The copied inventory, or null if there is nothing to write.
+     */
+    private TrainSeatInventory awaitSnapshot(Envelope<TrainSeatInventory> snapshot) {
+        try {
+            return await(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Skipping flush of a busy train-day: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hands a message to the actor of its train-day, creating the actor on first use.
+     *
+     * @param envelope The message.
+     * @param <T>      The result type.
+     * @return The message.
+     */
+    private <T> Envelope<T> dispatch(Envelope<T> envelope) {
+        String id = TrainSeatInventory.idOf(envelope.trainPrn, envelope.travelDate);
+        TrainDateActor actor = actors.computeIfAbsent(id, key -> new TrainDateActor(key, envelope.trainPrn, envelope.travelDate));
+        if (!actor.offer(envelope)) {
+            envelope.result.completeExceptionally(new CustomException(
+                    String.format("Too many pending seat requests for train %s on %s", envelope.trainPrn, envelope.travelDate),
+                    ResponseStatus.SEAT_ENGINE_BUSY));
+        }
+        return envelope;
+    }
+
+    /**
+     * Waits for the result of a message. A message that was not started in time is withdrawn,
+     * so a caller that gave up never has seats booked on its behalf.
+     *
+     * @param envelope The message.
+     * @param <T>      The result type.
+     * @return The result of the message.
+     */
+    private <T> T await(Envelope<T> envelope) {
+        try {
+            try {
+                return envelope.result.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (envelope.claimed.compareAndSet(false, true)) {
+                    throw new CustomException("Seat request timed out, please try again", ResponseStatus.SEAT_ENGINE_BUSY);
+                }
+                // The actor already started the message, so its outcome is the caller's
+                return envelope.result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Seat request was interrupted", ResponseStatus.SEAT_ENGINE_BUSY);
+        }
+    }
+
+    /**
+     * A message for a train-day actor and the future its result is delivered to.
+     */
+    private static final class Envelope<T> {
+        private final String trainPrn;
+        private final LocalDate travelDate;
+        private final Function<TrainDateActor, T> body;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // Set by whichever comes first: the actor starting the message or the caller withdrawing it
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Envelope(String trainPrn, LocalDate travelDate, Function<TrainDateActor, T> body) {
+            this.trainPrn = trainPrn;
+            this.travelDate = travelDate;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A write sent in a bulk flush, the version it expected to replace and the inventory it wrote.
+     */
+    private record PendingWrite(TrainDateActor actor, long expected, TrainSeatInventory snapshot) {
+
+        /**
+         * Records that the write was applied, making its inventory the base of later rebases.
+         */
+        private void stored() {
+            actor.persisted = snapshot;
+            actor.persistedVersion = expected + 1;
+            actor.written = null;
+        }
+    }
+
+    /**
+     * The single writer of one train-day. Its inventory is only replaced from the message being handled,
+     * and at most one worker handles its messages at a time. An inventory is never changed once it
+     * replaced the previous one, so the flush and later rebases can keep a reference to it.
+     */
+    private final class TrainDateActor {
+        private final String id;
+        private final String trainPrn;
+        private final LocalDate travelDate;
+        private final Queue<Envelope<?>> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Confined to the message being handled
+        private TrainSeatInventory inventory;
+        private boolean retired;
+
+        // Shared with the flush thread
+        private volatile boolean dirty;
+        private volatile long persistedVersion;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        // The inventory as stored with the persisted version, which unstored changes are replayed from
+        private volatile TrainSeatInventory persisted;
+
+        // The write of the last flush until its outcome is known
+        private volatile PendingWrite written;
+
+        private TrainDateActor(String id, String trainPrn, LocalDate travelDate) {
+            this.id = id;
+            this.trainPrn = trainPrn;
+            this.travelDate = travelDate;
+        }
+
+        /**
+         * Queues a message and schedules the actor if it is not running.
+         *
+         * @return false if the mailbox is full.
+         */
+        private boolean offer(Envelope<?> envelope) {
+            if (queued.incrementAndGet() > mailboxCapacity) {
+                queued.decrementAndGet();
+                return false;
+            }
+            mailbox.add(envelope);
+            lastUsed = System.currentTimeMillis();
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        /**
+         * Handles queued messages in order, yielding after a batch so busy train-days cannot starve others.
+         */
+        private void drain() {
+            for (int handled = 0; handled < DRAIN_BATCH; handled++) {
+                Envelope<?> envelope = mailbox.poll();
+                if (envelope == null) {
+                    break;
+                }
+                queued.decrementAndGet();
+                handle(envelope);
+            }
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private <T> void handle(Envelope<T> envelope) {
+            if (retired) {
+                // Hand messages that raced with unloading to the replacement actor
+                dispatch(envelope);
+                return;
+            }
+            if (envelope.result.isDone() || !envelope.claimed.compareAndSet(false, true)) {
+                // Rejected, or the caller timed out and withdrew the message
+                return;
+            }
+            try {
+                envelope.result.complete(envelope.body.apply(this));
+            } catch (RuntimeException e) {
+                envelope.result.completeExceptionally(e);
+                if (inventory == null) {
+                    // Loading failed, let the next request try again with a fresh actor
+                    retire(true);
+                }
+            }
+        }
+
+        /**
+         * Returns the in-memory inventory, loading it from MongoDB on first use.
+         */
+        private TrainSeatInventory state() {
+            if (inventory == null) {
+                inventory = persistentStore.load(trainPrn, travelDate);
+                persisted = inventory;
+                persistedVersion = inventory.getVersion() == null ? 0 : inventory.getVersion();
+            }
+            return inventory;
+        }
+
+        /**
+         * Runs a command against a copy of the inventory, which replaces it only if the command returns.
+         */
+        private <T> T apply(Function<TrainSeatInventory, T> command) {
+            if (state().getVersion() == null) {
+                // Store a template inventory before its first change, so the flush can update it with a version check
+                inventory = persistentStore.materialize(inventory);
+                persisted = inventory;
+                persistedVersion = inventory.getVersion();
+            }
+            TrainSeatInventory working = inventory.copy();
+            T result = command.apply(working);
+            working.commitChanges(changeLogSize);
+            inventory = working;
+            dirty = true;
+            return result;
+        }
+
+        /**
+         * Hands the inventory to the flush if it changed since the last snapshot. It is never changed
+         * afterwards, so it is not copied.
+         */
+        private TrainSeatInventory snapshot() {
+            if (!dirty || inventory == null) {
+                return null;
+            }
+            dirty = false;
+            return inventory;
+        }
+
+        /**
+         * Stores a new inventory for the train-day, unless one is stored already.
+         */
+        private boolean create(TrainSeatInventory created) {
+            if (inventory != null && inventory.getVersion() != null) {
+                return false;
+            }
+            if (persistentStore.create(List.of(created)) == 0) {
+                // Stored meanwhile, so the template this actor loaded is out of date
+                inventory = null;
+                return false;
+            }
+            inventory = created;
+            persisted = created;
+            persistedVersion = created.getVersion();
+            return true;
+        }
+
+        /**
+         * Removes the stored inventory if all changes are stored and it still has the given version, and unloads the train-day.
+         */
+        private boolean remove(Long version) {
+            if (dirty || written != null || persistedVersion == UNKNOWN_VERSION) {
+                return false;
+            }
+            boolean removed = !persistentStore.remove(Collections.singletonMap(id, version)).isEmpty();
+            if (removed) {
+                retire(true);
+            }
+            return removed;
+        }
+
+        /**
+         * Replays the changes made since the persisted inventory onto the stored one, which was changed
+         * outside the engine. An inventory that is no longer stored is stored again from the seat layout
+         * template first, so acknowledged bookings are never dropped. Seats booked on both sides are
+         * counted and logged, since only a person can settle them.
+         */
+        private Void rebase() {
+            if (inventory == null) {
+                return null;
+            }
+            TrainSeatInventory stored = persistentStore.load(trainPrn, travelDate);
+            if (stored.getVersion() == null) {
+                stored = persistentStore.materialize(stored);
+            }
+            try {
+                int conflicts = SeatInventory.doubleBooked(persisted.getSeats(), inventory.getSeats(), stored.getSeats());
+                if (conflicts > 0) {
+                    doubleBookedSeats.increment(conflicts);
+                    log.error("{} seats of {} were booked both by the booking engine and outside it", conflicts, id);
+                }
+                inventory = TrainSeatInventory.rebase(persisted, inventory, stored);
+            } catch (IllegalArgumentException e) {
+                // The seat layout itself was replaced, so the seats cannot be matched up
+                log.error("Seat inventory {} was replaced with another seat layout, dropping the changes not stored yet: {}",
+                        id, e.getMessage());
+                inventory = stored;
+            }
+            persisted = stored;
+            persistedVersion = stored.getVersion();
+            dirty = true;
+            return null;
+        }
+
+        /**
+         * Unloads the train-day. Unless forced, a train-day with unsaved changes stays loaded.
+         */
+        private Void retire(boolean force) {
+            if (!force && dirty) {
+                return null;
+            }
+            actors.remove(id, this);
+            retired = true;
+            log.info("Unloaded seat inventory {} from the booking engine", id);
+            return null;
+        }
+    }
+}
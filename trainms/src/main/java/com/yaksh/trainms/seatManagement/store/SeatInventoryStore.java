@@ -0,0 +1,81 @@
+package com.yaksh.trainms.seatManagement.store;
+
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Gives atomic access to the seat inventory of one train on one travel date.
+ * Commands either run against a freshly loaded document that is saved with optimistic locking,
+ * or inside the in-memory booking engine that owns the train-day.
+ */
+public interface SeatInventoryStore {
+
+    /**
+     * Applies a command to a train-day inventory and stores the result atomically.
+     * A command may run more than once if the inventory changes concurrently, and must throw
+     * before it changes anything so a failed command leaves the inventory untouched.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param command    The change to apply, returning the result for the caller.
+     * @param <T>        The result type.
+     * @return The result of the command that was stored.
+     */
+    <T> T update(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> command);
+
+    /**
+     * Runs a read-only query against a train-day inventory.
+     * The query must not change the inventory or keep a reference to it.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @param query      The query to run.
+     * @param <T>        The result type.
+     * @return The result of the query.
+     */
+    <T> T read(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> query);
+
+    /**
+     * Runs a read-only query against the inventories of several trains on one travel date, reading
+     * the stored ones together. The query must not change the inventories or keep references to them.
+     *
+     * @param trainPrns  The PRNs of the trains.
+     * @param travelDate The travel date.
+     * @param query      The query to run on each train-day.
+     * @param <T>        The result type.
+     * @return The result of the query by PRN; a train-day that cannot be read, or whose query fails, is left out.
+     */
+    <T> Map<String, T> readAll(Collection<String> trainPrns, LocalDate travelDate, Function<TrainSeatInventory, T> query);
+
+    /**
+     * Returns the free-seat counters of a train-day for the whole journey.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The seat availability.
+     */
+    SeatAvailabilityDTO availability(String trainPrn, LocalDate travelDate);
+
+    /**
+     * Stores the inventories of train-days that have none yet. A train-day that already has an
+     * inventory keeps it, since it holds live bookings, holds and the booking outbox.
+     *
+     * @param inventories The new train-day inventories, with a null version.
+     * @return The number of inventories stored.
+     */
+    int create(Collection<TrainSeatInventory> inventories);
+
+    /**
+     * Removes stored train-day inventories that did not change since they were read, e.g. once they are archived.
+     *
+     * @param versions The version each inventory was read with, by train-day ID.
+     * @return The IDs of the removed inventories; the others changed since they were read and are kept.
+     */
+    Set<String> remove(Map<String, Long> versions);
+}
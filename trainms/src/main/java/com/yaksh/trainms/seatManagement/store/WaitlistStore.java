@@ -0,0 +1,255 @@
+package com.yaksh.trainms.seatManagement.store;
+
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.enums.WaitlistStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.model.WaitlistEntry;
+import com.yaksh.trainms.train.repository.WaitlistRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores waitlisted booking requests in the "waitlist" collection and keeps the waiting requests of
+ * every train-day in an in-memory priority queue, so promotion and position lookups do not query MongoDB.
+ * <p>
+ * MongoDB stays the source of truth: state changes are conditional updates, so two trainms instances
+ * never promote the same request, and a queue is reloaded once it is older than
+ * {@code seats.waitlist.index-ttl-ms} to pick up requests that joined on another instance.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class WaitlistStore {
+    private static final String STATUS = "status";
+
+    private final WaitlistRepository waitlistRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, TrainDayQueue> queues = new ConcurrentHashMap<>();
+
+    // Maximum number of waiting requests per train-day
+    @Value("${seats.waitlist.max-size:500}")
+    private int maxSize;
+
+    // How long an in-memory queue is used before it is reloaded from MongoDB
+    @Value("${seats.waitlist.index-ttl-ms:30000}")
+    private long indexTtlMs;
+
+    /**
+     * Adds a request to the end of the waitlist of its train-day.
+     *
+     * @param entry The new request, without an ID.
+     * @return The stored request.
+     */
+    public WaitlistEntry join(WaitlistEntry entry) {
+        TrainDayQueue queue = queue(entry.getTrainPrn(), entry.getTravelDate());
+        synchronized (queue) {
+            if (queue.entries.size() >= maxSize) {
+                throw new CustomException(String.format("Waitlist of train %s on %s is full", entry.getTrainPrn(), entry.getTravelDate()),
+                        ResponseStatus.WAITLIST_FULL);
+            }
+            entry.setStatus(WaitlistStatus.WAITING);
+            entry.setCreatedAt(Instant.now());
+            WaitlistEntry saved = waitlistRepository.save(entry);
+            queue.entries.add(saved);
+            return saved;
+        }
+    }
+
+    /**
+     * Returns the waiting requests of a train-day in the order they are served.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The waiting requests, first to be served first.
+     */
+    public List<WaitlistEntry> waiting(String trainPrn, LocalDate travelDate) {
+        TrainDayQueue queue = queue(trainPrn, travelDate);
+        synchronized (queue) {
+            List<WaitlistEntry> ordered = new ArrayList<>(queue.entries);
+            ordered.sort(WaitlistEntry.QUEUE_ORDER);
+            return ordered;
+        }
+    }
+
+    /**
+     * Returns the 1-based position of a waiting request in its train-day queue.
+     *
+     * @param entry The waiting request.
+     * @return The position, or 0 if the request is no longer waiting.
+     */
+    public int position(WaitlistEntry entry) {
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return 0;
+        }
+        TrainDayQueue queue = queue(entry.getTrainPrn(), entry.getTravelDate());
+        synchronized (queue) {
+            int ahead = 0;
+            boolean queued = false;
+            for (WaitlistEntry other : queue.entries) {
+                if (other.getId().equals(entry.getId())) {
+                    queued = true;
+                } else if (WaitlistEntry.QUEUE_ORDER.compare(other, entry) < 0) {
+                    ahead++;
+                }
+            }
+            return queued ? ahead + 1 : 0;
+        }
+    }
+
+    /**
+     * Finds a request by its ID.
+     *
+     * @param waitlistId The ID of the request.
+     * @return The request.
+     */
+    public WaitlistEntry find(String waitlistId) {
+        return waitlistRepository.findById(waitlistId).orElseThrow(() ->
+                new CustomException("Waitlist entry does not exist: " + waitlistId, ResponseStatus.WAITLIST_ENTRY_NOT_FOUND));
+    }
+
+    /**
+     * Takes a waiting request for promotion. Only one caller, on any instance, can take a request.
+     *
+     * @param entry The waiting request.
+     * @return true if the request was taken, false if it is no longer waiting.
+     */
+    public boolean claim(WaitlistEntry entry) {
+        Instant now = Instant.now();
+        boolean claimed = transition(entry, WaitlistStatus.WAITING, new Update()
+                .set(STATUS, WaitlistStatus.PROMOTING)
+                .set("promotedAt", now));
+        if (claimed) {
+            entry.setStatus(WaitlistStatus.PROMOTING);
+            entry.setPromotedAt(now);
+        }
+        return claimed;
+    }
+
+    /**
+     * Marks a promoted request as booked.
+     *
+     * @param entry       The promoted request.
+     * @param bookedSeats The booked seat positions.
+     * @param ticketId    The ID of the created ticket.
+     */
+    public void booked(WaitlistEntry entry, List<List<Integer>> bookedSeats, String ticketId) {
+        transition(entry, WaitlistStatus.PROMOTING, new Update()
+                .set(STATUS, WaitlistStatus.BOOKED)
+                .set("bookedSeats", bookedSeats)
+                .set("ticketId", ticketId));
+    }
+
+    /**
+     * Puts a request whose promotion failed back in its place in the queue, or gives it up after too many attempts.
+     *
+     * @param entry       The promoted request.
+     * @param maxAttempts The number of failed promotions after which the request is given up.
+     */
+    public void promotionFailed(WaitlistEntry entry, int maxAttempts) {
+        int attempts = entry.getAttempts() + 1;
+        WaitlistStatus next = attempts >= maxAttempts ? WaitlistStatus.FAILED : WaitlistStatus.WAITING;
+        if (transition(entry, WaitlistStatus.PROMOTING, new Update().set(STATUS, next).set("attempts", attempts))) {
+            entry.setStatus(next);
+            entry.setAttempts(attempts);
+            if (next == WaitlistStatus.WAITING) {
+                TrainDayQueue queue = queue(entry.getTrainPrn(), entry.getTravelDate());
+                synchronized (queue) {
+                    queue.entries.removeIf(other -> other.getId().equals(entry.getId()));
+                    queue.entries.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a waiting request from the waitlist.
+     *
+     * @param entry The waiting request.
+     * @return true if the request was cancelled, false if it is no longer waiting.
+     */
+    public boolean cancel(WaitlistEntry entry) {
+        boolean cancelled = transition(entry, WaitlistStatus.WAITING, new Update().set(STATUS, WaitlistStatus.CANCELLED));
+        if (cancelled) {
+            entry.setStatus(WaitlistStatus.CANCELLED);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Puts requests whose promotion never finished, for example because trainms stopped while
+     * creating their tickets, back in the queue.
+     *
+     * @param before Promotions started before this time are considered abandoned.
+     * @return The number of requests put back.
+     */
+    public long requeueAbandonedPromotions(Instant before) {
+        Query query = Query.query(Criteria.where(STATUS).is(WaitlistStatus.PROMOTING).and("promotedAt").lt(before));
+        long requeued = mongoTemplate.updateMulti(query, new Update().set(STATUS, WaitlistStatus.WAITING), WaitlistEntry.class)
+                .getModifiedCount();
+        if (requeued > 0) {
+            // Reload every queue so the requests are served again
+            queues.clear();
+        }
+        return requeued;
+    }
+
+    /**
+     * Changes the state of a request if it is still in the expected state, and drops it from the
+     * in-memory queue when it leaves the waiting state.
+     */
+    private boolean transition(WaitlistEntry entry, WaitlistStatus expected, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(entry.getId()).and(STATUS).is(expected));
+        boolean changed = mongoTemplate.updateFirst(query, update, WaitlistEntry.class).getModifiedCount() > 0;
+        if (expected == WaitlistStatus.WAITING) {
+            // Drop the request whether or not this caller changed it, it is not waiting anymore either way
+            TrainDayQueue queue = queues.get(TrainSeatInventory.idOf(entry.getTrainPrn(), entry.getTravelDate()));
+            if (queue != null) {
+                synchronized (queue) {
+                    queue.entries.removeIf(other -> other.getId().equals(entry.getId()));
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the in-memory queue of a train-day, loading it from MongoDB when it is missing or stale.
+     */
+    private TrainDayQueue queue(String trainPrn, LocalDate travelDate) {
+        String id = TrainSeatInventory.idOf(trainPrn, travelDate);
+        TrainDayQueue queue = queues.computeIfAbsent(id, key -> new TrainDayQueue());
+        synchronized (queue) {
+            long now = System.currentTimeMillis();
+            if (now - queue.loadedAt > indexTtlMs) {
+                queue.entries.clear();
+                queue.entries.addAll(waitlistRepository.findByTrainPrnAndTravelDateAndStatus(trainPrn, travelDate, WaitlistStatus.WAITING));
+                queue.loadedAt = now;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * The waiting requests of one train-day, ordered by {@link WaitlistEntry#QUEUE_ORDER}.
+     */
+    private static final class TrainDayQueue {
+        private final PriorityQueue<WaitlistEntry> entries = new PriorityQueue<>(WaitlistEntry.QUEUE_ORDER);
+        private long loadedAt;
+    }
+}
@@ -0,0 +1,40 @@
+package com.yaksh.trainms.train.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for a journey that may change trains.
+ * Each leg is booked separately on its own train and travel date.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JourneyDTO {
+
+    /**
+     * The number of changes between trains.
+     */
+    private int transfers;
+
+    /**
+     * The time at which the journey leaves the source station.
+     */
+    private LocalDateTime departureTime;
+
+    /**
+     * The time at which the journey reaches the destination station.
+     */
+    private LocalDateTime arrivalTime;
+
+    /**
+     * The trains taken, in travel order.
+     */
+    private List<JourneyLegDTO> legs;
+}
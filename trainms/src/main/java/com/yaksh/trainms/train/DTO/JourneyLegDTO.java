@@ -0,0 +1,56 @@
+package com.yaksh.trainms.train.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for the part of a journey travelled on one train.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JourneyLegDTO {
+
+    /**
+     * The PRN of the train.
+     */
+    private String prn;
+
+    /**
+     * The name of the train.
+     */
+    private String trainName;
+
+    /**
+     * The travel date of the train's run, used to book this leg.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The station where the train is boarded.
+     */
+    private String source;
+
+    /**
+     * The station where the train is left.
+     */
+    private String destination;
+
+    /**
+     * The time at which the train leaves the source station.
+     */
+    private LocalDateTime departureTime;
+
+    /**
+     * The time at which the train reaches the destination station.
+     */
+    private LocalDateTime arrivalTime;
+}
@@ -0,0 +1,26 @@
+package com.yaksh.trainms.train.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for a station found by autocomplete.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StationDTO {
+
+    /**
+     * The name of the station, as most trains spell it.
+     */
+    private String name;
+
+    /**
+     * The number of trains stopping at the station.
+     */
+    private int trains;
+}
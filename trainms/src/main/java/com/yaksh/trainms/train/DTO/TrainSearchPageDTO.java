@@ -0,0 +1,31 @@
+package com.yaksh.trainms.train.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for one page of train search results.
+ * The next page is requested with the returned cursor, which is absent on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TrainSearchPageDTO {
+
+    /**
+     * The trains on this page, ordered by PRN.
+     */
+    private List<TrainSummaryDTO> trains;
+
+    /**
+     * The cursor of the next page, or null if this is the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,64 @@
+package com.yaksh.trainms.train.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) for one train in a search result.
+ * Carries only what a result list shows, so searches do not send schedules or seat maps.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TrainSummaryDTO {
+
+    /**
+     * The PRN of the train.
+     */
+    private String prn;
+
+    /**
+     * The name of the train.
+     */
+    private String trainName;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The station where the journey starts.
+     */
+    private String source;
+
+    /**
+     * The station where the journey ends.
+     */
+    private String destination;
+
+    /**
+     * The time at which the train leaves the source station.
+     */
+    private LocalDateTime departureTime;
+
+    /**
+     * The time at which the train reaches the destination station.
+     */
+    private LocalDateTime arrivalTime;
+
+    /**
+     * The number of seats free between the two stations, or null if the availability could not be read.
+     */
+    private Integer freeSeats;
+}
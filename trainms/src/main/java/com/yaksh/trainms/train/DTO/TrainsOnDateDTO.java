@@ -0,0 +1,36 @@
+package com.yaksh.trainms.train.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the trains found on one date of a date-range search.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TrainsOnDateDTO {
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The number of trains found on the date.
+     */
+    private int totalTrains;
+
+    /**
+     * The trains found on the date, ordered by PRN.
+     */
+    private List<TrainSummaryDTO> trains;
+}
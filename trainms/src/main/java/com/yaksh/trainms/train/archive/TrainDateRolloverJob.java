@@ -0,0 +1,379 @@
+package com.yaksh.trainms.train.archive;
+
+import com.yaksh.trainms.seatManagement.store.SeatInventoryStore;
+import com.yaksh.trainms.train.model.ServiceCalendar;
+import com.yaksh.trainms.train.model.ServicePattern;
+import com.yaksh.trainms.train.model.StationStop;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Nightly job that moves past travel dates out of the live collections into the "train_archive"
+ * collection, one document per train-day with its schedule and seat inventory.
+ * Past dates are removed from train documents with {@code $unset} and their seat inventories are
+ * deleted through the {@link SeatInventoryStore}, so loading a train does not deserialize its whole
+ * history and a train-day held by the booking engine is only deleted once its changes are stored.
+ * The past dates of a service pattern are archived with their expanded schedules, and its calendar is
+ * moved past them in the same update, so the pattern no longer lists them and reindexing the train
+ * does not bring their station index entries back.
+ * <p>
+ * Trains are processed in PRN order in batches with a pause in between. After every batch the last
+ * PRN is stored in the "job_checkpoints" collection, so a run that stops is resumed where it left off.
+ * Every train-day is archived before it is removed, so repeating a batch is safe.
+ * Disable it with {@code trains.rollover.enabled=false}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "trains.rollover.enabled", havingValue = "true", matchIfMissing = true)
+public class TrainDateRolloverJob {
+    public static final String ARCHIVE_COLLECTION = "train_archive";
+    private static final String CHECKPOINT_COLLECTION = "job_checkpoints";
+    private static final String CHECKPOINT_ID = "train-date-rollover";
+    private static final String SCHEDULES = "schedules";
+    private static final String SEATS = "seats";
+    private static final String SERVICE_PATTERN = "servicePattern";
+    private static final DocumentCodec BSON = new DocumentCodec();
+
+    private final MongoTemplate mongoTemplate;
+    private final SeatInventoryStore seatInventoryStore;
+    private final Counter trainDaysArchived;
+    private final Counter trainBytesReclaimed;
+    private final Counter inventoryBytesReclaimed;
+    private final Timer runTimer;
+
+    // Travel dates older than this many days are archived
+    @Value("${trains.rollover.retention-days:1}")
+    private int retentionDays;
+
+    // Number of trains archived per bulk write
+    @Value("${trains.rollover.batch-size:50}")
+    private int batchSize;
+
+    // Pause between batches, to keep the job from competing with bookings
+    @Value("${trains.rollover.pause-ms:500}")
+    private long pauseMs;
+
+    /**
+     * Creates the job and registers its metrics.
+     *
+     * @param mongoTemplate      The MongoDB template.
+     * @param seatInventoryStore The store that owns the seat inventories.
+     * @param meterRegistry      The registry for the job metrics.
+     */
+    public TrainDateRolloverJob(MongoTemplate mongoTemplate, SeatInventoryStore seatInventoryStore, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.seatInventoryStore = seatInventoryStore;
+        this.trainDaysArchived = Counter.builder("trains.rollover.train.days.archived")
+                .description("Past train-days moved to the archive")
+                .register(meterRegistry);
+        this.trainBytesReclaimed = Counter.builder("trains.rollover.bytes.reclaimed")
+                .description("BSON bytes removed from live documents by the rollover")
+                .baseUnit("bytes")
+                .tag("collection", "trains")
+                .register(meterRegistry);
+        this.inventoryBytesReclaimed = Counter.builder("trains.rollover.bytes.reclaimed")
+                .description("BSON bytes removed from live documents by the rollover")
+                .baseUnit("bytes")
+                .tag("collection", "seat_inventory")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("trains.rollover.duration")
+                .description("Duration of a rollover run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archives the travel dates that are past the retention, resuming an unfinished run of the same cutoff.
+     */
+    @Scheduled(cron = "${trains.rollover.cron:0 30 2 * * *}")
+    public void rollover() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        runTimer.record(() -> {
+            try {
+                run(cutoff);
+            } catch (RuntimeException e) {
+                log.error("Train date rollover before {} stopped, it resumes on the next run: {}", cutoff, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Train date rollover before {} was interrupted", cutoff);
+            }
+        });
+    }
+
+    /**
+     * Processes the trains after the checkpoint in batches.
+     *
+     * @param cutoff Travel dates before this date are archived.
+     */
+    private void run(LocalDate cutoff) throws InterruptedException {
+        Document checkpoint = mongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+        String lastPrn = null;
+        if (checkpoint != null && cutoff.toString().equals(checkpoint.getString("cutoff"))) {
+            if (checkpoint.getBoolean("completed", false)) {
+                return;
+            }
+            lastPrn = checkpoint.getString("lastPrn");
+            log.info("Resuming train date rollover before {} after train {}", cutoff, lastPrn);
+        }
+
+        Query trains = new Query(lastPrn == null ? new Criteria() : Criteria.where("_id").gt(lastPrn)).with(Sort.by("_id"));
+        trains.fields().include(SCHEDULES).include(SEATS).include(SERVICE_PATTERN);
+
+        long archived = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        try (Stream<Document> stream = mongoTemplate.stream(trains, Document.class, mongoTemplate.getCollectionName(Train.class))) {
+            for (Document train : (Iterable<Document>) stream::iterator) {
+                batch.add(train);
+                if (batch.size() == batchSize) {
+                    archived += archiveBatch(batch, cutoff);
+                    saveCheckpoint(cutoff, batch.get(batch.size() - 1).getString("_id"), false);
+                    batch.clear();
+                    Thread.sleep(pauseMs);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            archived += archiveBatch(batch, cutoff);
+        }
+        // Past dates are gone from every train, so their station index entries can go too; pattern stops
+        // have no travel date and stay, their calendars only matching dates on or after the cutoff anyway
+        long stops = mongoTemplate.remove(Query.query(Criteria.where("travelDate").lt(cutoff)), StationStop.class).getDeletedCount();
+        log.info("Removed {} station index entries before {}", stops, cutoff);
+        saveCheckpoint(cutoff, null, true);
+        log.info("Train date rollover before {} finished: {} train-days archived", cutoff, archived);
+    }
+
+    /**
+     * Archives the past travel dates of a batch of trains: copies them to the archive, then unsets them
+     * from the train documents, moves their service pattern calendars past them and deletes their seat inventories.
+     *
+     * @param trains The raw train documents with their schedules and embedded seats.
+     * @param cutoff Travel dates before this date are archived.
+     * @return The number of train-days archived.
+     */
+    private long archiveBatch(List<Document> trains, LocalDate cutoff) {
+        List<String> prns = trains.stream().map(train -> train.getString("_id")).toList();
+
+        // Seat inventories of past dates, by train-day ID
+        Query pastInventories = Query.query(Criteria.where("trainPrn").in(prns).and("travelDate").lt(cutoff));
+        Map<String, Document> inventories = new LinkedHashMap<>();
+        mongoTemplate.find(pastInventories, Document.class, mongoTemplate.getCollectionName(TrainSeatInventory.class))
+                .forEach(inventory -> inventories.put(inventory.getString("_id"), inventory));
+
+        Map<String, TrainDay> days = new LinkedHashMap<>();
+        BulkOperations unsetTrains = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Train.class);
+        int trainUpdates = 0;
+        long trainBytes = 0;
+        for (Document train : trains) {
+            String prn = train.getString("_id");
+            Update update = new Update();
+            Document schedules = train.get(SCHEDULES, Document.class);
+            trainBytes += collectPastDates(prn, schedules, SCHEDULES, cutoff, days, update);
+            trainBytes += collectPastDates(prn, train.get(SEATS, Document.class), SEATS, cutoff, days, update);
+            rollServicePattern(prn, train.get(SERVICE_PATTERN, Document.class), schedules, cutoff, days, update);
+            if (!update.getUpdateObject().isEmpty()) {
+                unsetTrains.updateOne(Query.query(Criteria.where("_id").is(prn)), update);
+                trainUpdates++;
+            }
+        }
+        long inventoryBytes = 0;
+        for (Document inventory : inventories.values()) {
+            // The train-day ID ends with the travel date, see TrainSeatInventory.idOf
+            TrainDay day = days.computeIfAbsent(inventory.getString("_id"), id -> new TrainDay(inventory.getString("trainPrn"),
+                    LocalDate.parse(id.substring(id.lastIndexOf('_') + 1))));
+            day.inventory = inventory;
+            inventoryBytes += bsonSize(inventory);
+        }
+        if (days.isEmpty()) {
+            return 0;
+        }
+
+        // Archive first, so nothing is removed before its copy exists
+        BulkOperations archive = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ARCHIVE_COLLECTION);
+        Instant now = Instant.now();
+        days.forEach((id, day) -> archive.upsert(Query.query(Criteria.where("_id").is(id)), day.toArchiveUpdate(now)));
+        archive.execute();
+
+        if (trainUpdates > 0) {
+            unsetTrains.execute();
+        }
+        if (!inventories.isEmpty()) {
+            // Only remove inventories as they were archived; one that changed meanwhile is archived again by the next run
+            Map<String, Long> versions = new LinkedHashMap<>();
+            inventories.forEach((id, inventory) -> versions.put(id, inventory.get("version") instanceof Number version ? version.longValue() : null));
+            int kept = versions.size() - seatInventoryStore.remove(versions).size();
+            if (kept > 0) {
+                log.warn("Kept {} seat inventories that changed while they were archived", kept);
+            }
+        }
+
+        trainDaysArchived.increment(days.size());
+        trainBytesReclaimed.increment(trainBytes);
+        inventoryBytesReclaimed.increment(inventoryBytes);
+        log.info("Archived {} train-days of {} trains, reclaimed {} bytes", days.size(), trains.size(), trainBytes + inventoryBytes);
+        return days.size();
+    }
+
+    /**
+     * Collects the past dates of a date-keyed map of a train document and adds their removal to an update.
+     *
+     * @param prn    The PRN of the train.
+     * @param byDate The date-keyed map, or null.
+     * @param field  The name of the map in the train document.
+     * @param cutoff Travel dates before this date are collected.
+     * @param days   The train-days to archive, by train-day ID.
+     * @param unset  The update removing the collected dates.
+     * @return The BSON size of the collected entries.
+     */
+    private static long collectPastDates(String prn, Document byDate, String field, LocalDate cutoff,
+                                         Map<String, TrainDay> days, Update unset) {
+        if (byDate == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Map.Entry<String, Object> entry : byDate.entrySet()) {
+            LocalDate travelDate;
+            try {
+                travelDate = LocalDate.parse(entry.getKey());
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (!travelDate.isBefore(cutoff)) {
+                continue;
+            }
+            TrainDay day = days.computeIfAbsent(TrainSeatInventory.idOf(prn, travelDate), id -> new TrainDay(prn, travelDate));
+            if (SCHEDULES.equals(field)) {
+                day.schedule = entry.getValue();
+            } else {
+                day.embeddedSeats = entry.getValue();
+            }
+            unset.unset(field + "." + entry.getKey());
+            bytes += bsonSize(new Document(entry.getKey(), entry.getValue()));
+        }
+        return bytes;
+    }
+
+    /**
+     * Collects the past dates a service pattern runs on, with their expanded schedules, and adds the
+     * move of its calendar past them to an update. A pattern with no date left is removed. Dates whose
+     * schedule is stored per date override the pattern and are collected from the schedules instead.
+     *
+     * @param prn       The PRN of the train.
+     * @param stored    The service pattern of the train document, or null.
+     * @param schedules The per-date schedules of the train document, or null.
+     * @param cutoff    Travel dates before this date are collected.
+     * @param days      The train-days to archive, by train-day ID.
+     * @param update    The update of the train document.
+     */
+    private void rollServicePattern(String prn, Document stored, Document schedules, LocalDate cutoff,
+                                    Map<String, TrainDay> days, Update update) {
+        if (stored == null) {
+            return;
+        }
+        ServicePattern pattern = mongoTemplate.getConverter().read(ServicePattern.class, stored);
+        ServiceCalendar calendar = pattern.getCalendar();
+        if (calendar == null) {
+            return;
+        }
+        ServiceCalendar remaining = calendar.from(cutoff);
+        if (calendar.equals(remaining)) {
+            return;
+        }
+        for (LocalDate travelDate : calendar.dates()) {
+            if (!travelDate.isBefore(cutoff)) {
+                break;
+            }
+            if (schedules != null && schedules.containsKey(travelDate.toString())) {
+                continue;
+            }
+            TrainDay day = days.computeIfAbsent(TrainSeatInventory.idOf(prn, travelDate), id -> new TrainDay(prn, travelDate));
+            day.schedule = mongoTemplate.getConverter().convertToMongoType(pattern.scheduleOn(travelDate));
+        }
+        if (remaining == null) {
+            update.unset(SERVICE_PATTERN);
+        } else {
+            update.set(SERVICE_PATTERN + ".calendar", remaining);
+        }
+    }
+
+    /**
+     * Stores the progress of the current run.
+     */
+    private void saveCheckpoint(LocalDate cutoff, String lastPrn, boolean completed) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                new Update()
+                        .set("cutoff", cutoff.toString())
+                        .set("lastPrn", lastPrn)
+                        .set("completed", completed)
+                        .set("updatedAt", Instant.now()),
+                CHECKPOINT_COLLECTION);
+    }
+
+    private static long bsonSize(Document document) {
+        return new RawBsonDocument(document, BSON).getByteBuffer().remaining();
+    }
+
+    /**
+     * The archived data of one train-day.
+     */
+    private static final class TrainDay {
+        private final String trainPrn;
+        private final LocalDate travelDate;
+        private Object schedule;
+        private Object embeddedSeats;
+        private Document inventory;
+
+        private TrainDay(String trainPrn, LocalDate travelDate) {
+            this.trainPrn = trainPrn;
+            this.travelDate = travelDate;
+        }
+
+        /**
+         * Builds the archive upsert. Only the parts present in this run are set, so repeating a batch
+         * whose live data was already removed keeps what was archived before.
+         */
+        private Update toArchiveUpdate(Instant now) {
+            Update update = new Update()
+                    .set("trainPrn", trainPrn)
+                    .set("travelDate", travelDate)
+                    .set("archivedAt", now);
+            if (schedule != null) {
+                update.set("schedule", schedule);
+            }
+            if (embeddedSeats != null) {
+                update.set("embeddedSeats", embeddedSeats);
+            }
+            if (inventory != null) {
+                Document seatInventory = new Document(inventory);
+                seatInventory.remove("_id");
+                update.set("seatInventory", seatInventory);
+            }
+            return update;
+        }
+    }
+}
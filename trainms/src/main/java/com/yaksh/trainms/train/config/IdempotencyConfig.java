@@ -0,0 +1,34 @@
+package com.yaksh.trainms.train.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yaksh.idempotency.IdempotencyStore;
+import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Configuration class for idempotent requests.
+ * Booking requests are replayed without touching the seat inventory.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    /**
+     * Registers the store of the {@code Idempotency-Key} records. Every response is replayed but the
+     * fallback ones, which carry no response status and booked nothing.
+     *
+     * @param mongoTemplate The MongoDB template.
+     * @param objectMapper  The JSON mapper.
+     * @return The idempotency store.
+     */
+    @Bean
+    public IdempotencyStore<ResponseDataDTO> idempotencyStore(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        return new IdempotencyStore<>(mongoTemplate, objectMapper, ResponseDataDTO.class,
+                response -> response.isStatus() || response.getResponseStatus() != null,
+                message -> new CustomException(message, ResponseStatus.INVALID_DATA),
+                message -> new CustomException(message, ResponseStatus.IDEMPOTENCY_KEY_IN_PROGRESS));
+    }
+}
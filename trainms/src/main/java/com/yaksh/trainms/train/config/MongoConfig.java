@@ -0,0 +1,30 @@
+package com.yaksh.trainms.train.config;
+
+import com.yaksh.trainms.train.util.SeatInventoryCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * Configuration class for MongoDB mapping.
+ * Registers the custom converters used to store the packed seat inventory.
+ */
+@Configuration
+public class MongoConfig {
+
+    /**
+     * Registers the BSON converters for {@link com.yaksh.trainms.train.model.SeatInventory}.
+     *
+     * @return The custom conversions picked up by Spring Boot's MongoDB auto-configuration.
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new SeatInventoryCodec.BsonWriter(),
+                new SeatInventoryCodec.BsonReader(),
+                new SeatInventoryCodec.LegacyMatrixReader()
+        ));
+    }
+}
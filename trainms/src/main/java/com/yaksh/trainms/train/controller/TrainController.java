@@ -1,16 +1,23 @@
 package com.yaksh.trainms.train.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.DTO.TrainSummaryDTO;
 import com.yaksh.trainms.train.model.Train;
 import com.yaksh.trainms.train.service.TrainService;
+import com.yaksh.trainms.train.service.TrainSummaryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * TrainController is a REST controller that provides endpoints for managing and searching trains.
@@ -25,6 +32,12 @@ public class TrainController {
     // Service layer dependency for handling train-related business logic
     private final TrainService trainService;
 
+    // Service layer dependency for search results sent as summaries
+    private final TrainSummaryService trainSummaryService;
+
+    // Writes each summary of a streamed search as one JSON line
+    private final ObjectMapper objectMapper;
+
     /**
      * Searches for trains based on source, destination, and travel date.
      *
@@ -39,6 +52,82 @@ public class TrainController {
         return ResponseEntity.ok(trainService.searchTrains(source, destination, travelDate));
     }
 
+    /**
+     * Searches for trains and returns summaries instead of whole trains. By default one page is returned
+     * as JSON; with Accept: application/x-ndjson every train after the cursor is streamed as one JSON line,
+     * written as soon as it is summarized.
+     *
+     * @param source      The source station of the train.
+     * @param destination The destination station of the train.
+     * @param travelDate  The date of travel.
+     * @param cursor      Optional cursor returned with the previous page.
+     * @param limit       The maximum number of trains on a page.
+     * @param accept      The Accept header of the request.
+     * @return A ResponseEntity containing a ResponseDataDTO with the page, or the stream of summaries.
+     */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> searchTrainSummaries(@RequestParam String source, @RequestParam String destination, @RequestParam LocalDate travelDate,
+                                                  @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int limit,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (accept == null || !accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return ResponseEntity.ok(trainSummaryService.searchTrainSummaries(source, destination, travelDate, cursor, limit));
+        }
+        // The trains are found before the response starts, so a failed search still gets an error response
+        Stream<TrainSummaryDTO> summaries = trainSummaryService.streamTrainSummaries(source, destination, travelDate, cursor);
+        StreamingResponseBody body = outputStream -> {
+            try (summaries) {
+                for (TrainSummaryDTO summary : (Iterable<TrainSummaryDTO>) summaries::iterator) {
+                    outputStream.write(objectMapper.writeValueAsBytes(summary));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Searches for trains on every date of a range in one request, returning the summaries of each date.
+     *
+     * @param source      The source station of the train.
+     * @param destination The destination station of the train.
+     * @param fromDate    The first date of travel.
+     * @param toDate      The last date of travel.
+     * @return A ResponseEntity containing a ResponseDataDTO with the trains of each date.
+     */
+    @GetMapping("/search/range")
+    public ResponseEntity<ResponseDataDTO> searchTrainsInRange(@RequestParam String source, @RequestParam String destination,
+                                                               @RequestParam LocalDate fromDate, @RequestParam LocalDate toDate) {
+        return ResponseEntity.ok(trainSummaryService.searchTrainSummaries(source, destination, fromDate, toDate));
+    }
+
+    /**
+     * Plans journeys between two stations, changing trains when there is no direct train or a change arrives earlier.
+     *
+     * @param source       The source station of the journey.
+     * @param destination  The destination station of the journey.
+     * @param travelDate   The date of travel.
+     * @param maxTransfers The maximum number of train changes.
+     * @return A ResponseEntity containing a ResponseDataDTO with the journeys.
+     */
+    @GetMapping("/journeys")
+    public ResponseEntity<ResponseDataDTO> planJourneys(@RequestParam String source, @RequestParam String destination, @RequestParam LocalDate travelDate,
+                                                        @RequestParam(defaultValue = "2") int maxTransfers) {
+        return ResponseEntity.ok(trainService.planJourneys(source, destination, travelDate, maxTransfers));
+    }
+
+    /**
+     * Suggests stations for a prefix typed by the user, served from memory.
+     *
+     * @param prefix The beginning of the station name, or of any word of it.
+     * @param limit  The maximum number of stations.
+     * @return A ResponseEntity containing a ResponseDataDTO with the stations, most served first.
+     */
+    @GetMapping("/stations")
+    public ResponseEntity<ResponseDataDTO> findStations(@RequestParam(defaultValue = "") String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trainService.findStations(prefix, limit));
+    }
+
     /**
      * Adds a new train to the system.
      *
@@ -0,0 +1,10 @@
+package com.yaksh.trainms.train.enums;
+
+/**
+ * Enum representing the states of a booking whose ticket is created in the background.
+ */
+public enum BookingSagaStatus {
+    PENDING, // The seats are booked and the ticket is not created yet
+    COMPLETED, // The ticket was created
+    COMPENSATED // Ticket creation kept failing, so the seats were freed again
+}
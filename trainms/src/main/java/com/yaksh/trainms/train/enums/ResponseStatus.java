@@ -14,6 +14,13 @@ public enum ResponseStatus {
     TRAIN_ALREADY_EXISTS(HttpStatus.BAD_REQUEST, "Train already exists"), // Indicates that the train already exists in the system
     TRAIN_NOT_SAVED_IN_COLLECTION(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to save train in collection"), // Indicates a failure in saving train data
     TRAIN_UPDATING_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "Train update failed"), // Indicates a failure in updating train data
+    SEAT_UPDATE_CONFLICT(HttpStatus.CONFLICT, "Seats were changed concurrently, please try again"), // Indicates that a conditional seat update kept losing to concurrent bookings
+    SEAT_ENGINE_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Seat booking is busy, please try again"), // Indicates that the in-memory booking engine could not take or finish a command in time
+    SEAT_HOLD_NOT_FOUND(HttpStatus.GONE, "Seat hold expired or does not exist"), // Indicates that a seat hold was already confirmed, released or expired
+    WAITLIST_FULL(HttpStatus.CONFLICT, "Waitlist is full"), // Indicates that no more requests can join the waitlist of a train-day
+    WAITLIST_ENTRY_NOT_FOUND(HttpStatus.NOT_FOUND, "Waitlist entry not found"), // Indicates that a waitlist entry does not exist or is no longer waiting
+    IDEMPOTENCY_KEY_IN_PROGRESS(HttpStatus.CONFLICT, "A request with this idempotency key is still running"), // Indicates that a replayed request arrived before the first one finished
+    BOOKING_NOT_FOUND(HttpStatus.NOT_FOUND, "Booking not found"), // Indicates that a background booking does not exist or was already cleaned up
 
     // General
     INVALID_DATA(HttpStatus.BAD_REQUEST, "Invalid input data"), // Indicates that the input data provided is invalid
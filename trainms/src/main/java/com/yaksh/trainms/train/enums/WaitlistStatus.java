@@ -0,0 +1,12 @@
+package com.yaksh.trainms.train.enums;
+
+/**
+ * Enum representing the states of a waitlisted booking request.
+ */
+public enum WaitlistStatus {
+    WAITING, // Queued until enough seats are freed
+    PROMOTING, // Seats are held and the ticket is being created
+    BOOKED, // The ticket was created and the seats are booked
+    FAILED, // Ticket creation kept failing, so the request was given up
+    CANCELLED // The user left the waitlist
+}
@@ -0,0 +1,103 @@
+package com.yaksh.trainms.train.migration;
+
+import com.yaksh.trainms.train.model.ServicePattern;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * One-off migration that replaces the per-date schedule copies of "trains" documents with a
+ * service pattern. The pattern shared by most dates is stored once with its calendar, and only the
+ * dates whose schedule differs from it are kept in {@code schedules}, so every date expands to the
+ * same schedule as before. Trains that already have a pattern are skipped, so the migration can be
+ * stopped and re-run safely.
+ * Enable it with {@code trains.schedule-migration.enabled=true}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "trains.schedule-migration.enabled", havingValue = "true")
+public class ScheduleTemplateMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query trainsWithSchedules = Query.query(Criteria.where("schedules").exists(true).and("servicePattern").exists(false));
+        trainsWithSchedules.fields().include("schedules");
+
+        int trains = 0;
+        int datesRemoved = 0;
+        try (Stream<Train> stream = mongoTemplate.stream(trainsWithSchedules, Train.class)) {
+            for (Train train : (Iterable<Train>) stream::iterator) {
+                datesRemoved += migrateTrain(train);
+                trains++;
+            }
+        }
+        log.info("Schedule template migration finished: {} trains, {} per-date schedules replaced by patterns", trains, datesRemoved);
+    }
+
+    /**
+     * Stores the service pattern of one train and keeps only the dates it does not reproduce.
+     *
+     * @param train The train with only its ID and schedules.
+     * @return The number of per-date schedules removed.
+     */
+    private int migrateTrain(Train train) {
+        Map<String, List<StationSchedule>> schedules = train.getSchedules();
+        ServicePattern pattern = schedules == null ? null : ServicePattern.fromSchedules(schedules);
+        if (pattern == null || !pattern.isValid()) {
+            log.info("Kept the per-date schedules of train {}, no two dates share a valid pattern", train.getPrn());
+            return 0;
+        }
+        Map<String, List<StationSchedule>> exceptions = new HashMap<>();
+        schedules.forEach((date, schedule) -> {
+            if (!Objects.equals(schedule, expand(pattern, date))) {
+                exceptions.put(date, schedule);
+            }
+        });
+
+        Update update = new Update().set("servicePattern", pattern);
+        if (exceptions.isEmpty()) {
+            update.unset("schedules");
+        } else {
+            update.set("schedules", exceptions);
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(train.getPrn()).and("servicePattern").exists(false)), update, Train.class);
+        log.info("Migrated schedules of train {} to a service pattern ({} of {} dates kept as exceptions)",
+                train.getPrn(), exceptions.size(), schedules.size());
+        return schedules.size() - exceptions.size();
+    }
+
+    /**
+     * Expands the schedule of a stored date from a pattern.
+     *
+     * @param pattern The service pattern.
+     * @param date    The stored date key.
+     * @return The expanded schedule, or null if the pattern does not run on it or the key is not a date.
+     */
+    private static List<StationSchedule> expand(ServicePattern pattern, String date) {
+        try {
+            return pattern.scheduleOn(LocalDate.parse(date));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
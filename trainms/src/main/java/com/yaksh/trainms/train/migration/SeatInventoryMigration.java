@@ -0,0 +1,99 @@
+package com.yaksh.trainms.train.migration;
+
+import com.yaksh.trainms.train.model.SeatInventory;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.util.SeatInventoryCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * One-off migration that moves the seat maps embedded in "trains" documents into the
+ * "seat_inventory" collection, one document per train-day.
+ * Trains are streamed one at a time, existing train-day inventories are never overwritten,
+ * and the embedded seats are removed from a train only after all its dates were copied,
+ * so the migration can be stopped and re-run safely.
+ * Enable it with {@code seats.migration.enabled=true}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "seats.migration.enabled", havingValue = "true")
+public class SeatInventoryMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String trainsCollection = mongoTemplate.getCollectionName(Train.class);
+        Query trainsWithSeats = Query.query(Criteria.where("seats").exists(true));
+        trainsWithSeats.fields().include("seats");
+
+        int trains = 0;
+        int trainDays = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(trainsWithSeats, Document.class, trainsCollection)) {
+            for (Document train : (Iterable<Document>) stream::iterator) {
+                trainDays += migrateTrain(train, trainsCollection);
+                trains++;
+            }
+        }
+        log.info("Seat inventory migration finished: {} trains, {} train-days moved", trains, trainDays);
+    }
+
+    /**
+     * Copies every embedded seat map of one train into the seat_inventory collection and
+     * unsets the embedded seats.
+     *
+     * @param train            The raw train document with only its ID and seats.
+     * @param trainsCollection The name of the trains collection.
+     * @return The number of train-days copied.
+     */
+    private int migrateTrain(Document train, String trainsCollection) {
+        String prn = train.getString("_id");
+        Document seats = train.get("seats", Document.class);
+        if (seats != null && !seats.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrainSeatInventory.class);
+            for (Map.Entry<String, Object> entry : seats.entrySet()) {
+                LocalDate travelDate = LocalDate.parse(entry.getKey());
+                Update insertOnly = new Update()
+                        .setOnInsert("trainPrn", prn)
+                        .setOnInsert("travelDate", travelDate)
+                        .setOnInsert("seats", decode(entry.getValue()))
+                        .setOnInsert("version", 0L);
+                bulk.upsert(Query.query(Criteria.where("_id").is(TrainSeatInventory.idOf(prn, travelDate))), insertOnly);
+            }
+            bulk.execute();
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(prn)), new Update().unset("seats"), trainsCollection);
+        log.info("Migrated seat inventory of train {} ({} dates)", prn, seats == null ? 0 : seats.size());
+        return seats == null ? 0 : seats.size();
+    }
+
+    /**
+     * Decodes an embedded seat map stored either in the packed format or as the legacy matrix.
+     *
+     * @param value The raw seat map value.
+     * @return The packed seat inventory.
+     */
+    private static SeatInventory decode(Object value) {
+        if (value instanceof Document document) {
+            return new SeatInventoryCodec.BsonReader().convert(document);
+        }
+        return new SeatInventoryCodec.LegacyMatrixReader().convert((List<?>) value);
+    }
+}
@@ -0,0 +1,103 @@
+package com.yaksh.trainms.train.model;
+
+import com.yaksh.trainms.train.enums.BookingSagaStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Represents a booking whose ticket still has to be created, stored in the train-day inventory.
+ * The entry is written by the same update that books its seats, so a booking is never lost
+ * between claiming the seats and creating the ticket.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class BookingOutboxEntry {
+
+    /**
+     * The unique identifier of the booking, also used as the ID of its ticket.
+     */
+    private String bookingId;
+
+    /**
+     * The state of the booking.
+     */
+    private BookingSagaStatus status;
+
+    /**
+     * The ID of the user who booked.
+     */
+    private String userId;
+
+    /**
+     * The email address the ticket is sent to.
+     */
+    private String userEmail;
+
+    /**
+     * The station where the journey starts.
+     */
+    private String source;
+
+    /**
+     * The station where the journey ends.
+     */
+    private String destination;
+
+    /**
+     * The booked seat positions as [coach, seat] pairs.
+     */
+    private List<List<Integer>> seats;
+
+    /**
+     * The first booked leg (inclusive).
+     */
+    private int fromLeg;
+
+    /**
+     * The last booked leg (exclusive).
+     */
+    private int toLeg;
+
+    /**
+     * The time at which the train arrives at the source station.
+     */
+    private LocalDateTime arrivalTimeAtSource;
+
+    /**
+     * The time at which the train reaches the destination station.
+     */
+    private LocalDateTime reachingTimeAtDestination;
+
+    /**
+     * The number of failed ticket creations.
+     */
+    private int attempts;
+
+    /**
+     * The time after which ticket creation is tried again.
+     */
+    private Instant nextAttemptAt;
+
+    /**
+     * The error of the last failed ticket creation.
+     */
+    private String lastError;
+
+    /**
+     * The time the seats were booked.
+     */
+    private Instant createdAt;
+
+    /**
+     * The time the booking was completed or compensated.
+     */
+    private Instant finishedAt;
+}
@@ -0,0 +1,44 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Represents one stop of a train's service pattern, timed relative to the travel date.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PatternStop {
+
+    /**
+     * The name of the station.
+     */
+    private String name;
+
+    /**
+     * The number of days after the travel date on which the train arrives, 0 for the travel date itself.
+     */
+    private int dayOffset;
+
+    /**
+     * The time of day at which the train arrives at the station.
+     */
+    private LocalTime arrivalTime;
+
+    /**
+     * Builds the schedule of this stop on a travel date.
+     *
+     * @param travelDate The travel date of the run.
+     * @return The station schedule with the absolute arrival time.
+     */
+    public StationSchedule on(LocalDate travelDate) {
+        return new StationSchedule(name, travelDate.plusDays(dayOffset).atTime(arrivalTime));
+    }
+}
@@ -0,0 +1,29 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Represents the seats that switched between free and booked in one revision of a train-day inventory.
+ * A bounded list of these lets seat-map clients fetch only what changed since the revision they have.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeatChange {
+
+    /**
+     * The revision that made the change.
+     */
+    private long revision;
+
+    /**
+     * The flat indexes of the seats that changed.
+     */
+    private List<Integer> seats;
+}
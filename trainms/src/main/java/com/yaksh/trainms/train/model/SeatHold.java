@@ -0,0 +1,46 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents seats held for a booking that is not confirmed yet.
+ * Held seats are marked as booked in the train-day inventory, so nobody else can take them,
+ * and are freed again if the hold is not confirmed before it expires.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeatHold {
+
+    /**
+     * The unique identifier of the hold.
+     */
+    private String holdId;
+
+    /**
+     * The held seat positions as [coach, seat] pairs.
+     */
+    private List<List<Integer>> seats;
+
+    /**
+     * The first held leg (inclusive).
+     */
+    private int fromLeg;
+
+    /**
+     * The last held leg (exclusive).
+     */
+    private int toLeg;
+
+    /**
+     * The time after which the seats are released if the hold was not confirmed.
+     */
+    private Instant expiresAt;
+}
@@ -0,0 +1,733 @@
+package com.yaksh.trainms.train.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yaksh.trainms.train.util.FreeRunIndex;
+import com.yaksh.trainms.train.util.SeatInventoryCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the seat inventory of a train for a single travel date.
+ * Seats are addressed by a flat index of {@code coach * seatsPerCoach + seat}. Occupancy is tracked per
+ * leg of the journey (leg {@code i} runs from station {@code i} to station {@code i + 1}): every leg has its
+ * own packed bitset with one bit per seat (1 = booked), so a seat booked A→B stays sellable B→C.
+ * Checking a leg range ORs the leg bitsets together, 64 seats per word operation.
+ * Searches over the whole journey go through a {@link FreeRunIndex} of seats that are free on every leg,
+ * built on first use and kept in step with every book and free. The number of seats free for the whole
+ * journey, in total and per coach, is counted once and then updated by every book and free.
+ * The JSON and BSON encodings are handled by {@link SeatInventoryCodec}.
+ */
+@JsonSerialize(using = SeatInventoryCodec.JsonEncoder.class)
+@JsonDeserialize(using = SeatInventoryCodec.JsonDecoder.class)
+public class SeatInventory {
+
+    /**
+     * The number of coaches in the train.
+     */
+    private final int coaches;
+
+    /**
+     * The number of seats in each coach.
+     */
+    private final int seatsPerCoach;
+
+    /**
+     * The number of legs between consecutive stations tracked by this inventory.
+     */
+    private final int legs;
+
+    /**
+     * The number of words in the bitset of a single leg.
+     */
+    private final int wordsPerLeg;
+
+    /**
+     * The packed seat bits, leg by leg, 64 seats per word.
+     */
+    private final long[] words;
+
+    /**
+     * The number of seats free on every leg.
+     */
+    private int freeSeats;
+
+    /**
+     * The number of seats free on every leg, per coach.
+     */
+    private final int[] freeSeatsPerCoach;
+
+    /**
+     * The free-run index over seats that are free on every leg, built lazily and never persisted.
+     */
+    private FreeRunIndex freeRunIndex;
+
+    /**
+     * Seats that switched between free and booked (on any leg) since the changes were last drained, never persisted.
+     */
+    private int[] changedSeats = new int[0];
+    private int changedSeatCount;
+
+    /**
+     * Creates a single-leg inventory from its packed representation.
+     *
+     * @param coaches       The number of coaches.
+     * @param seatsPerCoach The number of seats in each coach.
+     * @param words         The packed seat bits.
+     */
+    public SeatInventory(int coaches, int seatsPerCoach, long[] words) {
+        this(coaches, seatsPerCoach, 1, words);
+    }
+
+    /**
+     * Creates an inventory from its packed representation.
+     *
+     * @param coaches       The number of coaches.
+     * @param seatsPerCoach The number of seats in each coach.
+     * @param legs          The number of legs of the journey.
+     * @param words         The packed seat bits, leg by leg.
+     */
+    public SeatInventory(int coaches, int seatsPerCoach, int legs, long[] words) {
+        if (coaches <= 0 || seatsPerCoach <= 0 || legs <= 0) {
+            throw new IllegalArgumentException("Seat inventory must have at least one coach, one seat per coach and one leg");
+        }
+        int requiredWords = legs * wordCount(coaches * seatsPerCoach);
+        if (words.length != requiredWords) {
+            throw new IllegalArgumentException(String.format(
+                    "Seat inventory of %d seats and %d legs needs %d words, got %d",
+                    coaches * seatsPerCoach, legs, requiredWords, words.length));
+        }
+        this.coaches = coaches;
+        this.seatsPerCoach = seatsPerCoach;
+        this.legs = legs;
+        this.wordsPerLeg = wordCount(coaches * seatsPerCoach);
+        this.words = words;
+
+        // Count the free seats once, later changes adjust the counters
+        this.freeSeatsPerCoach = new int[coaches];
+        long[] occupied = occupancy(0, legs);
+        for (int index = 0; index < coaches * seatsPerCoach; index++) {
+            if ((occupied[index >>> 6] & (1L << index)) == 0) {
+                freeSeatsPerCoach[index / seatsPerCoach]++;
+                freeSeats++;
+            }
+        }
+    }
+
+    /**
+     * Creates a single-leg inventory where every seat is free.
+     *
+     * @param coaches       The number of coaches.
+     * @param seatsPerCoach The number of seats in each coach.
+     * @return A new empty inventory.
+     */
+    public static SeatInventory empty(int coaches, int seatsPerCoach) {
+        return empty(coaches, seatsPerCoach, 1);
+    }
+
+    /**
+     * Creates an inventory where every seat is free on every leg.
+     *
+     * @param coaches       The number of coaches.
+     * @param seatsPerCoach The number of seats in each coach.
+     * @param legs          The number of legs of the journey.
+     * @return A new empty inventory.
+     */
+    public static SeatInventory empty(int coaches, int seatsPerCoach, int legs) {
+        return new SeatInventory(coaches, seatsPerCoach, legs, new long[legs * wordCount(coaches * seatsPerCoach)]);
+    }
+
+    /**
+     * Creates an inventory from the legacy seat matrix, where each inner list is a coach
+     * and each value is 0 (free) or 1 (booked).
+     *
+     * @param matrix The legacy seat matrix.
+     * @return The equivalent single-leg inventory.
+     */
+    public static SeatInventory fromMatrix(List<List<Integer>> matrix) {
+        if (matrix == null || matrix.isEmpty() || matrix.get(0).isEmpty()) {
+            throw new IllegalArgumentException("Seat matrix must not be empty");
+        }
+        int seatsPerCoach = matrix.get(0).size();
+        SeatInventory inventory = empty(matrix.size(), seatsPerCoach);
+        for (int coach = 0; coach < matrix.size(); coach++) {
+            List<Integer> row = matrix.get(coach);
+            if (row.size() != seatsPerCoach) {
+                throw new IllegalArgumentException("Every coach in the seat matrix must have the same number of seats");
+            }
+            for (int seat = 0; seat < seatsPerCoach; seat++) {
+                if (row.get(seat) != 0) {
+                    inventory.book(coach * seatsPerCoach + seat);
+                }
+            }
+        }
+        return inventory;
+    }
+
+    /**
+     * Converts the inventory back to the legacy seat matrix. A seat is reported as booked
+     * if it is booked on any leg.
+     *
+     * @return A list of coaches, each a list of 0 (free) or 1 (booked) values.
+     */
+    public List<List<Integer>> toMatrix() {
+        List<List<Integer>> matrix = new ArrayList<>(coaches);
+        for (int coach = 0; coach < coaches; coach++) {
+            Integer[] row = new Integer[seatsPerCoach];
+            for (int seat = 0; seat < seatsPerCoach; seat++) {
+                row[seat] = isBooked(coach * seatsPerCoach + seat) ? 1 : 0;
+            }
+            matrix.add(Arrays.asList(row));
+        }
+        return matrix;
+    }
+
+    /**
+     * Spreads a single-leg inventory over the given number of legs, keeping every booked
+     * seat booked on all of them.
+     *
+     * @param legCount The number of legs of the journey.
+     * @return An inventory with the given number of legs.
+     */
+    public SeatInventory withLegs(int legCount) {
+        if (legCount == legs) {
+            return this;
+        }
+        if (legs != 1) {
+            throw new IllegalArgumentException(String.format("Cannot change an inventory of %d legs to %d legs", legs, legCount));
+        }
+        long[] spread = new long[legCount * wordsPerLeg];
+        for (int leg = 0; leg < legCount; leg++) {
+            System.arraycopy(words, 0, spread, leg * wordsPerLeg, wordsPerLeg);
+        }
+        return new SeatInventory(coaches, seatsPerCoach, legCount, spread);
+    }
+
+    public int getCoaches() {
+        return coaches;
+    }
+
+    public int getSeatsPerCoach() {
+        return seatsPerCoach;
+    }
+
+    public int getLegs() {
+        return legs;
+    }
+
+    /**
+     * Returns a copy of the packed seat bits, leg by leg.
+     *
+     * @return The packed seat bits.
+     */
+    public long[] toWords() {
+        return words.clone();
+    }
+
+    /**
+     * Returns the total number of seats in the inventory.
+     *
+     * @return The seat capacity.
+     */
+    public int capacity() {
+        return coaches * seatsPerCoach;
+    }
+
+    /**
+     * Returns the number of seats booked on at least one leg, from the maintained free-seat counter.
+     *
+     * @return The number of booked seats.
+     */
+    public int bookedCount() {
+        return capacity() - freeSeats;
+    }
+
+    /**
+     * Returns the number of seats that are free for the whole journey, from the maintained counter.
+     *
+     * @return The number of free seats.
+     */
+    public int freeCount() {
+        return freeSeats;
+    }
+
+    /**
+     * Returns the number of seats of every coach that are free for the whole journey, from the maintained counters.
+     *
+     * @return The number of free seats per coach.
+     */
+    public int[] freeCountPerCoach() {
+        return freeSeatsPerCoach.clone();
+    }
+
+    /**
+     * Returns the number of seats of every coach that are free on every leg of the given range.
+     *
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     * @return The number of free seats per coach.
+     */
+    public int[] freeCountPerCoach(int fromLeg, int toLeg) {
+        if (fromLeg == 0 && toLeg == legs) {
+            return freeCountPerCoach();
+        }
+        int[] perCoach = new int[coaches];
+        long[] occupied = occupancy(fromLeg, toLeg);
+        for (int index = 0; index < capacity(); index++) {
+            if ((occupied[index >>> 6] & (1L << index)) == 0) {
+                perCoach[index / seatsPerCoach]++;
+            }
+        }
+        return perCoach;
+    }
+
+    /**
+     * Returns the number of seats that are free on every leg of the given range.
+     *
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     * @return The number of free seats.
+     */
+    public int freeCount(int fromLeg, int toLeg) {
+        if (fromLeg == 0 && toLeg == legs) {
+            return freeSeats;
+        }
+        int booked = 0;
+        for (long word : occupancy(fromLeg, toLeg)) {
+            booked += Long.bitCount(word);
+        }
+        return capacity() - booked;
+    }
+
+    /**
+     * Checks whether the seat at the given flat index is booked on any leg.
+     *
+     * @param index The flat seat index.
+     * @return true if the seat is booked, false otherwise.
+     */
+    public boolean isBooked(int index) {
+        return isBooked(index, 0, legs);
+    }
+
+    /**
+     * Checks whether the seat at the given flat index is booked on any leg of the given range.
+     *
+     * @param index   The flat seat index.
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     * @return true if the seat is booked on any leg of the range, false otherwise.
+     */
+    public boolean isBooked(int index, int fromLeg, int toLeg) {
+        checkIndex(index);
+        checkLegs(fromLeg, toLeg);
+        long bit = 1L << index;
+        for (int leg = fromLeg; leg < toLeg; leg++) {
+            if ((words[leg * wordsPerLeg + (index >>> 6)] & bit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the seat at the given flat index as booked for the whole journey.
+     *
+     * @param index The flat seat index.
+     */
+    public void book(int index) {
+        book(index, 0, legs);
+    }
+
+    /**
+     * Marks the seat at the given flat index as booked on every leg of the given range.
+     *
+     * @param index   The flat seat index.
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     */
+    public void book(int index, int fromLeg, int toLeg) {
+        checkIndex(index);
+        checkLegs(fromLeg, toLeg);
+        boolean wasFree = !isBooked(index);
+        long bit = 1L << index;
+        for (int leg = fromLeg; leg < toLeg; leg++) {
+            words[leg * wordsPerLeg + (index >>> 6)] |= bit;
+        }
+        if (wasFree) {
+            countChange(index, -1);
+        }
+        if (freeRunIndex != null) {
+            freeRunIndex.update(index, true);
+        }
+    }
+
+    /**
+     * Marks the seat at the given flat index as free for the whole journey.
+     *
+     * @param index The flat seat index.
+     */
+    public void free(int index) {
+        free(index, 0, legs);
+    }
+
+    /**
+     * Marks the seat at the given flat index as free on every leg of the given range.
+     *
+     * @param index   The flat seat index.
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     */
+    public void free(int index, int fromLeg, int toLeg) {
+        checkIndex(index);
+        checkLegs(fromLeg, toLeg);
+        boolean wasFree = !isBooked(index);
+        long mask = ~(1L << index);
+        for (int leg = fromLeg; leg < toLeg; leg++) {
+            words[leg * wordsPerLeg + (index >>> 6)] &= mask;
+        }
+        boolean booked = isBooked(index);
+        if (!wasFree && !booked) {
+            countChange(index, 1);
+        }
+        if (freeRunIndex != null) {
+            freeRunIndex.update(index, booked);
+        }
+    }
+
+    /**
+     * Converts a [coach, seat] position into a flat seat index.
+     *
+     * @param position The seat position as [coach, seat].
+     * @return The flat seat index.
+     */
+    public int indexOf(List<Integer> position) {
+        if (position == null || position.size() != 2) {
+            throw new IllegalArgumentException("Seat position must be [coach, seat]: " + position);
+        }
+        int coach = position.get(0);
+        int seat = position.get(1);
+        if (coach < 0 || coach >= coaches || seat < 0 || seat >= seatsPerCoach) {
+            throw new IllegalArgumentException("Seat position out of range: " + position);
+        }
+        return coach * seatsPerCoach + seat;
+    }
+
+    /**
+     * Converts a flat seat index into a [coach, seat] position.
+     *
+     * @param index The flat seat index.
+     * @return The seat position as [coach, seat].
+     */
+    public List<Integer> positionOf(int index) {
+        checkIndex(index);
+        return List.of(index / seatsPerCoach, index % seatsPerCoach);
+    }
+
+    /**
+     * Finds seats for a booking over the whole journey, preferring a continuous run of free seats
+     * and falling back to the first free seats in index order.
+     *
+     * @param numberOfSeats The number of seats requested.
+     * @return The flat indexes of the chosen seats, or null if not enough seats are free.
+     */
+    public int[] findSeats(int numberOfSeats) {
+        return findSeats(numberOfSeats, 0, legs);
+    }
+
+    /**
+     * Finds seats that are free on every leg of the given range, preferring a continuous run of
+     * free seats and falling back to the first free seats in index order.
+     *
+     * @param numberOfSeats The number of seats requested.
+     * @param fromLeg       The first leg of the range (inclusive).
+     * @param toLeg         The last leg of the range (exclusive).
+     * @return The flat indexes of the chosen seats, or null if not enough seats are free.
+     */
+    public int[] findSeats(int numberOfSeats, int fromLeg, int toLeg) {
+        checkLegs(fromLeg, toLeg);
+        if (numberOfSeats <= 0 || numberOfSeats > capacity()) {
+            return null;
+        }
+        if (fromLeg != 0 || toLeg != legs) {
+            // Partial journeys are answered from the OR of the requested legs
+            return findSeatsInWords(occupancy(fromLeg, toLeg), numberOfSeats);
+        }
+        FreeRunIndex index = freeRunIndex();
+        int runStart = index.firstFreeRun(numberOfSeats);
+        if (runStart >= 0) {
+            return run(runStart, numberOfSeats);
+        }
+        return index.firstFreeSeats(numberOfSeats);
+    }
+
+    /**
+     * ORs the bitsets of the given legs, giving the seats that are booked somewhere in the range.
+     *
+     * @param fromLeg The first leg of the range (inclusive).
+     * @param toLeg   The last leg of the range (exclusive).
+     * @return One word array with a bit set for every seat booked on any leg of the range.
+     */
+    private long[] occupancy(int fromLeg, int toLeg) {
+        checkLegs(fromLeg, toLeg);
+        long[] occupied = new long[wordsPerLeg];
+        for (int leg = fromLeg; leg < toLeg; leg++) {
+            int offset = leg * wordsPerLeg;
+            for (int w = 0; w < wordsPerLeg; w++) {
+                occupied[w] |= words[offset + w];
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Finds seats in an occupancy bitset, skipping fully booked or fully free words 64 seats at a time.
+     *
+     * @param occupied      The occupancy bitset.
+     * @param numberOfSeats The number of seats requested.
+     * @return The flat indexes of the chosen seats, or null if not enough seats are free.
+     */
+    private int[] findSeatsInWords(long[] occupied, int numberOfSeats) {
+        int capacity = capacity();
+
+        // First look for a continuous run
+        int run = 0;
+        int index = 0;
+        while (index < capacity) {
+            long word = occupied[index >>> 6];
+            if ((index & 63) == 0 && index + 64 <= capacity && (word == 0L || word == -1L)) {
+                if (word == -1L) {
+                    run = 0;
+                } else {
+                    run += 64;
+                    if (run >= numberOfSeats) {
+                        return run(index + 64 - run, numberOfSeats);
+                    }
+                }
+                index += 64;
+                continue;
+            }
+            if ((word & (1L << index)) != 0) {
+                run = 0;
+            } else if (++run == numberOfSeats) {
+                return run(index - numberOfSeats + 1, numberOfSeats);
+            }
+            index++;
+        }
+
+        // Otherwise take the first free seats
+        int[] seats = new int[numberOfSeats];
+        int found = 0;
+        for (int w = 0; w < occupied.length && found < numberOfSeats; w++) {
+            long free = ~occupied[w];
+            while (free != 0 && found < numberOfSeats) {
+                int seat = (w << 6) + Long.numberOfTrailingZeros(free);
+                if (seat >= capacity) {
+                    break;
+                }
+                seats[found++] = seat;
+                free &= free - 1;
+            }
+        }
+        return found == numberOfSeats ? seats : null;
+    }
+
+    private static int[] run(int start, int length) {
+        int[] seats = new int[length];
+        for (int i = 0; i < length; i++) {
+            seats[i] = start + i;
+        }
+        return seats;
+    }
+
+    /**
+     * Returns the free-run index, building it from the seat bits on first use.
+     *
+     * @return The free-run index of this inventory.
+     */
+    private FreeRunIndex freeRunIndex() {
+        if (freeRunIndex == null) {
+            freeRunIndex = new FreeRunIndex(capacity(), this::isBooked);
+        }
+        return freeRunIndex;
+    }
+
+    /**
+     * Copies another inventory with its counters, free-run index and undrained changes, without recounting.
+     *
+     * @param other The inventory to copy.
+     */
+    private SeatInventory(SeatInventory other) {
+        this.coaches = other.coaches;
+        this.seatsPerCoach = other.seatsPerCoach;
+        this.legs = other.legs;
+        this.wordsPerLeg = other.wordsPerLeg;
+        this.words = other.words.clone();
+        this.freeSeats = other.freeSeats;
+        this.freeSeatsPerCoach = other.freeSeatsPerCoach.clone();
+        this.freeRunIndex = other.freeRunIndex == null ? null : other.freeRunIndex.copy();
+        this.changedSeats = Arrays.copyOf(other.changedSeats, other.changedSeatCount);
+        this.changedSeatCount = other.changedSeatCount;
+    }
+
+    /**
+     * Returns a deep copy of this inventory.
+     *
+     * @return A copy that can be mutated independently.
+     */
+    public SeatInventory copy() {
+        return new SeatInventory(this);
+    }
+
+    /**
+     * Replays the changes made between two versions of an inventory onto a third one that changed
+     * independently from the same base: seats booked since the base are booked in the result, and
+     * seats freed since the base are freed, on every leg.
+     *
+     * @param base   The common base.
+     * @param ours   The base with the changes to replay.
+     * @param theirs The base with other changes, which the result starts from.
+     * @return A new inventory with both sets of changes.
+     * @throws IllegalArgumentException if the inventories do not have the same coaches, seats and legs.
+     */
+    public static SeatInventory rebase(SeatInventory base, SeatInventory ours, SeatInventory theirs) {
+        checkSameShape(base, ours);
+        checkSameShape(base, theirs);
+        long[] merged = new long[theirs.words.length];
+        for (int w = 0; w < merged.length; w++) {
+            long booked = ours.words[w] & ~base.words[w];
+            long freed = base.words[w] & ~ours.words[w];
+            merged[w] = (theirs.words[w] | booked) & ~freed;
+        }
+        return new SeatInventory(theirs.coaches, theirs.seatsPerCoach, theirs.legs, merged);
+    }
+
+    /**
+     * Counts the seats that both sides booked on the same leg since a common base, which a
+     * {@link #rebase} cannot keep apart.
+     *
+     * @param base   The common base.
+     * @param ours   The base with one set of changes.
+     * @param theirs The base with the other set of changes.
+     * @return The number of seats booked twice on at least one leg.
+     * @throws IllegalArgumentException if the inventories do not have the same coaches, seats and legs.
+     */
+    public static int doubleBooked(SeatInventory base, SeatInventory ours, SeatInventory theirs) {
+        checkSameShape(base, ours);
+        checkSameShape(base, theirs);
+        long[] conflicts = new long[base.wordsPerLeg];
+        for (int w = 0; w < base.words.length; w++) {
+            conflicts[w % base.wordsPerLeg] |= ours.words[w] & theirs.words[w] & ~base.words[w];
+        }
+        int count = 0;
+        for (long word : conflicts) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static void checkSameShape(SeatInventory expected, SeatInventory actual) {
+        if (expected.coaches != actual.coaches || expected.seatsPerCoach != actual.seatsPerCoach || expected.legs != actual.legs) {
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s", actual, expected));
+        }
+    }
+
+    private void countChange(int index, int delta) {
+        freeSeats += delta;
+        freeSeatsPerCoach[index / seatsPerCoach] += delta;
+        if (changedSeatCount == changedSeats.length) {
+            changedSeats = Arrays.copyOf(changedSeats, Math.max(8, changedSeatCount * 2));
+        }
+        changedSeats[changedSeatCount++] = index;
+    }
+
+    /**
+     * Returns the seats that switched between free and booked since the last call and forgets them.
+     *
+     * @return The flat indexes of the changed seats, possibly with repeats.
+     */
+    public int[] drainChangedSeats() {
+        int[] changed = Arrays.copyOf(changedSeats, changedSeatCount);
+        changedSeatCount = 0;
+        return changed;
+    }
+
+    /**
+     * Returns the seats booked on any leg as a packed bitset, 64 seats per word.
+     *
+     * @return The occupancy bitset of the whole journey.
+     */
+    public long[] occupancyWords() {
+        return occupancy(0, legs);
+    }
+
+    /**
+     * Encodes the seats booked on any leg as alternating run lengths in flat index order,
+     * starting with a (possibly empty) run of free seats.
+     *
+     * @return The run lengths, summing up to the capacity.
+     */
+    public List<Integer> runLengths() {
+        long[] occupied = occupancy(0, legs);
+        List<Integer> runs = new ArrayList<>();
+        boolean booked = false;
+        int run = 0;
+        for (int index = 0; index < capacity(); index++) {
+            boolean seatBooked = (occupied[index >>> 6] & (1L << index)) != 0;
+            if (seatBooked != booked) {
+                runs.add(run);
+                booked = seatBooked;
+                run = 0;
+            }
+            run++;
+        }
+        runs.add(run);
+        return runs;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= capacity()) {
+            throw new IllegalArgumentException("Seat index out of range: " + index);
+        }
+    }
+
+    private void checkLegs(int fromLeg, int toLeg) {
+        if (fromLeg < 0 || toLeg > legs || fromLeg >= toLeg) {
+            throw new IllegalArgumentException(String.format("Leg range [%d, %d) is invalid for %d legs", fromLeg, toLeg, legs));
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit words needed to store the given number of seats.
+     *
+     * @param seats The number of seats.
+     * @return The number of words.
+     */
+    public static int wordCount(int seats) {
+        return (seats + 63) >>> 6;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatInventory other)) {
+            return false;
+        }
+        return coaches == other.coaches && seatsPerCoach == other.seatsPerCoach && legs == other.legs
+                && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * coaches + seatsPerCoach) + legs) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SeatInventory(coaches=%d, seatsPerCoach=%d, legs=%d, booked=%d)",
+                coaches, seatsPerCoach, legs, bookedCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the coach layout of a train, shared by all its travel dates.
+ * A travel date gets its own seat inventory from this template on its first booking,
+ * so untouched dates are never stored.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SeatLayoutTemplate {
+
+    /**
+     * The number of coaches.
+     */
+    private int coaches;
+
+    /**
+     * The number of seats in each coach.
+     */
+    private int seatsPerCoach;
+
+    /**
+     * Checks that the template describes at least one seat.
+     *
+     * @return true if both dimensions are positive.
+     */
+    public boolean isValid() {
+        return coaches > 0 && seatsPerCoach > 0;
+    }
+
+    /**
+     * Creates an inventory where every seat is free, tracked per leg of the day's route.
+     *
+     * @param legs The number of legs of the route.
+     * @return A new empty inventory.
+     */
+    public SeatInventory emptyInventory(int legs) {
+        return SeatInventory.empty(coaches, seatsPerCoach, legs);
+    }
+
+    /**
+     * Checks whether an inventory is an untouched copy of this template.
+     *
+     * @param seats The seat inventory.
+     * @return true if it has the template's dimensions and no booked seat.
+     */
+    public boolean isUntouched(SeatInventory seats) {
+        return seats.getCoaches() == coaches && seats.getSeatsPerCoach() == seatsPerCoach && seats.bookedCount() == 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Represents the dates on which a service pattern runs: every selected weekday between two dates,
+ * plus added dates and minus removed dates.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ServiceCalendar {
+
+    /**
+     * The first date on which the pattern may run.
+     */
+    private LocalDate startDate;
+
+    /**
+     * The last date on which the pattern may run.
+     */
+    private LocalDate endDate;
+
+    /**
+     * The weekdays on which the pattern runs between the start and end date; every day if empty.
+     */
+    private Set<DayOfWeek> daysOfWeek;
+
+    /**
+     * Extra dates on which the pattern runs, even outside the date range or on another weekday.
+     */
+    private Set<LocalDate> addedDates;
+
+    /**
+     * Dates on which the pattern does not run although the date range and weekdays include them.
+     */
+    private Set<LocalDate> removedDates;
+
+    /**
+     * Tells whether the pattern runs on a date.
+     *
+     * @param date The date.
+     * @return true if the train runs on that date.
+     */
+    public boolean runsOn(LocalDate date) {
+        if (removedDates != null && removedDates.contains(date)) {
+            return false;
+        }
+        if (addedDates != null && addedDates.contains(date)) {
+            return true;
+        }
+        return startDate != null && endDate != null && !date.isBefore(startDate) && !date.isAfter(endDate)
+                && (daysOfWeek == null || daysOfWeek.isEmpty() || daysOfWeek.contains(date.getDayOfWeek()));
+    }
+
+    /**
+     * Lists every date on which the pattern runs.
+     *
+     * @return The dates in order.
+     */
+    public List<LocalDate> dates() {
+        Set<LocalDate> dates = new TreeSet<>();
+        if (startDate != null && endDate != null) {
+            startDate.datesUntil(endDate.plusDays(1)).filter(this::runsOn).forEach(dates::add);
+        }
+        if (addedDates != null) {
+            addedDates.stream().filter(this::runsOn).forEach(dates::add);
+        }
+        return List.copyOf(dates);
+    }
+
+    /**
+     * Returns the calendar without the dates before a date: the start date is moved up to it and the
+     * added and removed dates before it are dropped. A calendar left with only added dates gets a
+     * one-day range on the first of them, so it stays valid.
+     *
+     * @param date The first date to keep.
+     * @return The remaining calendar, or null if the pattern does not run on or after the date.
+     */
+    public ServiceCalendar from(LocalDate date) {
+        Set<LocalDate> added = onOrAfter(addedDates, date);
+        ServiceCalendar remaining = new ServiceCalendar(startDate == null || startDate.isBefore(date) ? date : startDate,
+                endDate, daysOfWeek, added, onOrAfter(removedDates, date));
+        if (remaining.endDate == null || remaining.endDate.isBefore(remaining.startDate)) {
+            if (added == null) {
+                return null;
+            }
+            LocalDate first = Collections.min(added);
+            remaining.startDate = first;
+            remaining.endDate = first;
+        }
+        return remaining.dates().isEmpty() ? null : remaining;
+    }
+
+    /**
+     * Keeps the dates of a set that are on or after a date.
+     *
+     * @param dates The dates, or null.
+     * @param date  The first date to keep.
+     * @return The kept dates, or null if none are left.
+     */
+    private static Set<LocalDate> onOrAfter(Set<LocalDate> dates, LocalDate date) {
+        if (dates == null) {
+            return null;
+        }
+        Set<LocalDate> kept = new TreeSet<>();
+        dates.stream().filter(day -> day != null && !day.isBefore(date)).forEach(kept::add);
+        return kept.isEmpty() ? null : kept;
+    }
+
+    /**
+     * Checks that the calendar has a date range that does not end before it starts, so its dates are bounded.
+     *
+     * @return true if the calendar is bounded and ordered.
+     */
+    public boolean isValid() {
+        return startDate != null && endDate != null && !endDate.isBefore(startDate)
+                && (addedDates == null || addedDates.stream().allMatch(date -> date != null));
+    }
+}
@@ -0,0 +1,144 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a recurring schedule: one stop sequence, timed relative to the travel date, and the
+ * calendar of dates on which it runs. The schedule of a date is expanded from it when needed, so a
+ * train running every day stores its stops once instead of once per date.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ServicePattern {
+
+    /**
+     * The stops of the train in travel order.
+     */
+    private List<PatternStop> stops;
+
+    /**
+     * The dates on which the train runs.
+     */
+    private ServiceCalendar calendar;
+
+    /**
+     * Expands the schedule of a travel date.
+     *
+     * @param travelDate The travel date.
+     * @return The stations with their arrival times, or null if the pattern does not run on that date.
+     */
+    public List<StationSchedule> scheduleOn(LocalDate travelDate) {
+        if (stops == null || calendar == null || !calendar.runsOn(travelDate)) {
+            return null;
+        }
+        return stops.stream().map(stop -> stop.on(travelDate)).toList();
+    }
+
+    /**
+     * Checks that the pattern has at least two named and timed stops in time order and a bounded calendar.
+     *
+     * @return true if the pattern can be expanded.
+     */
+    public boolean isValid() {
+        if (stops == null || stops.size() < 2 || calendar == null || !calendar.isValid()) {
+            return false;
+        }
+        PatternStop previous = null;
+        for (PatternStop stop : stops) {
+            if (stop == null || stop.getName() == null || stop.getArrivalTime() == null || stop.getDayOffset() < 0) {
+                return false;
+            }
+            if (previous != null && (stop.getDayOffset() < previous.getDayOffset()
+                    || stop.getDayOffset() == previous.getDayOffset() && stop.getArrivalTime().isBefore(previous.getArrivalTime()))) {
+                return false;
+            }
+            previous = stop;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the pattern shared by most of the dates of per-date schedules. Its calendar covers the
+     * first to the last of those dates on their weekdays and removes the other dates in that range,
+     * so it expands to exactly the schedules it was built from.
+     *
+     * @param schedules The schedules by travel date, in ISO format.
+     * @return The pattern, or null if no two dates share the same stops and times.
+     */
+    public static ServicePattern fromSchedules(Map<String, List<StationSchedule>> schedules) {
+        Map<List<PatternStop>, List<LocalDate>> datesByStops = new HashMap<>();
+        schedules.forEach((date, schedule) -> {
+            LocalDate travelDate;
+            try {
+                travelDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                return;
+            }
+            List<PatternStop> stops = relativeTo(travelDate, schedule);
+            if (stops != null) {
+                datesByStops.computeIfAbsent(stops, key -> new ArrayList<>()).add(travelDate);
+            }
+        });
+        Map.Entry<List<PatternStop>, List<LocalDate>> shared = datesByStops.entrySet().stream()
+                .max(Map.Entry.comparingByValue((first, second) -> Integer.compare(first.size(), second.size())))
+                .orElse(null);
+        if (shared == null || shared.getValue().size() < 2) {
+            return null;
+        }
+
+        Set<LocalDate> dates = new HashSet<>(shared.getValue());
+        LocalDate startDate = dates.stream().min(LocalDate::compareTo).orElseThrow();
+        LocalDate endDate = dates.stream().max(LocalDate::compareTo).orElseThrow();
+        Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+        dates.forEach(date -> daysOfWeek.add(date.getDayOfWeek()));
+        Set<LocalDate> removedDates = new HashSet<>();
+        startDate.datesUntil(endDate.plusDays(1))
+                .filter(date -> daysOfWeek.contains(date.getDayOfWeek()) && !dates.contains(date))
+                .forEach(removedDates::add);
+        ServiceCalendar calendar = new ServiceCalendar(startDate, endDate,
+                daysOfWeek.size() == DayOfWeek.values().length ? null : daysOfWeek, null, removedDates.isEmpty() ? null : removedDates);
+        return new ServicePattern(shared.getKey(), calendar);
+    }
+
+    /**
+     * Converts the schedule of a date to stops timed relative to that date.
+     *
+     * @param travelDate The travel date.
+     * @param schedule   The stations with their arrival times.
+     * @return The pattern stops, or null if a stop has no name or time, or is before the travel date.
+     */
+    private static List<PatternStop> relativeTo(LocalDate travelDate, List<StationSchedule> schedule) {
+        if (schedule == null || schedule.size() < 2) {
+            return null;
+        }
+        List<PatternStop> stops = new ArrayList<>(schedule.size());
+        for (StationSchedule station : schedule) {
+            if (station == null || station.getName() == null || station.getArrivalTime() == null) {
+                return null;
+            }
+            long dayOffset = ChronoUnit.DAYS.between(travelDate, station.getArrivalTime().toLocalDate());
+            if (dayOffset < 0) {
+                return null;
+            }
+            stops.add(new PatternStop(station.getName(), (int) dayOffset, station.getArrivalTime().toLocalTime()));
+        }
+        return stops;
+    }
+}
@@ -5,7 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.text.Normalizer;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 /**
  * Represents the schedule of a station in a train's journey.
@@ -16,7 +19,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 public class StationSchedule {
-    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     /** 
      * The name of the station. 
      */
@@ -26,4 +31,26 @@ public class StationSchedule {
      * The time at which the train is scheduled to arrive at the station.
      */
     private LocalDateTime arrivalTime;
+
+    /**
+     * Normalizes a station name the way stations are compared: accents and letter case are ignored and
+     * runs of whitespace count as one space, so " Mumbai  CENTRAL" and "mumbai central" are the same station.
+     * Plain ASCII names with single spaces take a fast path without Unicode decomposition.
+     *
+     * @param name The name of the station.
+     * @return The canonical name.
+     */
+    public static String normalize(String name) {
+        String trimmed = name.trim();
+        boolean plain = true;
+        for (int index = 0; index < trimmed.length() && plain; index++) {
+            char c = trimmed.charAt(index);
+            plain = c < 0x80 && (c == ' ' ? trimmed.charAt(index - 1) != ' ' : !Character.isWhitespace(c));
+        }
+        if (plain) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFKD)).replaceAll("");
+        return WHITESPACE.matcher(withoutMarks).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.yaksh.trainms.train.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+/**
+ * Represents one stop of a train, an entry of the station-to-train index: either on one travel date,
+ * or on every date of the train's service pattern, which is then indexed once instead of once per date.
+ * This class is mapped to the "station_stops" collection in MongoDB, so a search reads the stops of
+ * its two stations instead of every train.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "station_stops")
+@CompoundIndex(name = "station_date", def = "{'station': 1, 'travelDate': 1}")
+public class StationStop {
+
+    /**
+     * The unique identifier of the stop, built from the train-day and the position.
+     */
+    @Id
+    private String id;
+
+    /**
+     * The normalized name of the station, see {@link StationSchedule#normalize(String)}.
+     */
+    private String station;
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel, or null for a stop of the service pattern.
+     */
+    private LocalDate travelDate;
+
+    /**
+     * The dates of a stop of the service pattern, without the dates the train has its own schedule on;
+     * null for a stop of one travel date.
+     */
+    private ServiceCalendar calendar;
+
+    /**
+     * The position of the station in the train's schedule on the travel date, or in its service pattern.
+     */
+    private int position;
+
+    /**
+     * Creates the stop of a train at a position of its schedule.
+     *
+     * @param station    The name of the station.
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @param position   The position of the station in the schedule.
+     * @return The stop.
+     */
+    public static StationStop of(String station, String trainPrn, LocalDate travelDate, int position) {
+        return new StationStop(TrainSeatInventory.idOf(trainPrn, travelDate) + "_" + position,
+                StationSchedule.normalize(station), trainPrn, travelDate, null, position);
+    }
+
+    /**
+     * Creates the stop of a train at a position of its service pattern.
+     *
+     * @param station  The name of the station.
+     * @param trainPrn The PRN of the train.
+     * @param calendar The dates on which the pattern is followed.
+     * @param position The position of the station in the pattern.
+     * @return The stop.
+     */
+    public static StationStop ofPattern(String station, String trainPrn, ServiceCalendar calendar, int position) {
+        return new StationStop(trainPrn + "_pattern_" + position,
+                StationSchedule.normalize(station), trainPrn, null, calendar, position);
+    }
+
+    /**
+     * Tells whether the train makes this stop on a date.
+     *
+     * @param date The travel date.
+     * @return true if the stop is on that date or the pattern runs on it.
+     */
+    public boolean runsOn(LocalDate date) {
+        return travelDate != null ? travelDate.equals(date) : calendar != null && calendar.runsOn(date);
+    }
+}
@@ -1,20 +1,33 @@
 package com.yaksh.trainms.train.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a train entity in the system.
  * This class is mapped to the "trains" collection in MongoDB.
- * It contains information about the train, including its ID, name, seat availability, and schedules.
+ * It contains information about the train, including its ID, name and schedules. The schedules are
+ * stored per date or as a recurring service pattern that is expanded per date when needed.
+ * Seat availability is stored per travel date in the "seat_inventory" collection, and dates that were
+ * never booked are served from the train's seat layout template.
  */
 @Data
 @AllArgsConstructor
@@ -37,18 +50,113 @@ public class Train {
     private String trainName;
 
     /**
-     * A map representing the seating arrangement of the train.
-     * The key is a string (e.g., coach name), and the value is a list of lists of integers representing seat numbers.
+     * A map representing the seating arrangement of the train, accepted on add and update requests.
+     * The key is the travel date, and the value is the packed seat inventory for that date.
+     * It is not stored in the train document: every entry is saved as its own TrainSeatInventory.
      */
-    private Map<String, List<List<Integer>>> seats;
+    @Transient
+    private Map<String, SeatInventory> seats;
+
+    /**
+     * The coach layout of the train. Travel dates without an entry in {@code seats} get an empty
+     * seat inventory from it on their first booking.
+     */
+    private SeatLayoutTemplate seatLayout;
 
     /**
      * A map representing the train's schedule.
      * The key is a string (e.g., date or route identifier), and the value is a list of StationSchedule objects.
+     * A date listed here overrides the service pattern on that date.
      */
     @Field("schedules")
     private Map<String, List<StationSchedule>> schedules;
 
+    /**
+     * The recurring schedule of the train, expanded for a travel date when it is first needed.
+     * Dates in {@code schedules} take precedence over it.
+     */
+    private ServicePattern servicePattern;
+
+    /**
+     * The schedules expanded from the service pattern, by travel date.
+     * Dropped when the schedules or the pattern are replaced.
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<String, List<StationSchedule>> expandedSchedules = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the service pattern and forgets the schedules expanded from the old one.
+     *
+     * @param servicePattern The recurring schedule.
+     */
+    public void setServicePattern(ServicePattern servicePattern) {
+        this.servicePattern = servicePattern;
+        expandedSchedules.clear();
+    }
+
+    /**
+     * Returns the schedule of a travel date: the one stored for that date, or else the service pattern's,
+     * expanded once and kept for later lookups.
+     *
+     * @param travelDate The travel date, in ISO format.
+     * @return The stations with their arrival times, or null if the train does not run on that date.
+     */
+    public List<StationSchedule> scheduleOn(String travelDate) {
+        List<StationSchedule> schedule = schedules == null ? null : schedules.get(travelDate);
+        if (schedule != null || servicePattern == null || travelDate == null) {
+            return schedule;
+        }
+        return expandedSchedules.computeIfAbsent(travelDate, date -> {
+            try {
+                return servicePattern.scheduleOn(LocalDate.parse(date));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Lists every travel date on which the train runs, from its stored schedules and its service pattern.
+     *
+     * @return The travel dates in ISO format, in order.
+     */
+    public SortedSet<String> scheduledDates() {
+        SortedSet<String> dates = new TreeSet<>();
+        if (schedules != null) {
+            dates.addAll(schedules.keySet());
+        }
+        if (servicePattern != null && servicePattern.getCalendar() != null) {
+            servicePattern.getCalendar().dates().forEach(date -> dates.add(date.toString()));
+        }
+        return dates;
+    }
+
+    /**
+     * Lists the names of every station the train stops at on any date, without expanding the service pattern.
+     *
+     * @return The station names as scheduled.
+     */
+    public Set<String> stationNames() {
+        Set<String> names = new HashSet<>();
+        if (schedules != null) {
+            schedules.values().stream()
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .filter(stop -> stop != null && stop.getName() != null)
+                    .forEach(stop -> names.add(stop.getName()));
+        }
+        if (servicePattern != null && servicePattern.getStops() != null) {
+            servicePattern.getStops().stream()
+                    .filter(stop -> stop != null && stop.getName() != null)
+                    .forEach(stop -> names.add(stop.getName()));
+        }
+        return names;
+    }
+
     /**
      * Provides a formatted string containing the train's ID.
      * 
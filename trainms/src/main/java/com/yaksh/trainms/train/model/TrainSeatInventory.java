@@ -0,0 +1,330 @@
+package com.yaksh.trainms.train.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Represents the seat inventory of one train on one travel date.
+ * This class is mapped to the "seat_inventory" collection in MongoDB, so bookings read and write
+ * a single train-day instead of the whole train document.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document(collection = "seat_inventory")
+public class TrainSeatInventory {
+
+    /**
+     * The unique identifier of the train-day, built from the train PRN and the travel date.
+     */
+    @Id
+    private String id;
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The packed seat inventory for this train-day.
+     */
+    private SeatInventory seats;
+
+    /**
+     * Seats held for bookings that are not confirmed yet.
+     */
+    private List<SeatHold> holds;
+
+    /**
+     * The seat layout revision, incremented by every change that books or frees a seat.
+     */
+    private long revision;
+
+    /**
+     * The seats changed by the most recent revisions, oldest first.
+     */
+    private List<SeatChange> changeLog;
+
+    /**
+     * Bookings whose tickets are created in the background, written together with their seats.
+     */
+    private List<BookingOutboxEntry> outbox;
+
+    /**
+     * The version used for optimistic locking, incremented on every save.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Builds the document ID of a train-day.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @return The document ID in the format "{trainPrn}_{travelDate}".
+     */
+    public static String idOf(String trainPrn, LocalDate travelDate) {
+        return trainPrn + "_" + travelDate;
+    }
+
+    /**
+     * Creates a new, not yet persisted inventory for a train-day.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @param seats      The seat inventory.
+     * @return The new train-day inventory.
+     */
+    public static TrainSeatInventory of(String trainPrn, LocalDate travelDate, SeatInventory seats) {
+        return TrainSeatInventory.builder()
+                .id(idOf(trainPrn, travelDate))
+                .trainPrn(trainPrn)
+                .travelDate(travelDate)
+                .seats(seats)
+                .build();
+    }
+
+    /**
+     * Records the seats changed since the last call as a new revision, keeping at most the given
+     * number of revisions in the change log.
+     *
+     * @param maxEntries The maximum number of revisions kept in the change log.
+     */
+    public void commitChanges(int maxEntries) {
+        int[] changed = seats.drainChangedSeats();
+        if (changed.length == 0) {
+            return;
+        }
+        revision++;
+        if (changeLog == null) {
+            changeLog = new ArrayList<>();
+        }
+        changeLog.add(new SeatChange(revision, Arrays.stream(changed).distinct().boxed().toList()));
+        if (changeLog.size() > maxEntries) {
+            changeLog.subList(0, changeLog.size() - maxEntries).clear();
+        }
+    }
+
+    /**
+     * Collects the seats changed after a revision, if the change log still covers it.
+     *
+     * @param sinceRevision The revision the caller has.
+     * @return The flat indexes of the changed seats, or null if the change log does not reach back that far.
+     */
+    public Set<Integer> changedSince(long sinceRevision) {
+        if (sinceRevision > revision) {
+            return null;
+        }
+        Set<Integer> changed = new TreeSet<>();
+        if (sinceRevision == revision) {
+            return changed;
+        }
+        if (changeLog == null || changeLog.isEmpty() || changeLog.get(0).getRevision() > sinceRevision + 1) {
+            return null;
+        }
+        changeLog.stream()
+                .filter(change -> change.getRevision() > sinceRevision)
+                .forEach(change -> changed.addAll(change.getSeats()));
+        return changed;
+    }
+
+    /**
+     * Returns a copy that can be written while this inventory keeps changing.
+     *
+     * @return A copy of this inventory with its own seats, holds, change log and outbox.
+     */
+    public TrainSeatInventory copy() {
+        return new TrainSeatInventory(id, trainPrn, travelDate, seats.copy(),
+                holds == null ? null : new ArrayList<>(holds),
+                revision,
+                changeLog == null ? null : new ArrayList<>(changeLog),
+                outbox == null ? null : outbox.stream().map(entry -> entry.toBuilder().build()).collect(Collectors.toList()),
+                version);
+    }
+
+    /**
+     * Replays the changes made to an inventory since a common base onto the stored inventory, which
+     * changed independently. Seats are merged with {@link SeatInventory#rebase}; holds and outbox
+     * entries added or changed since the base are put over the stored ones, and those removed since the
+     * base are removed. The result gets a new revision with an empty change log, so clients reload the
+     * whole seat layout, and the stored version.
+     *
+     * @param base   The inventory as it was stored when the changes started.
+     * @param ours   The inventory with the changes to replay.
+     * @param theirs The stored inventory.
+     * @return A new inventory with both sets of changes.
+     * @throws IllegalArgumentException if the seats do not have the same coaches, seats and legs.
+     */
+    public static TrainSeatInventory rebase(TrainSeatInventory base, TrainSeatInventory ours, TrainSeatInventory theirs) {
+        return new TrainSeatInventory(theirs.id, theirs.trainPrn, theirs.travelDate,
+                SeatInventory.rebase(base.seats, ours.seats, theirs.seats),
+                rebaseById(base.holds, ours.holds, theirs.holds, SeatHold::getHoldId),
+                Math.max(ours.revision, theirs.revision) + 1,
+                null,
+                rebaseById(base.outbox, ours.outbox, theirs.outbox, BookingOutboxEntry::getBookingId),
+                theirs.version);
+    }
+
+    /**
+     * Replays the entries added, changed or removed since a base onto another list of the same entries.
+     *
+     * @return The merged entries, or null if there are none and the other list was null.
+     */
+    private static <E> List<E> rebaseById(List<E> base, List<E> ours, List<E> theirs, Function<E, String> idOf) {
+        Map<String, E> merged = new LinkedHashMap<>();
+        if (theirs != null) {
+            theirs.forEach(entry -> merged.put(idOf.apply(entry), entry));
+        }
+        Map<String, E> baseById = new HashMap<>();
+        if (base != null) {
+            base.forEach(entry -> baseById.put(idOf.apply(entry), entry));
+        }
+        Set<String> kept = new HashSet<>();
+        if (ours != null) {
+            for (E entry : ours) {
+                String id = idOf.apply(entry);
+                kept.add(id);
+                if (!entry.equals(baseById.get(id))) {
+                    merged.put(id, entry);
+                }
+            }
+        }
+        baseById.keySet().stream().filter(id -> !kept.contains(id)).forEach(merged::remove);
+        return merged.isEmpty() && theirs == null ? null : new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Adds a hold. Its seats must already be marked as booked.
+     *
+     * @param hold The new hold.
+     */
+    public void addHold(SeatHold hold) {
+        if (holds == null) {
+            holds = new ArrayList<>();
+        }
+        holds.add(hold);
+    }
+
+    /**
+     * Removes a hold and keeps its seats booked, turning it into a confirmed booking.
+     *
+     * @param holdId The ID of the hold.
+     * @return The removed hold, or null if there is no such hold.
+     */
+    public SeatHold removeHold(String holdId) {
+        if (holds == null) {
+            return null;
+        }
+        for (Iterator<SeatHold> it = holds.iterator(); it.hasNext(); ) {
+            SeatHold hold = it.next();
+            if (hold.getHoldId().equals(holdId)) {
+                it.remove();
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Frees the seats of a hold on its legs.
+     *
+     * @param hold The hold, already removed from this inventory.
+     */
+    public void freeHold(SeatHold hold) {
+        for (List<Integer> seat : hold.getSeats()) {
+            seats.free(seats.indexOf(seat), hold.getFromLeg(), hold.getToLeg());
+        }
+    }
+
+    /**
+     * Removes the holds that expired and frees their seats.
+     *
+     * @param now The current time.
+     * @return The number of holds released.
+     */
+    public int releaseExpiredHolds(Instant now) {
+        if (holds == null) {
+            return 0;
+        }
+        int released = 0;
+        for (Iterator<SeatHold> it = holds.iterator(); it.hasNext(); ) {
+            SeatHold hold = it.next();
+            if (hold.getExpiresAt().isBefore(now)) {
+                it.remove();
+                freeHold(hold);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Adds a booking whose ticket still has to be created. Its seats must already be marked as booked.
+     *
+     * @param entry The new outbox entry.
+     */
+    public void addOutboxEntry(BookingOutboxEntry entry) {
+        if (outbox == null) {
+            outbox = new ArrayList<>();
+        }
+        outbox.add(entry);
+    }
+
+    /**
+     * Finds a booking in the outbox.
+     *
+     * @param bookingId The ID of the booking.
+     * @return The outbox entry, or null if there is no such booking.
+     */
+    public BookingOutboxEntry findOutboxEntry(String bookingId) {
+        if (outbox == null) {
+            return null;
+        }
+        return outbox.stream().filter(entry -> entry.getBookingId().equals(bookingId)).findFirst().orElse(null);
+    }
+
+    /**
+     * Removes bookings that were completed or compensated before the given time.
+     *
+     * @param before The time before which finished bookings are removed.
+     * @return The number of bookings removed.
+     */
+    public int pruneOutbox(Instant before) {
+        if (outbox == null) {
+            return 0;
+        }
+        int size = outbox.size();
+        outbox.removeIf(entry -> entry.getFinishedAt() != null && entry.getFinishedAt().isBefore(before));
+        return size - outbox.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.yaksh.trainms.train.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.yaksh.trainms.train.enums.WaitlistStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a booking request waiting for seats on a sold-out train-day.
+ * This class is mapped to the "waitlist" collection in MongoDB. Requests are served in the order
+ * they joined, and a request is promoted to a booking as soon as enough seats are freed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "waitlist")
+@CompoundIndex(name = "train_day_status", def = "{'trainPrn': 1, 'travelDate': 1, 'status': 1, 'createdAt': 1}")
+public class WaitlistEntry {
+
+    /**
+     * The order in which waiting requests are served: first come, first served.
+     */
+    public static final Comparator<WaitlistEntry> QUEUE_ORDER =
+            Comparator.comparing(WaitlistEntry::getCreatedAt).thenComparing(WaitlistEntry::getId);
+
+    /**
+     * The unique identifier of the waitlist entry.
+     */
+    @Id
+    private String id;
+
+    /**
+     * The PRN of the train.
+     */
+    private String trainPrn;
+
+    /**
+     * The date of travel.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate travelDate;
+
+    /**
+     * The ID of the user who made the request.
+     */
+    private String userId;
+
+    /**
+     * The email address of the user who made the request.
+     */
+    private String userEmail;
+
+    /**
+     * The station where the journey starts.
+     */
+    private String source;
+
+    /**
+     * The station where the journey ends.
+     */
+    private String destination;
+
+    /**
+     * The number of seats requested.
+     */
+    private int numberOfSeats;
+
+    /**
+     * When the request joined the waitlist.
+     */
+    private Instant createdAt;
+
+    /**
+     * The state of the request.
+     */
+    private WaitlistStatus status;
+
+    /**
+     * The number of promotions that failed to create a ticket.
+     */
+    private int attempts;
+
+    /**
+     * When the request was last taken for promotion.
+     */
+    private Instant promotedAt;
+
+    /**
+     * The seat positions booked for the request as [coach, seat] pairs, once promoted.
+     */
+    private List<List<Integer>> bookedSeats;
+
+    /**
+     * The ID of the ticket created for the request, once booked.
+     */
+    private String ticketId;
+}
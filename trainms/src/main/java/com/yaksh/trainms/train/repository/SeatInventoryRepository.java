@@ -0,0 +1,21 @@
+package com.yaksh.trainms.train.repository;
+
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+/**
+ * SeatInventoryRepository interface acts as a repository for TrainSeatInventory entities.
+ * Each document holds the seats of one train on one travel date.
+ */
+public interface SeatInventoryRepository extends MongoRepository<TrainSeatInventory, String> {
+
+    /**
+     * Finds all train-day inventories of a train.
+     *
+     * @param trainPrn The PRN of the train.
+     * @return The inventories of every stored travel date.
+     */
+    List<TrainSeatInventory> findByTrainPrn(String trainPrn);
+}
@@ -0,0 +1,18 @@
+package com.yaksh.trainms.train.repository;
+
+import com.yaksh.trainms.train.model.StationStop;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/**
+ * StationStopRepository interface acts as a repository for StationStop entities,
+ * the postings of the station-to-train index.
+ */
+public interface StationStopRepository extends MongoRepository<StationStop, String> {
+
+    /**
+     * Deletes every stop of a train.
+     *
+     * @param trainPrn The PRN of the train.
+     */
+    void deleteByTrainPrn(String trainPrn);
+}
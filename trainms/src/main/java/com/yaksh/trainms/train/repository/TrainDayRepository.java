@@ -0,0 +1,43 @@
+package com.yaksh.trainms.train.repository;
+
+import com.yaksh.trainms.train.model.Train;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository fragment that loads a train with only the data of one travel date.
+ * Bookings and schedule lookups need a single date, so the schedules of every other date are not read.
+ * Searches over a date range read each train once with the schedules of those dates only.
+ */
+public interface TrainDayRepository {
+
+    /**
+     * Finds a train with its metadata, seat layout and the schedule of one travel date.
+     *
+     * @param prn        The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train, whose schedules hold at most the given date, or empty if the train does not exist.
+     */
+    Optional<Train> findTrainDay(String prn, LocalDate travelDate);
+
+    /**
+     * Finds trains with their metadata, seat layout and the schedule of one travel date.
+     *
+     * @param prns       The PRNs of the trains.
+     * @param travelDate The travel date.
+     * @return The trains that exist, in PRN order, whose schedules hold at most the given date.
+     */
+    List<Train> findTrainDays(Collection<String> prns, LocalDate travelDate);
+
+    /**
+     * Finds trains with their metadata, seat layout and the schedules of several travel dates, reading each train once.
+     *
+     * @param prns        The PRNs of the trains.
+     * @param travelDates The travel dates.
+     * @return The trains that exist, in PRN order, whose schedules hold at most the given dates.
+     */
+    List<Train> findTrainDays(Collection<String> prns, Collection<LocalDate> travelDates);
+}
@@ -0,0 +1,104 @@
+package com.yaksh.trainms.train.repository;
+
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MongoTemplate implementation of {@link TrainDayRepository}, projecting a single schedule date.
+ * Trains stored with a service pattern get that date expanded into their schedules.
+ */
+@RequiredArgsConstructor
+public class TrainDayRepositoryImpl implements TrainDayRepository {
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Finds a train with its metadata, seat layout and the schedule of one travel date.
+     *
+     * @param prn        The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train, whose schedules hold at most the given date, or empty if the train does not exist.
+     */
+    @Override
+    public Optional<Train> findTrainDay(String prn, LocalDate travelDate) {
+        return Optional.ofNullable(mongoTemplate.findOne(trainDayQuery(Criteria.where("_id").is(prn), List.of(travelDate)), Train.class))
+                .map(train -> withScheduleOf(train, travelDate));
+    }
+
+    /**
+     * Finds trains with their metadata, seat layout and the schedule of one travel date.
+     *
+     * @param prns       The PRNs of the trains.
+     * @param travelDate The travel date.
+     * @return The trains that exist, in PRN order, whose schedules hold at most the given date.
+     */
+    @Override
+    public List<Train> findTrainDays(Collection<String> prns, LocalDate travelDate) {
+        return findTrainDays(prns, List.of(travelDate));
+    }
+
+    /**
+     * Finds trains with their metadata, seat layout and the schedules of several travel dates.
+     *
+     * @param prns        The PRNs of the trains.
+     * @param travelDates The travel dates.
+     * @return The trains that exist, in PRN order, whose schedules hold at most the given dates.
+     */
+    @Override
+    public List<Train> findTrainDays(Collection<String> prns, Collection<LocalDate> travelDates) {
+        if (prns.isEmpty() || travelDates.isEmpty()) {
+            return List.of();
+        }
+        Query query = trainDayQuery(Criteria.where("_id").in(prns), travelDates).with(Sort.by("_id"));
+        List<Train> trains = mongoTemplate.find(query, Train.class);
+        trains.forEach(train -> travelDates.forEach(travelDate -> withScheduleOf(train, travelDate)));
+        return trains;
+    }
+
+    /**
+     * Puts the schedule expanded from the service pattern into the schedules of a projected train, so
+     * trains stored with a pattern hold their travel date's schedule like trains stored per date.
+     *
+     * @param train      The projected train.
+     * @param travelDate The travel date.
+     * @return The same train.
+     */
+    private static Train withScheduleOf(Train train, LocalDate travelDate) {
+        String date = travelDate.toString();
+        List<StationSchedule> schedule = train.scheduleOn(date);
+        if (schedule != null && (train.getSchedules() == null || !train.getSchedules().containsKey(date))) {
+            Map<String, List<StationSchedule>> schedules = train.getSchedules() == null ? new HashMap<>() : new HashMap<>(train.getSchedules());
+            schedules.put(date, schedule);
+            train.setSchedules(schedules);
+        }
+        return train;
+    }
+
+    /**
+     * Builds a query that projects the matching trains to some travel dates.
+     *
+     * @param criteria    The trains to find.
+     * @param travelDates The travel dates.
+     * @return The query.
+     */
+    private static Query trainDayQuery(Criteria criteria, Collection<LocalDate> travelDates) {
+        Query query = Query.query(criteria);
+        query.fields()
+                .include("trainName")
+                .include("seatLayout")
+                .include("servicePattern");
+        travelDates.forEach(travelDate -> query.fields().include("schedules." + travelDate));
+        return query;
+    }
+}
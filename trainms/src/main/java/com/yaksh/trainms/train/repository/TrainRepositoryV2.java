@@ -6,8 +6,8 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 /**
  * TrainRepositoryV2 interface acts as a repository for Train entities.
  * It extends the MongoRepository interface provided by Spring Data MongoDB.
- * This interface provides CRUD operations and additional query methods for Train objects.
+ * This interface provides CRUD operations and additional query methods for Train objects,
+ * including single-date loads from {@link TrainDayRepository}.
  */
-public interface TrainRepositoryV2 extends MongoRepository<Train, String> {
-    // No custom methods are defined here. The repository inherits basic CRUD and query operations from MongoRepository.
+public interface TrainRepositoryV2 extends MongoRepository<Train, String>, TrainDayRepository {
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.yaksh.trainms.train.repository;
+
+import com.yaksh.trainms.train.enums.WaitlistStatus;
+import com.yaksh.trainms.train.model.WaitlistEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * WaitlistRepository interface acts as a repository for WaitlistEntry entities.
+ */
+public interface WaitlistRepository extends MongoRepository<WaitlistEntry, String> {
+
+    /**
+     * Finds the entries of a train-day in a given state.
+     *
+     * @param trainPrn   The PRN of the train.
+     * @param travelDate The date of travel.
+     * @param status     The state of the entries.
+     * @return The matching entries.
+     */
+    List<WaitlistEntry> findByTrainPrnAndTravelDateAndStatus(String trainPrn, LocalDate travelDate, WaitlistStatus status);
+}
@@ -0,0 +1,266 @@
+package com.yaksh.trainms.train.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.yaksh.trainms.train.DTO.JourneyDTO;
+import com.yaksh.trainms.train.DTO.JourneyLegDTO;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.util.Timetable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Plans journeys that may change trains, over an in-memory {@link Timetable} of the runs leaving on the
+ * travel date and the following {@code trains.journey.window-days - 1} days. A timetable is loaded from
+ * MongoDB on the first query of its travel date and kept for {@code trains.journey.cache.ttl-minutes}.
+ * Adding or updating a train only records the saved train against every loaded timetable; a timetable
+ * is patched from the trains saved since it was last used, with one compilation, when it is next
+ * queried, and without reading MongoDB. A burst of saves therefore compiles each timetable at most once,
+ * and timetables that are not queried again are never compiled. Changes made by another trainms
+ * instance are picked up when the timetables expire.
+ */
+@Component
+@Slf4j
+public class JourneyPlanner {
+    private final MongoTemplate mongoTemplate;
+    private final Cache<LocalDate, Timetable> timetables;
+    private final Timer planTimer;
+    private final Timer loadTimer;
+
+    // Trains saved since each loaded timetable was last compiled, by PRN
+    private final Map<LocalDate, Map<String, Train>> savedTrains = new ConcurrentHashMap<>();
+
+    // Number of travel dates, starting with the requested one, whose runs can be part of a journey
+    private final int windowDays;
+
+    // Minimum minutes between arriving with one train and leaving with the next
+    @Value("${trains.journey.min-connection-minutes:15}")
+    private int minConnectionMinutes;
+
+    /**
+     * Creates the planner and registers its metrics.
+     *
+     * @param mongoTemplate The MongoDB template.
+     * @param windowDays    The number of travel dates a journey may span.
+     * @param maxSize       The maximum number of travel dates whose timetable is kept.
+     * @param ttlMinutes    How long a timetable is kept after it is loaded.
+     * @param meterRegistry The registry for the planner metrics.
+     */
+    public JourneyPlanner(MongoTemplate mongoTemplate,
+                          @Value("${trains.journey.window-days:2}") int windowDays,
+                          @Value("${trains.journey.cache.max-size:32}") long maxSize,
+                          @Value("${trains.journey.cache.ttl-minutes:60}") long ttlMinutes,
+                          MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.windowDays = Math.max(1, windowDays);
+        this.timetables = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .evictionListener((LocalDate start, Timetable timetable, RemovalCause cause) -> savedTrains.remove(start))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, timetables, "journeyTimetable");
+        this.planTimer = Timer.builder("trains.journey.plan.duration")
+                .description("Time to plan the journeys of a request on a loaded timetable")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("trains.journey.timetable.load.duration")
+                .description("Time to load and compile the timetable of a travel date")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds the earliest-arriving journey for each number of transfers up to a maximum.
+     * A journey with more transfers is only returned if it arrives earlier than those with fewer.
+     *
+     * @param source       The source station name.
+     * @param destination  The destination station name.
+     * @param travelDate   The travel date; journeys leave the source on or after its start.
+     * @param maxTransfers The maximum number of changes between trains.
+     * @return The journeys ordered by number of transfers, empty if none arrives within the window.
+     */
+    public List<JourneyDTO> plan(String source, String destination, LocalDate travelDate, int maxTransfers) {
+        Timetable timetable = timetable(travelDate);
+        return planTimer.record(() -> timetable
+                .earliestArrivals(StationSchedule.normalize(source), StationSchedule.normalize(destination),
+                        toMinutes(travelDate.atStartOfDay()), maxTransfers, minConnectionMinutes)
+                .stream()
+                .map(JourneyPlanner::toJourney)
+                .toList());
+    }
+
+    /**
+     * Records saved trains against every loaded timetable, to be patched in when the timetable is next
+     * queried. A later save of a train replaces an earlier one that was not patched in yet.
+     *
+     * @param trains The trains as they were saved, with all their schedules.
+     */
+    public void update(Collection<Train> trains) {
+        int marked = 0;
+        for (LocalDate start : List.copyOf(timetables.asMap().keySet())) {
+            savedTrains.compute(start, (date, saved) -> {
+                Map<String, Train> byPrn = saved == null ? new HashMap<>() : saved;
+                trains.forEach(train -> byPrn.put(train.getPrn(), train));
+                return byPrn;
+            });
+            marked++;
+        }
+        log.debug("Marked {} journey timetables for patching with {} trains", marked, trains.size());
+    }
+
+    /**
+     * Returns the timetable of a travel date, loading it on a miss and patching in the trains saved
+     * since it was last compiled. The saved trains are taken inside the cache entry's update, so two
+     * queries never patch in different versions of a train out of order.
+     *
+     * @param start The first travel date of the window.
+     * @return The timetable.
+     */
+    private Timetable timetable(LocalDate start) {
+        Timetable timetable = timetables.get(start, this::load);
+        if (!savedTrains.containsKey(start)) {
+            return timetable;
+        }
+        Timetable patched = timetables.asMap().computeIfPresent(start, (date, current) -> {
+            Map<String, Train> saved = savedTrains.remove(date);
+            if (saved == null) {
+                return current;
+            }
+            Map<String, List<Timetable.Trip>> replacements = new HashMap<>();
+            saved.forEach((prn, train) -> replacements.put(prn, tripsOf(train, date)));
+            log.debug("Patching the journey timetable of {} with {} saved trains", date, saved.size());
+            return current.withTrains(replacements);
+        });
+        return patched != null ? patched : timetable;
+    }
+
+    /**
+     * Loads the runs of every train leaving within the window of a travel date and compiles them.
+     *
+     * @param start The first travel date of the window.
+     * @return The timetable.
+     */
+    private Timetable load(LocalDate start) {
+        // Trains saved before the load starts are read with it
+        savedTrains.remove(start);
+        return loadTimer.record(() -> {
+            Query query = new Query();
+            List<Criteria> running = new ArrayList<>();
+            for (int day = 0; day < windowDays; day++) {
+                String date = start.plusDays(day).toString();
+                running.add(Criteria.where("schedules." + date).exists(true));
+                query.fields().include("schedules." + date);
+            }
+            running.add(Criteria.where("servicePattern").exists(true));
+            query.addCriteria(new Criteria().orOperator(running));
+            query.fields().include("trainName").include("servicePattern");
+
+            List<Timetable.Trip> trips = new ArrayList<>();
+            try (Stream<Train> trains = mongoTemplate.stream(query, Train.class)) {
+                trains.forEach(train -> trips.addAll(tripsOf(train, start)));
+            }
+            log.info("Loaded journey timetable of {} with {} runs", start, trips.size());
+            return new Timetable(trips);
+        });
+    }
+
+    /**
+     * Builds the runs of a train within the window of a travel date. Runs with fewer than two stops,
+     * a stop without a name or time, or times that go backwards are left out.
+     *
+     * @param train The train.
+     * @param start The first travel date of the window.
+     * @return The runs of the train.
+     */
+    private List<Timetable.Trip> tripsOf(Train train, LocalDate start) {
+        List<Timetable.Trip> trips = new ArrayList<>();
+        for (int day = 0; day < windowDays; day++) {
+            LocalDate travelDate = start.plusDays(day);
+            List<StationSchedule> schedule = train.scheduleOn(travelDate.toString());
+            if (schedule == null || schedule.size() < 2) {
+                continue;
+            }
+            String[] stations = new String[schedule.size()];
+            String[] names = new String[schedule.size()];
+            int[] times = new int[schedule.size()];
+            boolean valid = true;
+            for (int position = 0; position < schedule.size() && valid; position++) {
+                StationSchedule stop = schedule.get(position);
+                valid = stop != null && stop.getName() != null && stop.getArrivalTime() != null;
+                if (valid) {
+                    stations[position] = StationSchedule.normalize(stop.getName());
+                    names[position] = stop.getName();
+                    times[position] = toMinutes(stop.getArrivalTime());
+                    valid = position == 0 || times[position] >= times[position - 1];
+                }
+            }
+            if (valid) {
+                trips.add(new Timetable.Trip(train.getPrn(), train.getTrainName(), travelDate, stations, names, times));
+            } else {
+                log.warn("Leaving the run of train {} on {} out of journeys, its schedule is incomplete or out of order", train.getPrn(), travelDate);
+            }
+        }
+        return trips;
+    }
+
+    /**
+     * Converts a planned journey to its response.
+     *
+     * @param journey The journey.
+     * @return The journey with its legs.
+     */
+    private static JourneyDTO toJourney(Timetable.Journey journey) {
+        List<JourneyLegDTO> legs = journey.legs().stream()
+                .map(leg -> JourneyLegDTO.builder()
+                        .prn(leg.trip().prn())
+                        .trainName(leg.trip().trainName())
+                        .travelDate(leg.trip().travelDate())
+                        .source(leg.trip().names()[leg.from()])
+                        .destination(leg.trip().names()[leg.to()])
+                        .departureTime(toDateTime(leg.trip().times()[leg.from()]))
+                        .arrivalTime(toDateTime(leg.trip().times()[leg.to()]))
+                        .build())
+                .toList();
+        return new JourneyDTO(legs.size() - 1, legs.get(0).getDepartureTime(), legs.get(legs.size() - 1).getArrivalTime(), legs);
+    }
+
+    /**
+     * Converts a schedule time to timetable minutes.
+     *
+     * @param time The schedule time.
+     * @return The minutes since the epoch.
+     */
+    private static int toMinutes(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    /**
+     * Converts timetable minutes back to a schedule time.
+     *
+     * @param minutes The minutes since the epoch.
+     * @return The schedule time.
+     */
+    private static LocalDateTime toDateTime(int minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60L, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,204 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.util.StationTrie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalogue of every station a train stops at, for autocomplete. Lookups only read the
+ * current {@link StationTrie} and never reach MongoDB. The catalogue is loaded in the background on the
+ * first lookup and reloaded every {@code stations.catalogue.refresh-interval-ms} to pick up trains saved
+ * by other trainms instances; trains saved by this instance are applied as soon as they are saved.
+ */
+@Component
+@Slf4j
+public class StationCatalogue {
+    private final MongoTemplate mongoTemplate;
+    private final Timer lookupTimer;
+    private final Timer loadTimer;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final Object lock = new Object();
+
+    // Maximum number of stations a lookup returns
+    private final int maxResults;
+
+    // Station names of every known train, by PRN; guarded by lock
+    private Map<String, Set<String>> stationsByTrain = new HashMap<>();
+
+    // Trains saved while the catalogue is loaded, applied over the loaded ones; guarded by lock
+    private Map<String, Set<String>> savedDuringLoad;
+
+    private volatile StationTrie trie;
+    private volatile boolean loaded;
+
+    /**
+     * Creates an empty catalogue and registers its metrics.
+     *
+     * @param mongoTemplate The MongoDB template.
+     * @param maxResults    The maximum number of stations a lookup returns.
+     * @param meterRegistry The registry for the catalogue metrics.
+     */
+    public StationCatalogue(MongoTemplate mongoTemplate,
+                            @Value("${stations.autocomplete.max-results:10}") int maxResults,
+                            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxResults = Math.max(1, maxResults);
+        this.trie = new StationTrie(List.of(), this.maxResults);
+        this.lookupTimer = Timer.builder("stations.autocomplete.duration")
+                .description("Time to look up the stations matching a prefix")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("stations.catalogue.load.duration")
+                .description("Time to load the station catalogue from the stored trains")
+                .register(meterRegistry);
+        Gauge.builder("stations.catalogue.size", this, catalogue -> catalogue.trie.size())
+                .description("Number of stations in the catalogue")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gives the maximum number of stations a lookup returns.
+     *
+     * @return The maximum number of stations.
+     */
+    public int maxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Tells whether the catalogue holds every stored train, and starts loading it in the background if not.
+     *
+     * @return true once the catalogue was loaded.
+     */
+    public boolean isLoaded() {
+        if (!loaded && loading.compareAndSet(false, true)) {
+            new CustomizableThreadFactory("station-catalogue-").newThread(this::load).start();
+        }
+        return loaded;
+    }
+
+    /**
+     * Finds the stations with a name, or a word of it, starting with a prefix. Until the catalogue is
+     * loaded only the stations of trains saved by this instance are found.
+     *
+     * @param prefix The prefix typed so far, normalized like station names.
+     * @param limit  The maximum number of stations.
+     * @return The matching stations, most served first.
+     */
+    public List<StationTrie.Station> complete(String prefix, int limit) {
+        isLoaded();
+        return lookupTimer.record(() -> trie.complete(StationSchedule.normalize(prefix), limit));
+    }
+
+    /**
+     * Adds the stations of saved trains, replacing those of earlier versions of the trains.
+     *
+     * @param trains The trains as they were saved, with all their schedules.
+     */
+    public void update(Collection<Train> trains) {
+        synchronized (lock) {
+            for (Train train : trains) {
+                Set<String> names = train.stationNames();
+                stationsByTrain.put(train.getPrn(), names);
+                if (savedDuringLoad != null) {
+                    savedDuringLoad.put(train.getPrn(), names);
+                }
+            }
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads a loaded catalogue, to pick up trains saved by other instances.
+     */
+    @Scheduled(initialDelayString = "${stations.catalogue.refresh-interval-ms:600000}", fixedDelayString = "${stations.catalogue.refresh-interval-ms:600000}")
+    public void refresh() {
+        if (loaded && loading.compareAndSet(false, true)) {
+            load();
+        }
+    }
+
+    /**
+     * Reads the station names of every stored train and replaces the catalogue with them.
+     * Trains saved meanwhile keep the stations they were saved with.
+     */
+    private void load() {
+        try {
+            synchronized (lock) {
+                savedDuringLoad = new HashMap<>();
+            }
+            loadTimer.record(() -> {
+                Query query = new Query();
+                query.fields().include("schedules").include("servicePattern");
+                Map<String, Set<String>> stored = new HashMap<>();
+                try (Stream<Train> trains = mongoTemplate.stream(query, Train.class)) {
+                    trains.forEach(train -> stored.put(train.getPrn(), train.stationNames()));
+                }
+                synchronized (lock) {
+                    stored.putAll(savedDuringLoad);
+                    stationsByTrain = stored;
+                    rebuild();
+                }
+            });
+            loaded = true;
+            log.info("Station catalogue loaded with {} stations of {} trains", trie.size(), stationsByTrain.size());
+        } catch (RuntimeException e) {
+            log.error("Loading the station catalogue failed, it is retried on the next lookup: {}", e.getMessage());
+        } finally {
+            synchronized (lock) {
+                savedDuringLoad = null;
+            }
+            loading.set(false);
+        }
+    }
+
+    /**
+     * Builds the trie from the stations of every known train. Each station is displayed with the
+     * spelling most trains use, and ranked by the number of trains stopping there. Must hold the lock.
+     */
+    private void rebuild() {
+        Map<String, Map<String, Integer>> spellings = new HashMap<>();
+        Map<String, Integer> trainCounts = new HashMap<>();
+        for (Set<String> names : stationsByTrain.values()) {
+            Set<String> keys = new HashSet<>();
+            for (String name : names) {
+                String key = StationSchedule.normalize(name);
+                if (key.isEmpty()) {
+                    continue;
+                }
+                spellings.computeIfAbsent(key, k -> new HashMap<>()).merge(name.trim(), 1, Integer::sum);
+                if (keys.add(key)) {
+                    trainCounts.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        List<StationTrie.Station> stations = new ArrayList<>(spellings.size());
+        spellings.forEach((key, names) -> {
+            String name = names.entrySet().stream()
+                    .min(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .orElseThrow()
+                    .getKey();
+            stations.add(new StationTrie.Station(key, name, trainCounts.get(key)));
+        });
+        trie = new StationTrie(stations, maxResults);
+    }
+}
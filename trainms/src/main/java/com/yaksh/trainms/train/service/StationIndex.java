@@ -0,0 +1,295 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.model.PatternStop;
+import com.yaksh.trainms.train.model.ServiceCalendar;
+import com.yaksh.trainms.train.model.ServicePattern;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.StationStop;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.repository.StationStopRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index from station to the trains that stop there, stored as one {@link StationStop} per
+ * stop of a service pattern, with its calendar, and one per stop and date of the schedules stored per date.
+ * A train with a pattern is therefore indexed with as many entries as its pattern has stops, whatever the
+ * length of its calendar, and pattern stops are expanded to the searched dates when a search reads them.
+ * A search reads the stops of its two stations and keeps the trains that reach the source before the
+ * destination, so its cost depends on the trains serving those stations, not on the fleet.
+ * The index is updated whenever a train is saved. Trains stored before the index existed are indexed
+ * in the background on the first search, which scans the trains until the index is complete. The same
+ * happens to every train once after the station name normalization or the stored stops change.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StationIndex {
+    private static final String CHECKPOINT_COLLECTION = "job_checkpoints";
+    private static final String CHECKPOINT_ID = "station-index";
+    // Bumped whenever StationSchedule.normalize or the stored stops change, so stops stored by an older version are rebuilt
+    private static final int NORMALIZATION_VERSION = 3;
+
+    private final StationStopRepository stationStopRepository;
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean ready = new AtomicBoolean();
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    /**
+     * Replaces the stops of a train with the stations of its current schedules.
+     *
+     * @param train The saved train.
+     */
+    public void reindex(Train train) {
+        stationStopRepository.deleteByTrainPrn(train.getPrn());
+        List<StationStop> stops = stopsOf(train);
+        if (!stops.isEmpty()) {
+            stationStopRepository.insert(stops);
+        }
+        log.debug("Indexed {} stops of train {}", stops.size(), train.getPrn());
+    }
+
+    /**
+     * Finds the trains that stop at the source before the destination on a travel date.
+     * Stations are matched case-insensitively, at their first stop in the schedule.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @return The PRNs of the matching trains, sorted.
+     */
+    public List<String> trainsBetween(String source, String destination, LocalDate travelDate) {
+        String from = StationSchedule.normalize(source);
+        String to = StationSchedule.normalize(destination);
+        if (from.equals(to)) {
+            return List.of();
+        }
+        return matching(stopsBetween(from, to, travelDate, travelDate), from, to, travelDate, travelDate)
+                .getOrDefault(travelDate, List.of());
+    }
+
+    /**
+     * Finds the trains that stop at the source before the destination on each date of a range,
+     * with a single read of the stops of both stations over the range.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param fromDate    The first travel date.
+     * @param toDate      The last travel date.
+     * @return The PRNs of the matching trains by travel date, sorted; dates without a match are left out.
+     */
+    public Map<LocalDate, List<String>> trainsBetween(String source, String destination, LocalDate fromDate, LocalDate toDate) {
+        String from = StationSchedule.normalize(source);
+        String to = StationSchedule.normalize(destination);
+        if (from.equals(to)) {
+            return Map.of();
+        }
+        return matching(stopsBetween(from, to, fromDate, toDate), from, to, fromDate, toDate);
+    }
+
+    /**
+     * Reads the stops of two stations on a range of dates, together with every pattern stop of the
+     * stations, which are few: one per train following a pattern there.
+     *
+     * @param from     The normalized source station name.
+     * @param to       The normalized destination station name.
+     * @param fromDate The first travel date.
+     * @param toDate   The last travel date.
+     * @return The stops.
+     */
+    private List<StationStop> stopsBetween(String from, String to, LocalDate fromDate, LocalDate toDate) {
+        Query query = Query.query(Criteria.where("station").in(from, to).orOperator(
+                Criteria.where("travelDate").gte(fromDate).lte(toDate),
+                Criteria.where("travelDate").is(null)));
+        return mongoTemplate.find(query, StationStop.class);
+    }
+
+    /**
+     * Keeps the train-days whose first stop at the source comes before their first stop at the destination.
+     * Pattern stops count on every date of the range their calendar runs on.
+     *
+     * @param stops    The stops of both stations.
+     * @param from     The normalized source station name.
+     * @param to       The normalized destination station name.
+     * @param fromDate The first travel date.
+     * @param toDate   The last travel date.
+     * @return The PRNs of the matching trains by travel date, sorted.
+     */
+    private static Map<LocalDate, List<String>> matching(List<StationStop> stops, String from, String to, LocalDate fromDate, LocalDate toDate) {
+        Map<LocalDate, Map<String, Integer>> sourcePositions = new HashMap<>();
+        Map<LocalDate, Map<String, Integer>> destinationPositions = new HashMap<>();
+        for (StationStop stop : stops) {
+            if (!stop.getStation().equals(from) && !stop.getStation().equals(to)) {
+                continue;
+            }
+            Map<LocalDate, Map<String, Integer>> positions = stop.getStation().equals(from) ? sourcePositions : destinationPositions;
+            Stream<LocalDate> dates = stop.getTravelDate() != null
+                    ? Stream.of(stop.getTravelDate())
+                    : fromDate.datesUntil(toDate.plusDays(1)).filter(stop::runsOn);
+            dates.forEach(travelDate -> positions.computeIfAbsent(travelDate, date -> new HashMap<>())
+                    .merge(stop.getTrainPrn(), stop.getPosition(), Math::min));
+        }
+        Map<LocalDate, List<String>> trains = new TreeMap<>();
+        sourcePositions.forEach((travelDate, atSource) -> {
+            Map<String, Integer> atDestination = destinationPositions.getOrDefault(travelDate, Map.of());
+            List<String> prns = atSource.entrySet().stream()
+                    .filter(entry -> {
+                        Integer destinationPosition = atDestination.get(entry.getKey());
+                        return destinationPosition != null && entry.getValue() < destinationPosition;
+                    })
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList();
+            if (!prns.isEmpty()) {
+                trains.put(travelDate, prns);
+            }
+        });
+        return trains;
+    }
+
+    /**
+     * Tells whether every stored train is indexed, and starts indexing them in the background if not.
+     *
+     * @return true if searches can use the index.
+     */
+    public boolean isReady() {
+        if (ready.get()) {
+            return true;
+        }
+        try {
+            Query completed = Query.query(Criteria.where("_id").is(CHECKPOINT_ID).and("completed").is(true)
+                    .and("normalizationVersion").is(NORMALIZATION_VERSION));
+            if (mongoTemplate.exists(completed, CHECKPOINT_COLLECTION)) {
+                ready.set(true);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to read the station index checkpoint: {}", e.getMessage());
+            return false;
+        }
+        if (building.compareAndSet(false, true)) {
+            new CustomizableThreadFactory("station-index-").newThread(this::build).start();
+        }
+        return false;
+    }
+
+    /**
+     * Indexes every train that has no stops yet, then marks the index as complete.
+     * Trains indexed meanwhile by a save are skipped, so their newer stops are kept. If an index
+     * built with an older normalization exists, every train is indexed again instead.
+     */
+    private void build() {
+        try {
+            boolean renormalize = mongoTemplate.exists(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)), CHECKPOINT_COLLECTION);
+            mongoTemplate.indexOps(StationStop.class).ensureIndex(new Index()
+                    .on("station", Sort.Direction.ASC).on("travelDate", Sort.Direction.ASC).named("station_date"));
+            mongoTemplate.indexOps(StationStop.class).ensureIndex(new Index().on("trainPrn", Sort.Direction.ASC));
+
+            Query trains = new Query();
+            trains.fields().include("schedules").include("servicePattern");
+            int indexed = 0;
+            try (Stream<Train> stream = mongoTemplate.stream(trains, Train.class)) {
+                for (Train train : (Iterable<Train>) stream::iterator) {
+                    if (renormalize || !mongoTemplate.exists(Query.query(Criteria.where("trainPrn").is(train.getPrn())), StationStop.class)) {
+                        reindex(train);
+                        indexed++;
+                    }
+                }
+            }
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                    new Update().set("completed", true).set("normalizationVersion", NORMALIZATION_VERSION).set("updatedAt", Instant.now()), CHECKPOINT_COLLECTION);
+            ready.set(true);
+            log.info("Station index built, {} trains indexed", indexed);
+        } catch (RuntimeException e) {
+            log.error("Building the station index failed, it is retried on the next search: {}", e.getMessage());
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Lists the stops of a train: those of its service pattern once, on the dates it is followed, and
+     * those of every date with a stored schedule.
+     *
+     * @param train The train.
+     * @return The stops of the train.
+     */
+    private static List<StationStop> stopsOf(Train train) {
+        List<StationStop> stops = new ArrayList<>();
+        Map<String, List<StationSchedule>> schedules = train.getSchedules() == null ? Map.of() : train.getSchedules();
+        ServicePattern pattern = train.getServicePattern();
+        if (pattern != null && pattern.getStops() != null && pattern.getCalendar() != null) {
+            ServiceCalendar calendar = withoutScheduledDates(pattern.getCalendar(), schedules.keySet());
+            for (int position = 0; position < pattern.getStops().size(); position++) {
+                PatternStop stop = pattern.getStops().get(position);
+                if (stop != null && stop.getName() != null) {
+                    stops.add(StationStop.ofPattern(stop.getName(), train.getPrn(), calendar, position));
+                }
+            }
+        }
+        schedules.forEach((date, schedule) -> {
+            LocalDate travelDate;
+            try {
+                travelDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                log.warn("Skipping schedule of train {} with invalid date {}", train.getPrn(), date);
+                return;
+            }
+            if (schedule == null) {
+                return;
+            }
+            for (int position = 0; position < schedule.size(); position++) {
+                StationSchedule station = schedule.get(position);
+                if (station != null && station.getName() != null) {
+                    stops.add(StationStop.of(station.getName(), train.getPrn(), travelDate, position));
+                }
+            }
+        });
+        return stops;
+    }
+
+    /**
+     * Removes the dates a train has its own schedule on from the calendar of its pattern, since those
+     * schedules take precedence over the pattern.
+     *
+     * @param calendar The calendar of the pattern.
+     * @param dates    The dates of the stored schedules, in ISO format.
+     * @return The calendar of the dates the pattern is followed on.
+     */
+    private static ServiceCalendar withoutScheduledDates(ServiceCalendar calendar, Set<String> dates) {
+        Set<LocalDate> removed = new TreeSet<>();
+        if (calendar.getRemovedDates() != null) {
+            removed.addAll(calendar.getRemovedDates());
+        }
+        for (String date : dates) {
+            try {
+                removed.add(LocalDate.parse(date));
+            } catch (DateTimeParseException e) {
+                // Not a travel date, so it overrides nothing
+            }
+        }
+        return new ServiceCalendar(calendar.getStartDate(), calendar.getEndDate(), calendar.getDaysOfWeek(),
+                calendar.getAddedDates(), removed.isEmpty() ? null : removed);
+    }
+}
@@ -0,0 +1,115 @@
+package com.yaksh.trainms.train.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process cache of the position of every station in a train's schedule, keyed by the train's PRN and
+ * the travel date, so a station is found with a hash lookup however often the train is read from MongoDB.
+ * Entries of a train are dropped when this instance saves it; changes made by another trainms instance
+ * are picked up when the entries expire. A cached position is checked against the schedule it is used
+ * with, and a station missing from the cached positions is looked up again in that schedule, so a stale
+ * entry is rebuilt instead of pointing at the wrong stop or hiding a stop added meanwhile.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics with {@code cache=stationPositions}.
+ */
+@Component
+public class StationPositionCache {
+    private final Cache<TrainDay, Map<String, Integer>> positions;
+
+    /**
+     * Creates the cache and registers its metrics.
+     *
+     * @param maxSize       The maximum number of cached train-days.
+     * @param ttlSeconds    How long the positions of a train-day are served from the cache.
+     * @param meterRegistry The registry for the cache metrics.
+     */
+    public StationPositionCache(@Value("${trains.station-positions.cache.max-size:50000}") long maxSize,
+                                @Value("${trains.station-positions.cache.ttl-seconds:600}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.positions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, positions, "stationPositions");
+    }
+
+    /**
+     * Finds the position of a station in the schedule of a travel date. A station that appears more
+     * than once is found at its first stop.
+     *
+     * @param train      The train, with the schedule of the travel date.
+     * @param travelDate The travel date, in ISO format.
+     * @param station    The name of the station, compared by its canonical name.
+     * @return The index of the station in the schedule, or -1 if the train does not stop there on that date.
+     */
+    public int position(Train train, String travelDate, String station) {
+        List<StationSchedule> schedule = train.scheduleOn(travelDate);
+        if (schedule == null || station == null) {
+            return -1;
+        }
+        String key = StationSchedule.normalize(station);
+        TrainDay trainDay = new TrainDay(train.getPrn(), travelDate);
+        Map<String, Integer> byName = positions.get(trainDay, day -> index(schedule));
+        int position = byName.getOrDefault(key, -1);
+        if (position == -1 || !stopsAt(schedule, position, key)) {
+            // Possibly built from an older schedule of the train, saved meanwhile by another instance, which
+            // may have added the station; misses are rare, since searches only reach trains serving both stations
+            byName = index(schedule);
+            positions.put(trainDay, byName);
+            position = byName.getOrDefault(key, -1);
+        }
+        return position;
+    }
+
+    /**
+     * Drops the positions of every travel date of a train, after it was saved.
+     *
+     * @param prn The PRN of the train.
+     */
+    public void invalidate(String prn) {
+        positions.asMap().keySet().removeIf(trainDay -> trainDay.prn().equals(prn));
+    }
+
+    /**
+     * Maps the canonical name of every station of a schedule to its first position.
+     */
+    private static Map<String, Integer> index(List<StationSchedule> schedule) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int index = 0; index < schedule.size(); index++) {
+            StationSchedule stop = schedule.get(index);
+            if (stop != null && stop.getName() != null) {
+                byName.putIfAbsent(StationSchedule.normalize(stop.getName()), index);
+            }
+        }
+        return byName;
+    }
+
+    /**
+     * Tells whether a schedule has the station at a position.
+     */
+    private static boolean stopsAt(List<StationSchedule> schedule, int position, String key) {
+        if (position >= schedule.size()) {
+            return false;
+        }
+        StationSchedule stop = schedule.get(position);
+        return stop != null && stop.getName() != null && StationSchedule.normalize(stop.getName()).equals(key);
+    }
+
+    /**
+     * A train on a travel date.
+     */
+    private record TrainDay(String prn, String travelDate) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.repository.TrainRepositoryV2;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Identity map of the train-days read while serving one HTTP request, so every train-day is read
+ * from MongoDB at most once per request however many steps of the booking need it.
+ * Background work has no request and always reads from MongoDB.
+ * Every read is counted, and the reads of each request are recorded when the request completes.
+ */
+@Component
+public class TrainReadContext {
+    public static final String TRAINS = "trains";
+    public static final String SEAT_INVENTORY = "seat_inventory";
+    private static final String ATTRIBUTE = TrainReadContext.class.getName();
+
+    private final TrainRepositoryV2 trainRepositoryV2;
+    private final Counter trainReads;
+    private final Counter inventoryReads;
+    private final Counter trainHits;
+    private final DistributionSummary trainReadsPerRequest;
+    private final DistributionSummary inventoryReadsPerRequest;
+
+    /**
+     * Creates the context and registers its metrics.
+     *
+     * @param trainRepositoryV2 The repository the trains are read from.
+     * @param meterRegistry     The registry for the read metrics.
+     */
+    public TrainReadContext(TrainRepositoryV2 trainRepositoryV2, MeterRegistry meterRegistry) {
+        this.trainRepositoryV2 = trainRepositoryV2;
+        this.trainReads = Counter.builder("trains.repository.reads")
+                .description("Documents read from MongoDB on train and booking paths")
+                .tag("collection", TRAINS)
+                .register(meterRegistry);
+        this.inventoryReads = Counter.builder("trains.repository.reads")
+                .description("Documents read from MongoDB on train and booking paths")
+                .tag("collection", SEAT_INVENTORY)
+                .register(meterRegistry);
+        this.trainHits = Counter.builder("trains.context.hits")
+                .description("Train-day reads served from the request context instead of MongoDB")
+                .register(meterRegistry);
+        this.trainReadsPerRequest = DistributionSummary.builder("trains.request.repository.reads")
+                .description("Documents read from MongoDB by one request")
+                .tag("collection", TRAINS)
+                .register(meterRegistry);
+        this.inventoryReadsPerRequest = DistributionSummary.builder("trains.request.repository.reads")
+                .description("Documents read from MongoDB by one request")
+                .tag("collection", SEAT_INVENTORY)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds a train with only the schedule of one travel date, reading it once per request.
+     * Callers must not change the returned train, it is shared by the rest of the request.
+     *
+     * @param prn        The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train, or empty if it does not exist.
+     */
+    public Optional<Train> findTrainDay(String prn, LocalDate travelDate) {
+        RequestReads reads = currentRequest();
+        if (reads == null) {
+            trainReads.increment();
+            return trainRepositoryV2.findTrainDay(prn, travelDate);
+        }
+        String key = TrainSeatInventory.idOf(prn, travelDate);
+        Optional<Train> cached = reads.trains.get(key);
+        if (cached != null) {
+            trainHits.increment();
+            return cached;
+        }
+        Optional<Train> train = trainRepositoryV2.findTrainDay(prn, travelDate);
+        trainReads.increment();
+        reads.trainReads++;
+        reads.trains.put(key, train);
+        return train;
+    }
+
+    /**
+     * Forgets the train-days of a train read by the current request, after the train was saved.
+     *
+     * @param prn The PRN of the train.
+     */
+    public void evict(String prn) {
+        RequestReads reads = currentRequest();
+        if (reads != null) {
+            reads.trains.keySet().removeIf(key -> key.startsWith(prn + "_"));
+        }
+    }
+
+    /**
+     * Counts a seat inventory read against the current request.
+     */
+    public void recordInventoryRead() {
+        inventoryReads.increment();
+        RequestReads reads = currentRequest();
+        if (reads != null) {
+            reads.inventoryReads++;
+        }
+    }
+
+    /**
+     * Returns the reads of the current request, starting them on first use.
+     *
+     * @return The reads, or null outside of a request.
+     */
+    private RequestReads currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        RequestReads reads = (RequestReads) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (reads == null) {
+            RequestReads started = new RequestReads();
+            attributes.setAttribute(ATTRIBUTE, started, RequestAttributes.SCOPE_REQUEST);
+            attributes.registerDestructionCallback(ATTRIBUTE, () -> {
+                trainReadsPerRequest.record(started.trainReads);
+                inventoryReadsPerRequest.record(started.inventoryReads);
+            }, RequestAttributes.SCOPE_REQUEST);
+            reads = started;
+        }
+        return reads;
+    }
+
+    /**
+     * The train-days and read counts of one request.
+     */
+    private static class RequestReads {
+        private final Map<String, Optional<Train>> trains = new HashMap<>();
+        private int trainReads;
+        private int inventoryReads;
+    }
+}
@@ -0,0 +1,156 @@
+package com.yaksh.trainms.train.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of train search results, keyed by the normalized source, destination and travel date.
+ * Entries are bounded in number and expire after a TTL. When a train is added or changed, exactly the
+ * searches between two of its stations (before or after the change) are dropped, so other searches stay cached.
+ * Changes made by another trainms instance are picked up when the entries expire.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics with {@code cache=trainSearch}.
+ */
+@Component
+@Slf4j
+public class TrainSearchCache {
+    private final Cache<SearchKey, List<Train>> results;
+    // Incremented by every invalidation, so a search that ran across one does not store its stale result
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the cache and registers its metrics.
+     *
+     * @param maxSize       The maximum number of cached searches.
+     * @param ttlSeconds    How long a search result is served from the cache.
+     * @param meterRegistry The registry for the cache metrics.
+     */
+    public TrainSearchCache(@Value("${trains.search.cache.max-size:10000}") long maxSize,
+                            @Value("${trains.search.cache.ttl-seconds:60}") long ttlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "trainSearch");
+    }
+
+    /**
+     * Returns the cached trains of a search, running the search on a miss.
+     * The returned trains are shared between requests and must not be changed.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @param search      The search to run on a miss.
+     * @return The trains found.
+     */
+    public List<Train> get(String source, String destination, LocalDate travelDate, Supplier<List<Train>> search) {
+        SearchKey key = new SearchKey(StationSchedule.normalize(source), StationSchedule.normalize(destination), travelDate);
+        List<Train> cached = results.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        List<Train> trains = List.copyOf(search.get());
+        if (generation.get() == seen) {
+            results.put(key, trains);
+        }
+        return trains;
+    }
+
+    /**
+     * Returns the cached trains of a search on several travel dates, running one search for all the
+     * dates that are not cached and caching its result per date.
+     * The returned trains are shared between requests and must not be changed.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDates The travel dates.
+     * @param search      The search to run for the missing dates, returning the trains by date.
+     * @return The trains found by travel date, with an entry for every requested date.
+     */
+    public Map<LocalDate, List<Train>> getAll(String source, String destination, Collection<LocalDate> travelDates,
+                                              Function<Set<LocalDate>, Map<LocalDate, List<Train>>> search) {
+        String from = StationSchedule.normalize(source);
+        String to = StationSchedule.normalize(destination);
+        Map<LocalDate, List<Train>> trains = new TreeMap<>();
+        Set<LocalDate> missing = new TreeSet<>();
+        for (LocalDate travelDate : travelDates) {
+            List<Train> cached = results.getIfPresent(new SearchKey(from, to, travelDate));
+            if (cached != null) {
+                trains.put(travelDate, cached);
+            } else {
+                missing.add(travelDate);
+            }
+        }
+        if (missing.isEmpty()) {
+            return trains;
+        }
+        long seen = generation.get();
+        Map<LocalDate, List<Train>> found = search.apply(missing);
+        for (LocalDate travelDate : missing) {
+            List<Train> dayTrains = List.copyOf(found.getOrDefault(travelDate, List.of()));
+            if (generation.get() == seen) {
+                results.put(new SearchKey(from, to, travelDate), dayTrains);
+            }
+            trains.put(travelDate, dayTrains);
+        }
+        return trains;
+    }
+
+    /**
+     * Drops the cached searches affected by a change of a train: those between two stations the train
+     * served before or serves after the change.
+     *
+     * @param before The train as it was stored, or null if it is new.
+     * @param after  The train as it is saved.
+     */
+    public void invalidate(Train before, Train after) {
+        Set<String> stations = new HashSet<>();
+        collectStations(before, stations);
+        collectStations(after, stations);
+        generation.incrementAndGet();
+        results.asMap().keySet().removeIf(key -> stations.contains(key.source()) && stations.contains(key.destination()));
+        log.debug("Invalidated train searches between the {} stations of train {}", stations.size(), after.getPrn());
+    }
+
+    /**
+     * Adds the normalized names of every station a train stops at, on any date.
+     *
+     * @param train    The train, or null.
+     * @param stations The set to add to.
+     */
+    private static void collectStations(Train train, Set<String> stations) {
+        if (train == null) {
+            return;
+        }
+        train.stationNames().forEach(name -> stations.add(StationSchedule.normalize(name)));
+    }
+
+    /**
+     * The normalized parameters of a search.
+     */
+    private record SearchKey(String source, String destination, LocalDate travelDate) {
+    }
+}
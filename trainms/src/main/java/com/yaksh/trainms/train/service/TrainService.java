@@ -6,7 +6,9 @@ import com.yaksh.trainms.train.model.Train;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface representing the service layer for train-related operations.
@@ -24,6 +26,60 @@ public interface TrainService {
      */
     ResponseDataDTO searchTrains(String source, String destination, LocalDate travelDate);
 
+    /**
+     * Finds the trains that run from the source to the destination on the travel date.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @return The matching trains, shared with other searches and not to be changed.
+     */
+    List<Train> findTrainsBetween(String source, String destination, LocalDate travelDate);
+
+    /**
+     * Finds the trains that run from the source to the destination on each date of a range.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param fromDate    The first date of travel.
+     * @param toDate      The last date of travel.
+     * @return The matching trains by travel date, with an entry for every date, shared with other searches and not to be changed.
+     */
+    Map<LocalDate, List<Train>> findTrainsBetween(String source, String destination, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Finds the trains that run from the source to the destination on the travel date, in batches
+     * ordered by PRN, reading each batch only when it is consumed.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @param cursor      The PRN after which to start, or null to start with the first train.
+     * @param batchSize   The number of candidate trains read per batch.
+     * @return The matching trains, batch by batch; a batch may hold fewer trains than its candidates.
+     */
+    Stream<List<Train>> streamTrainsBetween(String source, String destination, LocalDate travelDate, String cursor, int batchSize);
+
+    /**
+     * Plans journeys between two stations that may change trains.
+     *
+     * @param source       The starting location of the journey.
+     * @param destination  The ending location of the journey.
+     * @param travelDate   The date of travel.
+     * @param maxTransfers The maximum number of train changes.
+     * @return A ResponseDataDTO containing the journeys.
+     */
+    ResponseDataDTO planJourneys(String source, String destination, LocalDate travelDate, int maxTransfers);
+
+    /**
+     * Finds the stations whose name, or a word of it, starts with a prefix, from memory.
+     *
+     * @param prefix The prefix typed so far.
+     * @param limit  The maximum number of stations.
+     * @return A ResponseDataDTO containing the stations, most served first.
+     */
+    ResponseDataDTO findStations(String prefix, int limit);
+
     /**
      * Finds a train by its PRN (Passenger Reservation Number).
      *
@@ -32,6 +88,15 @@ public interface TrainService {
      */
     Train findTrainByPrn(String prn);
 
+    /**
+     * Finds a train by its PRN with only the schedule of one travel date loaded.
+     *
+     * @param prn        The PRN of the train to be searched.
+     * @param travelDate The date of travel.
+     * @return The train, whose schedules hold at most the given date.
+     */
+    Train findTrainDay(String prn, LocalDate travelDate);
+
     /**
      * Adds a new train to the system.
      *
@@ -82,7 +147,7 @@ public interface TrainService {
      * @param source     The starting location of the train.
      * @param destination The ending location of the train.
      * @param travelDate The date of travel.
-     * @return The train object if it can be booked, otherwise null.
+     * @return The train object, with only the schedule of the travel date, if it can be booked.
      */
     Train canBeBooked(String trainPrn, String source, String destination, LocalDate travelDate);
 }
\ No newline at end of file
@@ -1,20 +1,26 @@
 package com.yaksh.trainms.train.service;
 
+import com.yaksh.trainms.seatManagement.store.SeatInventoryStore;
+import com.yaksh.trainms.train.DTO.JourneyDTO;
 import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.DTO.StationDTO;
 import com.yaksh.trainms.train.enums.ResponseStatus;
 import com.yaksh.trainms.train.exceptions.CustomException;
 import com.yaksh.trainms.train.model.StationSchedule;
 import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
 import com.yaksh.trainms.train.repository.TrainRepositoryV2;
 import com.yaksh.trainms.train.util.TrainServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing train-related operations.
@@ -24,7 +30,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TrainServiceImpl implements TrainService {
     private final TrainRepositoryV2 trainRepositoryV2;
+    private final SeatInventoryStore seatInventoryStore;
     private final TrainServiceUtil trainServiceUtil;
+    private final TrainReadContext trainReadContext;
+    private final StationIndex stationIndex;
+    private final TrainSearchCache trainSearchCache;
+    private final JourneyPlanner journeyPlanner;
+    private final StationCatalogue stationCatalogue;
+    private final StationPositionCache stationPositionCache;
+
+    // Largest number of train changes a journey search may ask for
+    @Value("${trains.journey.max-transfers:3}")
+    private int maxJourneyTransfers;
 
     /**
      * Adds a new train to the repository.
@@ -42,7 +59,14 @@ public class TrainServiceImpl implements TrainService {
             }
 
             // Save the new train to the repository
+            validateSeatLayout(newTrain);
+            validateServicePattern(newTrain);
             trainRepositoryV2.save(newTrain);
+            stationIndex.reindex(newTrain);
+            trainSearchCache.invalidate(null, newTrain);
+            journeyPlanner.update(List.of(newTrain));
+            stationCatalogue.update(List.of(newTrain));
+            saveSeatInventories(newTrain);
             log.info("Train added successfully: {}", newTrain.getPrn());
             return new ResponseDataDTO(true, "Train added in the collection", newTrain);
         } catch (Exception e) {
@@ -73,7 +97,14 @@ public class TrainServiceImpl implements TrainService {
                     .collect(Collectors.toList());
 
             // Save the new trains to the repository
+            newTrainsToAdd.forEach(this::validateSeatLayout);
+            newTrainsToAdd.forEach(this::validateServicePattern);
             trainRepositoryV2.saveAll(newTrainsToAdd);
+            newTrainsToAdd.forEach(stationIndex::reindex);
+            newTrainsToAdd.forEach(train -> trainSearchCache.invalidate(null, train));
+            journeyPlanner.update(newTrainsToAdd);
+            stationCatalogue.update(newTrainsToAdd);
+            newTrainsToAdd.forEach(this::saveSeatInventories);
             log.info("Successfully added {} trains", newTrains.size());
             log.info("Successfully skipped trains with PRN {}", existingTrainPrns);
             return new ResponseDataDTO(true, "Trains added in the collection except trains with PRN: " + existingTrainPrns, newTrainsToAdd);
@@ -95,7 +126,18 @@ public class TrainServiceImpl implements TrainService {
         log.info("Attempting to update train: {}", updatedTrain.getPrn());
         try {
             // Save the updated train to the repository
+            validateSeatLayout(updatedTrain);
+            validateServicePattern(updatedTrain);
+            Train storedTrain = trainRepositoryV2.findById(updatedTrain.getPrn()).orElse(null);
             trainRepositoryV2.save(updatedTrain);
+            trainReadContext.evict(updatedTrain.getPrn());
+            stationPositionCache.invalidate(updatedTrain.getPrn());
+            stationIndex.reindex(updatedTrain);
+            // Searches between stations the train served before or serves now may have changed
+            trainSearchCache.invalidate(storedTrain, updatedTrain);
+            journeyPlanner.update(List.of(updatedTrain));
+            stationCatalogue.update(List.of(updatedTrain));
+            saveSeatInventories(updatedTrain);
             log.info("Train updated successfully: {}", updatedTrain.getPrn());
             return new ResponseDataDTO(true, "Train updated in the collection", updatedTrain);
         } catch (Exception e) {
@@ -114,17 +156,13 @@ public class TrainServiceImpl implements TrainService {
      */
     @Override
     public LocalDateTime getArrivalAtSourceTime(Train train, String source, LocalDate travelDate) {
-        ResponseDataDTO isScheduleAvailable = getTrainSchedule(train.getPrn(), travelDate);
-        if (isScheduleAvailable.isStatus()) {
-            // Find the arrival time at the source station from the schedule
-            List<StationSchedule> schedules = (List<StationSchedule>) isScheduleAvailable.getData();
-            return schedules.stream()
-                    .filter(schedule -> schedule.getName().equalsIgnoreCase(source))
-                    .map(StationSchedule::getArrivalTime)
-                    .findFirst()
-                    .orElse(null);
-        }
-        return null;
+        String date = travelDate.toString();
+        // Use the schedule already loaded with the train before reading it again
+        Train withSchedule = train.scheduleOn(date) != null ? train : this.findTrainDay(train.getPrn(), travelDate);
+
+        // Find the arrival time at the source station from its position in the schedule
+        int position = stationPositionCache.position(withSchedule, date, source);
+        return position == -1 ? null : withSchedule.scheduleOn(date).get(position).getArrivalTime();
     }
 
     /**
@@ -136,12 +174,9 @@ public class TrainServiceImpl implements TrainService {
      */
     @Override
     public ResponseDataDTO getTrainSchedule(String trainPrn, LocalDate travelDate) {
-        Train train = trainRepositoryV2.findById(trainPrn).orElse(null);
-        if (train == null) {
-            throw new CustomException("Train does not exist with PRN: " + trainPrn, ResponseStatus.TRAIN_NOT_FOUND);
-
-        }
-        return new ResponseDataDTO(true, String.format("Schedule of train %s fetched successfully", trainPrn), train.getSchedules().get(travelDate.toString()));
+        Train train = this.findTrainDay(trainPrn, travelDate);
+        List<StationSchedule> schedule = train.scheduleOn(travelDate.toString());
+        return new ResponseDataDTO(true, String.format("Schedule of train %s fetched successfully", trainPrn), schedule);
     }
 
     /**
@@ -155,11 +190,7 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public ResponseDataDTO searchTrains(String source, String destination, LocalDate travelDate) {
         log.info("Searching trains from {} to {}", source, destination);
-        // Filter trains that are valid for the given source, destination, and travel date
-        List<Train> trains = trainRepositoryV2.findAll()
-                .stream()
-                .filter(train -> trainServiceUtil.validTrain(source, destination, travelDate, train))
-                .collect(Collectors.toList());
+        List<Train> trains = findTrainsBetween(source, destination, travelDate);
 
         Map<String, Object> result = Map.of(
                 "totalTrains", trains.size(),
@@ -170,6 +201,163 @@ public class TrainServiceImpl implements TrainService {
         return new ResponseDataDTO(true, "Trains fetched", result);
     }
 
+    /**
+     * Finds the trains that run from the source to the destination on the travel date,
+     * through the station index once it is built and the search cache.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @return The matching trains, shared with other searches and not to be changed.
+     */
+    @Override
+    public List<Train> findTrainsBetween(String source, String destination, LocalDate travelDate) {
+        return trainSearchCache.get(source, destination, travelDate, () -> {
+            List<Train> candidates = stationIndex.isReady()
+                    // Only the trains stopping at both stations, with the schedule of the travel date
+                    ? trainRepositoryV2.findTrainDays(stationIndex.trainsBetween(source, destination, travelDate), travelDate)
+                    // The index is still being built, so scan every train
+                    : trainRepositoryV2.findAll();
+
+            // Filter trains that are valid for the given source, destination, and travel date
+            return candidates
+                    .stream()
+                    .filter(train -> trainServiceUtil.validTrain(source, destination, travelDate, train))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Finds the trains that run from the source to the destination on each date of a range. The dates
+     * that are not cached are searched together: one station index read over the range and one read of
+     * the candidate trains with the schedules of those dates, instead of one search per date.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param fromDate    The first travel date.
+     * @param toDate      The last travel date.
+     * @return The matching trains by travel date, with an entry for every date.
+     */
+    @Override
+    public Map<LocalDate, List<Train>> findTrainsBetween(String source, String destination, LocalDate fromDate, LocalDate toDate) {
+        List<LocalDate> travelDates = fromDate.datesUntil(toDate.plusDays(1)).toList();
+        return trainSearchCache.getAll(source, destination, travelDates, missing -> {
+            Map<LocalDate, List<String>> prnsByDate = stationIndex.isReady()
+                    ? stationIndex.trainsBetween(source, destination, Collections.min(missing), Collections.max(missing))
+                    : null;
+            List<Train> candidates = prnsByDate == null
+                    // The index is still being built, so scan every train
+                    ? trainRepositoryV2.findAll()
+                    // Only the trains stopping at both stations on one of the dates, with the schedules of those dates
+                    : trainRepositoryV2.findTrainDays(prnsByDate.values().stream().flatMap(List::stream).collect(Collectors.toSet()), missing);
+
+            // Filter the candidates for every date in a single pass over them
+            Map<LocalDate, List<Train>> trainsByDate = new HashMap<>();
+            for (Train train : candidates) {
+                for (LocalDate travelDate : missing) {
+                    if (trainServiceUtil.validTrain(source, destination, travelDate, train)) {
+                        trainsByDate.computeIfAbsent(travelDate, date -> new ArrayList<>()).add(train);
+                    }
+                }
+            }
+            return trainsByDate;
+        });
+    }
+
+    /**
+     * Finds the trains between two stations in batches ordered by PRN. The PRNs of the candidates come
+     * from the station index, and each batch reads only its own trains, so a caller that stops early
+     * never reads the rest. Until the index is built, the whole search runs and is cut into batches.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @param cursor      The PRN after which to start, or null to start with the first train.
+     * @param batchSize   The number of candidate trains read per batch.
+     * @return The matching trains, batch by batch.
+     */
+    @Override
+    public Stream<List<Train>> streamTrainsBetween(String source, String destination, LocalDate travelDate, String cursor, int batchSize) {
+        boolean fromStart = cursor == null || cursor.isBlank();
+        if (!stationIndex.isReady()) {
+            List<Train> trains = findTrainsBetween(source, destination, travelDate).stream()
+                    .filter(train -> fromStart || train.getPrn().compareTo(cursor) > 0)
+                    .sorted(Comparator.comparing(Train::getPrn))
+                    .toList();
+            return batches(trains, batchSize).stream();
+        }
+        List<String> prns = stationIndex.trainsBetween(source, destination, travelDate).stream()
+                .filter(prn -> fromStart || prn.compareTo(cursor) > 0)
+                .distinct()
+                .sorted()
+                .toList();
+        return batches(prns, batchSize).stream()
+                .map(batch -> trainRepositoryV2.findTrainDays(batch, travelDate).stream()
+                        .filter(train -> trainServiceUtil.validTrain(source, destination, travelDate, train))
+                        .sorted(Comparator.comparing(Train::getPrn))
+                        .toList());
+    }
+
+    /**
+     * Cuts a list into consecutive batches.
+     *
+     * @param items     The list.
+     * @param batchSize The largest number of items per batch.
+     * @param <T>       The item type.
+     * @return The batches, as views of the list.
+     */
+    private static <T> List<List<T>> batches(List<T> items, int batchSize) {
+        int size = Math.max(1, batchSize);
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += size) {
+            batches.add(items.subList(start, Math.min(items.size(), start + size)));
+        }
+        return batches;
+    }
+
+    /**
+     * Plans journeys between two stations that may change trains, returning the earliest arrival for
+     * each number of transfers up to the requested maximum.
+     *
+     * @param source       The source station name.
+     * @param destination  The destination station name.
+     * @param travelDate   The travel date.
+     * @param maxTransfers The maximum number of train changes.
+     * @return ResponseDataDTO containing the journeys.
+     */
+    @Override
+    public ResponseDataDTO planJourneys(String source, String destination, LocalDate travelDate, int maxTransfers) {
+        if (maxTransfers < 0 || maxTransfers > maxJourneyTransfers) {
+            throw new CustomException("Transfers must be between 0 and " + maxJourneyTransfers, ResponseStatus.INVALID_DATA);
+        }
+        if (StationSchedule.normalize(source).equals(StationSchedule.normalize(destination))) {
+            throw new CustomException("Source and destination must be different stations", ResponseStatus.INVALID_DATA);
+        }
+        log.info("Planning journeys from {} to {} on {} with up to {} transfers", source, destination, travelDate, maxTransfers);
+        List<JourneyDTO> journeys = journeyPlanner.plan(source, destination, travelDate, maxTransfers);
+        log.info("Found {} journeys from {} to {}", journeys.size(), source, destination);
+        return new ResponseDataDTO(true, "Journeys fetched", journeys);
+    }
+
+    /**
+     * Finds the stations matching a prefix in the station catalogue, without reading MongoDB.
+     *
+     * @param prefix The prefix typed so far.
+     * @param limit  The maximum number of stations.
+     * @return ResponseDataDTO containing the stations, most served first.
+     */
+    @Override
+    public ResponseDataDTO findStations(String prefix, int limit) {
+        if (limit < 1 || limit > stationCatalogue.maxResults()) {
+            throw new CustomException("Limit must be between 1 and " + stationCatalogue.maxResults(), ResponseStatus.INVALID_DATA);
+        }
+        List<StationDTO> stations = stationCatalogue.complete(prefix, limit).stream()
+                .map(station -> new StationDTO(station.name(), station.trains()))
+                .toList();
+        log.debug("Found {} stations starting with {}", stations.size(), prefix);
+        return new ResponseDataDTO(true, stationCatalogue.isLoaded() ? "Stations fetched" : "Stations fetched, the station catalogue is still loading", stations);
+    }
+
     /**
      * Finds a train by its PRN.
      *
@@ -187,6 +375,22 @@ public class TrainServiceImpl implements TrainService {
         return train;
     }
 
+    /**
+     * Finds a train by its PRN, reading only its metadata, seat layout and the schedule of one travel date.
+     * Within a request the train-day is read once and shared by every later lookup.
+     *
+     * @param prn        The PRN of the train.
+     * @param travelDate The travel date.
+     * @return The train, whose schedules hold at most the given date.
+     */
+    @Override
+    public Train findTrainDay(String prn, LocalDate travelDate) {
+        return trainReadContext.findTrainDay(prn, travelDate).orElseThrow(() -> {
+            log.warn("Train not found: {}", prn);
+            return new CustomException("Train does not exist with PRN: " + prn, ResponseStatus.TRAIN_NOT_FOUND);
+        });
+    }
+
     /**
      * Checks if a train can be booked for a given source, destination, and travel date.
      *
@@ -199,8 +403,8 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public Train canBeBooked(String trainPrn, String source, String destination, LocalDate travelDate) {
         log.info("Checking if train can be booked: {}", trainPrn);
-        // Retrieve the train by PRN
-        Train train = this.findTrainByPrn(trainPrn);
+        // Retrieve the train by PRN with only the schedule of the travel date
+        Train train = this.findTrainDay(trainPrn, travelDate);
 
         // Train not found
         if (train == null) {
@@ -218,4 +422,63 @@ public class TrainServiceImpl implements TrainService {
         return train;
     }
 
-}
\ No newline at end of file
+    /**
+     * Checks the seat layout template of a train before it is saved.
+     *
+     * @param train The train to check.
+     */
+    private void validateSeatLayout(Train train) {
+        if (train.getSeatLayout() != null && !train.getSeatLayout().isValid()) {
+            throw new CustomException("Seat layout of train " + train.getPrn() + " must have at least one coach and one seat per coach",
+                    ResponseStatus.INVALID_DATA);
+        }
+    }
+
+    /**
+     * Checks the service pattern of a train before it is saved.
+     *
+     * @param train The train to check.
+     */
+    private void validateServicePattern(Train train) {
+        if (train.getServicePattern() != null && !train.getServicePattern().isValid()) {
+            throw new CustomException("Service pattern of train " + train.getPrn()
+                    + " must have at least two named stops in time order and a calendar with a start and end date",
+                    ResponseStatus.INVALID_DATA);
+        }
+    }
+
+    /**
+     * Saves the seat maps sent with a train as one TrainSeatInventory per new travel date.
+     * Dates that already have an inventory keep it, since it holds the bookings, holds and change log
+     * of the live train-day; a sent seat map never replaces it. New dates whose seat map is an untouched
+     * copy of the train's seat layout template are skipped, they are built from the template when booked.
+     *
+     * @param train The train whose seat maps are saved.
+     */
+    private void saveSeatInventories(Train train) {
+        if (train.getSeats() == null || train.getSeats().isEmpty()) {
+            return;
+        }
+        Map<String, TrainSeatInventory> inventories = new HashMap<>();
+        train.getSeats().forEach((date, seats) -> {
+            // Track occupancy per leg of the day's route so partial journeys can share a seat
+            List<StationSchedule> schedule = train.scheduleOn(date);
+            if (schedule != null && schedule.size() > 2 && seats.getLegs() == 1) {
+                seats = seats.withLegs(schedule.size() - 1);
+            }
+            TrainSeatInventory inventory = TrainSeatInventory.of(train.getPrn(), LocalDate.parse(date), seats);
+            inventories.put(inventory.getId(), inventory);
+        });
+
+        // Untouched copies of the template are left to be built from it when booked
+        if (train.getSeatLayout() != null) {
+            inventories.values().removeIf(inventory -> train.getSeatLayout().isUntouched(inventory.getSeats()));
+        }
+        // Only the dates without an inventory are stored, the stored ones are live and never replaced
+        int inserted = inventories.isEmpty() ? 0 : seatInventoryStore.create(inventories.values());
+        if (inserted < inventories.size()) {
+            log.info("Kept the stored seat inventory of train {} for {} dates", train.getPrn(), inventories.size() - inserted);
+        }
+        log.info("Saved seat inventory of train {} for {} new dates", train.getPrn(), inserted);
+    }
+}
@@ -0,0 +1,48 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.DTO.TrainSummaryDTO;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Interface representing the service layer for train search results that are sent as summaries.
+ * Provides paginated and streamed searches that never return whole trains.
+ */
+public interface TrainSummaryService {
+
+    /**
+     * Searches for trains and returns one page of summaries, ordered by PRN.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @param cursor      The cursor returned with the previous page, or null for the first page.
+     * @param limit       The maximum number of trains on the page.
+     * @return A ResponseDataDTO containing the page of summaries.
+     */
+    ResponseDataDTO searchTrainSummaries(String source, String destination, LocalDate travelDate, String cursor, int limit);
+
+    /**
+     * Searches for trains and summarizes them one by one as the stream is consumed, ordered by PRN.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param travelDate  The date of travel.
+     * @param cursor      The PRN after which to start, or null to start with the first train.
+     * @return The summaries of the matching trains.
+     */
+    Stream<TrainSummaryDTO> streamTrainSummaries(String source, String destination, LocalDate travelDate, String cursor);
+
+    /**
+     * Searches for trains on every date of a range and returns the summaries of each date.
+     *
+     * @param source      The starting location of the train.
+     * @param destination The ending location of the train.
+     * @param fromDate    The first date of travel.
+     * @param toDate      The last date of travel.
+     * @return A ResponseDataDTO containing the trains of each date, in date order.
+     */
+    ResponseDataDTO searchTrainSummaries(String source, String destination, LocalDate fromDate, LocalDate toDate);
+}
@@ -0,0 +1,257 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.seatManagement.service.SeatManagementService;
+import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.DTO.TrainSearchPageDTO;
+import com.yaksh.trainms.train.DTO.TrainSummaryDTO;
+import com.yaksh.trainms.train.DTO.TrainsOnDateDTO;
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the TrainSummaryService interface.
+ * Trains are read in batches ordered by PRN, taken from the station index, and the seats of a batch are
+ * counted with one inventory read. A page reads about as many trains as it shows, and a streamed search
+ * holds one batch at a time.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TrainSummaryServiceImpl implements TrainSummaryService {
+    private final TrainService trainService;
+    private final SeatManagementService seatManagementService;
+    private final StationPositionCache stationPositionCache;
+
+    private ExecutorService rangeWorkers;
+
+    // Largest number of trains a client may request on one page
+    @Value("${trains.search.page.max-size:100}")
+    private int maxPageSize;
+
+    // Number of trains read and summarized together by a streamed search
+    @Value("${trains.search.stream.batch-size:50}")
+    private int streamBatchSize;
+
+    // Largest number of travel dates one date-range search may cover
+    @Value("${trains.search.range.max-days:14}")
+    private int maxRangeDays;
+
+    // Number of train-days from which the summaries of a date-range search are built in parallel
+    @Value("${trains.search.range.parallel-threshold:32}")
+    private int parallelThreshold;
+
+    // Number of travel dates of a date-range search summarized in parallel
+    @Value("${trains.search.range.workers:4}")
+    private int rangeThreads;
+
+    /**
+     * Starts the pool that summarizes the dates of large date-range searches.
+     */
+    @PostConstruct
+    public void start() {
+        rangeWorkers = Executors.newFixedThreadPool(rangeThreads, new CustomizableThreadFactory("train-search-"));
+    }
+
+    /**
+     * Stops the pool, letting running searches finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        rangeWorkers.shutdown();
+        rangeWorkers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Searches for trains and returns one page of summaries, ordered by PRN. The cursor is the PRN of
+     * the last train on the previous page, so pages stay consistent while trains are added.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @param cursor      The cursor returned with the previous page, or null for the first page.
+     * @param limit       The maximum number of trains on the page.
+     * @return ResponseDataDTO containing the page of summaries.
+     */
+    @Override
+    public ResponseDataDTO searchTrainSummaries(String source, String destination, LocalDate travelDate, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new CustomException("Page size must be between 1 and " + maxPageSize, ResponseStatus.INVALID_DATA);
+        }
+        // Read one train past the page to know whether another page follows
+        List<Train> trains = trainService.streamTrainsBetween(source, destination, travelDate, cursor, limit + 1)
+                .flatMap(List::stream)
+                .limit(limit + 1L)
+                .toList();
+        List<TrainSummaryDTO> summaries = summarize(trains.subList(0, Math.min(limit, trains.size())), source, destination, travelDate);
+        // The page ends after its last train, even if that train was left out of the summaries
+        String nextCursor = trains.size() > limit ? trains.get(limit - 1).getPrn() : null;
+
+        log.info("Found {} trains from {} to {} after cursor {}", summaries.size(), source, destination, cursor);
+        return new ResponseDataDTO(true, "Trains fetched", new TrainSearchPageDTO(summaries, nextCursor));
+    }
+
+    /**
+     * Searches for trains and summarizes them lazily, one batch at a time, so the first summaries can be
+     * written before the next batch of trains is read.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @param cursor      The PRN after which to start, or null to start with the first train.
+     * @return The summaries of the matching trains.
+     */
+    @Override
+    public Stream<TrainSummaryDTO> streamTrainSummaries(String source, String destination, LocalDate travelDate, String cursor) {
+        return trainService.streamTrainsBetween(source, destination, travelDate, cursor, streamBatchSize)
+                .flatMap(trains -> summarize(trains, source, destination, travelDate).stream());
+    }
+
+    /**
+     * Searches for trains on every date of a range. The trains of all dates are found together, then
+     * each date's summaries and free seats are built, on the search pool when the range has many train-days.
+     *
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param fromDate    The first travel date.
+     * @param toDate      The last travel date.
+     * @return ResponseDataDTO containing the trains of each date.
+     */
+    @Override
+    public ResponseDataDTO searchTrainSummaries(String source, String destination, LocalDate fromDate, LocalDate toDate) {
+        if (toDate.isBefore(fromDate) || ChronoUnit.DAYS.between(fromDate, toDate) >= maxRangeDays) {
+            throw new CustomException("Date range must start before it ends and cover at most " + maxRangeDays + " days",
+                    ResponseStatus.INVALID_DATA);
+        }
+        Map<LocalDate, List<Train>> trainsByDate = trainService.findTrainsBetween(source, destination, fromDate, toDate);
+        int trainDays = trainsByDate.values().stream().mapToInt(List::size).sum();
+
+        List<TrainsOnDateDTO> dates;
+        if (trainDays < parallelThreshold || trainsByDate.size() < 2) {
+            dates = trainsByDate.entrySet().stream()
+                    .map(entry -> summarizeDate(entry.getValue(), source, destination, entry.getKey()))
+                    .toList();
+        } else {
+            List<CompletableFuture<TrainsOnDateDTO>> futures = trainsByDate.entrySet().stream()
+                    .map(entry -> CompletableFuture.supplyAsync(
+                            () -> summarizeDate(entry.getValue(), source, destination, entry.getKey()), rangeWorkers))
+                    .toList();
+            dates = futures.stream().map(CompletableFuture::join).toList();
+        }
+
+        log.info("Found {} train-days from {} to {} between {} and {}", trainDays, source, destination, fromDate, toDate);
+        return new ResponseDataDTO(true, "Trains fetched", dates);
+    }
+
+    /**
+     * Builds the summaries of the trains found on one date.
+     *
+     * @param trains      The trains found on the date.
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @return The summaries of the date, ordered by PRN.
+     */
+    private TrainsOnDateDTO summarizeDate(List<Train> trains, String source, String destination, LocalDate travelDate) {
+        List<Train> ordered = trains.stream().sorted(Comparator.comparing(Train::getPrn)).toList();
+        List<TrainSummaryDTO> summaries = summarize(ordered, source, destination, travelDate);
+        return new TrainsOnDateDTO(travelDate, summaries.size(), summaries);
+    }
+
+    /**
+     * Builds the summaries of trains between two stations, counting their free seats with one
+     * inventory read. A train whose seats cannot be counted is still listed, without a free-seat count;
+     * a train whose schedule does not have both stations is left out.
+     *
+     * @param trains      The trains, with the schedule of the travel date.
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @return The summaries, in the order of the trains.
+     */
+    private List<TrainSummaryDTO> summarize(List<Train> trains, String source, String destination, LocalDate travelDate) {
+        if (trains.isEmpty()) {
+            return List.of();
+        }
+        Map<String, SeatAvailabilityDTO> availability = countFreeSeats(trains, source, destination, travelDate);
+        return trains.stream()
+                .map(train -> summarize(train, source, destination, travelDate, availability.get(train.getPrn())))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Counts the free seats of trains between two stations, without failing the search if they cannot be counted.
+     *
+     * @param trains      The trains, with the schedule of the travel date.
+     * @param source      The source station name.
+     * @param destination The destination station name.
+     * @param travelDate  The travel date.
+     * @return The free seats by PRN, without the trains whose seats could not be counted.
+     */
+    private Map<String, SeatAvailabilityDTO> countFreeSeats(List<Train> trains, String source, String destination, LocalDate travelDate) {
+        try {
+            return seatManagementService.getAvailability(trains, travelDate, source, destination);
+        } catch (RuntimeException e) {
+            log.warn("Failed to count free seats of {} trains on {}: {}", trains.size(), travelDate, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Builds the summary of a train between two stations.
+     *
+     * @param train        The train, with the schedule of the travel date.
+     * @param source       The source station name.
+     * @param destination  The destination station name.
+     * @param travelDate   The travel date.
+     * @param availability The free seats of the train, or null if they could not be counted.
+     * @return The summary of the train, or null if its schedule of the date does not have both stations,
+     * for example when the station index is stale or a stop was renamed.
+     */
+    private TrainSummaryDTO summarize(Train train, String source, String destination, LocalDate travelDate,
+                                      SeatAvailabilityDTO availability) {
+        String date = travelDate.toString();
+        List<StationSchedule> schedule = train.scheduleOn(date);
+        int fromPosition = stationPositionCache.position(train, date, source);
+        int toPosition = stationPositionCache.position(train, date, destination);
+        if (fromPosition < 0 || toPosition < 0) {
+            log.warn("Left train {} out of the search on {}, its schedule does not stop at {} and {}", train.getPrn(), date, source, destination);
+            return null;
+        }
+        StationSchedule from = schedule.get(fromPosition);
+        StationSchedule to = schedule.get(toPosition);
+
+        return TrainSummaryDTO.builder()
+                .prn(train.getPrn())
+                .trainName(train.getTrainName())
+                .travelDate(travelDate)
+                .source(from.getName())
+                .destination(to.getName())
+                .departureTime(from.getArrivalTime())
+                .arrivalTime(to.getArrivalTime())
+                .freeSeats(availability == null ? null : availability.getFreeSeats())
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.yaksh.trainms.train.util;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Segment tree over a seat vector that indexes runs of free seats.
+ * Every node keeps the number of free seats below it, the free run touching its left and right edge,
+ * and the longest free run inside it, so the first run of at least N free seats is found in O(log n)
+ * and the first N free seats in O(N log n). Booking or freeing a seat updates one root-to-leaf path.
+ */
+public final class FreeRunIndex {
+
+    /**
+     * The number of leaves, rounded up to a power of two. Padding leaves count as booked.
+     */
+    private final int size;
+
+    /**
+     * The number of real seats.
+     */
+    private final int capacity;
+
+    private final int[] free;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] best;
+
+    /**
+     * Builds the index in O(n) from the current seat state.
+     *
+     * @param capacity The number of seats.
+     * @param isBooked Tells whether the seat at a flat index is booked.
+     */
+    public FreeRunIndex(int capacity, IntPredicate isBooked) {
+        this.capacity = capacity;
+        this.size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.free = new int[2 * size];
+        this.prefix = new int[2 * size];
+        this.suffix = new int[2 * size];
+        this.best = new int[2 * size];
+
+        for (int index = 0; index < capacity; index++) {
+            setLeaf(size + index, !isBooked.test(index));
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            pull(node);
+        }
+    }
+
+    /**
+     * Copies another index without rebuilding it.
+     *
+     * @param other The index to copy.
+     */
+    private FreeRunIndex(FreeRunIndex other) {
+        this.capacity = other.capacity;
+        this.size = other.size;
+        this.free = other.free.clone();
+        this.prefix = other.prefix.clone();
+        this.suffix = other.suffix.clone();
+        this.best = other.best.clone();
+    }
+
+    /**
+     * Returns a copy that can be updated independently, in O(n) array copies.
+     *
+     * @return A copy of this index.
+     */
+    public FreeRunIndex copy() {
+        return new FreeRunIndex(this);
+    }
+
+    /**
+     * Marks a seat as booked or free and refreshes its ancestors.
+     *
+     * @param index  The flat seat index.
+     * @param booked true if the seat is now booked.
+     */
+    public void update(int index, boolean booked) {
+        int node = size + index;
+        setLeaf(node, !booked);
+        for (node >>= 1; node >= 1; node >>= 1) {
+            pull(node);
+        }
+    }
+
+    /**
+     * Returns the total number of free seats.
+     *
+     * @return The number of free seats.
+     */
+    public int freeCount() {
+        return free[1];
+    }
+
+    /**
+     * Returns the length of the longest run of free seats.
+     *
+     * @return The longest free run.
+     */
+    public int longestFreeRun() {
+        return best[1];
+    }
+
+    /**
+     * Finds the first run of at least the given number of consecutive free seats.
+     *
+     * @param length The required run length.
+     * @return The flat index where the run starts, or -1 if there is no such run.
+     */
+    public int firstFreeRun(int length) {
+        if (length <= 0 || best[1] < length) {
+            return -1;
+        }
+        int node = 1;
+        int start = 0;
+        int nodeLength = size;
+        while (node < size) {
+            int half = nodeLength >> 1;
+            int left = node << 1;
+            int right = left + 1;
+            if (best[left] >= length) {
+                node = left;
+            } else if (suffix[left] + prefix[right] >= length) {
+                // The run straddles the middle of this node
+                return start + half - suffix[left];
+            } else {
+                node = right;
+                start += half;
+            }
+            nodeLength = half;
+        }
+        return start;
+    }
+
+    /**
+     * Finds the first free seats in index order.
+     *
+     * @param count The number of seats requested.
+     * @return The flat indexes of the free seats, or null if fewer seats are free.
+     */
+    public int[] firstFreeSeats(int count) {
+        if (count <= 0 || free[1] < count) {
+            return null;
+        }
+        int[] seats = new int[count];
+        collect(1, 0, size, seats, 0);
+        return seats;
+    }
+
+    /**
+     * Collects free leaves below a node, skipping subtrees without free seats.
+     *
+     * @return The number of seats collected so far.
+     */
+    private int collect(int node, int start, int nodeLength, int[] seats, int found) {
+        if (found == seats.length || free[node] == 0) {
+            return found;
+        }
+        if (node >= size) {
+            seats[found] = start;
+            return found + 1;
+        }
+        int half = nodeLength >> 1;
+        found = collect(node << 1, start, half, seats, found);
+        return collect((node << 1) + 1, start + half, half, seats, found);
+    }
+
+    private void setLeaf(int node, boolean isFree) {
+        int value = isFree && node - size < capacity ? 1 : 0;
+        free[node] = value;
+        prefix[node] = value;
+        suffix[node] = value;
+        best[node] = value;
+    }
+
+    private void pull(int node) {
+        int half = size >> (32 - Integer.numberOfLeadingZeros(node));
+        int left = node << 1;
+        int right = left + 1;
+        free[node] = free[left] + free[right];
+        prefix[node] = prefix[left] == half ? half + prefix[right] : prefix[left];
+        suffix[node] = suffix[right] == half ? half + suffix[left] : suffix[right];
+        best[node] = Math.max(Math.max(best[left], best[right]), suffix[left] + prefix[right]);
+    }
+}
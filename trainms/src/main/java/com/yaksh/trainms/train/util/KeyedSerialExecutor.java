@@ -0,0 +1,103 @@
+package com.yaksh.trainms.train.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a thread pool so that tasks of one key never run in parallel. A task submitted while
+ * one of its key is queued or running is not queued again: the running task runs once more after it
+ * finishes, so any number of submissions during a run are folded into a single follow-up run. Meant for
+ * tasks that work through whatever is pending for their key, such as the waitlist of a train-day.
+ * A key is only tracked while its task is queued or running, so keys of past train-days are not kept.
+ */
+@Slf4j
+public class KeyedSerialExecutor {
+    private final String name;
+    private final ExecutorService workers;
+    private final Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the thread pool.
+     *
+     * @param name    The name of the tasks, used for the thread names and the logs.
+     * @param threads The number of keys run in parallel.
+     */
+    public KeyedSerialExecutor(String name, int threads) {
+        this.name = name;
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory(name + "-"));
+    }
+
+    /**
+     * Schedules a run of a key's task, unless one is already queued or running.
+     *
+     * @param key  The key the task works on.
+     * @param task The task to run.
+     * @return false if the pool is shut down and the task was not scheduled.
+     */
+    public boolean submit(String key, Runnable task) {
+        // Counted inside the map, so the request is either seen by the finishing run or starts a new one
+        AtomicInteger requests = pending.compute(key, (k, current) -> {
+            if (current == null) {
+                return new AtomicInteger(1);
+            }
+            current.incrementAndGet();
+            return current;
+        });
+        if (requests.get() > 1) {
+            // A run is queued or running and will run again for this request
+            return true;
+        }
+        try {
+            workers.execute(() -> run(key, requests, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(key, requests);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the thread pool, letting running tasks finish.
+     *
+     * @param timeoutSeconds How long to wait for the running tasks.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void shutdown(long timeoutSeconds) throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs the task until no new request arrived during the last run, then stops tracking the key.
+     */
+    private void run(String key, AtomicInteger requests, Runnable task) {
+        int seen;
+        do {
+            seen = requests.get();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Run of {} for {} failed: {}", name, key, e.getMessage());
+            }
+        } while (!finish(key, seen));
+    }
+
+    /**
+     * Removes the key if no request arrived since a run started, atomically with {@link #submit}.
+     *
+     * @param key  The key of the run.
+     * @param seen The number of requests when the run started.
+     * @return true if the key was removed, false if the task must run again.
+     */
+    private boolean finish(String key, int seen) {
+        return pending.computeIfPresent(key, (k, current) -> current.get() == seen ? null : current) == null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.yaksh.trainms.train.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.yaksh.trainms.train.model.SeatInventory;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Compact JSON and BSON encodings of {@link SeatInventory}.
+ * Both encodings store the coach dimensions and leg count plus the seat bits of every leg packed into
+ * {@code ceil(capacity / 8)} little-endian bytes, base64 encoded in JSON and as binary in BSON.
+ * A missing leg count means a single-leg inventory.
+ */
+public final class SeatInventoryCodec {
+
+    public static final String COACHES = "coaches";
+    public static final String SEATS_PER_COACH = "seatsPerCoach";
+    public static final String LEGS = "legs";
+    public static final String BITS = "bits";
+    public static final String FREE_SEATS = "freeSeats";
+    public static final String FREE_SEATS_PER_COACH = "freeSeatsPerCoach";
+
+    private SeatInventoryCodec() {
+    }
+
+    /**
+     * Packs the seat bits of an inventory into a byte array.
+     *
+     * @param inventory The inventory to encode.
+     * @return The packed seat bits.
+     */
+    public static byte[] toBytes(SeatInventory inventory) {
+        return toBytes(inventory.toWords(), inventory.capacity(), inventory.getLegs());
+    }
+
+    /**
+     * Packs bitsets of the given number of seats into a byte array, {@code ceil(seats / 8)} bytes per bitset.
+     *
+     * @param words   The bitsets, one after another.
+     * @param seats   The number of seats in each bitset.
+     * @param bitsets The number of bitsets.
+     * @return The packed seat bits.
+     */
+    public static byte[] toBytes(long[] words, int seats, int bitsets) {
+        int bytesPerLeg = (seats + 7) >>> 3;
+        int wordsPerLeg = SeatInventory.wordCount(seats);
+        byte[] bytes = new byte[bitsets * bytesPerLeg];
+        for (int leg = 0; leg < bitsets; leg++) {
+            for (int i = 0; i < bytesPerLeg; i++) {
+                bytes[leg * bytesPerLeg + i] = (byte) (words[leg * wordsPerLeg + (i >>> 3)] >>> ((i & 7) << 3));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Rebuilds an inventory from its dimensions and packed seat bits.
+     *
+     * @param coaches       The number of coaches.
+     * @param seatsPerCoach The number of seats in each coach.
+     * @param legs          The number of legs.
+     * @param bytes         The packed seat bits, leg by leg.
+     * @return The decoded inventory.
+     */
+    public static SeatInventory fromBytes(int coaches, int seatsPerCoach, int legs, byte[] bytes) {
+        int bytesPerLeg = (coaches * seatsPerCoach + 7) >>> 3;
+        int wordsPerLeg = SeatInventory.wordCount(coaches * seatsPerCoach);
+        if (legs <= 0 || bytes.length != legs * bytesPerLeg) {
+            throw new IllegalArgumentException("Seat bits do not match the coach dimensions and leg count");
+        }
+        long[] words = new long[legs * wordsPerLeg];
+        for (int leg = 0; leg < legs; leg++) {
+            for (int i = 0; i < bytesPerLeg; i++) {
+                words[leg * wordsPerLeg + (i >>> 3)] |= (bytes[leg * bytesPerLeg + i] & 0xFFL) << ((i & 7) << 3);
+            }
+        }
+        return new SeatInventory(coaches, seatsPerCoach, legs, words);
+    }
+
+    /**
+     * Writes an inventory as {"coaches": n, "seatsPerCoach": n, "legs": n, "bits": "base64"}.
+     */
+    public static class JsonEncoder extends JsonSerializer<SeatInventory> {
+        @Override
+        public void serialize(SeatInventory inventory, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField(COACHES, inventory.getCoaches());
+            gen.writeNumberField(SEATS_PER_COACH, inventory.getSeatsPerCoach());
+            gen.writeNumberField(LEGS, inventory.getLegs());
+            gen.writeStringField(BITS, Base64.getEncoder().encodeToString(toBytes(inventory)));
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads an inventory from the compact object form, or from the legacy
+     * seat matrix so existing addTrain/updateTrain payloads keep working.
+     */
+    public static class JsonDecoder extends JsonDeserializer<SeatInventory> {
+        @Override
+        public SeatInventory deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                if (parser.currentToken() == JsonToken.START_ARRAY) {
+                    List<List<Integer>> matrix = parser.readValueAs(new TypeReference<List<List<Integer>>>() {});
+                    return SeatInventory.fromMatrix(matrix);
+                }
+                JsonNode node = parser.readValueAsTree();
+                return fromBytes(
+                        node.path(COACHES).asInt(),
+                        node.path(SEATS_PER_COACH).asInt(),
+                        node.path(LEGS).asInt(1),
+                        Base64.getDecoder().decode(node.path(BITS).asText()));
+            } catch (IllegalArgumentException e) {
+                throw JsonMappingException.from(parser, "Invalid seat inventory: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Stores an inventory in MongoDB as {coaches, seatsPerCoach, legs, bits: BinData, freeSeats, freeSeatsPerCoach}.
+     * The free-seat counters are only written so availability can be read without the seat bits;
+     * they are recomputed when the inventory is loaded.
+     */
+    @WritingConverter
+    public static class BsonWriter implements Converter<SeatInventory, Document> {
+        @Override
+        public Document convert(SeatInventory inventory) {
+            return new Document(COACHES, inventory.getCoaches())
+                    .append(SEATS_PER_COACH, inventory.getSeatsPerCoach())
+                    .append(LEGS, inventory.getLegs())
+                    .append(BITS, new Binary(toBytes(inventory)))
+                    .append(FREE_SEATS, inventory.freeCount())
+                    .append(FREE_SEATS_PER_COACH, Arrays.stream(inventory.freeCountPerCoach()).boxed().toList());
+        }
+    }
+
+    /**
+     * Reads an inventory stored by {@link BsonWriter}.
+     */
+    @ReadingConverter
+    public static class BsonReader implements Converter<Document, SeatInventory> {
+        @Override
+        public SeatInventory convert(Document document) {
+            return fromBytes(
+                    document.getInteger(COACHES),
+                    document.getInteger(SEATS_PER_COACH),
+                    document.getInteger(LEGS, 1),
+                    document.get(BITS, Binary.class).getData());
+        }
+    }
+
+    /**
+     * Reads a seat map that was stored as the legacy matrix of 0/1 values,
+     * so trains saved before the packed format can still be loaded.
+     */
+    @ReadingConverter
+    public static class LegacyMatrixReader implements Converter<List<?>, SeatInventory> {
+        @Override
+        public SeatInventory convert(List<?> source) {
+            List<List<Integer>> matrix = new ArrayList<>(source.size());
+            for (Object coach : source) {
+                List<Integer> row = new ArrayList<>();
+                for (Object seat : (List<?>) coach) {
+                    row.add(((Number) seat).intValue());
+                }
+                matrix.add(row);
+            }
+            return SeatInventory.fromMatrix(matrix);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.yaksh.trainms.train.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable prefix index of station names for autocomplete, flattened into arrays after it is built.
+ * Every station is reachable by its canonical name and by each word of it, so "cent" finds
+ * "Mumbai Central". Each node keeps the best {@code maxResults} stations below it, ranked by the
+ * number of trains serving them, so a lookup walks one node per prefix character and copies the
+ * precomputed results: its cost does not depend on how many stations match.
+ */
+public final class StationTrie {
+    private final Station[] stations;
+    private final int maxResults;
+
+    // Children of node n are childNodes[childOffset[n] .. childOffset[n + 1]], sorted by childChars
+    private final int[] childOffset;
+    private final char[] childChars;
+    private final int[] childNodes;
+
+    // Best stations below node n are stations[topStations[topOffset[n] .. topOffset[n + 1]]], best first
+    private final int[] topOffset;
+    private final int[] topStations;
+
+    /**
+     * Builds the index.
+     *
+     * @param stations   The stations, each with a distinct canonical key.
+     * @param maxResults The maximum number of stations a lookup can return.
+     */
+    public StationTrie(Collection<Station> stations, int maxResults) {
+        this.maxResults = Math.max(1, maxResults);
+        // Station ids follow the ranking, so inserting them in order fills every node with its best stations
+        this.stations = stations.stream()
+                .sorted(Comparator.comparingInt(Station::trains).reversed().thenComparing(Station::key))
+                .toArray(Station[]::new);
+
+        Builder builder = new Builder(this.maxResults);
+        for (int id = 0; id < this.stations.length; id++) {
+            String key = this.stations[id].key();
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || key.charAt(start - 1) == ' ') {
+                    builder.insert(key, start, id);
+                }
+            }
+        }
+
+        // Number the nodes breadth first, so the children of a node are numbered consecutively
+        int nodeCount = builder.nodeCount;
+        childOffset = new int[nodeCount + 1];
+        childChars = new char[nodeCount - 1];
+        childNodes = new int[nodeCount - 1];
+        topOffset = new int[nodeCount + 1];
+        int topCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            topCount += builder.topSize[node];
+        }
+        topStations = new int[topCount];
+        int[] queue = new int[nodeCount];
+        int edge = 0;
+        int next = 1;
+        topCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int current = queue[node];
+            childOffset[node] = edge;
+            topOffset[node] = topCount;
+            System.arraycopy(builder.top[current], 0, topStations, topCount, builder.topSize[current]);
+            topCount += builder.topSize[current];
+            for (int child = builder.firstChild[current]; child != 0; child = builder.nextSibling[child]) {
+                childChars[edge] = builder.label[child];
+                childNodes[edge++] = next;
+                queue[next++] = child;
+            }
+        }
+        childOffset[nodeCount] = edge;
+        topOffset[nodeCount] = topCount;
+    }
+
+    /**
+     * Finds the best stations with a name or a word of it starting with a prefix.
+     *
+     * @param prefix The canonical prefix; an empty prefix matches every station.
+     * @param limit  The maximum number of stations, capped at the index's maximum.
+     * @return The matching stations, most served first.
+     */
+    public List<Station> complete(String prefix, int limit) {
+        int node = 0;
+        for (int index = 0; index < prefix.length(); index++) {
+            int edge = Arrays.binarySearch(childChars, childOffset[node], childOffset[node + 1], prefix.charAt(index));
+            if (edge < 0) {
+                return List.of();
+            }
+            node = childNodes[edge];
+        }
+        int count = Math.min(Math.min(limit, maxResults), topOffset[node + 1] - topOffset[node]);
+        List<Station> matches = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            matches.add(stations[topStations[topOffset[node] + index]]);
+        }
+        return matches;
+    }
+
+    /**
+     * Gives the number of stations in the index.
+     *
+     * @return The number of stations.
+     */
+    public int size() {
+        return stations.length;
+    }
+
+    /**
+     * A station of the catalogue.
+     *
+     * @param key    The canonical name, see {@link com.yaksh.trainms.train.model.StationSchedule#normalize(String)}.
+     * @param name   The name to display, as most trains spell it.
+     * @param trains The number of trains stopping at the station.
+     */
+    public record Station(String key, String name, int trains) {
+    }
+
+    /**
+     * The nodes of the index while it is built, as growable arrays; node 0 is the root and children
+     * are linked in character order.
+     */
+    private static final class Builder {
+        private final int maxResults;
+        private int nodeCount = 1;
+        private int[] firstChild = new int[1024];
+        private int[] nextSibling = new int[1024];
+        private char[] label = new char[1024];
+        private int[][] top = new int[1024][];
+        private int[] topSize = new int[1024];
+
+        /**
+         * Creates a builder with only the root.
+         *
+         * @param maxResults The maximum number of stations kept per node.
+         */
+        private Builder(int maxResults) {
+            this.maxResults = maxResults;
+            top[0] = new int[maxResults];
+        }
+
+        /**
+         * Adds the path of a key from a start position and offers the station to every node on it.
+         *
+         * @param key   The canonical name.
+         * @param start The position of the word the path starts with.
+         * @param id    The station id.
+         */
+        private void insert(String key, int start, int id) {
+            int node = 0;
+            offer(node, id);
+            for (int index = start; index < key.length(); index++) {
+                node = child(node, key.charAt(index));
+                offer(node, id);
+            }
+        }
+
+        /**
+         * Finds the child of a node for a character, adding it if missing.
+         *
+         * @param parent The parent node.
+         * @param c      The character.
+         * @return The child node.
+         */
+        private int child(int parent, char c) {
+            int previous = 0;
+            int child = firstChild[parent];
+            while (child != 0 && label[child] < c) {
+                previous = child;
+                child = nextSibling[child];
+            }
+            if (child != 0 && label[child] == c) {
+                return child;
+            }
+            if (nodeCount == label.length) {
+                int capacity = nodeCount * 2;
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                label = Arrays.copyOf(label, capacity);
+                top = Arrays.copyOf(top, capacity);
+                topSize = Arrays.copyOf(topSize, capacity);
+            }
+            int added = nodeCount++;
+            label[added] = c;
+            nextSibling[added] = child;
+            if (previous == 0) {
+                firstChild[parent] = added;
+            } else {
+                nextSibling[previous] = added;
+            }
+            return added;
+        }
+
+        /**
+         * Keeps a station among the best ones below a node. Stations are offered best first,
+         * and a station reached again through another word of its name is kept once.
+         *
+         * @param node The node.
+         * @param id   The station id.
+         */
+        private void offer(int node, int id) {
+            int size = topSize[node];
+            if (size == maxResults || (size > 0 && top[node][size - 1] == id)) {
+                return;
+            }
+            if (top[node] == null || top[node].length == size) {
+                top[node] = Arrays.copyOf(top[node] == null ? new int[0] : top[node], Math.min(maxResults, Math.max(1, size * 2)));
+            }
+            top[node][topSize[node]++] = id;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.yaksh.trainms.train.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable array-based timetable for RAPTOR journey planning.
+ * Trips with the same stop sequence are grouped into routes whose trips never overtake each other,
+ * so the earliest trip a passenger can catch at a stop is found by binary search. Every station keeps
+ * the routes serving it, and a query scans each route once per round, so answering "earliest arrival
+ * with at most k transfers" costs O(k * (stops of the scanned routes)) and never touches trains that
+ * do not serve a reached station. Times are minutes since the epoch.
+ */
+public final class Timetable {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final List<Trip> trips;
+    private final Set<String> trainPrns = new HashSet<>();
+    private final Map<String, Integer> stationIds = new HashMap<>();
+
+    // Stations of route r are routeStops[routeStopOffset[r] .. + routeStopCount[r]]
+    private final int[] routeStopOffset;
+    private final int[] routeStopCount;
+    private final int[] routeStops;
+
+    // Trips of route r are routeTrips[routeTripOffset[r] .. + routeTripCount[r]], ordered by departure
+    private final int[] routeTripOffset;
+    private final int[] routeTripCount;
+    private final Trip[] routeTrips;
+
+    // Time of trip t of route r at stop p is stopTimes[routeTimeOffset[r] + t * routeStopCount[r] + p]
+    private final int[] routeTimeOffset;
+    private final int[] stopTimes;
+
+    // Routes serving station s are encoded as (route, stop position) pairs in stationRoutes[stationRouteOffset[s] .. stationRouteOffset[s + 1]]
+    private final int[] stationRouteOffset;
+    private final int[] stationRoutes;
+
+    /**
+     * Compiles the trips into routes and station indexes.
+     *
+     * @param trips The trips, each with at least two stops and non-decreasing times.
+     */
+    public Timetable(Collection<Trip> trips) {
+        this.trips = List.copyOf(trips);
+
+        List<List<Trip>> routes = new ArrayList<>();
+        Map<String, List<Integer>> routesByPattern = new LinkedHashMap<>();
+        this.trips.stream()
+                .sorted(Comparator.comparingInt((Trip trip) -> trip.times()[0]).thenComparing(Trip::prn))
+                .forEach(trip -> {
+                    trainPrns.add(trip.prn());
+                    for (String station : trip.stations()) {
+                        stationIds.putIfAbsent(station, stationIds.size());
+                    }
+                    // Join the first route with the same stops that this trip does not overtake
+                    List<Integer> candidates = routesByPattern.computeIfAbsent(String.join("\u0000", trip.stations()), pattern -> new ArrayList<>());
+                    for (int route : candidates) {
+                        List<Trip> routeTrips = routes.get(route);
+                        if (!overtakes(trip, routeTrips.get(routeTrips.size() - 1))) {
+                            routeTrips.add(trip);
+                            return;
+                        }
+                    }
+                    candidates.add(routes.size());
+                    routes.add(new ArrayList<>(List.of(trip)));
+                });
+
+        int routeCount = routes.size();
+        routeStopOffset = new int[routeCount];
+        routeStopCount = new int[routeCount];
+        routeTripOffset = new int[routeCount];
+        routeTripCount = new int[routeCount];
+        routeTimeOffset = new int[routeCount];
+        int stopTotal = 0;
+        int timeTotal = 0;
+        for (int route = 0; route < routeCount; route++) {
+            int stops = routes.get(route).get(0).stations().length;
+            routeStopOffset[route] = stopTotal;
+            routeStopCount[route] = stops;
+            routeTripOffset[route] = route == 0 ? 0 : routeTripOffset[route - 1] + routeTripCount[route - 1];
+            routeTripCount[route] = routes.get(route).size();
+            routeTimeOffset[route] = timeTotal;
+            stopTotal += stops;
+            timeTotal += stops * routes.get(route).size();
+        }
+        routeStops = new int[stopTotal];
+        routeTrips = new Trip[this.trips.size()];
+        stopTimes = new int[timeTotal];
+
+        int[] stationRouteCount = new int[stationIds.size()];
+        for (int route = 0; route < routeCount; route++) {
+            List<Trip> routeTripList = routes.get(route);
+            String[] stations = routeTripList.get(0).stations();
+            for (int position = 0; position < stations.length; position++) {
+                int station = stationIds.get(stations[position]);
+                routeStops[routeStopOffset[route] + position] = station;
+                stationRouteCount[station]++;
+            }
+            for (int trip = 0; trip < routeTripList.size(); trip++) {
+                routeTrips[routeTripOffset[route] + trip] = routeTripList.get(trip);
+                System.arraycopy(routeTripList.get(trip).times(), 0, stopTimes, routeTimeOffset[route] + trip * stations.length, stations.length);
+            }
+        }
+
+        stationRouteOffset = new int[stationIds.size() + 1];
+        for (int station = 0; station < stationIds.size(); station++) {
+            stationRouteOffset[station + 1] = stationRouteOffset[station] + 2 * stationRouteCount[station];
+        }
+        stationRoutes = new int[stationRouteOffset[stationIds.size()]];
+        int[] next = Arrays.copyOf(stationRouteOffset, stationIds.size());
+        for (int route = 0; route < routeCount; route++) {
+            for (int position = 0; position < routeStopCount[route]; position++) {
+                int station = routeStops[routeStopOffset[route] + position];
+                stationRoutes[next[station]++] = route;
+                stationRoutes[next[station]++] = position;
+            }
+        }
+    }
+
+    /**
+     * Tells whether any trip of a train is in this timetable.
+     *
+     * @param prn The PRN of the train.
+     * @return true if the train has a trip here.
+     */
+    public boolean hasTrain(String prn) {
+        return trainPrns.contains(prn);
+    }
+
+    /**
+     * Returns a timetable in which the trips of some trains are replaced, leaving this one unchanged.
+     *
+     * @param replacements The new trips by train PRN, empty to remove a train.
+     * @return The new timetable, or this one if none of the trains had or gets trips.
+     */
+    public Timetable withTrains(Map<String, List<Trip>> replacements) {
+        if (replacements.values().stream().allMatch(List::isEmpty) && replacements.keySet().stream().noneMatch(this::hasTrain)) {
+            return this;
+        }
+        List<Trip> updated = new ArrayList<>(trips.size());
+        trips.stream().filter(trip -> !replacements.containsKey(trip.prn())).forEach(updated::add);
+        replacements.values().forEach(updated::addAll);
+        return new Timetable(updated);
+    }
+
+    /**
+     * Finds the journeys from one station to another that arrive earliest for each number of transfers.
+     * A journey with more transfers is only returned if it arrives strictly earlier than every journey with fewer.
+     *
+     * @param source        The normalized name of the source station.
+     * @param destination   The normalized name of the destination station.
+     * @param departAfter   The earliest departure from the source, in epoch minutes.
+     * @param maxTransfers  The maximum number of changes between trains.
+     * @param minConnection The minimum minutes between arriving with one train and leaving with the next.
+     * @return The journeys ordered by number of transfers, empty if the destination cannot be reached.
+     */
+    public List<Journey> earliestArrivals(String source, String destination, int departAfter, int maxTransfers, int minConnection) {
+        Integer origin = stationIds.get(source);
+        Integer target = stationIds.get(destination);
+        if (origin == null || target == null || origin.equals(target)) {
+            return List.of();
+        }
+        int stationCount = stationIds.size();
+        int rounds = maxTransfers + 1;
+
+        // arrival[k][s] is the earliest arrival at s with k trips, set only when it beats fewer trips
+        int[][] arrival = new int[rounds + 1][stationCount];
+        // The trip ridden to reach s in round k, and the stop position where it was boarded
+        int[][] ridden = new int[rounds + 1][stationCount];
+        int[][] boardedAt = new int[rounds + 1][stationCount];
+        for (int[] times : arrival) {
+            Arrays.fill(times, UNREACHED);
+        }
+        int[] best = new int[stationCount];
+        Arrays.fill(best, UNREACHED);
+        arrival[0][origin] = departAfter;
+        best[origin] = departAfter;
+
+        boolean[] marked = new boolean[stationCount];
+        marked[origin] = true;
+        int[] scanFrom = new int[routeStopCount.length];
+        for (int round = 1; round <= rounds; round++) {
+            // Scan every route through a station improved in the previous round, from its first such stop
+            Arrays.fill(scanFrom, -1);
+            boolean anyMarked = false;
+            for (int station = 0; station < stationCount; station++) {
+                if (!marked[station]) {
+                    continue;
+                }
+                marked[station] = false;
+                anyMarked = true;
+                for (int pair = stationRouteOffset[station]; pair < stationRouteOffset[station + 1]; pair += 2) {
+                    int route = stationRoutes[pair];
+                    int position = stationRoutes[pair + 1];
+                    if (scanFrom[route] < 0 || position < scanFrom[route]) {
+                        scanFrom[route] = position;
+                    }
+                }
+            }
+            if (!anyMarked) {
+                break;
+            }
+
+            for (int route = 0; route < scanFrom.length; route++) {
+                if (scanFrom[route] < 0) {
+                    continue;
+                }
+                int trip = -1;
+                int boardPosition = -1;
+                for (int position = scanFrom[route]; position < routeStopCount[route]; position++) {
+                    int station = routeStops[routeStopOffset[route] + position];
+                    if (trip >= 0) {
+                        int time = stopTime(route, trip, position);
+                        // Keep only arrivals that beat both this station's and the destination's best
+                        if (time < Math.min(best[station], best[target])) {
+                            arrival[round][station] = time;
+                            ridden[round][station] = routeTripOffset[route] + trip;
+                            boardedAt[round][station] = boardPosition;
+                            best[station] = time;
+                            marked[station] = true;
+                        }
+                    }
+                    int previous = arrival[round - 1][station];
+                    if (previous == UNREACHED) {
+                        continue;
+                    }
+                    int ready = station == origin ? previous : previous + minConnection;
+                    if (trip < 0 || ready <= stopTime(route, trip, position)) {
+                        int earliest = earliestTrip(route, position, ready);
+                        if (earliest >= 0 && (trip < 0 || earliest < trip)) {
+                            trip = earliest;
+                            boardPosition = position;
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Journey> journeys = new ArrayList<>();
+        for (int round = 1; round <= rounds; round++) {
+            if (arrival[round][target] != UNREACHED) {
+                journeys.add(new Journey(legsTo(target, round, ridden, boardedAt)));
+            }
+        }
+        return journeys;
+    }
+
+    /**
+     * Follows the trips back from a station reached in a round to the source.
+     *
+     * @param station   The reached station.
+     * @param round     The round in which it was reached.
+     * @param ridden    The trip ridden to each station in each round.
+     * @param boardedAt The stop position where that trip was boarded.
+     * @return The legs of the journey in travel order.
+     */
+    private List<Leg> legsTo(int station, int round, int[][] ridden, int[][] boardedAt) {
+        Leg[] legs = new Leg[round];
+        for (int k = round; k >= 1; k--) {
+            Trip trip = routeTrips[ridden[k][station]];
+            int from = boardedAt[k][station];
+            int to = alightPosition(trip, from, station);
+            legs[k - 1] = new Leg(trip, from, to);
+            station = stationIds.get(trip.stations()[from]);
+        }
+        return List.of(legs);
+    }
+
+    /**
+     * Finds where a trip boarded at a position reaches a station.
+     *
+     * @param trip    The trip.
+     * @param from    The boarding position.
+     * @param station The station id to reach.
+     * @return The first position after the boarding position at the station.
+     */
+    private int alightPosition(Trip trip, int from, int station) {
+        for (int position = from + 1; position < trip.stations().length; position++) {
+            if (stationIds.get(trip.stations()[position]) == station) {
+                return position;
+            }
+        }
+        throw new IllegalStateException("Trip of train " + trip.prn() + " does not reach the station it was ridden to");
+    }
+
+    /**
+     * Finds the first trip of a route that leaves a stop at or after a time.
+     *
+     * @param route    The route.
+     * @param position The stop position in the route.
+     * @param ready    The earliest departure time.
+     * @return The trip index within the route, or -1 if every trip has left.
+     */
+    private int earliestTrip(int route, int position, int ready) {
+        int low = 0;
+        int high = routeTripCount[route];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (stopTime(route, middle, position) < ready) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < routeTripCount[route] ? low : -1;
+    }
+
+    /**
+     * Returns the time of a trip of a route at a stop.
+     *
+     * @param route    The route.
+     * @param trip     The trip index within the route.
+     * @param position The stop position in the route.
+     * @return The time in epoch minutes.
+     */
+    private int stopTime(int route, int trip, int position) {
+        return stopTimes[routeTimeOffset[route] + trip * routeStopCount[route] + position];
+    }
+
+    /**
+     * Tells whether a trip is earlier than another at any stop of their shared stop sequence.
+     *
+     * @param trip     The trip that departs later.
+     * @param previous The trip that departs earlier.
+     * @return true if the later trip overtakes the earlier one.
+     */
+    private static boolean overtakes(Trip trip, Trip previous) {
+        for (int position = 0; position < trip.times().length; position++) {
+            if (trip.times()[position] < previous.times()[position]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One run of a train on a travel date.
+     *
+     * @param prn        The PRN of the train.
+     * @param trainName  The name of the train.
+     * @param travelDate The travel date of the run.
+     * @param stations   The normalized station names in stop order.
+     * @param names      The station names as scheduled.
+     * @param times      The time at each stop, in epoch minutes.
+     */
+    public record Trip(String prn, String trainName, LocalDate travelDate, String[] stations, String[] names, int[] times) {
+    }
+
+    /**
+     * A ride on one trip from one of its stops to a later one.
+     *
+     * @param trip The trip.
+     * @param from The stop position where it is boarded.
+     * @param to   The stop position where it is left.
+     */
+    public record Leg(Trip trip, int from, int to) {
+    }
+
+    /**
+     * A journey made of one or more legs, changing trains between them.
+     *
+     * @param legs The legs in travel order.
+     */
+    public record Journey(List<Leg> legs) {
+    }
+}
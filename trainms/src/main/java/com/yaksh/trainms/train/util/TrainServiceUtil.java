@@ -1,5 +1,6 @@
 package com.yaksh.trainms.train.util;
 
+import com.yaksh.trainms.train.model.StationSchedule;
 import com.yaksh.trainms.train.model.Train;
 import com.yaksh.trainms.train.repository.TrainRepositoryV2;
 
@@ -32,4 +33,13 @@ public interface TrainServiceUtil {
      */
     boolean doesTrainExist(String prn, TrainRepositoryV2 trainRepositoryV2);
 
+    /**
+     * Finds the position of a station in a train's schedule for a travel date.
+     *
+     * @param schedules The stations of the train in travel order.
+     * @param station   The name of the station, matched by its canonical name (see {@link StationSchedule#normalize}).
+     * @return The index of the station in the schedule, or -1 if the train does not stop there.
+     */
+    int stationIndex(List<StationSchedule> schedules, String station);
+
 }
\ No newline at end of file
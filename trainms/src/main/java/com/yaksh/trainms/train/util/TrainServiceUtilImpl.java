@@ -3,6 +3,8 @@ package com.yaksh.trainms.train.util;
 import com.yaksh.trainms.train.model.StationSchedule;
 import com.yaksh.trainms.train.model.Train;
 import com.yaksh.trainms.train.repository.TrainRepositoryV2;
+import com.yaksh.trainms.train.service.StationPositionCache;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +16,9 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class TrainServiceUtilImpl implements TrainServiceUtil {
+    private final StationPositionCache stationPositionCache;
 
     /**
      * Validates if a train is valid for the given source, destination, and travel date.
@@ -27,30 +31,10 @@ public class TrainServiceUtilImpl implements TrainServiceUtil {
      */
     @Override
     public boolean validTrain(String source, String destination, LocalDate travelDate, Train train) {
-        // Retrieve the schedule for the given travel date.
-        List<StationSchedule> schedules = train.getSchedules().get(travelDate.toString());
-        
-        // If no schedule exists for the given date, return false.
-        if (schedules == null) {
-            return false;
-        }
-
-        // Log the retrieved schedules for debugging purposes.
-        log.info(schedules.toString());
-
-        // Find the index of the source station in the schedule.
-        int sourceIndx = schedules.stream()
-                .filter(station -> station.getName().equalsIgnoreCase(source)) // Match station name with source.
-                .findFirst()
-                .map(schedules::indexOf) // Get the index of the matched station.
-                .orElse(-1); // Default to -1 if no match is found.
-
-        // Find the index of the destination station in the schedule.
-        int destinationIndx = schedules.stream()
-                .filter(station -> station.getName().equalsIgnoreCase(destination)) // Match station name with destination.
-                .findFirst()
-                .map(schedules::indexOf) // Get the index of the matched station.
-                .orElse(-1); // Default to -1 if no match is found.
+        // Look up the positions of both stations in the travel date's schedule (-1 if the train does not stop there).
+        String date = travelDate.toString();
+        int sourceIndx = stationPositionCache.position(train, date, source);
+        int destinationIndx = stationPositionCache.position(train, date, destination);
 
         // Return true only if both source and destination are found and source comes before destination.
         return sourceIndx != -1 && destinationIndx != -1 && sourceIndx < destinationIndx;
@@ -66,6 +50,24 @@ public class TrainServiceUtilImpl implements TrainServiceUtil {
     @Override
     public boolean doesTrainExist(String prn, TrainRepositoryV2 trainRepositoryV2) {
         // Use the repository to check if a train with the given PRN exists.
-        return trainRepositoryV2.findById(prn).isPresent();
+        return trainRepositoryV2.existsById(prn);
+    }
+
+    /**
+     * Finds the position of a station in a train's schedule.
+     *
+     * @param schedules The stations of the train in travel order.
+     * @param station   The name of the station, compared by its canonical name.
+     * @return The index of the station in the schedule, or -1 if not found.
+     */
+    @Override
+    public int stationIndex(List<StationSchedule> schedules, String station) {
+        String name = StationSchedule.normalize(station);
+        for (int index = 0; index < schedules.size(); index++) {
+            if (StationSchedule.normalize(schedules.get(index).getName()).equals(name)) {
+                return index;
+            }
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
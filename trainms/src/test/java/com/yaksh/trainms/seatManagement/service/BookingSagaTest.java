@@ -0,0 +1,128 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.seatManagement.DTO.BookingStatusDTO;
+import com.yaksh.trainms.seatManagement.DTO.TicketRequestDTO;
+import com.yaksh.trainms.seatManagement.client.TicketClient;
+import com.yaksh.trainms.seatManagement.store.WaitlistStore;
+import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.enums.BookingSagaStatus;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.service.TrainService;
+import com.yaksh.trainms.train.util.TrainServiceUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingSagaTest {
+    private static final String PRN = "12951";
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 3, 2);
+
+    private final TrainService trainService = mock(TrainService.class);
+    private final TicketClient ticketClient = mock(TicketClient.class);
+    private final WaitlistWorker waitlistWorker = mock(WaitlistWorker.class);
+    private final BookingSagaWorker bookingSagaWorker = mock(BookingSagaWorker.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final InMemorySeatInventoryStore store = new InMemorySeatInventoryStore();
+    private final SeatManagementServiceImpl seatManagementService = new SeatManagementServiceImpl(mock(TrainServiceUtil.class),
+            trainService, ticketClient, store, mock(WaitlistStore.class), waitlistWorker, bookingSagaWorker);
+    private final BookingSagaResumer resumer = new BookingSagaResumer(mongoTemplate, seatManagementService);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(seatManagementService, "backgroundBooking", true);
+        ReflectionTestUtils.setField(seatManagementService, "bookingMaxAttempts", 2);
+        ReflectionTestUtils.setField(seatManagementService, "bookingRetryDelaySeconds", 0L);
+        ReflectionTestUtils.setField(seatManagementService, "bookingRetentionSeconds", 3600L);
+        ReflectionTestUtils.setField(resumer, "resumeBatchSize", 200);
+
+        store.add(PRN, TRAVEL_DATE, 1, 4);
+        when(trainService.canBeBooked(PRN, null, null, TRAVEL_DATE)).thenReturn(Train.builder().prn(PRN).build());
+        when(mongoTemplate.indexOps(TrainSeatInventory.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.find(any(Query.class), eq(TrainSeatInventory.class)))
+                .thenReturn(List.of(TrainSeatInventory.of(PRN, TRAVEL_DATE, null)));
+
+        // Run the saga steps right away instead of on the worker pool
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(bookingSagaWorker).submit(anyString(), any(Runnable.class));
+    }
+
+    @Test
+    void freesTheSeatsOfABookingWhoseTicketCouldNotBeCreated() {
+        when(ticketClient.createTicket(anyString(), any(TicketRequestDTO.class)))
+                .thenThrow(new IllegalStateException("ticketms is down"));
+
+        String bookingId = book();
+        BookingStatusDTO retried = booking(bookingId);
+        assertThat(retried.getStatus()).isEqualTo(BookingSagaStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).isEqualTo("ticketms is down");
+        assertThat(bookedSeats()).isEqualTo(2);
+
+        resumer.resumePendingBookings();
+
+        BookingStatusDTO compensated = booking(bookingId);
+        assertThat(compensated.getStatus()).isEqualTo(BookingSagaStatus.COMPENSATED);
+        assertThat(compensated.getAttempts()).isEqualTo(2);
+        assertThat(bookedSeats()).isZero();
+        verify(ticketClient, times(2)).createTicket(eq(bookingId), any(TicketRequestDTO.class));
+        verify(waitlistWorker).submit(eq(TrainSeatInventory.idOf(PRN, TRAVEL_DATE)), any(Runnable.class));
+
+        // A finished booking is not attempted again
+        resumer.resumePendingBookings();
+        verify(ticketClient, times(2)).createTicket(anyString(), any(TicketRequestDTO.class));
+    }
+
+    @Test
+    void keepsTheSeatsOfABookingWhoseRetrySucceeds() {
+        when(ticketClient.createTicket(anyString(), any(TicketRequestDTO.class)))
+                .thenThrow(new IllegalStateException("ticketms is down"))
+                .thenReturn(new ResponseDataDTO(false, "Ticket service is busy"))
+                .thenAnswer(invocation -> new ResponseDataDTO(true, "Ticket created", invocation.getArgument(0)));
+        ReflectionTestUtils.setField(seatManagementService, "bookingMaxAttempts", 3);
+
+        String bookingId = book();
+        resumer.resumePendingBookings();
+        assertThat(booking(bookingId).getLastError()).isEqualTo("Ticket service is busy");
+        resumer.resumePendingBookings();
+
+        BookingStatusDTO completed = booking(bookingId);
+        assertThat(completed.getStatus()).isEqualTo(BookingSagaStatus.COMPLETED);
+        assertThat(bookedSeats()).isEqualTo(2);
+        verify(ticketClient, times(3)).createTicket(eq(bookingId), any(TicketRequestDTO.class));
+        verify(waitlistWorker, never()).submit(anyString(), any(Runnable.class));
+    }
+
+    private String book() {
+        ResponseDataDTO response = seatManagementService.bookTrain("user-1", PRN, null, null, TRAVEL_DATE, 2, "user@example.com");
+        assertThat(response.isStatus()).isTrue();
+        return (String) response.getData();
+    }
+
+    private BookingStatusDTO booking(String bookingId) {
+        return (BookingStatusDTO) seatManagementService.getBooking(PRN, TRAVEL_DATE, bookingId).getData();
+    }
+
+    private int bookedSeats() {
+        return store.read(PRN, TRAVEL_DATE, inventory -> inventory.getSeats().bookedCount());
+    }
+}
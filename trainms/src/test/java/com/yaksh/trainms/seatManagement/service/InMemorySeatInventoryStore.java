@@ -0,0 +1,76 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.seatManagement.store.SeatInventoryStore;
+import com.yaksh.trainms.train.model.SeatInventory;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Seat inventory store for tests that keeps train-days in memory. Updates run one at a time against a
+ * copy, which replaces the inventory only if the update returns, like the stores used by trainms.
+ */
+class InMemorySeatInventoryStore implements SeatInventoryStore {
+    private final Map<String, TrainSeatInventory> inventories = new ConcurrentHashMap<>();
+
+    /**
+     * Adds an empty train-day.
+     */
+    void add(String trainPrn, LocalDate travelDate, int coaches, int seatsPerCoach) {
+        inventories.put(TrainSeatInventory.idOf(trainPrn, travelDate),
+                TrainSeatInventory.of(trainPrn, travelDate, SeatInventory.empty(coaches, seatsPerCoach)));
+    }
+
+    @Override
+    public synchronized <T> T update(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> command) {
+        TrainSeatInventory working = find(trainPrn, travelDate).copy();
+        T result = command.apply(working);
+        working.commitChanges(64);
+        inventories.put(working.getId(), working);
+        return result;
+    }
+
+    @Override
+    public <T> T read(String trainPrn, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        return query.apply(find(trainPrn, travelDate));
+    }
+
+    @Override
+    public <T> Map<String, T> readAll(Collection<String> trainPrns, LocalDate travelDate, Function<TrainSeatInventory, T> query) {
+        Map<String, T> results = new LinkedHashMap<>();
+        trainPrns.forEach(trainPrn -> results.put(trainPrn, read(trainPrn, travelDate, query)));
+        return results;
+    }
+
+    @Override
+    public SeatAvailabilityDTO availability(String trainPrn, LocalDate travelDate) {
+        return read(trainPrn, travelDate, inventory -> SeatAvailabilityDTO.of(trainPrn, travelDate, inventory.getSeats()));
+    }
+
+    @Override
+    public int create(Collection<TrainSeatInventory> created) {
+        created.forEach(inventory -> inventories.putIfAbsent(inventory.getId(), inventory));
+        return created.size();
+    }
+
+    @Override
+    public Set<String> remove(Map<String, Long> versions) {
+        versions.keySet().forEach(inventories::remove);
+        return versions.keySet();
+    }
+
+    private TrainSeatInventory find(String trainPrn, LocalDate travelDate) {
+        TrainSeatInventory inventory = inventories.get(TrainSeatInventory.idOf(trainPrn, travelDate));
+        if (inventory == null) {
+            throw new IllegalStateException("No seat inventory for " + TrainSeatInventory.idOf(trainPrn, travelDate));
+        }
+        return inventory;
+    }
+}
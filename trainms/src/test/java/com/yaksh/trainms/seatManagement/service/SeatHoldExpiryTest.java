@@ -0,0 +1,148 @@
+package com.yaksh.trainms.seatManagement.service;
+
+import com.yaksh.trainms.seatManagement.client.TicketClient;
+import com.yaksh.trainms.seatManagement.DTO.TicketRequestDTO;
+import com.yaksh.trainms.seatManagement.store.WaitlistStore;
+import com.yaksh.trainms.train.DTO.ResponseDataDTO;
+import com.yaksh.trainms.train.enums.ResponseStatus;
+import com.yaksh.trainms.train.exceptions.CustomException;
+import com.yaksh.trainms.train.model.SeatHold;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.service.TrainService;
+import com.yaksh.trainms.train.util.TrainServiceUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatHoldExpiryTest {
+    private static final String PRN = "12951";
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 3, 2);
+
+    private final TrainService trainService = mock(TrainService.class);
+    private final TicketClient ticketClient = mock(TicketClient.class);
+    private final WaitlistWorker waitlistWorker = mock(WaitlistWorker.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final InMemorySeatInventoryStore store = new InMemorySeatInventoryStore();
+    private final SeatManagementServiceImpl seatManagementService = new SeatManagementServiceImpl(mock(TrainServiceUtil.class),
+            trainService, ticketClient, store, mock(WaitlistStore.class), waitlistWorker, mock(BookingSagaWorker.class));
+    private final SeatHoldSweeper sweeper = new SeatHoldSweeper(mongoTemplate, store, seatManagementService, mock(WaitlistStore.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(seatManagementService, "holdTtlSeconds", 120L);
+        ReflectionTestUtils.setField(seatManagementService, "ticketMaxAttempts", 1);
+        ReflectionTestUtils.setField(seatManagementService, "ticketConnectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(seatManagementService, "ticketReadTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 500);
+
+        store.add(PRN, TRAVEL_DATE, 1, 2);
+        when(trainService.canBeBooked(PRN, null, null, TRAVEL_DATE)).thenReturn(Train.builder().prn(PRN).build());
+        when(mongoTemplate.indexOps(TrainSeatInventory.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.find(any(Query.class), eq(TrainSeatInventory.class)))
+                .thenReturn(List.of(TrainSeatInventory.of(PRN, TRAVEL_DATE, null)));
+        when(ticketClient.withdrawTicket(anyString())).thenReturn(new ResponseDataDTO(true, "Ticket withdrawn"));
+    }
+
+    @Test
+    void withdrawsTheTicketOfAHoldWhoseSeatsWereSoldAfterItExpired() {
+        when(ticketClient.createTicket(anyString(), any(TicketRequestDTO.class))).thenAnswer(invocation -> {
+            // The ticket service is slow: the hold expires, the sweeper frees it and another booking takes every seat
+            expireHolds();
+            sweeper.releaseExpiredHolds();
+            seatManagementService.bookSeats(PRN, TRAVEL_DATE, 2, null, null);
+            return new ResponseDataDTO(true, "Ticket created", invocation.getArgument(0));
+        });
+
+        assertThatThrownBy(() -> seatManagementService.bookTrain("user-1", PRN, null, null, TRAVEL_DATE, 1, "user@example.com"))
+                .isInstanceOfSatisfying(CustomException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ResponseStatus.SEAT_HOLD_NOT_FOUND));
+
+        String holdId = ticketRequest().getTicketId();
+        verify(ticketClient).withdrawTicket(holdId);
+        verify(waitlistWorker).submit(eq(TrainSeatInventory.idOf(PRN, TRAVEL_DATE)), any(Runnable.class));
+        store.read(PRN, TRAVEL_DATE, inventory -> {
+            assertThat(inventory.getHolds()).isEmpty();
+            assertThat(inventory.getSeats().bookedCount()).isEqualTo(2);
+            return null;
+        });
+    }
+
+    @Test
+    void keepsTheTicketOfAnExpiredHoldWhoseSeatsAreStillFree() {
+        when(ticketClient.createTicket(anyString(), any(TicketRequestDTO.class))).thenAnswer(invocation -> {
+            expireHolds();
+            sweeper.releaseExpiredHolds();
+            return new ResponseDataDTO(true, "Ticket created", invocation.getArgument(0));
+        });
+
+        ResponseDataDTO response = seatManagementService.bookTrain("user-1", PRN, null, null, TRAVEL_DATE, 1, "user@example.com");
+
+        assertThat(response.isStatus()).isTrue();
+        verify(ticketClient, never()).withdrawTicket(anyString());
+        List<List<Integer>> heldSeats = ticketRequest().getBookedSeatsIndex();
+        store.read(PRN, TRAVEL_DATE, inventory -> {
+            assertThat(inventory.getHolds()).isEmpty();
+            assertThat(inventory.getSeats().bookedCount()).isEqualTo(1);
+            assertThat(inventory.getSeats().isBooked(inventory.getSeats().indexOf(heldSeats.get(0)))).isTrue();
+            return null;
+        });
+    }
+
+    @Test
+    void confirmsAHoldThatDidNotExpire() {
+        when(ticketClient.createTicket(anyString(), any(TicketRequestDTO.class))).thenAnswer(invocation -> {
+            sweeper.releaseExpiredHolds();
+            return new ResponseDataDTO(true, "Ticket created", invocation.getArgument(0));
+        });
+
+        seatManagementService.bookTrain("user-1", PRN, null, null, TRAVEL_DATE, 1, "user@example.com");
+
+        verify(ticketClient, never()).withdrawTicket(anyString());
+        verify(waitlistWorker, never()).submit(anyString(), any(Runnable.class));
+        store.read(PRN, TRAVEL_DATE, inventory -> {
+            assertThat(inventory.getHolds()).isEmpty();
+            assertThat(inventory.getSeats().bookedCount()).isEqualTo(1);
+            return null;
+        });
+    }
+
+    /**
+     * Moves the expiry of every hold of the train-day into the past.
+     */
+    private void expireHolds() {
+        Instant expired = Instant.now().minusSeconds(1);
+        store.update(PRN, TRAVEL_DATE, inventory -> {
+            inventory.setHolds(inventory.getHolds().stream()
+                    .map(hold -> new SeatHold(hold.getHoldId(), hold.getSeats(), hold.getFromLeg(), hold.getToLeg(), expired))
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            return null;
+        });
+    }
+
+    private TicketRequestDTO ticketRequest() {
+        ArgumentCaptor<TicketRequestDTO> request = ArgumentCaptor.forClass(TicketRequestDTO.class);
+        verify(ticketClient).createTicket(anyString(), request.capture());
+        return request.getValue();
+    }
+}
@@ -0,0 +1,160 @@
+package com.yaksh.trainms.seatManagement.store;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.yaksh.trainms.train.model.SeatInventory;
+import com.yaksh.trainms.train.model.TrainSeatInventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatBookingEngineTest {
+    private static final String PRN = "12951";
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 3, 2);
+    private static final String ID = TrainSeatInventory.idOf(PRN, TRAVEL_DATE);
+
+    private final PersistentSeatInventoryStore persistentStore = mock(PersistentSeatInventoryStore.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final BulkWriteResult bulkResult = mock(BulkWriteResult.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SeatBookingEngine engine = new SeatBookingEngine(persistentStore, mongoTemplate, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(engine, "threads", 1);
+        ReflectionTestUtils.setField(engine, "mailboxCapacity", 100);
+        ReflectionTestUtils.setField(engine, "commandTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(engine, "idleTimeoutMs", 600000L);
+        ReflectionTestUtils.setField(engine, "changeLogSize", 64);
+        engine.start();
+
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(TrainSeatInventory.class))).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(bulkResult);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void replaysUnflushedBookingsOntoAnInventoryChangedOutsideTheEngine() {
+        // Another writer booked seat 5 and stored version 3 before the engine flushed seat 0 over version 1
+        when(persistentStore.load(PRN, TRAVEL_DATE)).thenReturn(inventory(1L), inventory(3L, 5));
+        engine.update(PRN, TRAVEL_DATE, inventory -> {
+            inventory.getSeats().book(0);
+            return null;
+        });
+        storedVersionIs(3L);
+        when(bulkResult.getMatchedCount()).thenReturn(0);
+
+        engine.flush();
+
+        SeatInventory seats = engine.read(PRN, TRAVEL_DATE, TrainSeatInventory::getSeats);
+        assertThat(seats.isBooked(0)).isTrue();
+        assertThat(seats.isBooked(5)).isTrue();
+        assertThat(seats.bookedCount()).isEqualTo(2);
+        assertThat(meterRegistry.counter("seats.engine.rebase.double.booked").count()).isZero();
+
+        // The next flush writes both bookings over the version found in MongoDB
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+        engine.flush();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(queries.capture(), updates.capture());
+        assertThat(queries.getAllValues().get(0).getQueryObject().get("version")).isEqualTo(1L);
+        assertThat(queries.getAllValues().get(1).getQueryObject().get("version")).isEqualTo(3L);
+        Document written = (Document) updates.getAllValues().get(1).getUpdateObject().get("$set");
+        SeatInventory writtenSeats = (SeatInventory) written.get("seats");
+        assertThat(writtenSeats.isBooked(0)).isTrue();
+        assertThat(writtenSeats.isBooked(5)).isTrue();
+        assertThat(written.get("version")).isEqualTo(4L);
+    }
+
+    @Test
+    void countsSeatsBookedBothByTheEngineAndOutsideIt() {
+        when(persistentStore.load(PRN, TRAVEL_DATE)).thenReturn(inventory(1L), inventory(3L, 0));
+        engine.update(PRN, TRAVEL_DATE, inventory -> {
+            inventory.getSeats().book(0);
+            inventory.getSeats().book(1);
+            return null;
+        });
+        storedVersionIs(3L);
+        when(bulkResult.getMatchedCount()).thenReturn(0);
+
+        engine.flush();
+
+        SeatInventory seats = engine.read(PRN, TRAVEL_DATE, TrainSeatInventory::getSeats);
+        assertThat(seats.isBooked(0)).isTrue();
+        assertThat(seats.isBooked(1)).isTrue();
+        assertThat(meterRegistry.counter("seats.engine.rebase.double.booked").count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsBookingsOfAWriteThatWasAppliedAlthoughItsResultWasLost() {
+        when(persistentStore.load(PRN, TRAVEL_DATE)).thenReturn(inventory(1L));
+        engine.update(PRN, TRAVEL_DATE, inventory -> {
+            inventory.getSeats().book(0);
+            return null;
+        });
+        doThrow(new IllegalStateException("connection reset")).when(bulk).execute();
+        engine.flush();
+
+        // The write went through, so the next flush resolves it instead of rebasing
+        storedVersionIs(2L);
+        engine.update(PRN, TRAVEL_DATE, inventory -> {
+            inventory.getSeats().book(1);
+            return null;
+        });
+        doReturn(bulkResult).when(bulk).execute();
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+        engine.flush();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(2)).updateOne(queries.capture(), any(Update.class));
+        assertThat(queries.getAllValues().get(1).getQueryObject().get("version")).isEqualTo(2L);
+        verify(persistentStore, never()).materialize(any());
+        SeatInventory seats = engine.read(PRN, TRAVEL_DATE, TrainSeatInventory::getSeats);
+        assertThat(seats.isBooked(0)).isTrue();
+        assertThat(seats.isBooked(1)).isTrue();
+    }
+
+    private void storedVersionIs(long version) {
+        when(mongoTemplate.find(any(Query.class), eq(TrainSeatInventory.class)))
+                .thenReturn(List.of(TrainSeatInventory.builder().id(ID).version(version).build()));
+    }
+
+    private static TrainSeatInventory inventory(Long version, int... booked) {
+        SeatInventory seats = SeatInventory.empty(2, 4);
+        for (int index : booked) {
+            seats.book(index);
+        }
+        seats.drainChangedSeats();
+        TrainSeatInventory inventory = TrainSeatInventory.of(PRN, TRAVEL_DATE, seats);
+        inventory.setVersion(version);
+        return inventory;
+    }
+}
@@ -0,0 +1,104 @@
+package com.yaksh.trainms.train.migration;
+
+import com.yaksh.trainms.train.model.ServicePattern;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScheduleTemplateMigrationTest {
+    private static final LocalDate START = LocalDate.of(2026, 3, 2);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ScheduleTemplateMigration migration = new ScheduleTemplateMigration(mongoTemplate);
+
+    @Test
+    void migratedTrainExpandsToTheSameSchedules() {
+        Map<String, List<StationSchedule>> schedules = new HashMap<>();
+        START.datesUntil(START.plusDays(14)).forEach(date -> schedules.put(date.toString(), schedule(date, 6)));
+        schedules.put(START.plusDays(4).toString(), schedule(START.plusDays(4), 9));
+        schedules.remove(START.plusDays(9).toString());
+
+        Document update = migrate(schedules);
+
+        Document set = update.get("$set", Document.class);
+        Train migrated = Train.builder()
+                .prn("12951")
+                .servicePattern((ServicePattern) set.get("servicePattern"))
+                .schedules(castSchedules(set.get("schedules")))
+                .build();
+        assertThat(migrated.getSchedules()).containsOnlyKeys(START.plusDays(4).toString());
+        assertThat(migrated.scheduledDates()).containsExactlyInAnyOrderElementsOf(schedules.keySet());
+        schedules.forEach((date, schedule) -> assertThat(migrated.scheduleOn(date)).isEqualTo(schedule));
+    }
+
+    @Test
+    void dropsTheSchedulesWhenAllMatchThePattern() {
+        Map<String, List<StationSchedule>> schedules = new HashMap<>();
+        START.datesUntil(START.plusDays(3)).forEach(date -> schedules.put(date.toString(), schedule(date, 6)));
+
+        Document update = migrate(schedules);
+
+        assertThat(update.get("$unset", Document.class)).containsOnlyKeys("schedules");
+        assertThat(update.get("$set", Document.class)).containsOnlyKeys("servicePattern");
+    }
+
+    @Test
+    void keepsTrainsWithoutASharedPattern() {
+        Map<String, List<StationSchedule>> schedules = Map.of(
+                START.toString(), schedule(START, 6),
+                START.plusDays(1).toString(), schedule(START.plusDays(1), 7));
+        when(mongoTemplate.stream(any(Query.class), eq(Train.class)))
+                .thenReturn(Stream.of(Train.builder().prn("12951").schedules(schedules).build()));
+
+        migration.run(null);
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Train.class));
+    }
+
+    /**
+     * Runs the migration over one train and returns the update it stored.
+     */
+    private Document migrate(Map<String, List<StationSchedule>> schedules) {
+        when(mongoTemplate.stream(any(Query.class), eq(Train.class)))
+                .thenReturn(Stream.of(Train.builder().prn("12951").schedules(new HashMap<>(schedules)).build()));
+
+        migration.run(null);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Train.class));
+        return update.getValue().getUpdateObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<StationSchedule>> castSchedules(Object schedules) {
+        return (Map<String, List<StationSchedule>>) schedules;
+    }
+
+    /**
+     * Builds the schedule of a day train leaving at an hour of a travel date.
+     */
+    private static List<StationSchedule> schedule(LocalDate travelDate, int hour) {
+        return List.of(
+                new StationSchedule("Ahmedabad", travelDate.atTime(hour, 0)),
+                new StationSchedule("Vadodara", travelDate.atTime(hour + 1, 45)));
+    }
+}
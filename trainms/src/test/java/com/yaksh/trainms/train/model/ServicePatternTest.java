@@ -0,0 +1,114 @@
+package com.yaksh.trainms.train.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServicePatternTest {
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void expandsToTheSchedulesOfEveryDay() {
+        Map<String, List<StationSchedule>> schedules = new HashMap<>();
+        MONDAY.datesUntil(MONDAY.plusDays(10)).forEach(date -> schedules.put(date.toString(), overnight(date, 22)));
+
+        ServicePattern pattern = ServicePattern.fromSchedules(schedules);
+
+        assertThat(pattern.isValid()).isTrue();
+        assertThat(pattern.getStops()).extracting(PatternStop::getDayOffset).containsExactly(0, 0, 1);
+        assertThat(pattern.getCalendar().getDaysOfWeek()).isNull();
+        assertThat(pattern.getCalendar().getRemovedDates()).isNull();
+        assertRoundTrip(pattern, schedules);
+        assertThat(pattern.scheduleOn(MONDAY.minusDays(1))).isNull();
+        assertThat(pattern.scheduleOn(MONDAY.plusDays(10))).isNull();
+    }
+
+    @Test
+    void keepsTheWeekdaysAndRemovesTheMissedDates() {
+        Map<String, List<StationSchedule>> schedules = new HashMap<>();
+        for (int week = 0; week < 4; week++) {
+            LocalDate monday = MONDAY.plusWeeks(week);
+            schedules.put(monday.toString(), overnight(monday, 22));
+            if (week != 2) {
+                schedules.put(monday.plusDays(2).toString(), overnight(monday.plusDays(2), 22));
+            }
+        }
+
+        ServicePattern pattern = ServicePattern.fromSchedules(schedules);
+
+        assertThat(pattern.getCalendar().getDaysOfWeek()).containsExactlyInAnyOrder(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY);
+        assertThat(pattern.getCalendar().getRemovedDates()).containsExactly(MONDAY.plusWeeks(2).plusDays(2));
+        assertRoundTrip(pattern, schedules);
+    }
+
+    @Test
+    void leavesOutTheDatesThatDifferFromThePattern() {
+        Map<String, List<StationSchedule>> schedules = new HashMap<>();
+        MONDAY.datesUntil(MONDAY.plusDays(5)).forEach(date -> schedules.put(date.toString(), overnight(date, 22)));
+        LocalDate delayed = MONDAY.plusDays(2);
+        schedules.put(delayed.toString(), overnight(delayed, 23));
+
+        ServicePattern pattern = ServicePattern.fromSchedules(schedules);
+
+        assertThat(pattern.scheduleOn(delayed)).isNull();
+        schedules.remove(delayed.toString());
+        assertRoundTrip(pattern, schedules);
+    }
+
+    @Test
+    void findsNoPatternWithoutTwoMatchingDates() {
+        Map<String, List<StationSchedule>> schedules = Map.of(
+                MONDAY.toString(), overnight(MONDAY, 22),
+                MONDAY.plusDays(1).toString(), overnight(MONDAY.plusDays(1), 23),
+                "not-a-date", overnight(MONDAY, 22));
+
+        assertThat(ServicePattern.fromSchedules(schedules)).isNull();
+    }
+
+    @Test
+    void rollsTheCalendarForward() {
+        ServiceCalendar calendar = new ServiceCalendar(MONDAY, MONDAY.plusDays(13), Set.of(DayOfWeek.MONDAY),
+                Set.of(MONDAY.plusDays(1), MONDAY.plusDays(20)), Set.of(MONDAY.plusDays(7)));
+
+        ServiceCalendar remaining = calendar.from(MONDAY.plusDays(3));
+
+        assertThat(remaining.getStartDate()).isEqualTo(MONDAY.plusDays(3));
+        assertThat(remaining.getAddedDates()).containsExactly(MONDAY.plusDays(20));
+        assertThat(remaining.getRemovedDates()).containsExactly(MONDAY.plusDays(7));
+        assertThat(remaining.dates()).containsExactly(MONDAY.plusDays(20));
+        assertThat(remaining.isValid()).isTrue();
+
+        ServiceCalendar addedOnly = calendar.from(MONDAY.plusDays(14));
+        assertThat(addedOnly.getStartDate()).isEqualTo(MONDAY.plusDays(20));
+        assertThat(addedOnly.getEndDate()).isEqualTo(MONDAY.plusDays(20));
+        assertThat(addedOnly.dates()).containsExactly(MONDAY.plusDays(20));
+
+        assertThat(calendar.from(MONDAY.plusDays(21))).isNull();
+    }
+
+    /**
+     * Checks that a pattern runs on exactly the dates of the schedules and expands to each of them.
+     */
+    private static void assertRoundTrip(ServicePattern pattern, Map<String, List<StationSchedule>> schedules) {
+        assertThat(pattern.getCalendar().dates()).extracting(LocalDate::toString)
+                .containsExactlyInAnyOrderElementsOf(schedules.keySet());
+        schedules.forEach((date, schedule) -> assertThat(pattern.scheduleOn(LocalDate.parse(date))).isEqualTo(schedule));
+    }
+
+    /**
+     * Builds the schedule of an overnight train leaving at an hour of a travel date.
+     */
+    private static List<StationSchedule> overnight(LocalDate travelDate, int hour) {
+        return List.of(
+                new StationSchedule("Mumbai Central", travelDate.atTime(hour, 0)),
+                new StationSchedule("Surat", travelDate.atTime(hour, 0).plusMinutes(90)),
+                new StationSchedule("New Delhi", travelDate.plusDays(1).atTime(hour - 14, 30)));
+    }
+}
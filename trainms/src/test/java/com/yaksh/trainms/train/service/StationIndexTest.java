@@ -0,0 +1,109 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.model.PatternStop;
+import com.yaksh.trainms.train.model.ServiceCalendar;
+import com.yaksh.trainms.train.model.ServicePattern;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.StationStop;
+import com.yaksh.trainms.train.model.Train;
+import com.yaksh.trainms.train.repository.StationStopRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StationIndexTest {
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    private final StationStopRepository stationStopRepository = mock(StationStopRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StationIndex stationIndex = new StationIndex(stationStopRepository, mongoTemplate);
+
+    @Test
+    void indexesAPatternOnceWhateverTheLengthOfItsCalendar() {
+        List<StationStop> stops = reindex(patternTrain("12951", MONDAY.plusYears(1)));
+
+        // Three pattern stops and the two stops of the one date with its own schedule
+        assertThat(stops).hasSize(5);
+        assertThat(stops).filteredOn(stop -> stop.getTravelDate() == null).hasSize(3)
+                .allSatisfy(stop -> assertThat(stop.getCalendar().getRemovedDates()).containsExactly(MONDAY.plusDays(2)));
+        verify(stationStopRepository).deleteByTrainPrn("12951");
+    }
+
+    @Test
+    void expandsPatternStopsToTheSearchedDates() {
+        List<StationStop> stops = reindex(patternTrain("12951", MONDAY.plusDays(13)));
+        when(mongoTemplate.find(any(Query.class), eq(StationStop.class))).thenReturn(stops);
+
+        Map<LocalDate, List<String>> trains = stationIndex.trainsBetween("Mumbai Central", "new delhi", MONDAY, MONDAY.plusDays(20));
+
+        // Every weekday of the calendar but the one whose own schedule does not reach New Delhi
+        assertThat(trains.keySet()).containsExactly(
+                MONDAY, MONDAY.plusDays(1), MONDAY.plusDays(3), MONDAY.plusDays(4),
+                MONDAY.plusDays(7), MONDAY.plusDays(8), MONDAY.plusDays(9), MONDAY.plusDays(10), MONDAY.plusDays(11));
+        assertThat(trains.get(MONDAY)).containsExactly("12951");
+        assertThat(stationIndex.trainsBetween("Mumbai Central", "Surat", MONDAY.plusDays(2))).containsExactly("12951");
+        assertThat(stationIndex.trainsBetween("New Delhi", "Mumbai Central", MONDAY)).isEmpty();
+        assertThat(stationIndex.trainsBetween("Mumbai Central", "New Delhi", MONDAY.plusDays(5))).isEmpty();
+    }
+
+    @Test
+    void readsThePatternStopsWithTheDatedOnes() {
+        when(mongoTemplate.find(any(Query.class), eq(StationStop.class))).thenReturn(List.of());
+
+        stationIndex.trainsBetween("Mumbai Central", "New Delhi", MONDAY);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(StationStop.class));
+        assertThat(query.getValue().getQueryObject().getList("$or", Document.class))
+                .contains(new Document("travelDate", null));
+    }
+
+    /**
+     * Reindexes a train and returns the stops it stored.
+     */
+    @SuppressWarnings("unchecked")
+    private List<StationStop> reindex(Train train) {
+        List<StationStop> stored = new ArrayList<>();
+        when(stationStopRepository.insert(any(Iterable.class))).thenAnswer(invocation -> {
+            ((Iterable<StationStop>) invocation.getArgument(0)).forEach(stored::add);
+            return stored;
+        });
+        stationIndex.reindex(train);
+        return stored;
+    }
+
+    /**
+     * Builds a train running Mumbai Central - Surat - New Delhi on weekdays up to an end date, with its
+     * own schedule on the first Wednesday, which ends at Surat.
+     */
+    private static Train patternTrain(String prn, LocalDate endDate) {
+        ServicePattern pattern = new ServicePattern(List.of(
+                new PatternStop("Mumbai Central", 0, LocalTime.of(22, 0)),
+                new PatternStop("Surat", 0, LocalTime.of(23, 30)),
+                new PatternStop("New Delhi", 1, LocalTime.of(8, 30))),
+                new ServiceCalendar(MONDAY, endDate, Set.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                        DayOfWeek.THURSDAY, DayOfWeek.FRIDAY), null, null));
+        LocalDate wednesday = MONDAY.plusDays(2);
+        Map<String, List<StationSchedule>> schedules = Map.of(wednesday.toString(), List.of(
+                new StationSchedule("Mumbai Central", wednesday.atTime(22, 0)),
+                new StationSchedule("Surat", wednesday.atTime(23, 30))));
+        return Train.builder().prn(prn).schedules(schedules).servicePattern(pattern).build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StationPositionCacheTest {
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 3, 2);
+
+    private final StationPositionCache cache = new StationPositionCache(100, 600, new SimpleMeterRegistry());
+
+    @Test
+    void findsStationsByTheirCanonicalName() {
+        Train train = train("Mumbai Central", "Surat", "New Delhi");
+
+        assertThat(cache.position(train, TRAVEL_DATE.toString(), " mumbai  CENTRAL")).isZero();
+        assertThat(cache.position(train, TRAVEL_DATE.toString(), "New Delhi")).isEqualTo(2);
+        assertThat(cache.position(train, TRAVEL_DATE.toString(), "Vadodara")).isEqualTo(-1);
+        assertThat(cache.position(train, TRAVEL_DATE.plusDays(1).toString(), "Surat")).isEqualTo(-1);
+    }
+
+    @Test
+    void followsAScheduleSavedByAnotherInstance() {
+        cache.position(train("Mumbai Central", "Surat", "New Delhi"), TRAVEL_DATE.toString(), "Surat");
+
+        // Another instance added a stop, so the cached positions are stale
+        Train updated = train("Mumbai Central", "Vadodara", "Surat", "New Delhi");
+
+        assertThat(cache.position(updated, TRAVEL_DATE.toString(), "Vadodara")).isEqualTo(1);
+        assertThat(cache.position(updated, TRAVEL_DATE.toString(), "Surat")).isEqualTo(2);
+    }
+
+    @Test
+    void forgetsTheStopsOfASavedTrain() {
+        cache.position(train("Mumbai Central", "Surat"), TRAVEL_DATE.toString(), "Surat");
+        cache.invalidate("12951");
+
+        assertThat(cache.position(train("Surat", "Mumbai Central"), TRAVEL_DATE.toString(), "Surat")).isZero();
+    }
+
+    private static Train train(String... stations) {
+        List<StationSchedule> schedule = IntStream.range(0, stations.length)
+                .mapToObj(index -> new StationSchedule(stations[index], TRAVEL_DATE.atTime(6, 0).plusHours(index)))
+                .toList();
+        return Train.builder().prn("12951").schedules(Map.of(TRAVEL_DATE.toString(), schedule)).build();
+    }
+}
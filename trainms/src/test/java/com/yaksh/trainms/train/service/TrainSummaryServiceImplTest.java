@@ -0,0 +1,82 @@
+package com.yaksh.trainms.train.service;
+
+import com.yaksh.trainms.seatManagement.DTO.SeatAvailabilityDTO;
+import com.yaksh.trainms.seatManagement.service.SeatManagementService;
+import com.yaksh.trainms.train.DTO.TrainSearchPageDTO;
+import com.yaksh.trainms.train.DTO.TrainSummaryDTO;
+import com.yaksh.trainms.train.model.StationSchedule;
+import com.yaksh.trainms.train.model.Train;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrainSummaryServiceImplTest {
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 3, 2);
+
+    private final TrainService trainService = mock(TrainService.class);
+    private final SeatManagementService seatManagementService = mock(SeatManagementService.class);
+    private final TrainSummaryServiceImpl summaryService = new TrainSummaryServiceImpl(trainService, seatManagementService,
+            new StationPositionCache(100, 600, new SimpleMeterRegistry()));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(summaryService, "maxPageSize", 100);
+        when(seatManagementService.getAvailability(anyCollection(), eq(TRAVEL_DATE), eq("Mumbai Central"), eq("New Delhi")))
+                .thenReturn(Map.of("12951", new SeatAvailabilityDTO("12951", TRAVEL_DATE, 72, 40, List.of(40))));
+    }
+
+    @Test
+    void leavesOutTrainsWhoseScheduleMissesAStation() {
+        // The index still lists 12953, but its schedule no longer stops at New Delhi
+        when(trainService.streamTrainsBetween(eq("Mumbai Central"), eq("New Delhi"), eq(TRAVEL_DATE), isNull(), anyInt()))
+                .thenReturn(Stream.of(List.of(
+                        train("12951", "Mumbai Central", "Surat", "New Delhi"),
+                        train("12953", "Mumbai Central", "Surat", "Hazrat Nizamuddin"))));
+
+        List<TrainSummaryDTO> summaries = summaryService
+                .streamTrainSummaries("Mumbai Central", "New Delhi", TRAVEL_DATE, null).toList();
+
+        assertThat(summaries).singleElement().satisfies(summary -> {
+            assertThat(summary.getPrn()).isEqualTo("12951");
+            assertThat(summary.getDestination()).isEqualTo("New Delhi");
+            assertThat(summary.getFreeSeats()).isEqualTo(40);
+        });
+    }
+
+    @Test
+    void continuesAfterTheLastTrainOfAPageEvenIfItWasLeftOut() {
+        when(trainService.streamTrainsBetween(eq("Mumbai Central"), eq("New Delhi"), eq(TRAVEL_DATE), isNull(), eq(3)))
+                .thenReturn(Stream.of(List.of(
+                        train("12951", "Mumbai Central", "New Delhi"),
+                        train("12953", "Mumbai Central", "Surat"),
+                        train("12955", "Mumbai Central", "New Delhi"))));
+
+        TrainSearchPageDTO page = (TrainSearchPageDTO) summaryService
+                .searchTrainSummaries("Mumbai Central", "New Delhi", TRAVEL_DATE, null, 2).getData();
+
+        assertThat(page.getTrains()).extracting(TrainSummaryDTO::getPrn).containsExactly("12951");
+        assertThat(page.getNextCursor()).isEqualTo("12953");
+    }
+
+    private static Train train(String prn, String... stations) {
+        List<StationSchedule> schedule = IntStream.range(0, stations.length)
+                .mapToObj(index -> new StationSchedule(stations[index], TRAVEL_DATE.atTime(6, 0).plusHours(index)))
+                .toList();
+        return Train.builder().prn(prn).trainName("Express " + prn).schedules(Map.of(TRAVEL_DATE.toString(), schedule)).build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.yaksh.trainms.train.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FreeRunIndexTest {
+
+    @Test
+    void findsRunsAndSeatsOfTheInitialState() {
+        // Seats 0-1 free, 2 booked, 3-6 free, 7 booked, 8-9 free
+        boolean[] booked = {false, false, true, false, false, false, false, true, false, false};
+        FreeRunIndex index = new FreeRunIndex(booked.length, seat -> booked[seat]);
+
+        assertThat(index.freeCount()).isEqualTo(8);
+        assertThat(index.longestFreeRun()).isEqualTo(4);
+        assertThat(index.firstFreeRun(1)).isEqualTo(0);
+        assertThat(index.firstFreeRun(3)).isEqualTo(3);
+        assertThat(index.firstFreeRun(4)).isEqualTo(3);
+        assertThat(index.firstFreeRun(5)).isEqualTo(-1);
+        assertThat(index.firstFreeSeats(3)).containsExactly(0, 1, 3);
+        assertThat(index.firstFreeSeats(9)).isNull();
+    }
+
+    @Test
+    void treatsPaddingLeavesAsBooked() {
+        // 5 seats are padded to 8 leaves, which must never be offered
+        FreeRunIndex index = new FreeRunIndex(5, seat -> false);
+
+        assertThat(index.freeCount()).isEqualTo(5);
+        assertThat(index.longestFreeRun()).isEqualTo(5);
+        assertThat(index.firstFreeRun(6)).isEqualTo(-1);
+        assertThat(index.firstFreeSeats(5)).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void findsRunsStraddlingTheMiddleOfANode() {
+        // Seats 2-5 cross the boundary between the two halves of the 8-leaf tree
+        FreeRunIndex index = new FreeRunIndex(8, seat -> seat < 2 || seat > 5);
+
+        assertThat(index.firstFreeRun(4)).isEqualTo(2);
+        assertThat(index.firstFreeRun(3)).isEqualTo(2);
+    }
+
+    @Test
+    void updatesKeepTheIndexInStep() {
+        FreeRunIndex index = new FreeRunIndex(6, seat -> false);
+
+        index.update(2, true);
+        assertThat(index.freeCount()).isEqualTo(5);
+        assertThat(index.longestFreeRun()).isEqualTo(3);
+        assertThat(index.firstFreeRun(3)).isEqualTo(3);
+
+        index.update(2, false);
+        assertThat(index.longestFreeRun()).isEqualTo(6);
+        assertThat(index.firstFreeRun(6)).isEqualTo(0);
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        FreeRunIndex index = new FreeRunIndex(4, seat -> false);
+        FreeRunIndex copy = index.copy();
+
+        copy.update(0, true);
+
+        assertThat(index.freeCount()).isEqualTo(4);
+        assertThat(copy.freeCount()).isEqualTo(3);
+        assertThat(copy.firstFreeSeats(1)).containsExactly(1);
+    }
+
+    @Test
+    void matchesALinearScanAfterRandomUpdates() {
+        Random random = new Random(42);
+        for (int capacity : new int[]{1, 2, 7, 64, 100, 257}) {
+            boolean[] booked = new boolean[capacity];
+            for (int seat = 0; seat < capacity; seat++) {
+                booked[seat] = random.nextBoolean();
+            }
+            FreeRunIndex index = new FreeRunIndex(capacity, seat -> booked[seat]);
+            for (int step = 0; step < 500; step++) {
+                int seat = random.nextInt(capacity);
+                booked[seat] = !booked[seat];
+                index.update(seat, booked[seat]);
+
+                int length = 1 + random.nextInt(Math.min(capacity, 8));
+                assertThat(index.freeCount()).isEqualTo(freeCount(booked));
+                assertThat(index.longestFreeRun()).isEqualTo(longestFreeRun(booked));
+                assertThat(index.firstFreeRun(length)).isEqualTo(firstFreeRun(booked, length));
+                assertThat(index.firstFreeSeats(length)).isEqualTo(firstFreeSeats(booked, length));
+            }
+        }
+    }
+
+    private static int freeCount(boolean[] booked) {
+        return (int) IntStream.range(0, booked.length).filter(seat -> !booked[seat]).count();
+    }
+
+    private static int longestFreeRun(boolean[] booked) {
+        int longest = 0;
+        int run = 0;
+        for (boolean seat : booked) {
+            run = seat ? 0 : run + 1;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    private static int firstFreeRun(boolean[] booked, int length) {
+        int run = 0;
+        for (int seat = 0; seat < booked.length; seat++) {
+            run = booked[seat] ? 0 : run + 1;
+            if (run == length) {
+                return seat - length + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] firstFreeSeats(boolean[] booked, int count) {
+        int[] seats = IntStream.range(0, booked.length).filter(seat -> !booked[seat]).limit(count).toArray();
+        return seats.length == count ? seats : null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.yaksh.trainms.train.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedSerialExecutorTest {
+    private final KeyedSerialExecutor executor = new KeyedSerialExecutor("test", 4);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdown(5);
+    }
+
+    @Test
+    void foldsSubmissionsDuringARunIntoOneMoreRun() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.submit("12951_2026-03-02", () -> {
+            if (runs.incrementAndGet() == 1) {
+                started.countDown();
+                await(release);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int submission = 0; submission < 10; submission++) {
+            executor.submit("12951_2026-03-02", () -> runs.incrementAndGet());
+        }
+        release.countDown();
+
+        awaitIdle();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void neverRunsAKeyInParallelAndForgetsItAfterwards() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        Runnable task = () -> {
+            if (running.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            runs.incrementAndGet();
+            running.decrementAndGet();
+        };
+
+        Thread[] submitters = new Thread[4];
+        for (int thread = 0; thread < submitters.length; thread++) {
+            submitters[thread] = new Thread(() -> {
+                for (int submission = 0; submission < 2000; submission++) {
+                    executor.submit("12951_2026-03-02", task);
+                }
+            });
+            submitters[thread].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        awaitIdle();
+        assertThat(overlaps).hasValue(0);
+        assertThat(runs.get()).isPositive();
+        // A submission after the key was forgotten starts a new run
+        int before = runs.get();
+        executor.submit("12951_2026-03-02", task);
+        awaitIdle();
+        assertThat(runs.get()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void doesNotScheduleAfterShutdown() throws InterruptedException {
+        executor.shutdown(5);
+
+        assertThat(executor.submit("12951_2026-03-02", () -> { })).isFalse();
+        assertThat(pending()).isEmpty();
+    }
+
+    /**
+     * Waits until no key is queued or running.
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pending().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pending()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AtomicInteger> pending() {
+        return (Map<String, AtomicInteger>) ReflectionTestUtils.getField(executor, "pending");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.yaksh.trainms.train.util;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yaksh.trainms.train.model.SeatInventory;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeatInventoryCodecTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsBytes() {
+        // 3 coaches of 25 seats span two words, and the last byte of each leg is only partly used
+        SeatInventory inventory = SeatInventory.empty(3, 25);
+        inventory.book(0);
+        inventory.book(63);
+        inventory.book(64);
+        inventory.book(74);
+
+        byte[] bytes = SeatInventoryCodec.toBytes(inventory);
+
+        assertThat(bytes).hasSize(10);
+        SeatInventory decoded = SeatInventoryCodec.fromBytes(3, 25, 1, bytes);
+        assertThat(decoded).isEqualTo(inventory);
+        assertThat(decoded.freeCount()).isEqualTo(71);
+    }
+
+    @Test
+    void roundTripsBookingsOfEveryLeg() {
+        SeatInventory inventory = SeatInventory.empty(2, 10, 3);
+        inventory.book(1, 0, 1);
+        inventory.book(5, 1, 3);
+        inventory.book(19, 0, 3);
+
+        SeatInventory decoded = SeatInventoryCodec.fromBytes(2, 10, 3, SeatInventoryCodec.toBytes(inventory));
+
+        assertThat(decoded).isEqualTo(inventory);
+        assertThat(decoded.isBooked(1, 1, 3)).isFalse();
+        assertThat(decoded.isBooked(5, 0, 1)).isFalse();
+        assertThat(decoded.isBooked(5, 2, 3)).isTrue();
+        assertThat(decoded.freeCount(0, 3)).isEqualTo(17);
+    }
+
+    @Test
+    void rejectsBitsThatDoNotMatchTheDimensions() {
+        byte[] bytes = SeatInventoryCodec.toBytes(SeatInventory.empty(2, 10));
+
+        assertThatThrownBy(() -> SeatInventoryCodec.fromBytes(2, 10, 2, bytes))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SeatInventoryCodec.fromBytes(3, 10, 1, bytes))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsJson() throws Exception {
+        SeatInventory inventory = SeatInventory.empty(4, 18, 2);
+        inventory.book(7, 0, 1);
+        inventory.book(70, 0, 2);
+
+        String json = objectMapper.writeValueAsString(inventory);
+
+        assertThat(objectMapper.readTree(json).fieldNames()).toIterable()
+                .containsExactly(SeatInventoryCodec.COACHES, SeatInventoryCodec.SEATS_PER_COACH,
+                        SeatInventoryCodec.LEGS, SeatInventoryCodec.BITS);
+        assertThat(objectMapper.readValue(json, SeatInventory.class)).isEqualTo(inventory);
+    }
+
+    @Test
+    void readsTheLegacyMatrixFromJson() throws Exception {
+        SeatInventory decoded = objectMapper.readValue("[[0,1,0],[1,0,0]]", SeatInventory.class);
+
+        assertThat(decoded.toMatrix()).isEqualTo(List.of(List.of(0, 1, 0), List.of(1, 0, 0)));
+        assertThat(decoded.getLegs()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        String json = "{\"coaches\":2,\"seatsPerCoach\":10,\"legs\":1,\"bits\":\"AAAAAA==\"}";
+
+        assertThatThrownBy(() -> objectMapper.readValue(json, SeatInventory.class))
+                .isInstanceOf(JsonMappingException.class)
+                .hasMessageContaining("Invalid seat inventory");
+    }
+
+    @Test
+    void roundTripsBson() {
+        SeatInventory inventory = SeatInventory.empty(2, 5, 2);
+        inventory.book(0, 0, 2);
+        inventory.book(6, 1, 2);
+
+        Document document = new SeatInventoryCodec.BsonWriter().convert(inventory);
+
+        assertThat(document.get(SeatInventoryCodec.BITS)).isInstanceOf(Binary.class);
+        assertThat(document.getInteger(SeatInventoryCodec.FREE_SEATS)).isEqualTo(8);
+        assertThat(document.getList(SeatInventoryCodec.FREE_SEATS_PER_COACH, Integer.class)).containsExactly(4, 4);
+        assertThat(new SeatInventoryCodec.BsonReader().convert(document)).isEqualTo(inventory);
+    }
+
+    @Test
+    void readsTheLegacyMatrixFromBson() {
+        SeatInventory decoded = new SeatInventoryCodec.LegacyMatrixReader()
+                .convert(List.of(List.of(1, 0), List.of(0L, 1L)));
+
+        assertThat(decoded.toMatrix()).isEqualTo(List.of(List.of(1, 0), List.of(0, 1)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.yaksh.trainms.train.util;
+
+import com.yaksh.trainms.train.util.StationTrie.Station;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StationTrieTest {
+    private static final List<Station> STATIONS = List.of(
+            new Station("mumbai central", "Mumbai Central", 40),
+            new Station("mumbai cst", "Mumbai CST", 55),
+            new Station("chennai central", "Chennai Central", 35),
+            new Station("central", "Central", 2),
+            new Station("surat", "Surat", 30),
+            new Station("new delhi", "New Delhi", 60));
+
+    @Test
+    void matchesNamePrefixesMostServedFirst() {
+        StationTrie trie = new StationTrie(STATIONS, 10);
+
+        assertThat(keys(trie.complete("mum", 10))).containsExactly("mumbai cst", "mumbai central");
+        assertThat(keys(trie.complete("mumbai c", 10))).containsExactly("mumbai cst", "mumbai central");
+        assertThat(keys(trie.complete("mumbai ce", 10))).containsExactly("mumbai central");
+    }
+
+    @Test
+    void matchesTheStartOfEveryWordOnce() {
+        StationTrie trie = new StationTrie(STATIONS, 10);
+
+        assertThat(keys(trie.complete("cent", 10))).containsExactly("mumbai central", "chennai central", "central");
+        assertThat(keys(trie.complete("delhi", 10))).containsExactly("new delhi");
+        assertThat(trie.complete("entral", 10)).isEmpty();
+        assertThat(trie.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    void capsTheResultsAtTheLimitAndTheMaximum() {
+        StationTrie trie = new StationTrie(STATIONS, 2);
+
+        assertThat(keys(trie.complete("", 10))).containsExactly("new delhi", "mumbai cst");
+        assertThat(keys(trie.complete("c", 1))).containsExactly("mumbai cst");
+        assertThat(trie.size()).isEqualTo(STATIONS.size());
+    }
+
+    @Test
+    void breaksTiesByKey() {
+        StationTrie trie = new StationTrie(List.of(new Station("sb", "Sb", 5), new Station("sa", "Sa", 5)), 10);
+
+        assertThat(keys(trie.complete("s", 10))).containsExactly("sa", "sb");
+    }
+
+    @Test
+    void handlesAnEmptyCatalogue() {
+        StationTrie trie = new StationTrie(List.of(), 10);
+
+        assertThat(trie.size()).isZero();
+        assertThat(trie.complete("", 10)).isEmpty();
+        assertThat(trie.complete("a", 10)).isEmpty();
+    }
+
+    @Test
+    void matchesALinearScanOverManyStations() {
+        Random random = new Random(7);
+        List<Station> stations = new ArrayList<>();
+        for (int id = 0; id < 2000; id++) {
+            String key = word(random) + (random.nextBoolean() ? " " + word(random) : "") + " " + id;
+            stations.add(new Station(key, key, random.nextInt(50)));
+        }
+        StationTrie trie = new StationTrie(stations, 8);
+
+        for (int lookup = 0; lookup < 300; lookup++) {
+            String prefix = word(random).substring(0, 1 + random.nextInt(2));
+            List<String> expected = stations.stream()
+                    .filter(station -> IntStream.range(0, station.key().length())
+                            .anyMatch(start -> (start == 0 || station.key().charAt(start - 1) == ' ')
+                                    && station.key().startsWith(prefix, start)))
+                    .sorted((first, second) -> first.trains() != second.trains()
+                            ? Integer.compare(second.trains(), first.trains())
+                            : first.key().compareTo(second.key()))
+                    .limit(5)
+                    .map(Station::key)
+                    .toList();
+            assertThat(keys(trie.complete(prefix, 5))).as(prefix).isEqualTo(expected);
+        }
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[3 + random.nextInt(4)];
+        for (int index = 0; index < letters.length; index++) {
+            letters[index] = (char) ('a' + random.nextInt(6));
+        }
+        return new String(letters);
+    }
+
+    private static List<String> keys(List<Station> stations) {
+        return stations.stream().map(Station::key).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.yaksh.trainms.train.util;
+
+import com.yaksh.trainms.train.util.Timetable.Journey;
+import com.yaksh.trainms.train.util.Timetable.Leg;
+import com.yaksh.trainms.train.util.Timetable.Trip;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableTest {
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 1, 15);
+
+    // A slow direct train, and two trains from b to d that are faster than staying on it
+    private static final Trip SLOW = trip("slow", "a 0", "b 60", "d 500");
+    private static final Trip FAST = trip("fast", "b 70", "d 200");
+    private static final Trip LATER = trip("later", "b 100", "d 300");
+
+    @Test
+    void findsTheDirectTripAndFasterTransfers() {
+        Timetable timetable = new Timetable(List.of(SLOW, FAST, LATER));
+
+        List<Journey> journeys = timetable.earliestArrivals("a", "d", 0, 1, 10);
+
+        assertThat(journeys).hasSize(2);
+        assertThat(legs(journeys.get(0))).containsExactly("slow a-d");
+        assertThat(legs(journeys.get(1))).containsExactly("slow a-b", "fast b-d");
+    }
+
+    @Test
+    void respectsTheMinimumConnection() {
+        Timetable timetable = new Timetable(List.of(SLOW, FAST, LATER));
+
+        List<Journey> journeys = timetable.earliestArrivals("a", "d", 0, 1, 15);
+
+        assertThat(journeys).hasSize(2);
+        assertThat(legs(journeys.get(1))).containsExactly("slow a-b", "later b-d");
+    }
+
+    @Test
+    void limitsTheNumberOfTransfers() {
+        Timetable timetable = new Timetable(List.of(SLOW, FAST, LATER));
+
+        assertThat(timetable.earliestArrivals("a", "d", 0, 0, 10))
+                .singleElement()
+                .satisfies(journey -> assertThat(legs(journey)).containsExactly("slow a-d"));
+    }
+
+    @Test
+    void dropsTransfersThatDoNotArriveEarlier() {
+        Timetable timetable = new Timetable(List.of(trip("direct", "a 0", "b 60", "d 150"), FAST));
+
+        assertThat(timetable.earliestArrivals("a", "d", 0, 2, 10))
+                .singleElement()
+                .satisfies(journey -> assertThat(legs(journey)).containsExactly("direct a-d"));
+    }
+
+    @Test
+    void backtracksEveryLegOfAJourney() {
+        Timetable timetable = new Timetable(List.of(
+                trip("first", "a 0", "x 30", "b 60", "y 90"),
+                trip("second", "z 50", "b 70", "c 100"),
+                trip("third", "c 110", "d 150")));
+
+        assertThat(timetable.earliestArrivals("a", "d", 0, 1, 5)).isEmpty();
+        List<Journey> journeys = timetable.earliestArrivals("a", "d", 0, 2, 5);
+
+        assertThat(journeys).singleElement()
+                .satisfies(journey -> assertThat(legs(journey)).containsExactly("first a-b", "second b-c", "third c-d"));
+        List<Leg> legs = journeys.get(0).legs();
+        assertThat(legs.get(0).from()).isEqualTo(0);
+        assertThat(legs.get(0).to()).isEqualTo(2);
+        assertThat(legs.get(1).from()).isEqualTo(1);
+        assertThat(legs.get(1).to()).isEqualTo(2);
+    }
+
+    @Test
+    void catchesATripThatOvertakesAnEarlierOne() {
+        // Both trains stop at the same stations, but the express leaves later and arrives first
+        Timetable timetable = new Timetable(List.of(trip("local", "a 0", "d 100"), trip("express", "a 10", "d 50")));
+
+        assertThat(timetable.earliestArrivals("a", "d", 0, 0, 10))
+                .singleElement()
+                .satisfies(journey -> assertThat(legs(journey)).containsExactly("express a-d"));
+    }
+
+    @Test
+    void ignoresTripsThatLeftBeforeTheDeparture() {
+        Timetable timetable = new Timetable(List.of(SLOW, trip("evening", "a 600", "d 700")));
+
+        assertThat(timetable.earliestArrivals("a", "d", 1, 0, 10))
+                .singleElement()
+                .satisfies(journey -> assertThat(legs(journey)).containsExactly("evening a-d"));
+        assertThat(timetable.earliestArrivals("a", "d", 601, 0, 10)).isEmpty();
+        assertThat(timetable.earliestArrivals("a", "unknown", 0, 0, 10)).isEmpty();
+        assertThat(timetable.earliestArrivals("a", "a", 0, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void replacesAndRemovesTrains() {
+        Timetable timetable = new Timetable(List.of(SLOW, FAST, LATER));
+
+        Timetable updated = timetable.withTrains(Map.of(
+                "fast", List.of(trip("fast", "b 80", "d 250")),
+                "later", List.of()));
+
+        assertThat(updated.hasTrain("later")).isFalse();
+        assertThat(legs(updated.earliestArrivals("a", "d", 0, 1, 15).get(1))).containsExactly("slow a-b", "fast b-d");
+        assertThat(updated.earliestArrivals("a", "d", 0, 1, 15).get(1).legs().get(1).trip().times()).containsExactly(80, 250);
+        assertThat(timetable.hasTrain("later")).isTrue();
+        assertThat(timetable.withTrains(Map.of("unknown", List.of()))).isSameAs(timetable);
+    }
+
+    /**
+     * Builds a trip from "station time" stops.
+     */
+    private static Trip trip(String prn, String... stops) {
+        String[] stations = new String[stops.length];
+        int[] times = new int[stops.length];
+        for (int stop = 0; stop < stops.length; stop++) {
+            String[] parts = stops[stop].split(" ");
+            stations[stop] = parts[0];
+            times[stop] = Integer.parseInt(parts[1]);
+        }
+        return new Trip(prn, prn.toUpperCase(), TRAVEL_DATE, stations, stations, times);
+    }
+
+    /**
+     * Describes each leg of a journey as "prn from-to".
+     */
+    private static List<String> legs(Journey journey) {
+        return journey.legs().stream()
+                .map(leg -> leg.trip().prn() + " " + leg.trip().stations()[leg.from()] + "-" + leg.trip().stations()[leg.to()])
+                .toList();
+    }
+}
@@ -5,6 +5,7 @@ import com.yaksh.userms.user.DTO.ResponseDataDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 /**
  * Feign client interface for interacting with the Train Microservice (TRAINMS).
@@ -17,11 +18,12 @@ public interface TrainClient {
     /**
      * Sends a POST request to the TRAINMS to book train seats.
      *
+     * @param idempotencyKey The key identifying the booking, so a retried request returns the first booking.
      * @param requestDTO The request payload containing the details required to book seats.
      *                   This includes information such as train ID, user details, and seat preferences.
      * @return ResponseDataDTO containing the response data from the TRAINMS.
      *         The response typically indicates whether the booking was successful or not.
      */
     @PostMapping("/v1/seats/book")
-    ResponseDataDTO bookSeats(@RequestBody BookTrainRequestDTO requestDTO);
+    ResponseDataDTO bookSeats(@RequestHeader("Idempotency-Key") String idempotencyKey, @RequestBody BookTrainRequestDTO requestDTO);
 }
\ No newline at end of file
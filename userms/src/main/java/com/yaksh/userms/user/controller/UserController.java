@@ -11,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.UUID;
 
 /**
  * Controller class for handling user-related operations such as login, signup, ticket booking, and ticket management.
@@ -59,6 +60,7 @@ public class UserController {
      * @param destination            The destination station of the journey.
      * @param dateOfTravel           The date of travel for the ticket.
      * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param idempotencyKey          Optional key identifying the booking; one is generated if the client sends none.
      * @return ResponseEntity containing the booking status and ticket details.
      */
     @PostMapping("/bookTicket")
@@ -67,10 +69,13 @@ public class UserController {
             @RequestParam String source,
             @RequestParam String destination,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateOfTravel,
-            @RequestParam int numberOfSeatsToBeBooked) {
+            @RequestParam int numberOfSeatsToBeBooked,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // The key is fixed before the service retries, so every attempt books the same request
+        String bookingKey = idempotencyKey == null || idempotencyKey.isBlank() ? UUID.randomUUID().toString() : idempotencyKey;
         // Call the service layer to handle ticket booking and return the response.
         return ResponseEntity.ok(
-                service.bookTicket(trainPrn, source, destination, dateOfTravel, numberOfSeatsToBeBooked));
+                service.bookTicket(trainPrn, source, destination, dateOfTravel, numberOfSeatsToBeBooked, bookingKey));
     }
 
     /**
@@ -37,9 +37,10 @@ public interface UserBookingService {
      * @param destination The destination station.
      * @param dateOfTravel The date of travel.
      * @param numberOfSeatsToBeBooked The number of seats to book.
+     * @param idempotencyKey The key identifying this booking across retries.
      * @return A ResponseDataDTO containing the result of the booking operation.
      */
-    ResponseDataDTO bookTicket(String trainPrn, String source, String destination, LocalDate dateOfTravel, int numberOfSeatsToBeBooked);
+    ResponseDataDTO bookTicket(String trainPrn, String source, String destination, LocalDate dateOfTravel, int numberOfSeatsToBeBooked, String idempotencyKey);
 
     /**
      * Fetches all tickets booked by the logged-in user.
@@ -150,13 +150,14 @@ public class UserBookingServiceImpl implements UserBookingService {
      * @param destination           The destination station.
      * @param dateOfTravel          The travel date.
      * @param numberOfSeatsToBeBooked The number of seats to be booked.
+     * @param idempotencyKey        The key sent with every attempt, so a retry can not book twice.
      * @return ResponseDataDTO containing booking result.
      */
     @Override
     @CircuitBreaker(name = "trainBookingBreaker", fallbackMethod = "trainBookingFallback")
     @Retry(name = "trainBookingRetry", fallbackMethod = "trainBookingFallback")
     public ResponseDataDTO bookTicket(String trainPrn, String source, String destination,
-                                      LocalDate dateOfTravel, int numberOfSeatsToBeBooked) {
+                                      LocalDate dateOfTravel, int numberOfSeatsToBeBooked, String idempotencyKey) {
         log.info("Booking attempt - Train: {}, Seats: {}", trainPrn, numberOfSeatsToBeBooked);
 
         // Ensure the user is logged in
@@ -181,7 +182,7 @@ public class UserBookingServiceImpl implements UserBookingService {
                 .numberOfSeatsToBeBooked(numberOfSeatsToBeBooked)
                 .build();
 
-        ResponseDataDTO bookingResponse = trainClient.bookSeats(bookTrainRequestDTO);
+        ResponseDataDTO bookingResponse = trainClient.bookSeats(idempotencyKey, bookTrainRequestDTO);
 
         try {
             String ticketBookedId = (String) bookingResponse.getData();
@@ -199,7 +200,7 @@ public class UserBookingServiceImpl implements UserBookingService {
     }
 
     public ResponseDataDTO trainBookingFallback(String trainPrn, String source, String destination,
-                                                LocalDate dateOfTravel, int numberOfSeatsToBeBooked, Exception e) {
+                                                LocalDate dateOfTravel, int numberOfSeatsToBeBooked, String idempotencyKey, Exception e) {
         log.error("Train booking fallback triggered due to: {}", e.getMessage());
         return new ResponseDataDTO(false, e.getMessage());
     }